@@ -29,7 +29,7 @@ public class ARPPacket extends IPPacket {
     public ARPPacket(byte[] data, int frmtype) {
         rawpacket = data;
         this.frmtype = frmtype;
-        header = new ARPHeader(new BitBuf(rawpacket), frmtype);
+        header = new ARPHeader(BitBuf.wrap(rawpacket), frmtype);
     }
 
     /**
@@ -13,22 +13,24 @@
 
 package com.ibm.as400.util.commtrace;
 
-import java.io.StringWriter;
-
 /**
  * The BitBuf class is an abstraction for an arbitrarily long string of bits.<br>
  * Its methods allow bit shifting, substring extraction, converting substrings
  * to bytes, shorts, longs, or floats, and representing a bit string as a
  * sequence of binary or hexadecimal digits.<br>
- * A new BitBuf can be constructed from another BitBuf or from a byte array.
+ * A new BitBuf can be constructed from another BitBuf or from a byte array.<br>
+ * A BitBuf constructed from another BitBuf is a view of the same bytes: the
+ * bits are not copied, and are read in place at their bit offset.  The bytes
+ * are copied only before a view is shifted.
  */
 class BitBuf implements Cloneable {
     private byte data[];
+    private int start; // the bit of data at which this BitBuf starts
     private int bitlen; // used if not a byte-boundary;
-    private static StringBuffer binbyte = new StringBuffer("01234567");
-    private static StringBuffer hexbyte = new StringBuffer("FF");
-    private final int masks[] = {128, 64, 32, 16, 8, 4, 2, 1};
-    private final char hexchars[] =
+    private int limit; // bits of data at or after this bit are read as zeros
+    private boolean shared; // data is also used by another BitBuf, so it is copied before a shift
+    private static final int masks[] = {128, 64, 32, 16, 8, 4, 2, 1};
+    private static final char hexchars[] =
             {
                     '0',
                     '1',
@@ -47,6 +49,9 @@ class BitBuf implements Cloneable {
                     'E',
                     'F'};
 
+    private BitBuf() {
+    }
+
     /**
      * Constructs a BitBuf from a byte array.
      *
@@ -55,6 +60,7 @@ class BitBuf implements Cloneable {
     public BitBuf(byte[] bytes) {
         data = (byte[]) bytes.clone();
         bitlen = data.length * 8;
+        limit = bitlen;
     }
 
     /**
@@ -76,6 +82,7 @@ class BitBuf implements Cloneable {
         for (int i = 0; i < ints.length; i++)
             data[i] = (byte) ints[i];
         bitlen = data.length * 8;
+        limit = bitlen;
     }
 
     /**
@@ -87,6 +94,7 @@ class BitBuf implements Cloneable {
         data = new byte[1];
         data[0] = b;
         bitlen = data.length * 8;
+        limit = bitlen;
     }
 
     /**
@@ -97,6 +105,7 @@ class BitBuf implements Cloneable {
     public BitBuf(int i) {
         data = new byte[i];
         bitlen = data.length * 8;
+        limit = bitlen;
     }
 
     /**
@@ -111,12 +120,72 @@ class BitBuf implements Cloneable {
             bitlength = 0;
         bitlen = bitlength;
         int newlen = (bitlength + 7) / 8;
-        data = new byte[newlen];
-        for (int x = 0; x < newlen; x++)
-            data[x] = b.getOctet(bitstart + 8 * x);
-        truncate();
+        if (bitstart < 0 || (bitstart % 8 != 0 && bitstart + 8 * newlen >= b.bitlen)) {
+            // Copy through getOctet(), which treats the last partial byte of b specially.
+            data = new byte[newlen];
+            for (int x = 0; x < newlen; x++)
+                data[x] = b.getOctet(bitstart + 8 * x);
+            limit = newlen * 8;
+            truncate();
+        } else {
+            data = b.data;
+            start = b.start + bitstart;
+            limit = Math.min(b.limit, b.start + b.bitlen);
+            shared = true;
+            b.shared = true;
+        }
     }
 
+    /**
+     * Returns a BitBuf over the specified bytes, without copying them.
+     * The bytes must not be changed while the BitBuf is in use.
+     *
+     * @param bytes  The byte array.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @return The BitBuf.
+     */
+    static BitBuf wrap(byte[] bytes, int offset, int length) {
+        BitBuf b = new BitBuf();
+        b.data = bytes;
+        b.start = offset * 8;
+        b.bitlen = length * 8;
+        b.limit = b.start + b.bitlen;
+        b.shared = true;
+        return b;
+    }
+
+    /**
+     * Returns a BitBuf over all of the specified bytes, without copying them.
+     *
+     * @param bytes The byte array.
+     * @return The BitBuf.
+     */
+    static BitBuf wrap(byte[] bytes) {
+        return wrap(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns the 8 bits of data starting at the specified bit of this BitBuf,
+     * with the bits past the end of this BitBuf as zeros.
+     *
+     * @param bit The bit, from 0 to the length of this BitBuf.
+     * @return The bits, from 0 to 255.
+     */
+    private int bitsAt(int bit) {
+        int abs = start + bit;
+        if (abs >= limit)
+            return 0;
+        int byteloc = abs >> 3;
+        int bitshift = abs & 7;
+        int v = (data[byteloc] & 0xFF) << bitshift;
+        if (bitshift > 0 && abs + 8 - bitshift < limit)
+            v |= (data[byteloc + 1] & 0xFF) >>> (8 - bitshift);
+        int avail = Math.min(limit - abs, bitlen - bit);
+        if (avail < 8)
+            v &= 0xFF << (8 - avail);
+        return v & 0xFF;
+    }
 
     /**
      * Returns a string of binary digits representing the 8 bits starting at bit i.
@@ -125,10 +194,11 @@ class BitBuf implements Cloneable {
      * @return String
      */
     public String byteAsBin(int i) {
-        int x;
-        for (x = 7; x >= 0; x--)
-            binbyte.setCharAt(x, ((data[i] & 0xFF & masks[x]) > 0) ? '1' : '0');
-        return binbyte.toString();
+        int b = bitsAt(i * 8);
+        char[] binbyte = new char[8];
+        for (int x = 7; x >= 0; x--)
+            binbyte[x] = ((b & masks[x]) > 0) ? '1' : '0';
+        return new String(binbyte);
     }
 
     /**
@@ -138,9 +208,8 @@ class BitBuf implements Cloneable {
      * @return String
      */
     public String byteAsHex(int i) {
-        hexbyte.setCharAt(0, hexchars[data[i] >>> 4 & 0xF]);
-        hexbyte.setCharAt(1, hexchars[data[i] & 0xF]);
-        return hexbyte.toString();
+        int b = bitsAt(i * 8);
+        return new String(new char[]{hexchars[b >>> 4], hexchars[b & 0xF]});
     }
 
     /**
@@ -149,7 +218,8 @@ class BitBuf implements Cloneable {
      * @return Object a clone of this BitBuf.
      */
     public Object clone() {
-        BitBuf b = new BitBuf(data);
+        BitBuf b = wrap(getBytes());
+        b.shared = false;
         return b;
     }
 
@@ -162,7 +232,7 @@ class BitBuf implements Cloneable {
     public boolean getBitAsBool(int bit) {
         int byteloc = bit / 8;
         int bitloc = bit % 8;
-        if ((data[byteloc] & 0xFF & masks[bitloc]) > 0)
+        if ((bitsAt(byteloc * 8) & masks[bitloc]) > 0)
             return true;
         else
             return false;
@@ -175,12 +245,7 @@ class BitBuf implements Cloneable {
      * @return the byte at this offset.
      */
     public byte getBitAsByte(int bit) {
-        int byteloc = bit / 8;
-        int bitloc = bit % 8;
-        if ((data[byteloc] & 0xFF & masks[bitloc]) > 0)
-            return (byte) 1;
-        else
-            return (byte) 0;
+        return getBitAsBool(bit) ? (byte) 1 : (byte) 0;
     }
 
     /**
@@ -198,7 +263,18 @@ class BitBuf implements Cloneable {
      * @return byte[] clone of the data in this BitBuf.
      */
     public byte[] getBytes() {
-        return (byte[]) data.clone();
+        int len = getByteSize();
+        byte[] bytes = new byte[len];
+        if ((start & 7) == 0 && start + len * 8 <= limit) {
+            System.arraycopy(data, start >> 3, bytes, 0, len);
+            int tailbits = bitlen % 8;
+            if (tailbits > 0)
+                bytes[len - 1] &= ~((1 << (8 - tailbits)) - 1);
+        } else {
+            for (int x = 0; x < len; x++)
+                bytes[x] = (byte) bitsAt(x * 8);
+        }
+        return bytes;
     }
 
     /**
@@ -208,7 +284,7 @@ class BitBuf implements Cloneable {
      * @return length of this BitBuf in bytes
      */
     public int getByteSize() {
-        return data.length;
+        return (bitlen + 7) / 8;
     }
 
     /**
@@ -223,18 +299,29 @@ class BitBuf implements Cloneable {
         if ((startbit >= bitlen) || (startbit < -8))
             b = 0;
         else if (startbit < 0)
-            b = (byte) ((data[0] & 0xFF) >>> (0 - startbit));
+            b = (byte) (bitsAt(0) >>> (0 - startbit));
         else {
-            int byteloc = startbit / 8;
             int bitshift = startbit % 8;
-            b = data[byteloc];
-            b <<= bitshift;
-            if ((bitshift > 0) && (startbit + 8 < bitlen))
-                b |= (data[byteloc + 1] & 0xFF) >>> (8 - bitshift);
+            if ((bitshift > 0) && (startbit + 8 >= bitlen))
+                b = (byte) (bitsAt(startbit - bitshift) << bitshift); // only the bits of this byte
+            else
+                b = (byte) bitsAt(startbit);
         }
         return b;
     }
 
+    /**
+     * Copies the data, if it is shared with another BitBuf, before it is changed.
+     */
+    private void own() {
+        if (shared || start != 0) {
+            data = getBytes();
+            start = 0;
+            limit = data.length * 8;
+            shared = false;
+        }
+    }
+
     /**
      * Shifts the BitBuf left by x bits, shifting zeros in on the right.
      *
@@ -264,6 +351,7 @@ class BitBuf implements Cloneable {
      * @param d length to shift left
      */
     public void shiftBufferLeft(int d) {
+        own();
         int byteshift = d / 8;
         int bitshift = d % 8;
         if (byteshift > 0)
@@ -289,6 +377,7 @@ class BitBuf implements Cloneable {
      * @param d length to shift right
      */
     public void shiftBufferRight(int d) {
+        own();
         int byteshift = d / 8;
         int bitshift = d % 8;
         if (byteshift > 0)
@@ -346,11 +435,12 @@ class BitBuf implements Cloneable {
      * @return String
      */
     public String toBinString(int groupsize, String separator) {
-        StringWriter out = new StringWriter();
-        for (int x = 0; x < data.length; x++) {
-            out.write(byteAsBin(x));
+        int len = getByteSize();
+        StringBuffer out = new StringBuffer(len * 9);
+        for (int x = 0; x < len; x++) {
+            out.append(byteAsBin(x));
             if ((groupsize != 0) && (x % groupsize == 0))
-                out.write(separator);
+                out.append(separator);
         }
         return out.toString();
     }
@@ -393,11 +483,14 @@ class BitBuf implements Cloneable {
      * @return String
      */
     public String toHexString(int groupsize, String separator) {
-        StringWriter out = new StringWriter();
-        for (int x = 0; x < data.length; x++) {
+        int len = getByteSize();
+        StringBuffer out = new StringBuffer(len * (2 + separator.length()));
+        for (int x = 0; x < len; x++) {
             if ((x != 0) && (groupsize > 0) && (x % groupsize == 0))
-                out.write(separator);
-            out.write(byteAsHex(x));
+                out.append(separator);
+            int b = bitsAt(x * 8);
+            out.append(hexchars[b >>> 4]);
+            out.append(hexchars[b & 0xF]);
         }
         return out.toString();
     }
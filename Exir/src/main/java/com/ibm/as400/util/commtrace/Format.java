@@ -19,7 +19,14 @@ import java.io.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Hashtable;
+import java.util.LinkedList;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * The Format object is an interface between the raw trace file and the records the trace file contains.<br>
@@ -85,6 +92,10 @@ import java.util.Vector;
  * <dt><b>-starttimelong</b></dt><dd> The start of the display range in milliseconds since the epoc</dd>
  * <dt><b>-endtimelong</b></dt><dd> The end of the display range in milliseconds since the epoc</dd>
  * </dl>
+ * <p>
+ * A local trace is read through a memory mapping, and the to*File() methods
+ * decode and format the records on several threads while the records are
+ * read and written in order. See {@link #setFormatThreads(int)}.
  */
 public class Format {
     private static final String ALL = "*ALL", NO = "*NO", CLASS = "Format";
@@ -107,6 +118,8 @@ public class Format {
 
     private FormatProperties filter_;
     private ObjectInputStream serin_;
+    private int formatThreads_ = Runtime.getRuntime().availableProcessors();
+    // The number of threads that decode and format the records
 
     /**
      * Default constructor.
@@ -148,7 +161,7 @@ public class Format {
         }
         // Attempt to open a stream on the file
         try {
-            file_ = new BufferedInputStream(new FileInputStream(infile));
+            file_ = openLocalFile(infile);
         } catch (IOException e) {
             if (Trace.isTraceOn() && Trace.isTraceErrorOn()) {
                 Trace.log(Trace.ERROR, CLASS + ".Format()" + "Error opening:" + infile, e);
@@ -362,12 +375,17 @@ public class Format {
             // User wants to format a file on their local PC
         } else if (system == null || uid == null || pwd == null) {
             try {
-                file_ = new BufferedInputStream(new FileInputStream(filename));
+                file_ = openLocalFile(filename);
             } catch (FileNotFoundException e) {
                 if (Trace.isTraceOn() && Trace.isTraceErrorOn()) {
                     Trace.log(Trace.ERROR, CLASS + ".Format() " + "File " + filename + " not found", e);
                 }
                 return;
+            } catch (IOException e) {
+                if (Trace.isTraceOn() && Trace.isTraceErrorOn()) {
+                    Trace.log(Trace.ERROR, CLASS + ".Format() " + "Error opening " + filename, e);
+                }
+                return;
             }
             // User wants to format a file on the AS400
         } else {
@@ -415,13 +433,18 @@ public class Format {
             return;
         }
         try {
-            file_ = new BufferedInputStream(new FileInputStream(filename));
+            file_ = openLocalFile(filename);
             // Opens a input stream on the local file
         } catch (FileNotFoundException e) {
             if (Trace.isTraceOn() && Trace.isTraceErrorOn()) {
                 Trace.log(Trace.ERROR, CLASS + ".Format() " + "File " + filename + " not found", e);
             }
             return;
+        } catch (IOException e) {
+            if (Trace.isTraceOn() && Trace.isTraceErrorOn()) {
+                Trace.log(Trace.ERROR, CLASS + ".Format() " + "Error opening " + filename, e);
+            }
+            return;
         }
     }
 
@@ -438,6 +461,27 @@ public class Format {
         formatProlog();
     }
 
+    /**
+     * Opens an input stream on a local file. The file is read through a
+     * memory mapping, or through a buffer if it cannot be mapped.
+     *
+     * @param filename The file to open.
+     * @return The input stream.
+     * @throws IOException If the file cannot be opened.
+     */
+    private static InputStream openLocalFile(String filename) throws IOException {
+        try {
+            return new MappedFileInputStream(filename);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            if (Trace.isTraceOn() && Trace.isTraceWarningOn()) {
+                Trace.log(Trace.WARNING, CLASS + ".openLocalFile() " + "Error mapping " + filename + ", reading it instead", e);
+            }
+            return new BufferedInputStream(new FileInputStream(filename));
+        }
+    }
+
     /**
      * Called by the JVM to Format a file.
      *
@@ -517,6 +561,18 @@ public class Format {
         sys = system;
     }
 
+    /**
+     * Sets the number of threads that decode and format the records
+     * when the trace is written to a file. The records are still written
+     * in order. The default is the number of available processors; with
+     * 1 the records are formatted on the calling thread.
+     *
+     * @param threads The number of threads.
+     */
+    public void setFormatThreads(int threads) {
+        formatThreads_ = (threads < 1) ? 1 : threads;
+    }
+
     /**
      * Formats the trace and sends the output to an IFS text file on the system we are bound to.
      *
@@ -553,14 +609,15 @@ public class Format {
                 return 1;
             }
             int recPrinted = 0;
-            Frame rec;
+            String rec;
+            RecordFormatter recs = new RecordFormatter(false);
             try {
                 out.write(pro_.toString());
-                while ((rec = getNextRecord()) != null) {
+                while ((rec = recs.next()) != null) {
                     if (recPrinted % 5 == 0) {
                         out.write(addBanner());
                     }
-                    out.write(rec.toString());
+                    out.write(rec);
                     recPrinted++;
                 }
                 out.write(addEndBanner());
@@ -569,6 +626,8 @@ public class Format {
                     Trace.log(Trace.ERROR, CLASS + ".toIFSTxtFile() " + "Error writing to " + filename, e);
                 }
                 return 1;
+            } finally {
+                recs.close();
             }
         } finally {
             if (out != null) {
@@ -608,14 +667,15 @@ public class Format {
         }
 
         int recPrinted = 0;
-        Frame rec;
+        String rec;
+        RecordFormatter recs = new RecordFormatter(false);
         try {
             out.write(pro_.toString());
-            while ((rec = getNextRecord()) != null) {
+            while ((rec = recs.next()) != null) {
                 if (recPrinted % 5 == 0) {
                     out.write(addBanner());
                 }
-                out.write(rec.toString());
+                out.write(rec);
                 recPrinted++;
             }
             out.write(addEndBanner());
@@ -624,6 +684,8 @@ public class Format {
                 Trace.log(Trace.ERROR, CLASS + ".toLclTxtFile() " + "Error writing to " + filename, e);
             }
             return 1;
+        } finally {
+            recs.close();
         }
         try {
             out.flush();
@@ -674,12 +736,12 @@ public class Format {
                 return 1;
             }
 
+            RecordFormatter recs = new RecordFormatter(true);
             try {
                 out.writeUTF(pro_.toString());
                 out.writeInt(ifsrecs);
-                Frame rec = null;
-                while ((rec = getNextRecord()) != null) {
-                    String record = rec.toString(filter_);
+                String record;
+                while ((record = recs.next()) != null) {
                     if (record.length() != 0) {
                         out.writeUTF(record);
                     }
@@ -695,6 +757,8 @@ public class Format {
                     Trace.log(Trace.ERROR, CLASS + ".toIFSBinFile() " + "Error writing file " + outfilePath_, e);
                 }
                 return 1;
+            } finally {
+                recs.close();
             }
         } finally {
             if (out != null) {
@@ -792,20 +856,19 @@ public class Format {
                 return 1;
             }
 
+            RecordFormatter recs = new RecordFormatter(true);
             try {
                 out.writeUTF(pro_.toString());
                 out.writeInt(ifsrecs);
-                Frame rec = null;
+                String record;
                 if (progress == null) {
-                    while ((rec = getNextRecord()) != null) {
-                        String record = rec.toString(filter_);
+                    while ((record = recs.next()) != null) {
                         if (record.length() != 0) {
                             out.writeUTF(record);
                         }
                     }
                 } else {
-                    while ((rec = getNextRecord()) != null && !progress.isCanceled()) {
-                        String record = rec.toString(filter_);
+                    while ((record = recs.next()) != null && !progress.isCanceled()) {
                         if (record.length() != 0) {
                             out.writeUTF(record);
                         }
@@ -823,6 +886,8 @@ public class Format {
                     Trace.log(Trace.ERROR, CLASS + ".toLclBinFile() " + "Error writing file " + outfilePath_, e);
                 }
                 return 1;
+            } finally {
+                recs.close();
             }
         } finally {
             if (out != null) {
@@ -1018,7 +1083,7 @@ public class Format {
         }
 
         read(0, 258); // Read in the prolog plus the next record length
-        BitBuf bb = new BitBuf(data);
+        BitBuf bb = BitBuf.wrap(data);
         nxtRecLen = new BitBuf(bb, 2048, 16); // Store the length of the next record
         pro_ = new Prolog(bb, filter_); // Create and parse the prolog
         ifsrecs = pro_.getNumRecs(); // Store the total number of records
@@ -1061,6 +1126,16 @@ public class Format {
      * @return Frame
      */
     private Frame getNext() {
+        BitBuf raw = getNextRaw();
+        return (raw == null) ? null : new Frame(pro_, raw);
+    }
+
+    /**
+     * Reads the next record from the trace without decoding it.
+     *
+     * @return BitBuf with the raw data of the record, or null after the last record.
+     */
+    private BitBuf getNextRaw() {
         BitBuf bb;
         int recLen = 0;
         if (progress != null) { // Progress is being displayed
@@ -1071,16 +1146,16 @@ public class Format {
             if (numrecs == ifsrecs) {
                 // If this is the last record we don't want to read past the end of the file.
                 read(0, nxtRecLen.toInt());
-                bb = new BitBuf(data);
+                bb = BitBuf.wrap(data);
                 recLen = (nxtRecLen.toInt() - 2) * 8;
             } else {
                 read(0, nxtRecLen.toInt());
                 // Read in the next records plus the length of the following record
-                bb = new BitBuf(data);
+                bb = BitBuf.wrap(data);
                 recLen = (nxtRecLen.toInt() * 8) - 16;
                 nxtRecLen = new BitBuf(bb, recLen, 16);
             }
-            return (new Frame(pro_, bb.slice(0, recLen)));
+            return bb.slice(0, recLen);
         } else {
             return null;
         }
@@ -1096,7 +1171,11 @@ public class Format {
         data = new byte[off + len];
         int bytesRead = 0;
         try {
-            bytesRead = file_.read(data, off, len); // Reads and stores the input in the data array
+            // Reads and stores the input in the data array. A stream can return fewer bytes than requested.
+            int n;
+            while (bytesRead < len && (n = file_.read(data, off + bytesRead, len - bytesRead)) > 0) {
+                bytesRead += n;
+            }
         } catch (IOException e) {
             if (Trace.isTraceOn() && Trace.isTraceErrorOn()) {
                 Trace.log(Trace.ERROR, CLASS + ".read() " + "Error reading file", e);
@@ -1188,4 +1267,130 @@ public class Format {
     public int getNumberOfTCPRecords() {
         return tcprecs;
     }
+
+    /**
+     * Returns the formatted TCP records of the trace in order.<br>
+     * With more than one format thread, the records are read on the calling
+     * thread and are decoded and formatted in batches on a pool of threads.
+     * At most two batches for each thread are read ahead, so the memory used
+     * does not grow with the size of the trace.
+     */
+    private class RecordFormatter {
+        private static final int BATCH = 256; // The number of records formatted by a task
+        private final boolean filtered_; // Format with the filter, as for the binary files
+        private ExecutorService pool_;
+        private final LinkedList<Future<String[]>> pending_ = new LinkedList<Future<String[]>>();
+        private String[] batch_; // The formatted records of the current batch, null for non TCP records
+        private int next_;
+        private boolean eof_;
+
+        RecordFormatter(boolean filtered) {
+            filtered_ = filtered;
+            if (formatThreads_ > 1 && pro_ != null && !pro_.invalidData()) {
+                pool_ = Executors.newFixedThreadPool(formatThreads_, new ThreadFactory() {
+                    private int count_ = 0;
+
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "CommTraceFormat-" + (count_++));
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+        }
+
+        /**
+         * Returns the next formatted record.
+         *
+         * @return The record, or null after the last record.
+         */
+        String next() throws IOException {
+            if (pool_ == null) {
+                Frame rec = getNextRecord();
+                return (rec == null) ? null : format(rec);
+            }
+            while (true) {
+                while (batch_ != null && next_ < batch_.length) {
+                    String rec = batch_[next_++];
+                    if (rec != null) {
+                        tcprecs++;
+                        return rec;
+                    }
+                }
+                submit();
+                if (pending_.isEmpty()) {
+                    return null;
+                }
+                batch_ = take(pending_.removeFirst());
+                next_ = 0;
+            }
+        }
+
+        /**
+         * Reads batches of records and hands them to the pool until enough are in progress.
+         */
+        private void submit() {
+            while (!eof_ && pending_.size() < formatThreads_ * 2) {
+                final BitBuf[] raw = new BitBuf[BATCH];
+                int n = 0;
+                while (n < BATCH && (raw[n] = getNextRaw()) != null) {
+                    n++;
+                }
+                if (n < BATCH) {
+                    eof_ = true;
+                }
+                if (n == 0) {
+                    return;
+                }
+                final int count = n;
+                pending_.add(pool_.submit(new Callable<String[]>() {
+                    public String[] call() {
+                        String[] recs = new String[count];
+                        for (int i = 0; i < count; i++) {
+                            Frame rec = new Frame(pro_, raw[i]);
+                            if (rec.isTCP()) {
+                                recs[i] = format(rec);
+                            }
+                        }
+                        return recs;
+                    }
+                }));
+            }
+        }
+
+        private String[] take(Future<String[]> f) throws IOException {
+            try {
+                return f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while formatting records");
+            } catch (ExecutionException e) {
+                Throwable t = e.getCause();
+                if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                }
+                if (t instanceof Error) {
+                    throw (Error) t;
+                }
+                IOException io = new IOException("Error formatting records");
+                io.initCause(t);
+                throw io;
+            }
+        }
+
+        private String format(Frame rec) {
+            return filtered_ ? rec.toString(filter_) : rec.toString();
+        }
+
+        /**
+         * Stops the threads. Records which were read ahead are discarded.
+         */
+        void close() {
+            if (pool_ != null) {
+                pool_.shutdownNow();
+                pool_ = null;
+            }
+            pending_.clear();
+        }
+    }
 }
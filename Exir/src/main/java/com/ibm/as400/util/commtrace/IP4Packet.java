@@ -26,7 +26,7 @@ public class IP4Packet extends IPPacket {
      */
     public IP4Packet(byte[] data) {
         rawpacket = data;
-        header = new IP4Header(new BitBuf(rawpacket));
+        header = new IP4Header(BitBuf.wrap(rawpacket));
     }
 
     /**
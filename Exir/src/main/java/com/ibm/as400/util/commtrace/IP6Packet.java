@@ -27,7 +27,7 @@ public class IP6Packet extends IPPacket {
      */
     public IP6Packet(byte[] data) {
         rawpacket = data;
-        header = new IP6Header(new BitBuf(rawpacket));
+        header = new IP6Header(BitBuf.wrap(rawpacket));
     }
 
     /**
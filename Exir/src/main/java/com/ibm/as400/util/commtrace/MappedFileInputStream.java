@@ -0,0 +1,131 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: MappedFileInputStream.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 2002 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.util.commtrace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a local file through a memory mapping.<br>
+ * Only a window of the file is mapped at a time, so a trace larger than the
+ * address space or larger than 2GB can be read. The window moves forward as
+ * the file is read.
+ */
+class MappedFileInputStream extends InputStream {
+    private static final long WINDOW = 64L * 1024 * 1024; // The number of bytes mapped at a time
+    private RandomAccessFile file_;
+    private FileChannel channel_;
+    private long size_; // The size of the file
+    private long windowStart_; // The offset in the file of the mapped window
+    private MappedByteBuffer window_;
+
+    /**
+     * Opens and maps the start of the given file.
+     *
+     * @param filename The file to read.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    MappedFileInputStream(String filename) throws IOException {
+        file_ = new RandomAccessFile(filename, "r");
+        try {
+            channel_ = file_.getChannel();
+            size_ = channel_.size();
+            map(0);
+        } catch (IOException e) {
+            file_.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the window of the file which starts at the given offset.
+     *
+     * @param start The offset in the file.
+     */
+    private void map(long start) throws IOException {
+        windowStart_ = start;
+        window_ = channel_.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size_ - start));
+    }
+
+    /**
+     * Moves the window forward if all of it has been read.
+     *
+     * @return false if the end of the file has been reached.
+     */
+    private boolean fill() throws IOException {
+        if (window_ == null) {
+            throw new IOException("Stream closed");
+        }
+        if (window_.hasRemaining()) {
+            return true;
+        }
+        long next = windowStart_ + window_.limit();
+        if (next >= size_) {
+            return false;
+        }
+        map(next);
+        return true;
+    }
+
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return window_.get() & 0xFF;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int total = 0;
+        while (total < len && fill()) {
+            int n = Math.min(len - total, window_.remaining());
+            window_.get(b, off + total, n);
+            total += n;
+        }
+        return (total == 0) ? -1 : total;
+    }
+
+    public long skip(long n) throws IOException {
+        if (n <= 0 || window_ == null) {
+            return 0;
+        }
+        long pos = windowStart_ + window_.position();
+        long skipped = Math.min(n, size_ - pos);
+        if (skipped < window_.remaining()) {
+            window_.position(window_.position() + (int) skipped);
+        } else if (pos + skipped < size_) {
+            map(pos + skipped);
+        } else {
+            window_.position(window_.limit());
+        }
+        return skipped;
+    }
+
+    public int available() throws IOException {
+        if (window_ == null) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size_ - windowStart_ - window_.position());
+    }
+
+    public void close() throws IOException {
+        window_ = null;
+        file_.close();
+    }
+}
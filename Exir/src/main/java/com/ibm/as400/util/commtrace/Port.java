@@ -21,6 +21,11 @@ import java.util.Hashtable;
 class Port {
     private static Hashtable ports = new Hashtable();
 
+    // Filled before any thread can call get(), since frames are formatted in parallel.
+    static {
+        initialize();
+    }
+
     /**
      * Initializes the port table.
      */
@@ -160,9 +165,6 @@ class Port {
      * @return string description of port number
      */
     public static Object get(int i) {
-        if (ports.isEmpty()) {
-            initialize();
-        }
         return ports.get((new Integer(i)).toString());
     }
 
@@ -173,9 +175,6 @@ class Port {
      * @return text description
      */
     public static Object get(String i) {
-        if (ports.isEmpty()) {
-            initialize();
-        }
         return ports.get(i);
     }
 }
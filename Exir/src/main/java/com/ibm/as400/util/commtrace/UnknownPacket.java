@@ -25,7 +25,7 @@ public class UnknownPacket extends IPPacket {
      */
     public UnknownPacket(byte[] data) {
         rawpacket = data;
-        header = new UnknownHeader(new BitBuf(rawpacket));
+        header = new UnknownHeader(BitBuf.wrap(rawpacket));
     }
 
     /**
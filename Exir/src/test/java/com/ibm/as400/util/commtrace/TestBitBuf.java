@@ -0,0 +1,271 @@
+package com.ibm.as400.util.commtrace;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Compares BitBuf, whose slices are views of their parent's bytes, with the
+ * copying implementation it replaced, for slices at every bit offset.
+ */
+public class TestBitBuf {
+    private static final byte[] BYTES = {
+            (byte) 0xA5, (byte) 0x3C, (byte) 0xFF, (byte) 0x01,
+            (byte) 0x80, (byte) 0x7E, (byte) 0x00, (byte) 0xC3};
+
+    @Test
+    public void testSlicesMatchCopyingImplementation() {
+        BitBuf buf = new BitBuf(BYTES);
+        CopyingBitBuf expected = new CopyingBitBuf(BYTES);
+        int bits = BYTES.length * 8;
+        for (int start = 0; start <= bits; start++) {
+            for (int length = 0; length <= bits - start + 12; length++) {
+                assertMatches(expected.slice(start, length), buf.slice(start, length), "slice(" + start + ", " + length + ")");
+            }
+            assertMatches(expected.slice(start), buf.slice(start), "slice(" + start + ")");
+        }
+    }
+
+    @Test
+    public void testSlicesOfSlicesMatchCopyingImplementation() {
+        Random random = new Random(20);
+        for (int i = 0; i < 2000; i++) {
+            byte[] bytes = new byte[1 + random.nextInt(12)];
+            random.nextBytes(bytes);
+            BitBuf buf = new BitBuf(bytes);
+            CopyingBitBuf expected = new CopyingBitBuf(bytes);
+            String path = "bytes " + new CopyingBitBuf(bytes).toHexString(0, "");
+            for (int depth = 0; depth < 4 && buf.getBitSize() > 0; depth++) {
+                int start = random.nextInt(buf.getBitSize());
+                int length = random.nextInt(buf.getBitSize() - start + 10);
+                buf = buf.slice(start, length);
+                expected = expected.slice(start, length);
+                path += " slice(" + start + ", " + length + ")";
+                assertMatches(expected, buf, path);
+            }
+        }
+    }
+
+    @Test
+    public void testGetOctetMatchesCopyingImplementation() {
+        Random random = new Random(8);
+        for (int i = 0; i < 500; i++) {
+            byte[] bytes = new byte[1 + random.nextInt(6)];
+            random.nextBytes(bytes);
+            int bits = bytes.length * 8;
+            int start = random.nextInt(bits);
+            int length = 1 + random.nextInt(bits - start);
+            BitBuf buf = new BitBuf(bytes).slice(start, length);
+            CopyingBitBuf expected = new CopyingBitBuf(bytes).slice(start, length);
+            for (int bit = -10; bit <= length + 10; bit++) {
+                Assertions.assertEquals(expected.getOctet(bit), buf.getOctet(bit),
+                        "getOctet(" + bit + ") of slice(" + start + ", " + length + ")");
+            }
+        }
+    }
+
+    @Test
+    public void testWrapMatchesCopy() {
+        for (int offset = 0; offset <= BYTES.length; offset++) {
+            for (int length = 0; offset + length <= BYTES.length; length++) {
+                byte[] copy = new byte[length];
+                System.arraycopy(BYTES, offset, copy, 0, length);
+                assertMatches(new CopyingBitBuf(copy), BitBuf.wrap(BYTES, offset, length), "wrap(" + offset + ", " + length + ")");
+            }
+        }
+    }
+
+    @Test
+    public void testShiftingSliceLeavesParentUnchanged() {
+        for (int start = 0; start < 24; start++) {
+            for (int shift = 0; shift < 20; shift++) {
+                BitBuf parent = new BitBuf(BYTES);
+                CopyingBitBuf expectedParent = new CopyingBitBuf(BYTES);
+
+                BitBuf left = parent.slice(start, 37);
+                CopyingBitBuf expectedLeft = expectedParent.slice(start, 37);
+                left.shiftLeft(shift);
+                expectedLeft.shiftLeft(shift);
+                assertMatches(expectedLeft, left, "slice(" + start + ", 37).shiftLeft(" + shift + ")");
+
+                BitBuf right = parent.slice(start, 37);
+                CopyingBitBuf expectedRight = expectedParent.slice(start, 37);
+                right.shiftRight(shift);
+                expectedRight.shiftRight(shift);
+                assertMatches(expectedRight, right, "slice(" + start + ", 37).shiftRight(" + shift + ")");
+
+                parent.shiftLeft(shift);
+                expectedParent.shiftLeft(shift);
+                assertMatches(expectedParent, parent, "parent shiftLeft(" + shift + ")");
+                assertMatches(expectedLeft, left, "slice after parent shiftLeft(" + shift + ")");
+            }
+        }
+    }
+
+    private static void assertMatches(CopyingBitBuf expected, BitBuf actual, String message) {
+        Assertions.assertEquals(expected.getBitSize(), actual.getBitSize(), message + " getBitSize");
+        Assertions.assertEquals(expected.getByteSize(), actual.getByteSize(), message + " getByteSize");
+        Assertions.assertArrayEquals(expected.getBytes(), actual.getBytes(), message + " getBytes");
+        Assertions.assertEquals(expected.toHexString(0, ""), actual.toHexString(), message + " toHexString");
+        Assertions.assertEquals(expected.toHexString(3, " "), actual.toHexString(3, " "), message + " toHexString(3)");
+        Assertions.assertEquals(expected.toBinString(1, "."), actual.toBinString("."), message + " toBinString");
+        if (expected.getBitSize() == 0)
+            return; // The copying implementation failed to read the bits before an empty BitBuf.
+        Assertions.assertEquals(expected.toLong(), actual.toLong(), message + " toLong");
+        Assertions.assertEquals(expected.toInt(), actual.toInt(), message + " toInt");
+        Assertions.assertEquals(expected.toShort(), actual.toShort(), message + " toShort");
+        Assertions.assertEquals(expected.toByte(), actual.toByte(), message + " toByte");
+    }
+
+    /**
+     * The BitBuf implementation before slices were views, which copied the
+     * bytes of every slice through getOctet().
+     */
+    private static final class CopyingBitBuf {
+        private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+        private byte[] data;
+        private int bitlen;
+
+        CopyingBitBuf(byte[] bytes) {
+            data = (byte[]) bytes.clone();
+            bitlen = data.length * 8;
+        }
+
+        CopyingBitBuf(CopyingBitBuf b, int bitstart, int bitlength) {
+            if (bitlength < 0)
+                bitlength = 0;
+            bitlen = bitlength;
+            int newlen = (bitlength + 7) / 8;
+            data = new byte[newlen];
+            for (int x = 0; x < newlen; x++)
+                data[x] = b.getOctet(bitstart + 8 * x);
+            truncate();
+        }
+
+        int getBitSize() {
+            return bitlen;
+        }
+
+        int getByteSize() {
+            return data.length;
+        }
+
+        byte[] getBytes() {
+            return (byte[]) data.clone();
+        }
+
+        byte getOctet(int startbit) {
+            byte b;
+            if ((startbit >= bitlen) || (startbit < -8))
+                b = 0;
+            else if (startbit < 0)
+                b = (byte) ((data[0] & 0xFF) >>> (0 - startbit));
+            else {
+                int byteloc = startbit / 8;
+                int bitshift = startbit % 8;
+                b = data[byteloc];
+                b <<= bitshift;
+                if ((bitshift > 0) && (startbit + 8 < bitlen))
+                    b |= (data[byteloc + 1] & 0xFF) >>> (8 - bitshift);
+            }
+            return b;
+        }
+
+        CopyingBitBuf slice(int s) {
+            return new CopyingBitBuf(this, s, bitlen - s);
+        }
+
+        CopyingBitBuf slice(int s, int l) {
+            return new CopyingBitBuf(this, s, l);
+        }
+
+        void shiftLeft(int d) {
+            int byteshift = d / 8;
+            int bitshift = d % 8;
+            if (byteshift > 0)
+                for (int i = 0; i < data.length; i++)
+                    if (i < (data.length - byteshift))
+                        data[i] = data[i + byteshift];
+                    else
+                        data[i] = 0;
+            if (bitshift > 0)
+                for (int i = 0; i < data.length; i++)
+                    if (i < (data.length - 1))
+                        data[i] = (byte) ((data[i] << bitshift) | ((data[i + 1] & 0xFF) >>> (8 - bitshift)));
+                    else
+                        data[i] <<= bitshift;
+        }
+
+        void shiftRight(int d) {
+            int byteshift = d / 8;
+            int bitshift = d % 8;
+            if (byteshift > 0)
+                for (int i = data.length; i-- > 0; )
+                    if (i >= byteshift)
+                        data[i] = data[i - byteshift];
+                    else
+                        data[i] = 0;
+            if (bitshift > 0)
+                for (int i = data.length; i-- > 0; )
+                    if (i > 0)
+                        data[i] = (byte) (((data[i] & 0xFF) >>> bitshift) | (data[i - 1] << (8 - bitshift)));
+                    else
+                        data[i] = (byte) ((data[i] & 0xFF) >>> bitshift);
+            truncate();
+        }
+
+        String toHexString(int groupsize, String separator) {
+            StringBuffer out = new StringBuffer();
+            for (int x = 0; x < data.length; x++) {
+                if ((x != 0) && (groupsize > 0) && (x % groupsize == 0))
+                    out.append(separator);
+                out.append(HEX[data[x] >>> 4 & 0xF]);
+                out.append(HEX[data[x] & 0xF]);
+            }
+            return out.toString();
+        }
+
+        String toBinString(int groupsize, String separator) {
+            StringBuffer out = new StringBuffer();
+            for (int x = 0; x < data.length; x++) {
+                for (int bit = 7; bit >= 0; bit--)
+                    out.append(((data[x] >>> bit) & 1) != 0 ? '1' : '0');
+                if ((groupsize != 0) && (x % groupsize == 0))
+                    out.append(separator);
+            }
+            return out.toString();
+        }
+
+        byte toByte() {
+            return getOctet(bitlen - 8);
+        }
+
+        short toShort() {
+            long r = 0;
+            for (int i = 0; i < 2; i++)
+                r |= (getOctet(bitlen - 8 * (i + 1)) & 0xFF) << (i * 8);
+            return (short) r;
+        }
+
+        int toInt() {
+            long r = 0;
+            for (int i = 0; i < 4; i++)
+                r |= (getOctet(bitlen - 8 * (i + 1)) & 0xFF) << (i * 8);
+            return (int) r;
+        }
+
+        long toLong() {
+            long r = 0;
+            for (int i = 0; i < 8; i++)
+                r |= (long) (getOctet(bitlen - 8 * (i + 1)) & 0xFF) << (i * 8);
+            return r;
+        }
+
+        private void truncate() {
+            int tailbits = bitlen % 8;
+            if (tailbits > 0)
+                data[data.length - 1] &= ~((1 << (8 - tailbits)) - 1);
+        }
+    }
+}
@@ -1363,6 +1363,25 @@ public final class Conv
     return new String(buffer, 0, count);
   }
 
+  /**
+   * Converts the specified packed decimal bytes into a long value, ignoring the scale.
+   * The number of bytes used from <i>data</i> is equal to <i>numDigits</i>/2+1, and 0 &lt; numDigits &lt;= 18.
+  **/
+  public static final long packedDecimalToLong(final byte[] data, final int offset, final int numDigits)
+  {
+    final int last = offset + numDigits/2;
+    long longValue = 0;
+    for (int i=offset; i<last; ++i)
+    {
+      final int b = data[i];
+      longValue = longValue*100 + ((b >> 4) & 0x0F)*10 + (b & 0x0F);
+    }
+    final int b = data[last];
+    longValue = longValue*10 + ((b >> 4) & 0x0F);
+    final int sign = b & 0x0F;
+    return (sign == 0x0B || sign == 0x0D) ? -longValue : longValue;
+  }
+
   // Copied from JTOpen AS400PackedDecimal.
   public static final double packedDecimalToDouble(final byte[] data, final int offset, final int numDigits, final int scale)
   {
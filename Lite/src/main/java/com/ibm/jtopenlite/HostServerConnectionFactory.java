@@ -0,0 +1,49 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpenLite
+//
+// Filename:  HostServerConnectionFactory.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 2011-2012 International Business Machines Corporation and
+// others.  All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.jtopenlite;
+
+import java.io.IOException;
+
+/**
+ * Creates and validates the connections of a {@link HostServerConnectionPool HostServerConnectionPool}.
+ * For example:
+ * <pre>
+ *   HostServerConnectionFactory&lt;CommandConnection&gt; factory = new HostServerConnectionFactory&lt;CommandConnection&gt;()
+ *   {
+ *     public CommandConnection createConnection(SystemInfo info, String user) throws IOException
+ *     {
+ *       return CommandConnection.getConnection(info, user, lookupPassword(user));
+ *     }
+ *
+ *     public boolean isValid(CommandConnection conn)
+ *     {
+ *       return !conn.isClosed();
+ *     }
+ *   };
+ * </pre>
+**/
+public interface HostServerConnectionFactory<T extends HostServerConnection>
+{
+  /**
+   * Creates a new connection to the specified system for the specified user.
+  **/
+  public T createConnection(SystemInfo info, String user) throws IOException;
+
+  /**
+   * Returns true if the specified free connection can still be used.
+   * The pool calls this for connections that have been idle for longer than its validation interval,
+   * so an implementation that does a round trip to the server also keeps the connection alive.
+  **/
+  public boolean isValid(T conn);
+}
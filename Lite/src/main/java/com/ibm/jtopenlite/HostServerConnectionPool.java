@@ -14,7 +14,15 @@
 package com.ibm.jtopenlite;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Used to pool HostServerConnections of a specific type to a specific system.
@@ -47,23 +55,67 @@ import java.util.*;
  *   // Closing the pool will close all connections in the pool, both free and in use.
  *   commandPool.close();
  * </pre>
+ *
+ * A pool constructed with a {@link HostServerConnectionFactory HostServerConnectionFactory} creates
+ * connections itself, up to a maximum number per user:
+ * <pre>
+ *   HostServerConnectionPool&lt;CommandConnection&gt; commandPool = new HostServerConnectionPool&lt;CommandConnection&gt;(info, factory, 8);
+ *   commandPool.setMaxIdleTime(300000);        // Close connections that are unused for 5 minutes.
+ *   commandPool.setValidationInterval(60000);  // Validate idle connections every minute.
+ *
+ *   CommandConnection conn = commandPool.checkout("FRED", 2000); // Wait up to 2 seconds.
+ *   if (conn != null)
+ *   {
+ *     try
+ *     {
+ *       ...
+ *     }
+ *     finally
+ *     {
+ *       commandPool.checkin(conn);
+ *     }
+ *   }
+ * </pre>
+ *
+ * The pool is thread-safe.  The connections of each user are kept in a separate partition, so
+ * users do not contend with each other.  Checkin never blocks; threads that wait in a timed
+ * checkout are served in the order they started waiting.
 **/
 public class HostServerConnectionPool<T extends HostServerConnection>
 {
   private final SystemInfo info_;
-  private final Map<String, Set<T>> freeConnections_ = new HashMap<String, Set<T>>();
-  private final Set<T> usedConnections_ = new HashSet<T>();
+  private final HostServerConnectionFactory<T> factory_;
+  private final int maxConnections_;
+  private final ConcurrentHashMap<String, Partition<T>> partitions_ = new ConcurrentHashMap<String, Partition<T>>();
+  private final ConcurrentHashMap<T, PooledConnection<T>> usedConnections_ = new ConcurrentHashMap<T, PooledConnection<T>>();
 
-  private int freeConnectionCount_;
-  private int usedConnectionCount_;
+  private volatile long maxIdleTime_;
+  private volatile long validationInterval_;
+  private volatile Thread evictor_;
 
   /**
    * Constructs a new connection pool for the specified system.
    * All connections checked into this pool must have a matching SystemInfo object.
+   * The pool does not create connections and has no maximum size.
   **/
   public HostServerConnectionPool(SystemInfo info)
   {
+    this(info, null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Constructs a new connection pool for the specified system, which uses the specified factory
+   * to create connections when a user has no free connection.
+   * @param info The system.
+   * @param factory The factory, or null if the pool should only hold connections that are checked in.
+   * @param maxConnections The maximum number of connections for each user, both free and in use.
+  **/
+  public HostServerConnectionPool(SystemInfo info, HostServerConnectionFactory<T> factory, int maxConnections)
+  {
+    if (maxConnections <= 0) throw new IllegalArgumentException("Maximum connections must be positive: "+maxConnections);
     info_ = info;
+    factory_ = factory;
+    maxConnections_ = maxConnections;
   }
 
   /**
@@ -74,34 +126,110 @@ public class HostServerConnectionPool<T extends HostServerConnection>
     return info_;
   }
 
+  /**
+   * Returns the factory that creates connections for this pool, or null.
+  **/
+  public HostServerConnectionFactory<T> getFactory()
+  {
+    return factory_;
+  }
+
+  /**
+   * Returns the maximum number of connections for each user.
+  **/
+  public int getMaxConnections()
+  {
+    return maxConnections_;
+  }
+
+  /**
+   * Returns the time in milliseconds after which an unused free connection is closed, or 0 if free connections are kept.
+  **/
+  public long getMaxIdleTime()
+  {
+    return maxIdleTime_;
+  }
+
+  /**
+   * Sets the time in milliseconds after which an unused free connection is closed.
+   * The default is 0, which keeps free connections until they are removed.
+  **/
+  public void setMaxIdleTime(long millis)
+  {
+    maxIdleTime_ = millis < 0 ? 0 : millis;
+    startEvictor();
+  }
+
+  /**
+   * Returns the time in milliseconds after which an idle free connection is validated, or 0 if connections are not validated.
+  **/
+  public long getValidationInterval()
+  {
+    return validationInterval_;
+  }
+
+  /**
+   * Sets the time in milliseconds after which an idle free connection is validated.
+   * Free connections are validated in the background, and when they are checked out, if they have not been validated
+   * for this long; connections that are not valid are closed.
+   * Validation calls {@link HostServerConnectionFactory#isValid isValid()} on the factory;
+   * without a factory, a connection is valid if it is not closed.
+   * The default is 0, which only checks if a connection is closed when it is checked out.
+  **/
+  public void setValidationInterval(long millis)
+  {
+    validationInterval_ = millis < 0 ? 0 : millis;
+    startEvictor();
+  }
+
   protected void finalize() throws Throwable
   {
     close();
   }
 
+  private Partition<T> getPartition(final String user)
+  {
+    Partition<T> partition = partitions_.get(user);
+    if (partition == null)
+    {
+      partition = new Partition<T>(factory_ == null ? 0 : maxConnections_);
+      final Partition<T> existing = partitions_.putIfAbsent(user, partition);
+      if (existing != null) partition = existing;
+    }
+    return partition;
+  }
+
   /**
    * Adds or returns a connection to this pool.
    * If the connection is closed or its SystemInfo does not match what was defined for this pool,
    * the connection is removed from this pool if it already exists in this pool, but is otherwise ignored.
+   * A connection that was not checked out from this pool is closed if its user already has the maximum number of connections.
   **/
   public void checkin(final T conn) throws IOException
   {
     if (!conn.isClosed() && conn.getInfo().equals(info_))
     {
-      final String user = conn.getUser();
-
-      Set systems = freeConnections_.get(user);
-      if (systems == null)
+      PooledConnection<T> pooled = usedConnections_.remove(conn);
+      if (pooled != null)
       {
-        systems = new HashSet<T>();
-        freeConnections_.put(user, systems);
+        pooled.lastUsed_ = System.currentTimeMillis();
+        pooled.partition_.push(pooled);
+        pooled.partition_.available_.release();
       }
-      systems.add(conn);
-      ++freeConnectionCount_;
-      if (usedConnections_.remove(conn))
+      else
       {
-        --usedConnectionCount_;
+        final Partition<T> partition = getPartition(conn.getUser());
+        if (partition.find(conn) != null) return;
+        if (!partition.reserve(maxConnections_))
+        {
+          conn.close();
+          return;
+        }
+        pooled = new PooledConnection<T>(conn, partition);
+        partition.push(pooled);
+        if (factory_ == null) partition.available_.release();
       }
+      if (evictor_ == null && (maxIdleTime_ > 0 || validationInterval_ > 0)) startEvictor();
     }
     else
     {
@@ -111,25 +239,106 @@ public class HostServerConnectionPool<T extends HostServerConnection>
 
   /**
    * Obtains a free connection from this pool for the specified user.
-   * If there are no free connections in the pool for the specified user, null is returned.
+   * If there are no free connections in the pool for the specified user, a new one is created if this pool has a factory
+   * and the user has fewer than the maximum number of connections; otherwise null is returned.
   **/
   public T checkout(String user) throws IOException
   {
-    Set<T> systems = freeConnections_.get(user);
-    if (systems != null)
+    return checkout(user, 0);
+  }
+
+  /**
+   * Obtains a free connection from this pool for the specified user, waiting up to the specified time for one to be
+   * checked in if there are none and no more can be created.
+   * @param user The user.
+   * @param timeoutMillis The maximum time to wait, in milliseconds.
+   * @return The connection, or null if the wait timed out.
+  **/
+  public T checkout(String user, long timeoutMillis) throws IOException
+  {
+    final Partition<T> partition = getPartition(user);
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    while (true)
     {
-      Iterator<T> it = systems.iterator();
-      if (it.hasNext())
+      try
+      {
+        if (!partition.available_.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) return null;
+      }
+      catch (InterruptedException ie)
+      {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for a connection");
+      }
+      // Holding a permit means there is a free connection, or room to create one.
+      while (true)
       {
-        T conn = it.next();
-        it.remove();
-        --freeConnectionCount_;
-        usedConnections_.add(conn);
-        ++usedConnectionCount_;
-        return conn;
+        final PooledConnection<T> pooled = partition.poll();
+        if (pooled != null)
+        {
+          if (isUsable(pooled, System.currentTimeMillis()))
+          {
+            usedConnections_.put(pooled.conn_, pooled);
+            return pooled.conn_;
+          }
+          discard(pooled);
+          if (factory_ == null) break; // The permit was for the discarded connection.
+        }
+        else if (factory_ != null && partition.reserve(maxConnections_))
+        {
+          final T conn;
+          try
+          {
+            conn = factory_.createConnection(info_, user);
+          }
+          catch (IOException io)
+          {
+            partition.count_.decrementAndGet();
+            partition.available_.release();
+            throw io;
+          }
+          catch (RuntimeException re)
+          {
+            partition.count_.decrementAndGet();
+            partition.available_.release();
+            throw re;
+          }
+          usedConnections_.put(conn, new PooledConnection<T>(conn, partition));
+          return conn;
+        }
+        else
+        {
+          // Another thread is between adding a connection and releasing its permit.
+          Thread.yield();
+        }
       }
     }
-    return null;
+  }
+
+  private boolean isUsable(final PooledConnection<T> pooled, final long now)
+  {
+    if (pooled.conn_.isClosed()) return false;
+    final long maxIdle = maxIdleTime_;
+    if (maxIdle > 0 && now - pooled.lastUsed_ > maxIdle) return false;
+    final long interval = validationInterval_;
+    if (interval > 0 && now - pooled.lastValidated_ >= interval)
+    {
+      if (factory_ != null && !factory_.isValid(pooled.conn_)) return false;
+      pooled.lastValidated_ = now;
+    }
+    return true;
+  }
+
+  // Closes a connection that was taken out of the free list, and frees its slot.
+  private void discard(final PooledConnection<T> pooled)
+  {
+    try
+    {
+      pooled.conn_.close();
+    }
+    catch (IOException io)
+    {
+    }
+    pooled.partition_.count_.decrementAndGet();
   }
 
   /**
@@ -138,18 +347,26 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public void remove(final T conn)
   {
-    final String user = conn.getUser();
-    Set systems = freeConnections_.get(user);
-    if (systems != null)
+    final PooledConnection<T> pooled = usedConnections_.remove(conn);
+    if (pooled != null)
     {
-      if (systems.remove(conn))
-      {
-        --freeConnectionCount_;
-      }
+      pooled.partition_.count_.decrementAndGet();
+      if (factory_ != null) pooled.partition_.available_.release();
+      return;
     }
-    if (usedConnections_.remove(conn))
+    final Partition<T> partition = partitions_.get(conn.getUser());
+    if (partition != null && partition.available_.tryAcquire())
     {
-      --usedConnectionCount_;
+      final PooledConnection<T> free = partition.find(conn);
+      if (free != null && partition.remove(free))
+      {
+        partition.count_.decrementAndGet();
+        if (factory_ != null) partition.available_.release();
+      }
+      else
+      {
+        partition.available_.release();
+      }
     }
   }
 
@@ -160,6 +377,9 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   {
     closeFree();
     closeUsed();
+    final Thread evictor = evictor_;
+    evictor_ = null;
+    if (evictor != null) LockSupport.unpark(evictor);
   }
 
   /**
@@ -167,26 +387,25 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public void closeFree() throws IOException
   {
-    final Iterator<String> it = freeConnections_.keySet().iterator();
+    final Iterator<Partition<T>> it = partitions_.values().iterator();
     while (it.hasNext())
     {
-      final String user = it.next();
-      final Set<T> systems = freeConnections_.get(user);
-      final Iterator<T> it2 = systems.iterator();
-      while (it2.hasNext())
+      closeFree(it.next());
+    }
+  }
+
+  private void closeFree(final Partition<T> partition)
+  {
+    while (partition.available_.tryAcquire())
+    {
+      final PooledConnection<T> pooled = partition.poll();
+      if (pooled == null)
       {
-        final T conn = it2.next();
-        try
-        {
-          conn.close();
-        }
-        catch (IOException io)
-        {
-        }
-        it2.remove();
-        --freeConnectionCount_;
+        partition.available_.release();
+        return;
       }
-      it.remove();
+      discard(pooled);
+      if (factory_ != null) partition.available_.release();
     }
   }
 
@@ -195,20 +414,7 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public void closeUsed() throws IOException
   {
-    final Iterator<T> it = usedConnections_.iterator();
-    while (it.hasNext())
-    {
-      final T conn = it.next();
-      try
-      {
-        conn.close();
-      }
-      catch (IOException io)
-      {
-      }
-      it.remove();
-      --usedConnectionCount_;
-    }
+    closeUsed(null);
   }
 
   /**
@@ -225,22 +431,10 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public void closeFree(final String user) throws IOException
   {
-    final Set<T> systems = freeConnections_.remove(user);
-    if (systems != null)
+    final Partition<T> partition = partitions_.get(user);
+    if (partition != null)
     {
-      final Iterator<T> it = systems.iterator();
-      while (it.hasNext())
-      {
-        final T conn = it.next();
-        try
-        {
-          conn.close();
-        }
-        catch (IOException io)
-        {
-        }
-        --freeConnectionCount_;
-      }
+      closeFree(partition);
     }
   }
 
@@ -249,13 +443,13 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public void closeUsed(final String user) throws IOException
   {
-    final Iterator<T> it = usedConnections_.iterator();
+    final Iterator<T> it = usedConnections_.keySet().iterator();
     while (it.hasNext())
     {
       final T conn = it.next();
-      if (conn.getUser().equals(user))
+      if (user == null || conn.getUser().equals(user))
       {
-        it.remove();
+        remove(conn);
         try
         {
           conn.close();
@@ -263,7 +457,6 @@ public class HostServerConnectionPool<T extends HostServerConnection>
         catch (IOException io)
         {
         }
-        --usedConnectionCount_;
       }
     }
   }
@@ -273,7 +466,7 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public int getConnectionCount()
   {
-    return freeConnectionCount_ + usedConnectionCount_;
+    return getFreeConnectionCount() + getUsedConnectionCount();
   }
 
   /**
@@ -281,7 +474,13 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public int getFreeConnectionCount()
   {
-    return freeConnectionCount_;
+    int count = 0;
+    final Iterator<Partition<T>> it = partitions_.values().iterator();
+    while (it.hasNext())
+    {
+      count += it.next().freeCount_.get();
+    }
+    return count;
   }
 
   /**
@@ -289,7 +488,7 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public int getUsedConnectionCount()
   {
-    return usedConnectionCount_;
+    return usedConnections_.size();
   }
 
   /**
@@ -305,8 +504,8 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public int getFreeConnectionCount(final String user)
   {
-    final Set systems = freeConnections_.get(user);
-    return systems == null ? 0 : systems.size();
+    final Partition<T> partition = partitions_.get(user);
+    return partition == null ? 0 : partition.freeCount_.get();
   }
 
   /**
@@ -314,7 +513,7 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public int getUsedConnectionCount(final String user)
   {
-    final Iterator<T> it = usedConnections_.iterator();
+    final Iterator<T> it = usedConnections_.keySet().iterator();
     int count = 0;
     while (it.hasNext())
     {
@@ -329,7 +528,198 @@ public class HostServerConnectionPool<T extends HostServerConnection>
   **/
   public String[] getUsers()
   {
-    Set<String> set = freeConnections_.keySet();
+    Set<String> set = partitions_.keySet();
     return set.toArray(new String[set.size()]);
   }
+
+  private void startEvictor()
+  {
+    synchronized (partitions_)
+    {
+      if (maxIdleTime_ > 0 || validationInterval_ > 0)
+      {
+        if (evictor_ == null)
+        {
+          final Thread evictor = new Evictor(this);
+          evictor_ = evictor;
+          evictor.start();
+        }
+        else
+        {
+          LockSupport.unpark(evictor_); // Pick up the new times.
+        }
+      }
+    }
+  }
+
+  /**
+   * Closes free connections that have been idle too long, and validates the others.
+   * @return The time in milliseconds until the next check, or -1 if the specified thread should stop.
+  **/
+  private long evict(final Thread evictor)
+  {
+    final long maxIdle = maxIdleTime_;
+    final long interval = validationInterval_;
+    if (evictor != evictor_) return -1;
+    if (maxIdle <= 0 && interval <= 0)
+    {
+      synchronized (partitions_)
+      {
+        if (evictor_ == evictor && maxIdleTime_ <= 0 && validationInterval_ <= 0)
+        {
+          evictor_ = null;
+          return -1;
+        }
+      }
+      return 0;
+    }
+
+    final Iterator<Partition<T>> it = partitions_.values().iterator();
+    while (it.hasNext())
+    {
+      final Partition<T> partition = it.next();
+      final Iterator<PooledConnection<T>> it2 = partition.free_.descendingIterator();
+      while (it2.hasNext())
+      {
+        final PooledConnection<T> pooled = it2.next();
+        final long now = System.currentTimeMillis();
+        final boolean idle = maxIdle > 0 && now - pooled.lastUsed_ > maxIdle;
+        final boolean validate = interval > 0 && now - pooled.lastValidated_ >= interval;
+        if (!idle && !validate) continue;
+        // Take the connection out of the free list, as a checkout would.
+        if (!partition.available_.tryAcquire()) break;
+        if (!partition.remove(pooled))
+        {
+          partition.available_.release();
+          continue;
+        }
+        if (!idle && isUsable(pooled, now))
+        {
+          partition.free_.addLast(pooled);
+          partition.freeCount_.incrementAndGet();
+          partition.available_.release();
+        }
+        else
+        {
+          discard(pooled);
+          if (factory_ != null) partition.available_.release();
+        }
+      }
+    }
+
+    long period = Long.MAX_VALUE;
+    if (maxIdle > 0) period = maxIdle;
+    if (interval > 0 && interval < period) period = interval;
+    return Math.max(period/2, 100);
+  }
+
+  /**
+   * The connections of one user.  The semaphore has one permit for each checkout that can succeed without waiting:
+   * one for each free connection, plus, when the pool has a factory, one for each connection that can still be created.
+   * A thread takes a permit before taking a connection out of the free list, and releases one after adding a connection.
+  **/
+  private static final class Partition<T extends HostServerConnection>
+  {
+    final Semaphore available_;
+    // Most recently used first, so idle connections collect at the end.
+    final ConcurrentLinkedDeque<PooledConnection<T>> free_ = new ConcurrentLinkedDeque<PooledConnection<T>>();
+    final AtomicInteger freeCount_ = new AtomicInteger();
+    final AtomicInteger count_ = new AtomicInteger(); // Free and in use.
+
+    Partition(final int permits)
+    {
+      available_ = new Semaphore(permits, true);
+    }
+
+    final PooledConnection<T> poll()
+    {
+      final PooledConnection<T> pooled = free_.pollFirst();
+      if (pooled != null) freeCount_.decrementAndGet();
+      return pooled;
+    }
+
+    final void push(final PooledConnection<T> pooled)
+    {
+      free_.addFirst(pooled);
+      freeCount_.incrementAndGet();
+    }
+
+    final boolean remove(final PooledConnection<T> pooled)
+    {
+      if (free_.removeFirstOccurrence(pooled))
+      {
+        freeCount_.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+
+    final PooledConnection<T> find(final T conn)
+    {
+      final Iterator<PooledConnection<T>> it = free_.iterator();
+      while (it.hasNext())
+      {
+        final PooledConnection<T> pooled = it.next();
+        if (pooled.conn_ == conn) return pooled;
+      }
+      return null;
+    }
+
+    /**
+     * Counts a new connection, if there are fewer than the maximum.
+    **/
+    final boolean reserve(final int max)
+    {
+      while (true)
+      {
+        final int count = count_.get();
+        if (count >= max) return false;
+        if (count_.compareAndSet(count, count+1)) return true;
+      }
+    }
+  }
+
+  private static final class PooledConnection<T extends HostServerConnection>
+  {
+    final T conn_;
+    final Partition<T> partition_;
+    volatile long lastUsed_;
+    volatile long lastValidated_;
+
+    PooledConnection(final T conn, final Partition<T> partition)
+    {
+      conn_ = conn;
+      partition_ = partition;
+      lastUsed_ = System.currentTimeMillis();
+      lastValidated_ = lastUsed_;
+    }
+  }
+
+  /**
+   * Runs evict() until the pool is closed, garbage collected, or no longer needs it.
+  **/
+  private static final class Evictor extends Thread
+  {
+    private final WeakReference<HostServerConnectionPool<?>> pool_;
+
+    Evictor(final HostServerConnectionPool<?> pool)
+    {
+      super("HostServerConnectionPool-evictor");
+      setDaemon(true);
+      pool_ = new WeakReference<HostServerConnectionPool<?>>(pool);
+    }
+
+    public void run()
+    {
+      while (true)
+      {
+        HostServerConnectionPool<?> pool = pool_.get();
+        if (pool == null) return;
+        final long millis = pool.evict(this);
+        pool = null;
+        if (millis < 0) return;
+        LockSupport.parkNanos(millis*1000000L);
+      }
+    }
+  }
 }
@@ -0,0 +1,211 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpenLite
+//
+// Filename:  DDMBatchReader.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 2011-2012 International Business Machines Corporation and
+// others.  All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.jtopenlite.ddm;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A {@link DDMReadCallback DDMReadCallback} that hands records to one or more processing threads in
+ * {@link DDMColumnarBatch columnar batches}, rather than one record at a time.  The main thread only
+ * copies each record into the current batch; when the batch is full, a processing thread decodes every
+ * field of the batch into primitive arrays and passes it to {@link #process process()}.
+ * Subclass this class and implement process() to consume the batches.
+ * <p>
+ * A fixed number of batches is reused.  A thread with nothing to do waits in a blocking queue, so
+ * neither the main thread nor the processing threads spin while the other side catches up.
+ * As with {@link DDMThreadedReader DDMThreadedReader}, using more than one thread will likely cause
+ * the batches to be processed out-of-order.
+**/
+public abstract class DDMBatchReader implements DDMReadCallback
+{
+  private final DDMFile file_;
+  private final ArrayBlockingQueue<DDMColumnarBatch> free_;
+  private final ArrayBlockingQueue<DDMColumnarBatch> full_;
+  private final DDMColumnarBatch end_;
+  private final Thread[] threads_;
+  private DDMColumnarBatch current_;
+  private volatile IOException failure_;
+  private boolean done_;
+
+  /**
+   * Constructs a reader to process data being read from the specified file
+   * using the specified record format.
+   * @param format The record format to copy and give to each batch.
+   * @param file The file being read.
+   * @param batchSize The number of records in each batch.
+   * @param numThreads The number of processing threads to use. Two batches are allocated for each thread, so that
+   * the main thread can fill one while the other is being processed.
+  **/
+  public DDMBatchReader(final DDMRecordFormat format, final DDMFile file, final int batchSize, int numThreads)
+  {
+    if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive: "+batchSize);
+    if (numThreads <= 0) numThreads = 1;
+    file_ = file;
+    done_ = false;
+
+    final int recordLength = file.getRecordLength();
+    final int numBatches = numThreads*2;
+    free_ = new ArrayBlockingQueue<DDMColumnarBatch>(numBatches);
+    full_ = new ArrayBlockingQueue<DDMColumnarBatch>(numBatches+numThreads);
+    for (int i=0; i<numBatches; ++i)
+    {
+      free_.add(new DDMColumnarBatch(format.newCopy(), recordLength, batchSize));
+    }
+    end_ = new DDMColumnarBatch(format, 0, 0);
+
+    threads_ = new Thread[numThreads];
+    for (int i=0; i<numThreads; ++i)
+    {
+      threads_[i] = new Thread("DDMBatchReader-"+i)
+      {
+        public void run()
+        {
+          runProcessor();
+        }
+      };
+      threads_[i].setDaemon(true);
+      threads_[i].start();
+    }
+  }
+
+  private final void runProcessor()
+  {
+    try
+    {
+      while (true)
+      {
+        final DDMColumnarBatch batch = full_.take();
+        if (batch == end_) return;
+        try
+        {
+          if (failure_ == null)
+          {
+            batch.decode();
+            process(batch);
+          }
+        }
+        catch (Throwable t)
+        {
+          if (failure_ == null)
+          {
+            final IOException io = t instanceof IOException ? (IOException)t : new IOException("Error processing batch: "+t);
+            if (io != t) io.initCause(t);
+            failure_ = io;
+          }
+        }
+        batch.clear();
+        free_.put(batch);
+      }
+    }
+    catch (InterruptedException ie)
+    {
+    }
+  }
+
+  /**
+   * Do not call this method directly; it is implemented for DDMConnection to call.
+  **/
+  public final void newRecord(final DDMCallbackEvent event, final DDMDataBuffer buffer) throws IOException
+  {
+    if (event.getFile() != file_) return;
+    if (failure_ != null) throw failure_;
+    try
+    {
+      if (current_ == null)
+      {
+        current_ = free_.take();
+      }
+      if (current_.add(buffer))
+      {
+        full_.put(current_);
+        current_ = null;
+      }
+    }
+    catch (InterruptedException ie)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a free batch");
+    }
+  }
+
+  /**
+   * Do not call this method directly; it is implemented for DDMConnection to call.
+  **/
+  public final void recordNotFound(final DDMCallbackEvent event)
+  {
+    finish();
+  }
+
+  /**
+   * Do not call this method directly; it is implemented for DDMConnection to call.
+  **/
+  public final void endOfFile(final DDMCallbackEvent event)
+  {
+    finish();
+  }
+
+  /**
+   * Indicates if end-of-file has been reached, the remaining batches have been processed, and our threads have been shutdown.
+  **/
+  public final boolean isDone()
+  {
+    return done_;
+  }
+
+  /**
+   * Returns the first exception thrown while decoding or processing a batch, or null if there was none.
+   * After a failure, the remaining batches are not processed, and the next call to newRecord() throws the exception.
+  **/
+  public final IOException getException()
+  {
+    return failure_;
+  }
+
+  private final void finish()
+  {
+    if (done_) return;
+    boolean interrupted = false;
+    // The full queue has room for every batch plus one end marker for each thread, so these never wait.
+    if (current_ != null && !current_.isEmpty())
+    {
+      full_.add(current_);
+      current_ = null;
+    }
+    for (int i=0; i<threads_.length; ++i)
+    {
+      full_.add(end_);
+    }
+    for (int i=0; i<threads_.length; ++i)
+    {
+      try
+      {
+        threads_[i].join();
+      }
+      catch (InterruptedException ie)
+      {
+        interrupted = true;
+      }
+    }
+    if (interrupted) Thread.currentThread().interrupt();
+    done_ = true;
+  }
+
+  /**
+   * Override this method with your own batch processing logic.
+   * The batch and its arrays are reused after this method returns.
+  **/
+  public abstract void process(final DDMColumnarBatch batch) throws IOException;
+}
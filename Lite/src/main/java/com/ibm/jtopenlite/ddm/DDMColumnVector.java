@@ -0,0 +1,528 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpenLite
+//
+// Filename:  DDMColumnVector.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 2011-2012 International Business Machines Corporation and
+// others.  All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.jtopenlite.ddm;
+
+import com.ibm.jtopenlite.Conv;
+import com.ibm.jtopenlite.ccsidConversion.CcsidConversion;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * The values of one field for all the rows in a {@link DDMColumnarBatch DDMColumnarBatch}.
+ * The values are stored in primitive arrays according to the kind of the vector:
+ * <ul>
+ * <li>{@link #KIND_LONG KIND_LONG} - Binary, packed decimal, and zoned decimal fields with up to 18 digits.
+ * The unscaled values are in {@link #getLongs getLongs()}; the scale is {@link #getScale getScale()}.</li>
+ * <li>{@link #KIND_DOUBLE KIND_DOUBLE} - Float fields. The values are in {@link #getDoubles getDoubles()}.</li>
+ * <li>{@link #KIND_TEXT KIND_TEXT} - Character, DBCS, date, time, and timestamp fields, and decimal fields that do not fit
+ * in a long. The values are UTF-8 bytes in {@link #getBytes getBytes()}; the value of row <i>i</i> starts at
+ * getOffsets()[<i>i</i>] and ends at getOffsets()[<i>i</i>+1].</li>
+ * <li>{@link #KIND_BINARY KIND_BINARY} - Hexadecimal, binary character, and CCSID 65535 character fields.
+ * The values are the field bytes, laid out like KIND_TEXT.</li>
+ * </ul>
+ * The arrays are reused for the next batch, so their contents are only valid while the batch is being processed,
+ * and they can be longer than the number of rows.
+**/
+public final class DDMColumnVector
+{
+  public static final int KIND_LONG = 0;
+  public static final int KIND_DOUBLE = 1;
+  public static final int KIND_TEXT = 2;
+  public static final int KIND_BINARY = 3;
+
+  private final DDMField field_;
+  private final int index_;
+  private final int kind_;
+  private final int scale_;
+  private final char[] toUnicode_; // Single-byte conversion table for KIND_TEXT, or null to convert through a String.
+  private final char[] buffer_;
+
+  private final boolean[] nulls_;
+  private long[] longs_;
+  private double[] doubles_;
+  private int[] offsets_;
+  private byte[] bytes_;
+  private int rowCount_;
+  private boolean hasNulls_;
+
+  DDMColumnVector(final DDMField field, final int index, final int capacity)
+  {
+    field_ = field;
+    index_ = index;
+    nulls_ = new boolean[capacity];
+    buffer_ = new char[field.getLength()*2+2];
+
+    int kind = KIND_TEXT;
+    int scale = 0;
+    char[] toUnicode = null;
+    switch (field.getType())
+    {
+      case DDMField.TYPE_BINARY:
+        kind = KIND_LONG;
+        scale = field.getDecimalPositions();
+        break;
+      case DDMField.TYPE_PACKED_DECIMAL:
+      case DDMField.TYPE_ZONED_DECIMAL:
+        if (field.getNumberOfDigits() <= 18)
+        {
+          kind = KIND_LONG;
+          scale = field.getDecimalPositions();
+        }
+        break;
+      case DDMField.TYPE_FLOAT:
+        kind = KIND_DOUBLE;
+        break;
+      case DDMField.TYPE_HEXADECIMAL:
+      case DDMField.TYPE_BINARY_CHARACTER:
+        kind = KIND_BINARY;
+        break;
+      case DDMField.TYPE_CHARACTER:
+        if (field.getCCSID() == 65535)
+        {
+          kind = KIND_BINARY;
+        }
+        else
+        {
+          toUnicode = getSingleByteTable(field.getCCSID());
+        }
+        break;
+      case DDMField.TYPE_DATE:
+      case DDMField.TYPE_TIME:
+      case DDMField.TYPE_TIMESTAMP:
+        toUnicode = getSingleByteTable(37);
+        break;
+    }
+    kind_ = kind;
+    scale_ = scale;
+    toUnicode_ = toUnicode;
+
+    switch (kind)
+    {
+      case KIND_LONG:
+        longs_ = new long[capacity];
+        break;
+      case KIND_DOUBLE:
+        doubles_ = new double[capacity];
+        break;
+      default:
+        offsets_ = new int[capacity+1];
+        bytes_ = new byte[capacity*Math.max(field.getLength(), 1)];
+        break;
+    }
+  }
+
+  /**
+   * Returns the conversion table for a single-byte CCSID, or null if the CCSID is not single-byte.
+  **/
+  private static char[] getSingleByteTable(final int ccsid)
+  {
+    if (ccsid <= 0 || ccsid == 37)
+    {
+      final char[] table = new char[256];
+      for (int i=0; i<256; ++i)
+      {
+        table[i] = Conv.ebcdicByteToChar((byte)i);
+      }
+      return table;
+    }
+    try
+    {
+      final char[] table = CcsidConversion.getSingleByteConversion(ccsid).returnToUnicode();
+      return table.length == 256 ? table : null;
+    }
+    catch (UnsupportedEncodingException uee)
+    {
+    }
+    if (!Conv.isSupported(ccsid)) return null;
+    // A Java encoding: it is single-byte if every byte converts to exactly one character.
+    final char[] table = new char[256];
+    final byte[] b = new byte[1];
+    try
+    {
+      for (int i=0; i<256; ++i)
+      {
+        b[0] = (byte)i;
+        final String s = Conv.ebcdicByteArrayToString(b, 0, 1, ccsid);
+        if (s.length() != 1) return null;
+        table[i] = s.charAt(0);
+      }
+    }
+    catch (UnsupportedEncodingException uee)
+    {
+      return null;
+    }
+    return table;
+  }
+
+  /**
+   * Returns the field whose values this vector holds.
+  **/
+  public DDMField getField()
+  {
+    return field_;
+  }
+
+  /**
+   * Returns the kind of this vector, one of {@link #KIND_LONG KIND_LONG}, {@link #KIND_DOUBLE KIND_DOUBLE},
+   * {@link #KIND_TEXT KIND_TEXT}, or {@link #KIND_BINARY KIND_BINARY}.
+  **/
+  public int getKind()
+  {
+    return kind_;
+  }
+
+  /**
+   * Returns the number of rows in this vector.
+  **/
+  public int getRowCount()
+  {
+    return rowCount_;
+  }
+
+  /**
+   * Returns the number of decimal positions of the values of a KIND_LONG vector.
+  **/
+  public int getScale()
+  {
+    return scale_;
+  }
+
+  /**
+   * Returns the unscaled values of a KIND_LONG vector, or null for other kinds.
+  **/
+  public long[] getLongs()
+  {
+    return longs_;
+  }
+
+  /**
+   * Returns the values of a KIND_DOUBLE vector, or null for other kinds.
+  **/
+  public double[] getDoubles()
+  {
+    return doubles_;
+  }
+
+  /**
+   * Returns the value offsets of a KIND_TEXT or KIND_BINARY vector, or null for other kinds.
+   * There is one more offset than there are rows.
+  **/
+  public int[] getOffsets()
+  {
+    return offsets_;
+  }
+
+  /**
+   * Returns the value bytes of a KIND_TEXT or KIND_BINARY vector, or null for other kinds.
+  **/
+  public byte[] getBytes()
+  {
+    return bytes_;
+  }
+
+  /**
+   * Returns the null indicators, one for each row.
+  **/
+  public boolean[] getNulls()
+  {
+    return nulls_;
+  }
+
+  /**
+   * Indicates if any of the values in this vector are null.
+  **/
+  public boolean hasNulls()
+  {
+    return hasNulls_;
+  }
+
+  /**
+   * Indicates if the value of the specified row is null.
+  **/
+  public boolean isNull(final int row)
+  {
+    return nulls_[row];
+  }
+
+  /**
+   * Returns the value of the specified row as a String, or null if the value is null.
+   * This is a convenience method that creates an object; use the arrays to avoid that.
+  **/
+  public String getString(final int row)
+  {
+    if (nulls_[row]) return null;
+    switch (kind_)
+    {
+      case KIND_LONG:
+        if (scale_ == 0) return String.valueOf(longs_[row]);
+        return new BigDecimal(BigInteger.valueOf(longs_[row]), scale_).toPlainString();
+      case KIND_DOUBLE:
+        return String.valueOf(doubles_[row]);
+      case KIND_BINARY:
+        return Conv.bytesToHexString(bytes_, offsets_[row], offsets_[row+1]-offsets_[row]);
+      default:
+        try
+        {
+          return new String(bytes_, offsets_[row], offsets_[row+1]-offsets_[row], "UTF-8");
+        }
+        catch (UnsupportedEncodingException uee)
+        {
+          // should never happen
+          return null;
+        }
+    }
+  }
+
+  /**
+   * Decodes this vector's field of each record in the batch.
+  **/
+  void decode(final byte[] records, final int recordLength, final boolean[] nullValues, final int nullCount,
+              final int rowCount) throws IOException
+  {
+    rowCount_ = rowCount;
+    boolean hasNulls = false;
+    if (index_ < nullCount)
+    {
+      for (int row=0, n=index_; row<rowCount; ++row, n+=nullCount)
+      {
+        final boolean isNull = nullValues[n];
+        nulls_[row] = isNull;
+        hasNulls |= isNull;
+      }
+    }
+    else
+    {
+      for (int row=0; row<rowCount; ++row)
+      {
+        nulls_[row] = false;
+      }
+    }
+    hasNulls_ = hasNulls;
+
+    final int fieldOffset = field_.getOffset();
+    switch (kind_)
+    {
+      case KIND_LONG:
+        decodeLongs(records, recordLength, fieldOffset, rowCount);
+        break;
+      case KIND_DOUBLE:
+        final boolean isFloat = field_.getLength() == 4;
+        for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+        {
+          doubles_[row] = isFloat ? Conv.byteArrayToFloat(records, offset) : Conv.byteArrayToDouble(records, offset);
+        }
+        break;
+      case KIND_BINARY:
+        decodeBinary(records, recordLength, fieldOffset, rowCount);
+        break;
+      default:
+        if (toUnicode_ != null)
+        {
+          decodeSingleByte(records, recordLength, fieldOffset, rowCount);
+        }
+        else
+        {
+          decodeText(records, recordLength, fieldOffset, rowCount);
+        }
+        break;
+    }
+  }
+
+  private void decodeLongs(final byte[] records, final int recordLength, final int fieldOffset, final int rowCount)
+  {
+    final long[] longs = longs_;
+    final boolean[] nulls = nulls_;
+    final int numDigits = field_.getNumberOfDigits();
+    switch (field_.getType())
+    {
+      case DDMField.TYPE_PACKED_DECIMAL:
+        for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+        {
+          longs[row] = nulls[row] ? 0 : Conv.packedDecimalToLong(records, offset, numDigits);
+        }
+        break;
+      case DDMField.TYPE_ZONED_DECIMAL:
+        for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+        {
+          longs[row] = nulls[row] ? 0 : Conv.zonedDecimalToLong(records, offset, numDigits);
+        }
+        break;
+      default:
+        if (numDigits < 5)
+        {
+          for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+          {
+            longs[row] = Conv.byteArrayToShort(records, offset);
+          }
+        }
+        else if (numDigits < 10)
+        {
+          for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+          {
+            longs[row] = Conv.byteArrayToInt(records, offset);
+          }
+        }
+        else
+        {
+          for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+          {
+            longs[row] = Conv.byteArrayToLong(records, offset);
+          }
+        }
+        break;
+    }
+  }
+
+  private void decodeBinary(final byte[] records, final int recordLength, final int fieldOffset, final int rowCount)
+  {
+    final boolean varlen = field_.isVariableLength();
+    final int fieldLength = field_.getLength();
+    int pos = 0;
+    offsets_[0] = 0;
+    for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+    {
+      if (!nulls_[row])
+      {
+        final int length = varlen ? Conv.byteArrayToShort(records, offset) : fieldLength;
+        ensureCapacity(pos+length);
+        System.arraycopy(records, varlen ? offset+2 : offset, bytes_, pos, length);
+        pos += length;
+      }
+      offsets_[row+1] = pos;
+    }
+  }
+
+  private void decodeSingleByte(final byte[] records, final int recordLength, final int fieldOffset, final int rowCount)
+  {
+    final char[] toUnicode = toUnicode_;
+    final boolean varlen = field_.isVariableLength();
+    final int fieldLength = field_.getLength();
+    int pos = 0;
+    offsets_[0] = 0;
+    for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+    {
+      if (!nulls_[row])
+      {
+        final int length = varlen ? Conv.byteArrayToShort(records, offset) : fieldLength;
+        final int start = varlen ? offset+2 : offset;
+        ensureCapacity(pos+length*3);
+        final byte[] bytes = bytes_;
+        for (int i=start; i<start+length; ++i)
+        {
+          final char c = toUnicode[records[i] & 0x00FF];
+          if (c < 0x80)
+          {
+            bytes[pos++] = (byte)c;
+          }
+          else if (c < 0x800)
+          {
+            bytes[pos++] = (byte)(0xC0 | (c >> 6));
+            bytes[pos++] = (byte)(0x80 | (c & 0x3F));
+          }
+          else
+          {
+            bytes[pos++] = (byte)(0xE0 | (c >> 12));
+            bytes[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            bytes[pos++] = (byte)(0x80 | (c & 0x3F));
+          }
+        }
+      }
+      offsets_[row+1] = pos;
+    }
+  }
+
+  private void decodeText(final byte[] records, final int recordLength, final int fieldOffset, final int rowCount) throws IOException
+  {
+    int pos = 0;
+    offsets_[0] = 0;
+    for (int row=0, offset=fieldOffset; row<rowCount; ++row, offset+=recordLength)
+    {
+      if (!nulls_[row])
+      {
+        final String s = getText(records, offset);
+        final int length = s.length();
+        ensureCapacity(pos+length*3);
+        final byte[] bytes = bytes_;
+        for (int i=0; i<length; ++i)
+        {
+          final char c = s.charAt(i);
+          if (c < 0x80)
+          {
+            bytes[pos++] = (byte)c;
+          }
+          else if (c < 0x800)
+          {
+            bytes[pos++] = (byte)(0xC0 | (c >> 6));
+            bytes[pos++] = (byte)(0x80 | (c & 0x3F));
+          }
+          else if (Character.isHighSurrogate(c) && i+1 < length && Character.isLowSurrogate(s.charAt(i+1)))
+          {
+            final int cp = Character.toCodePoint(c, s.charAt(++i));
+            bytes[pos++] = (byte)(0xF0 | (cp >> 18));
+            bytes[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+            bytes[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+            bytes[pos++] = (byte)(0x80 | (cp & 0x3F));
+          }
+          else
+          {
+            bytes[pos++] = (byte)(0xE0 | (c >> 12));
+            bytes[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            bytes[pos++] = (byte)(0x80 | (c & 0x3F));
+          }
+        }
+      }
+      offsets_[row+1] = pos;
+    }
+  }
+
+  /**
+   * Converts the field at the specified offset into a String, for the fields that
+   * have no single-byte conversion table.
+  **/
+  private String getText(final byte[] records, final int offset) throws IOException
+  {
+    switch (field_.getType())
+    {
+      case DDMField.TYPE_PACKED_DECIMAL:
+        return Conv.packedDecimalToString(records, offset, field_.getNumberOfDigits(), field_.getDecimalPositions(), buffer_);
+      case DDMField.TYPE_ZONED_DECIMAL:
+        return Conv.zonedDecimalToString(records, offset, field_.getNumberOfDigits(), field_.getDecimalPositions(), buffer_);
+      case DDMField.TYPE_DECIMAL_FLOAT:
+        return field_.getLength() == 8 ? Conv.decfloat16ByteArrayToString(records, offset) : Conv.decfloat34ByteArrayToString(records, offset);
+      case DDMField.TYPE_CHARACTER:
+      case DDMField.TYPE_DBCS_EITHER:
+      case DDMField.TYPE_DBCS_GRAPHIC:
+      case DDMField.TYPE_DBCS_ONLY:
+      case DDMField.TYPE_DBCS_OPEN:
+        final boolean varlen = field_.isVariableLength();
+        final int length = varlen ? (Conv.byteArrayToShort(records, offset) * (field_.getType() == DDMField.TYPE_DBCS_GRAPHIC ? 2 : 1)) : field_.getLength();
+        return Conv.ebcdicByteArrayToString(records, varlen ? offset+2 : offset, length, buffer_, field_.getCCSID());
+      default:
+        throw new IOException("Unhandled field type: '"+field_.getType()+"'");
+    }
+  }
+
+  private void ensureCapacity(final int length)
+  {
+    if (length > bytes_.length)
+    {
+      final byte[] bytes = new byte[Math.max(length, bytes_.length*2)];
+      System.arraycopy(bytes_, 0, bytes, 0, bytes_.length);
+      bytes_ = bytes;
+    }
+  }
+}
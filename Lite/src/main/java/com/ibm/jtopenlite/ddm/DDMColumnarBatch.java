@@ -0,0 +1,168 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpenLite
+//
+// Filename:  DDMColumnarBatch.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 2011-2012 International Business Machines Corporation and
+// others.  All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.jtopenlite.ddm;
+
+import java.io.IOException;
+
+/**
+ * A batch of records read from a file, stored by column.
+ * The I/O thread copies each record's bytes into one contiguous block; a processing thread then decodes
+ * the whole block one field at a time into a {@link DDMColumnVector DDMColumnVector} per field.
+ * Batches are created and reused by {@link DDMBatchReader DDMBatchReader}.
+**/
+public final class DDMColumnarBatch
+{
+  private final DDMRecordFormat format_;
+  private final int capacity_;
+  private final int recordLength_;
+  private final byte[] records_;
+  private final int[] recordNumbers_;
+  private final DDMColumnVector[] columns_;
+  private boolean[] nullValues_;
+  private int nullCount_;
+  private int rowCount_;
+
+  DDMColumnarBatch(final DDMRecordFormat format, final int recordLength, final int capacity)
+  {
+    format_ = format;
+    capacity_ = capacity;
+    recordLength_ = recordLength;
+    records_ = new byte[recordLength*capacity];
+    recordNumbers_ = new int[capacity];
+    final int numFields = format.getFieldCount();
+    columns_ = new DDMColumnVector[numFields];
+    for (int i=0; i<numFields; ++i)
+    {
+      columns_[i] = new DDMColumnVector(format.getField(i), i, capacity);
+    }
+    nullValues_ = new boolean[0];
+  }
+
+  /**
+   * Copies the record in the specified buffer to the end of this batch.
+   * @return true if the batch is now full.
+  **/
+  final boolean add(final DDMDataBuffer buffer)
+  {
+    final int row = rowCount_++;
+    System.arraycopy(buffer.getRecordDataBuffer(), 0, records_, row*recordLength_, recordLength_);
+    recordNumbers_[row] = buffer.getRecordNumber();
+    final boolean[] nullValues = buffer.getNullFieldValues();
+    final int nullCount = nullValues.length;
+    if (nullCount > 0)
+    {
+      if (nullCount_ != nullCount)
+      {
+        nullCount_ = nullCount;
+        nullValues_ = new boolean[nullCount*capacity_];
+      }
+      System.arraycopy(nullValues, 0, nullValues_, row*nullCount, nullCount);
+    }
+    return rowCount_ == capacity_;
+  }
+
+  final boolean isEmpty()
+  {
+    return rowCount_ == 0;
+  }
+
+  final void decode() throws IOException
+  {
+    for (int i=0; i<columns_.length; ++i)
+    {
+      columns_[i].decode(records_, recordLength_, nullValues_, nullCount_, rowCount_);
+    }
+  }
+
+  final void clear()
+  {
+    rowCount_ = 0;
+  }
+
+  /**
+   * Returns this batch's copy of the record format.
+  **/
+  public DDMRecordFormat getRecordFormat()
+  {
+    return format_;
+  }
+
+  /**
+   * Returns the number of records in this batch.
+  **/
+  public int getRowCount()
+  {
+    return rowCount_;
+  }
+
+  /**
+   * Returns the maximum number of records in this batch.
+  **/
+  public int getCapacity()
+  {
+    return capacity_;
+  }
+
+  /**
+   * Returns the record number of the specified row.
+  **/
+  public int getRecordNumber(final int row)
+  {
+    return recordNumbers_[row];
+  }
+
+  /**
+   * Returns the number of columns, which is the number of fields in the record format.
+  **/
+  public int getColumnCount()
+  {
+    return columns_.length;
+  }
+
+  /**
+   * Returns the column for the field at the specified index, or null if the index is not valid.
+  **/
+  public DDMColumnVector getColumn(final int index)
+  {
+    return (index >= 0 && index < columns_.length) ? columns_[index] : null;
+  }
+
+  /**
+   * Returns the column for the specified field name, or null if there is no such field.
+  **/
+  public DDMColumnVector getColumn(final String fieldName)
+  {
+    for (int i=0; i<columns_.length; ++i)
+    {
+      if (columns_[i].getField().getName().equals(fieldName)) return columns_[i];
+    }
+    return null;
+  }
+
+  /**
+   * Returns the record bytes of this batch. The record of row <i>i</i> starts at <i>i</i> times the record length.
+  **/
+  public byte[] getRecordData()
+  {
+    return records_;
+  }
+
+  /**
+   * Returns the record length in bytes.
+  **/
+  public int getRecordLength()
+  {
+    return recordLength_;
+  }
+}
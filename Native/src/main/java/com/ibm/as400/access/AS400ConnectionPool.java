@@ -21,9 +21,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.Locale;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -93,14 +93,16 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
    **/
   public static final int CCSID_DEFAULT = ConnectionPool.CCSID_DEFAULT;
 
-  private transient Hashtable as400ConnectionPool_;
-  // Hashtable of lists of connections that have been marked invalid by the user
+  private transient ConcurrentHashMap as400ConnectionPool_;
+  // Map of lists of connections that have been marked invalid by the user
   // by calling removeFromPool().
-  private transient Hashtable removedAS400ConnectionPool_;  //@A6A
+  private transient ConcurrentHashMap removedAS400ConnectionPool_;  //@A6A
   private transient Log log_;
   private SocketProperties socketProperties_;
   private transient long lastRun_=0;     //@D1A Last time cleanupConnections() was called.  Added for fix to JTOpen Bug #3863
   private transient boolean connectionHasBeenCreated_ = false;
+  // Time taken by getConnection() to return a connection.
+  private transient LatencyHistogram borrowTimes_;
   
   // Handles loading the appropriate resource bundle
 //@CRS  private static ResourceBundleLoader loader_;
@@ -124,23 +126,21 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
    **/
   void cleanupConnections()
   {
-    synchronized (as400ConnectionPool_)
+    // The connection lists are not locked, so connections can be obtained while this runs.
+    Enumeration keys = as400ConnectionPool_.keys();
+    while (keys.hasMoreElements())
     {
-      Enumeration keys = as400ConnectionPool_.keys();
-      while (keys.hasMoreElements())
+      String key = (String)keys.nextElement();
+      try
       {
-        String key = (String)keys.nextElement();
-        try
-        {
-          ConnectionList connList = (ConnectionList)as400ConnectionPool_.get(key);
-          connList.removeExpiredConnections(poolListeners_);  
-        }
-        catch (Exception e)
-        {
-          log(e, key);
-        }
+        ConnectionList connList = (ConnectionList)as400ConnectionPool_.get(key);
+        if (connList != null) connList.removeExpiredConnections(poolListeners_);  
       }
-    } 
+      catch (Exception e)
+      {
+        log(e, key);
+      }
+    }
     if (poolListeners_ != null)
     {
       ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(this, ConnectionPoolEvent.MAINTENANCE_THREAD_RUN);
@@ -257,7 +257,7 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
       connections = (ConnectionList)as400ConnectionPool_.get(key);
       for (int j = 0; j < numberOfConnections; j++)
       {
-        connections.findElement((AS400)newAS400Connections.elementAt(j)).setInUse(false);
+        connections.returnElement(connections.findElement((AS400)newAS400Connections.elementAt(j)));
       }
       if (Trace.traceOn_ && locale != null)
         log(Trace.INFORMATION, "Created " + numberOfConnections + "with a locale.");
@@ -269,7 +269,7 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
       ConnectionList connections = (ConnectionList)as400ConnectionPool_.get(key);
       for (int k = 0; k < newAS400Connections.size(); k++)
       {
-        connections.findElement((AS400)newAS400Connections.elementAt(k)).setInUse(false); 
+        connections.returnElement(connections.findElement((AS400)newAS400Connections.elementAt(k))); 
       }
       if (maintenance_ != null && maintenance_.isRunning())
         cleanupConnections();
@@ -283,7 +283,7 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
       ConnectionList connections = (ConnectionList)as400ConnectionPool_.get(key);      
       for (int k = 0; k < newAS400Connections.size(); k++)
       { 
-        connections.findElement((AS400)newAS400Connections.elementAt(k)).setInUse(false); 
+        connections.returnElement(connections.findElement((AS400)newAS400Connections.elementAt(k))); 
       } 
       if (maintenance_ != null && maintenance_.isRunning())
         cleanupConnections();                     
@@ -355,7 +355,7 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
       connections = (ConnectionList)as400ConnectionPool_.get(key);
       for (int j = 0; j < numberOfConnections; j++)
       {
-        connections.findElement((AS400)newAS400Connections.elementAt(j)).setInUse(false);
+        connections.returnElement(connections.findElement((AS400)newAS400Connections.elementAt(j)));
       }
       if (Trace.traceOn_ && locale != null)
         log(Trace.INFORMATION, "Created " + numberOfConnections + "with a locale.");
@@ -367,7 +367,7 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
       ConnectionList connections = (ConnectionList)as400ConnectionPool_.get(key);
       for (int k = 0; k < newAS400Connections.size(); k++)
       {
-        connections.findElement((AS400)newAS400Connections.elementAt(k)).setInUse(false); 
+        connections.returnElement(connections.findElement((AS400)newAS400Connections.elementAt(k))); 
       }
       if (maintenance_ != null && maintenance_.isRunning())
         cleanupConnections();
@@ -382,7 +382,7 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
       ConnectionList connections = (ConnectionList)as400ConnectionPool_.get(key);      
       for (int k = 0; k < newAS400Connections.size(); k++)
       {                                          //@A2A
-        connections.findElement((AS400)newAS400Connections.elementAt(k)).setInUse(false); 
+        connections.returnElement(connections.findElement((AS400)newAS400Connections.elementAt(k))); 
       }                                          //@A2A
       if (maintenance_ != null && maintenance_.isRunning())
         cleanupConnections();                               //@A2A
@@ -467,6 +467,38 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
   }
 
 
+  /**
+   * Returns the number of times a connection has been obtained from the pool
+   * since the pool was created.
+   *
+   * @return The number of connections obtained.
+   * @see #getBorrowTimePercentile
+   **/
+  public long getBorrowCount()
+  {
+    return borrowTimes_.getCount();
+  }
+
+
+  /**
+   * Returns a percentile of the time taken to obtain a connection from the pool,
+   * for all the systems and users in the pool.  This includes the time taken to
+   * create a connection, or to connect a service, when no suitable connection
+   * was available.  For example, <code>getBorrowTimePercentile(99)</code> returns
+   * a time that 99 percent of the requests for a connection did not exceed.
+   * The value is approximate, to within about 12 percent.
+   *
+   * @param   percentile  The percentile, from 0 to 100.
+   * @return  The time, in nanoseconds, or 0 if no connection has been obtained.
+   **/
+  public long getBorrowTimePercentile(double percentile)
+  {
+    if (percentile < 0 || percentile > 100)
+      throw new ExtendedIllegalArgumentException("percentile", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+    return borrowTimes_.getPercentile(percentile);
+  }
+
+
   /**
    * Returns the CCSID that is used when creating new connections.
    * The default value is the system default CCSID as determined by the AS400 class.
@@ -942,10 +974,11 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
 
     //@CRS - Moved the block below out of the synch block above per JTOpen bug #3727...
     // We don't want to hold the lock on the entire pool if we are trying to get a connection
-    // for a system that is down or non-existent. ConnectionList.getConnection() is synchronized
-    // inside itself, anyway.
+    // for a system that is down or non-existent. ConnectionList.getConnection() does not
+    // lock the list, anyway.
 
     //Get a connection from the list
+    long start = System.nanoTime();
     AS400 connection = null;
     if (connect)
     {
@@ -955,6 +988,10 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
     {
       connection = connections.getConnection(secure, poolListeners_, locale, poolAuth, socketProperties_, getCCSID()).getAS400Object();  //@B3C add null locale  //@B4C //@C1C
     }
+    long waitNanos = System.nanoTime() - start;
+    borrowTimes_.record(waitNanos);
+    HostServerMetrics metrics = HostServerMetrics.active_;
+    if (metrics != null) metrics.connectionBorrowed(connect ? service : -1, waitNanos);
     connectionHasBeenCreated_ = true;  // remember that we've created at least 1 connection
     return connection;
   }
@@ -1361,8 +1398,9 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
     // implementations of the Log interface) uses a java.io.PrintWriter object which is 
     // not serializable.  Therefore, log_ was changed to be transient and the user
     // will need to reset log_ after a serialization of the pool.
-    as400ConnectionPool_ = new Hashtable();
-    removedAS400ConnectionPool_ = new Hashtable();   //@A5A
+    as400ConnectionPool_ = new ConcurrentHashMap();
+    removedAS400ConnectionPool_ = new ConcurrentHashMap();   //@A5A
+    borrowTimes_ = new LatencyHistogram();
     lastRun_ = System.currentTimeMillis();
     connectionHasBeenCreated_ = false;
   }
@@ -1578,7 +1616,7 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
         // Before making the connection available for re-use, see if it's expired.
         boolean removed = connections.removeIfExpired(poolItem, poolListeners_);
         if (!removed) {
-          poolItem.setInUse(false); // indicate that this connection is available
+          connections.returnElement(poolItem); // indicate that this connection is available
         }
         if (log_ != null || Trace.traceOn_)
         {
@@ -1711,22 +1749,19 @@ public class AS400ConnectionPool extends ConnectionPool implements Serializable
         {
           if (reduced)
           {
-            synchronized (as400ConnectionPool_)
+            Enumeration keys = as400ConnectionPool_.keys();
+            while (keys.hasMoreElements())
             {
-              Enumeration keys = as400ConnectionPool_.keys();
-              while (keys.hasMoreElements())
+              String key = (String)keys.nextElement();
+              try
+              {
+                ConnectionList connList = (ConnectionList)as400ConnectionPool_.get(key);
+                if (connList != null) connList.shutDownOldest(); 
+              }
+              catch (Exception e)
               {
-                String key = (String)keys.nextElement();
-                try
-                {
-                  ConnectionList connList = (ConnectionList)as400ConnectionPool_.get(key);
-                  connList.shutDownOldest(); 
-                }
-                catch (Exception e)
-                {
-                  if (log_ != null || Trace.traceOn_)
-                    log(e, key);
-                }
+                if (log_ != null || Trace.traceOn_)
+                  log(e, key);
               }
             }
           }
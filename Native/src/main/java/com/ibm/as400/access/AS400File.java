@@ -1329,6 +1329,21 @@ abstract public class AS400File implements Serializable {
         return recordFormat_;
     }
 
+    /**
+     * Returns a cursor that reads the records of the file without creating a Record
+     * object for each record.  The file must be open when invoking this method, and
+     * its record format cannot have dependent fields.  The cursor reads from the first
+     * record of the file, using the blocking factor specified when the file was opened.
+     *
+     * @return The record cursor.
+     * @see RecordCursor
+     **/
+    public RecordCursor getRecordCursor() {
+        // Verify the object state
+        checkOpen();
+        return new RecordCursor(this);
+    }
+
     /**
      * Sets the record format to be used for this file. Retrieves the record
      * format(s) from the file on the system and sets the record format to
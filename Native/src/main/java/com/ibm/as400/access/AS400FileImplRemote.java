@@ -2315,6 +2315,82 @@ class AS400FileImplRemote extends AS400FileImplBase implements Serializable //@C
         return processReadReplyLong(replys, false);     // @A1C
       }
 
+  /**
+   *Reads the next block of records for a RecordCursor.  The records are left in
+   *the reply data stream instead of being converted to Record objects.  Because the
+   *records are read from the system cursor, any cached records are discarded.
+   *@param cursor The cursor to receive the block of records.
+   *@param first true to read from the first record of the file; false to read
+   *from the current position.
+   *@return true if records were read; false if the end of file was reached.
+   *@exception AS400Exception If the server returns an error message.
+   *@exception AS400SecurityException If a security or authority error occurs.
+   *@exception InterruptedException If this thread is interrupted.
+   *@exception IOException If an error occurs while communicating with the server.
+   **/
+  boolean readRecordBlock(RecordCursor cursor, boolean first)
+  throws AS400Exception,
+  AS400SecurityException,
+  InterruptedException,
+  IOException
+  {
+    if (cacheRecords_)
+    { // Invalidate the cache
+      cache_.setIsEmpty();
+    }
+    if (first)
+    {
+      positionCursorBeforeFirst();
+    }
+
+    // Send the S38GETM request
+    int bf = (blockingFactor_ > 0) ? blockingFactor_ : 1;
+    Vector replys = sendRequestAndReceiveReplies(DDMRequestDataStream.getRequestS38GETM(dclName_, bf, TYPE_GET_NEXT, SHR_READ_NORM, DATA_DTA_DTARCD, 0x01), newCorrelationId());
+
+    // See processReadReply() for the format of the reply(s).
+    int codePoint = ((DDMDataStream)replys.elementAt(0)).getCodePoint();
+    if (codePoint == DDMTerm.S38IOFB)
+    { // The end of file was reached or an error occurred.
+      if (replys.size() > 1 && ((DDMDataStream)replys.elementAt(1)).getCodePoint() == DDMTerm.S38MSGRM)
+      {
+        DDMAS400MessageReply err = new DDMAS400MessageReply(system_, ((DDMDataStream)replys.elementAt(1)).data_);
+        String msgId = err.getAS400Message().getID();
+        if (msgId.equals("CPF5006") || msgId.equals("CPF5001"))
+        { // End of file reached
+          return false;
+        }
+      }
+      handleErrorReply(replys, (replys.size() > 1) ? 1 : 0);
+      return false;
+    }
+    else if (codePoint != DDMTerm.S38BUF)
+    { // Error occurred
+      handleErrorReply(replys, 0);
+      return false;
+    }
+
+    DDMDataStream reply = (DDMDataStream)replys.elementAt(0);
+    boolean largeBuffer = (reply.get16bit(6) > 0x7FFF);
+    DDMS38IOFB ioFeedback;
+    if (reply.isChained())
+    { // The IO feedback is in the next reply.
+      ioFeedback = new DDMS38IOFB(((DDMDataStream)replys.elementAt(1)).data_, 10);
+    }
+    else
+    { // The io feedback info follows the S38BUF in this reply.
+      int offset = (largeBuffer)? reply.get32bit(10) + 18 : reply.get16bit(6) + 10;
+      ioFeedback = new DDMS38IOFB(reply.data_, offset);
+    }
+
+    int numberOfRecords = ioFeedback.getNumberOfRecordsReturned();
+    int recordOffset = (largeBuffer)? 14 : 10;
+    // Offsets within each record of the null byte field map and the record number.
+    int nullFieldMapOffset = openFeedback_.isNullCapable() ? openFeedback_.getNullFieldByteMapOffset() : -1;
+    int recordNumberOffset = ioFeedback.getRecordLength() + 2;
+    cursor.setBlock(reply.data_, recordOffset, openFeedback_.getRecordIncrement(), numberOfRecords, nullFieldMapOffset, recordNumberOffset);
+    return numberOfRecords > 0;
+  }
+
   /**
    *Rolls back any transactions since the last commit/rollback boundary.  Invoking this
    *method will cause all transactions under commitment control for this connection
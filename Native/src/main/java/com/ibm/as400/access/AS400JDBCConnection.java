@@ -859,6 +859,32 @@ extends ToolboxWrapper
     abstract void notifyClose(AS400JDBCStatement statement, int id)
             throws SQLException;
 
+    //@SC1A
+
+    /**
+     * Keeps a prepared statement that is being closed in the statement
+     * cache of the connection, so that it stays prepared on the system
+     * and can be returned by a later prepareStatement() for the same
+     * SQL statement.
+     *
+     * @param statement The statement.
+     * @return true if the statement was cached and must not be closed;
+     * false otherwise.
+     * @throws SQLException If an error occurs.
+     **/
+    abstract boolean cacheStatement(AS400JDBCPreparedStatementImpl statement)
+            throws SQLException;
+
+    //@SC1A
+
+    /**
+     * Closes the statements in the statement cache of the connection,
+     * because a database object they may refer to was changed.  Statements
+     * that were taken from the cache are closed instead of being cached
+     * again.  Errors are ignored.
+     **/
+    abstract void invalidateStatementCache();
+
 
     // JDBC 2.0
 
@@ -1318,6 +1344,41 @@ extends ToolboxWrapper
     abstract DBReplyRequestedDS receiveMoreData()
             throws SQLException;
 
+    //@RA1A
+
+    /**
+     * Sends a request data stream to the system and returns without
+     * waiting for the reply.  The reply is held by the connection
+     * until it is collected with receiveDeferredReply().  Every
+     * correlation id returned by this method must eventually be
+     * passed to receiveDeferredReply(), otherwise the reply is
+     * held indefinitely.
+     *
+     * @param request The request.
+     * @param id      The id.
+     * @return The correlation id of the reply.
+     * @throws SQLException If an error occurs.
+     **/
+    //
+    // See implementation notes for sendAndReceive().
+    //
+    abstract int sendAndDeferReceive(DBBaseRequestDS request, int id)
+            throws SQLException;
+
+    //@RA1A
+
+    /**
+     * Returns the reply to a request that was sent with
+     * sendAndDeferReceive(), waiting for it if it has not
+     * arrived yet.
+     *
+     * @param correlationId The correlation id returned by sendAndDeferReceive().
+     * @return The reply.
+     * @throws SQLException If an error occurs.
+     **/
+    abstract DBReplyRequestedDS receiveDeferredReply(int correlationId)
+            throws SQLException;
+
     /**
      * Sets the eWLM Correlator.  It is assumed a valid correlator value is used.
      * If the value is null, all ARM/eWLM implementation will be turned off.
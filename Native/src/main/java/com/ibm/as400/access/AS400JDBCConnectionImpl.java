@@ -210,6 +210,9 @@ public class AS400JDBCConnectionImpl
     private int statementCount_ = 0;                                    //@K1A
     private boolean thousandStatements_ = false;                        //@K1A
 
+    private JDStatementCache statementCache_ = null;                    //@SC1A null if statements are not cached
+    private int statementCacheGeneration_ = 0;                          //@SC1A number of times the cache was invalidated
+
     private String qaqqiniLibrary_ = null;                              //@K2A
 
     //@KBA Specifies level of autocommit support to use.
@@ -1874,7 +1877,7 @@ public class AS400JDBCConnectionImpl
 
     public String nativeSQL(AS400JDBCConnection con, String sql)
             throws SQLException {
-        JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+        JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                 properties_.getString(JDProperties.DECIMAL_SEPARATOR), true,
                 properties_.getString(JDProperties.PACKAGE_CRITERIA), con); // @A2A @G4A
         return sqlStatement.toString();
@@ -1899,6 +1902,93 @@ public class AS400JDBCConnectionImpl
         }
     }
 
+    //@SC1A
+
+    /**
+     * Keeps a prepared statement that is being closed in the statement
+     * cache, so that it stays prepared on the system.  The least recently
+     * used statement is closed if the cache is full.
+     *
+     * @param statement The statement.
+     * @return true if the statement was cached and must not be closed;
+     * false otherwise.
+     * @throws SQLException If an error occurs.
+     **/
+    boolean cacheStatement(AS400JDBCPreparedStatementImpl statement)
+            throws SQLException {
+        if (statementCache_ == null || closing_
+                || statement.getStatementCacheGeneration() != statementCacheGeneration_)
+            return false;
+
+        // If the statement can not be reset, it is closed as usual.
+        try {
+            if (!statement.resetForStatementCache())
+                return false;
+        } catch (SQLException e) {
+            if (JDTrace.isTraceOn())
+                JDTrace.logException(this, "Resetting statement for the statement cache failed", e);
+            return false;
+        }
+
+        AS400JDBCPreparedStatementImpl removed = statementCache_.put(statement.getStatementCacheKey(), statement);
+        if (JDTrace.isTraceOn())
+            JDTrace.logInformation(statement, "Kept in the statement cache");
+        if (removed != null)
+            removed.closeUncached();
+        return true;
+    }
+
+    //@SC1A
+
+    /**
+     * Closes the statements in the statement cache.  Statements that
+     * were taken from the cache are closed, not cached, when the
+     * application closes them.
+     **/
+    void invalidateStatementCache() {
+        if (statementCache_ == null)
+            return;
+
+        ++statementCacheGeneration_;
+        AS400JDBCPreparedStatementImpl[] statements = statementCache_.clear();
+        if (JDTrace.isTraceOn())
+            JDTrace.logInformation(this, "Invalidating the statement cache, " + statements.length + " statements");
+
+        // Errors are ignored, since the statements will not be used again.
+        for (int i = 0; i < statements.length; ++i) {
+            try {
+                statements[i].closeUncached();
+            } catch (SQLException e) {
+                if (JDTrace.isTraceOn())
+                    JDTrace.logException(this, "Closing cached statement failed", e);
+            }
+        }
+    }
+
+    //@SC1A
+
+    /**
+     * Forgets the statements in the statement cache without closing them
+     * on the system, because the system has already ended them.
+     **/
+    private void discardStatementCache() {
+        if (statementCache_ == null)
+            return;
+
+        ++statementCacheGeneration_;
+        AS400JDBCPreparedStatementImpl[] statements = statementCache_.clear();
+        if (JDTrace.isTraceOn())
+            JDTrace.logInformation(this, statementCache_.getStatistics());
+        for (int i = 0; i < statements.length; ++i) {
+            statements[i].setStatementCacheKey(null, 0);
+            statements_.removeElement(statements[i]);
+            statementCount_--;
+            synchronized (assigned_) {
+                assigned_[statements[i].id_] = false;
+            }
+        }
+    }
+
     /**
      * Posts a warning for the connection.
      *
@@ -2050,7 +2140,7 @@ public class AS400JDBCConnectionImpl
             JDError.throwSQLException(this, JDError.EXC_ATTRIBUTE_VALUE_INVALID);    //@F3A
 
         // Create the statement.
-        JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+        JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                 properties_.getString(JDProperties.DECIMAL_SEPARATOR), true,
                 properties_.getString(JDProperties.PACKAGE_CRITERIA), this); // @A2A @G4A
         int statementId = getUnusedId(resultSetType); // @B1C
@@ -2158,7 +2248,7 @@ public class AS400JDBCConnectionImpl
         checkOpen();
 
         // Create the statement.
-        JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+        JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                 properties_.getString(JDProperties.DECIMAL_SEPARATOR), true,
                 properties_.getString(JDProperties.PACKAGE_CRITERIA), con);  // @A2A @G4A
 
@@ -2171,7 +2261,7 @@ public class AS400JDBCConnectionImpl
             if (sqlStatement.isInsert_) {
                 //wrapper the statement
                 String selectStatement = makeGeneratedKeySelectStatement(sql);
-                sqlStatement = new JDSQLStatement(selectStatement, properties_.getString(JDProperties.DECIMAL_SEPARATOR), true,
+                sqlStatement = JDSQLStatement.getStatement(selectStatement, properties_.getString(JDProperties.DECIMAL_SEPARATOR), true,
                         properties_.getString(JDProperties.PACKAGE_CRITERIA), con);
                 wrappedInsert_ = true;
 
@@ -2314,8 +2404,21 @@ public class AS400JDBCConnectionImpl
         if (!checkHoldabilityConstants(resultSetHoldability))                   //@F3A
             JDError.throwSQLException(this, JDError.EXC_ATTRIBUTE_VALUE_INVALID);    //@F3A
 
+        // Reuse a statement that is still prepared on the system.            //@SC1A
+        JDStatementCache.Key cacheKey = null;
+        if (statementCache_ != null && sql != null) {
+            cacheKey = new JDStatementCache.Key(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            AS400JDBCPreparedStatementImpl cached = statementCache_.get(cacheKey);
+            if (cached != null) {
+                cached.reopenFromStatementCache(statementCacheGeneration_);
+                if (JDTrace.isTraceOn())
+                    JDTrace.logInformation(cached, "Reused from the statement cache");
+                return new JDCachedPreparedStatement(cached);                //@SC2C
+            }
+        }
+
         // Create the statement.
-        JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+        JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                 properties_.getString(JDProperties.DECIMAL_SEPARATOR), true,
                 properties_.getString(JDProperties.PACKAGE_CRITERIA), con);  // @A2A @G4A
         int statementId = getUnusedId(resultSetType); // @B1C
@@ -2328,6 +2431,8 @@ public class AS400JDBCConnectionImpl
                 properties_.getString(JDProperties.PACKAGE_CRITERIA),
                 resultSetType, resultSetConcurrency, resultSetHoldability, //@G4A
                 AS400JDBCStatement.GENERATED_KEYS_NOT_SPECIFIED);                        //@G4A
+        if (cacheKey != null)                                       //@SC1A
+            statement.setStatementCacheKey(cacheKey, statementCacheGeneration_);
         statements_.addElement(statement);                      // @DAC
         statementCount_++;                           //@K1A
         if (thousandStatements_ == false && statementCount_ == 1000)              //@K1A
@@ -2346,6 +2451,10 @@ public class AS400JDBCConnectionImpl
             }                                                               //@F4A
         }                                                                   //@F4A
 
+        // A statement that can be cached is used through a handle of its     //@SC2A
+        // own, so that closing the handle does not close a later user's handle.
+        if (cacheKey != null)                                               //@SC2A
+            return new JDCachedPreparedStatement(statement);                //@SC2A
         return statement;
     }
 
@@ -2384,7 +2493,7 @@ public class AS400JDBCConnectionImpl
             checkOpen();
 
             //Create a JDSQLStatement
-            JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+            JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                     properties_.getString(JDProperties.DECIMAL_SEPARATOR), true,
                     properties_.getString(JDProperties.PACKAGE_CRITERIA), con);
             //Check if the statement is an insert
@@ -2430,7 +2539,7 @@ public class AS400JDBCConnectionImpl
             checkOpen();
 
             //Create a JDSQLStatement
-            JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+            JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                     properties_.getString(JDProperties.DECIMAL_SEPARATOR), true,
                     properties_.getString(JDProperties.PACKAGE_CRITERIA), con);
             //Check if the statement is an insert
@@ -2534,6 +2643,10 @@ public class AS400JDBCConnectionImpl
      **/
     public void pseudoClose() throws SQLException                      // @E1
     {
+        // The cached statements end with the connection.                  //@SC1A
+        if (closing_)
+            discardStatementCache();
+
         // Rollback before closing.
         if ((transactionManager_.isLocalTransaction()) && (transactionManager_.isLocalActive()))  // @E4A
             rollback();
@@ -3171,6 +3284,95 @@ public class AS400JDBCConnectionImpl
         return reply;
     }
 
+    //@RA1A
+
+    /**
+     * Sends a request data stream to the system and returns without
+     * waiting for the reply.  The reply is held by the read daemon
+     * until it is collected with receiveDeferredReply().
+     *
+     * @param request The request.
+     * @param id      The id.
+     * @return The correlation id of the reply.
+     * @throws SQLException If an error occurs.
+     **/
+    //
+    // See implementation notes for sendAndReceive().
+    //
+    public int sendAndDeferReceive(DBBaseRequestDS request, int id)
+            throws SQLException {
+        checkCancel();
+        checkOpen();
+
+        int correlationId = 0;
+
+        try {
+            request.setBasedOnORSHandle(0);
+
+            if (dataCompression_ == DATA_COMPRESSION_RLE_ && !disableCompression_) {
+                request.addOperationResultBitmap(DBBaseRequestDS.ORS_BITMAP_REQUEST_RLE_COMPRESSION);
+                request.addOperationResultBitmap(DBBaseRequestDS.ORS_BITMAP_REPLY_RLE_COMPRESSION);
+                request.compress();
+            }
+
+            DataStream actualRequest;
+            synchronized (heldRequestsLock_) {
+                if (heldRequests_ != null)
+                    actualRequest = new DBConcatenatedRequestDS(heldRequests_, request);
+                else
+                    actualRequest = request;
+                heldRequests_ = null;
+
+                // Only the send is done under the lock.  The reply is collected
+                // later, so other requests can use the connection in the meantime.
+                correlationId = server_.send(actualRequest);
+            }
+
+            if (DEBUG_COMM_TRACE_ > 0) {
+                debug(request);
+            }
+        } catch (IOException e) {
+            server_ = null;
+            JDError.throwSQLException(this, JDError.EXC_COMMUNICATION_LINK_FAILURE, e);
+        } catch (Exception e) {
+            JDError.throwSQLException(this, JDError.EXC_INTERNAL, e);
+        }
+
+        return correlationId;
+    }
+
+    //@RA1A
+
+    /**
+     * Returns the reply to a request that was sent with
+     * sendAndDeferReceive(), waiting for it if it has not
+     * arrived yet.
+     *
+     * @param correlationId The correlation id returned by sendAndDeferReceive().
+     * @return The reply.
+     * @throws SQLException If an error occurs.
+     **/
+    public DBReplyRequestedDS receiveDeferredReply(int correlationId)
+            throws SQLException {
+        DBReplyRequestedDS reply = null;
+
+        try {
+            reply = (DBReplyRequestedDS) server_.receive(correlationId);
+            reply.parse(dataCompression_);
+
+            if (DEBUG_COMM_TRACE_ > 0) {
+                debug(reply);
+            }
+        } catch (IOException e) {
+            server_ = null;
+            JDError.throwSQLException(this, JDError.EXC_COMMUNICATION_LINK_FAILURE, e);
+        } catch (Exception e) {
+            JDError.throwSQLException(this, JDError.EXC_INTERNAL, e);
+        }
+
+        return reply;
+    }
+
     /**
      * Sets the eWLM Correlator.  It is assumed a valid correlator value is used.
      * If the value is null, all ARM/eWLM implementation will be turned off.
@@ -3519,6 +3721,11 @@ public class AS400JDBCConnectionImpl
         packageManager_ = new JDPackageManager(this, id_, properties_,
                 transactionManager_.getCommitMode());
 
+        // Initialize the statement cache.                                      //@SC1A
+        int statementCacheSize = properties_.getInt(JDProperties.STATEMENT_CACHE_SIZE);
+        if (statementCacheSize > 0)
+            statementCache_ = new JDStatementCache(statementCacheSize);
+
         // Trace messages.
         if (JDTrace.isTraceOn()) {
             JDTrace.logOpen(this, null);                                              // @J33a
@@ -5339,6 +5546,8 @@ public class AS400JDBCConnectionImpl
         }
         ps.executeUpdate();
         ps.close();
+        // Cached statements resolved their unqualified names in the old schema. //@SC2A
+        invalidateStatementCache();                                            //@SC2A
     }
 
     /**
@@ -5766,6 +5975,8 @@ public class AS400JDBCConnectionImpl
      * @param newConnection
      */
     void transferObjects(AS400JDBCConnectionImpl newConnection) {
+        // The cached statements are not prepared on the new connection. //@SC1A
+        discardStatementCache();
         for (int i = 0; i < MAX_STATEMENTS_; i++) {
             newConnection.assigned_[i] = assigned_[i];
         }
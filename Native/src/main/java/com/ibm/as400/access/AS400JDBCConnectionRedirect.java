@@ -1401,6 +1401,23 @@ endif */
 
     }
 
+    public synchronized boolean cacheStatement(AS400JDBCPreparedStatementImpl statement)
+            throws SQLException {
+        boolean retryOperation = true;
+        while (retryOperation) {
+            try {
+                return currentConnection_.cacheStatement(statement);
+            } catch (SQLException e) {
+                retryOperation = handleException(e);
+            }
+        }
+        return false;
+    }
+
+    public synchronized void invalidateStatementCache() {
+        currentConnection_.invalidateStatementCache();
+    }
+
     public synchronized void postWarning(SQLWarning sqlWarning) throws SQLException {
         boolean retryOperation = true;
         while (retryOperation) {
@@ -1883,6 +1900,32 @@ endif */
 
     }
 
+    public synchronized int sendAndDeferReceive(DBBaseRequestDS request, int id)
+            throws SQLException {
+        boolean retryOperation = true;
+        while (retryOperation) {
+            try {
+                return currentConnection_.sendAndDeferReceive(request, id);
+            } catch (SQLException e) {
+                retryOperation = handleException(e);
+            }
+        }
+        JDError.throwSQLException(JDError.EXC_INTERNAL); /* should not be reached */
+        return 0;
+
+    }
+
+    public DBReplyRequestedDS receiveDeferredReply(int correlationId) throws SQLException {
+        try {
+            return currentConnection_.receiveDeferredReply(correlationId);
+        } catch (SQLException e) {
+            // A reply cannot be collected from a reconnected connection,
+            // so the operation is never retried.
+            handleException(e);
+            throw e;
+        }
+    }
+
     public synchronized void setDB2eWLMCorrelator(byte[] bytes) throws SQLException {
         boolean retryOperation = true;
         while (retryOperation) {
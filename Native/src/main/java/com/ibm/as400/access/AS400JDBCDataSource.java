@@ -4064,6 +4064,90 @@ endif */
             JDTrace.logInformation(this, "prefetch: " + prefetch);      //@A8C
     }
 
+    //@RA1A
+
+    /**
+     * Indicates whether the next block of a forward-only result set is
+     * requested from the system while the current block is being processed.
+     *
+     * @return true if read ahead is used; false otherwise.
+     * The default value is false.
+     **/
+    public boolean isReadAhead() {
+        return properties_.getBoolean(JDProperties.READ_AHEAD);
+    }
+
+    //@RA1A
+
+    /**
+     * Sets whether the next block of a forward-only result set is
+     * requested from the system while the current block is being processed.
+     * This will increase performance when reading large result sets
+     * sequentially over high latency links.
+     *
+     * @param readAhead true if read ahead is used; false otherwise.
+     *                  The default value is false.
+     **/
+    public void setReadAhead(boolean readAhead) {
+        Boolean oldValue = Boolean.valueOf(isReadAhead());
+        Boolean newValue = Boolean.valueOf(readAhead);
+
+        if (readAhead)
+            properties_.setString(JDProperties.READ_AHEAD, TRUE_);
+        else
+            properties_.setString(JDProperties.READ_AHEAD, FALSE_);
+
+        changes_.firePropertyChange("readAhead", oldValue, newValue);
+
+        if (JDTrace.isTraceOn())
+            JDTrace.logInformation(this, "readAhead: " + readAhead);
+    }
+
+    //@SC1A
+
+    /**
+     * Returns the number of closed prepared statements that each connection
+     * keeps prepared on the system for reuse.
+     *
+     * @return The statement cache size.
+     * The default value is 0, meaning that statements are not cached.
+     **/
+    public int getStatementCacheSize() {
+        return properties_.getInt(JDProperties.STATEMENT_CACHE_SIZE);
+    }
+
+    //@SC1A
+
+    /**
+     * Sets the number of closed prepared statements that each connection
+     * keeps prepared on the system for reuse.  When the same SQL statement
+     * is prepared again with the same result set type, concurrency, and
+     * holdability, the cached statement is returned without another
+     * prepare request.  This will increase performance when the same
+     * statements are prepared and closed repeatedly, such as with a
+     * connection pool.
+     *
+     * @param size The statement cache size.
+     *             <p> Valid values are 0 to 256.
+     *             The default value is 0, meaning that statements are not cached.
+     **/
+    public void setStatementCacheSize(int size) {
+        String property = "statementCacheSize";
+
+        if (size < 0 || size > JDStatementCache.MAXIMUM_SIZE)
+            throw new ExtendedIllegalArgumentException(property, ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+
+        Integer oldValue = Integer.valueOf(getStatementCacheSize());
+        Integer newValue = Integer.valueOf(size);
+
+        properties_.setString(JDProperties.STATEMENT_CACHE_SIZE, newValue.toString());
+
+        changes_.firePropertyChange(property, oldValue, newValue);
+
+        if (JDTrace.isTraceOn())
+            JDTrace.logInformation(this, property + ": " + size);
+    }
+
 
     // @A2A
 
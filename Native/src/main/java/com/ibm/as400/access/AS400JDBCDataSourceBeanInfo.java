@@ -283,6 +283,18 @@ public class AS400JDBCDataSourceBeanInfo extends SimpleBeanInfo {
             prefetch.setDisplayName(AS400JDBCDriver.getResource("PROP_NAME_PREFETCH", null));
             prefetch.setShortDescription(AS400JDBCDriver.getResource("PREFETCH_DESC", null));
 
+            PropertyDescriptor readAhead = new PropertyDescriptor("readAhead", beanClass, "isReadAhead", "setReadAhead"); //@RA1A
+            readAhead.setBound(true);
+            readAhead.setConstrained(false);
+            readAhead.setDisplayName(AS400JDBCDriver.getResource("PROP_NAME_READ_AHEAD", null));
+            readAhead.setShortDescription(AS400JDBCDriver.getResource("READ_AHEAD_DESC", null));
+
+            PropertyDescriptor statementCacheSize = new PropertyDescriptor("statementCacheSize", beanClass, "getStatementCacheSize", "setStatementCacheSize"); //@SC1A
+            statementCacheSize.setBound(true);
+            statementCacheSize.setConstrained(false);
+            statementCacheSize.setDisplayName(AS400JDBCDriver.getResource("PROP_NAME_STATEMENT_CACHE_SIZE", null));
+            statementCacheSize.setShortDescription(AS400JDBCDriver.getResource("STATEMENT_CACHE_SIZE_DESC", null));
+
             PropertyDescriptor prompt = new PropertyDescriptor("prompt", beanClass, "isPrompt", "setPrompt");
             prompt.setBound(true);
             prompt.setConstrained(false);
@@ -811,7 +823,8 @@ public class AS400JDBCDataSourceBeanInfo extends SimpleBeanInfo {
                     timestampFormat, useDrdaMetadataVersion, portNumber,
                     enableClientAffinitiesList, clientRerouteAlternateServerName,
                     clientRerouteAlternatePortNumber, affinityFailbackInterval,
-                    maxRetriesForClientReroute, retryIntervalForClientReroute, enableSeamlessFailover
+                    maxRetriesForClientReroute, retryIntervalForClientReroute, enableSeamlessFailover,
+                    readAhead, statementCacheSize
             }; //@540 @550 //@DFA //@pdc //@AC1 //@igwrn //@pw3 //@cc1 //@dmy //@STIMEOUT
 
 
@@ -3858,6 +3858,66 @@ endif */
             properties_.setString(JDProperties.PREFETCH, FALSE_);
     }
 
+    /**
+     * Indicates whether the next block of a forward-only result set is
+     * requested from the system while the current block is being processed.
+     *
+     * @return true if read ahead is used; false otherwise.
+     * The default value is false.
+     **/
+    public boolean isReadAhead() {
+        return properties_.getBoolean(JDProperties.READ_AHEAD);
+    }
+
+    /**
+     * Sets whether the next block of a forward-only result set is
+     * requested from the system while the current block is being processed.
+     * This will increase performance when reading large result sets
+     * sequentially over high latency links.
+     *
+     * @param readAhead true if read ahead is used; false otherwise.
+     *                  The default value is false.
+     **/
+    public void setReadAhead(boolean readAhead) {
+        if (readAhead)
+            properties_.setString(JDProperties.READ_AHEAD, TRUE_);
+        else
+            properties_.setString(JDProperties.READ_AHEAD, FALSE_);
+    }
+
+    /**
+     * Returns the number of closed prepared statements that each connection
+     * keeps prepared on the system for reuse.
+     *
+     * @return The statement cache size.
+     * The default value is 0, meaning that statements are not cached.
+     **/
+    public int getStatementCacheSize() {
+        return properties_.getInt(JDProperties.STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Sets the number of closed prepared statements that each connection
+     * keeps prepared on the system for reuse.  When the same SQL statement
+     * is prepared again with the same result set type, concurrency, and
+     * holdability, the cached statement is returned without another
+     * prepare request.  This will increase performance when the same
+     * statements are prepared and closed repeatedly, such as with a
+     * connection pool.
+     *
+     * @param size The statement cache size.
+     *             <p> Valid values are 0 to 256.
+     *             The default value is 0, meaning that statements are not cached.
+     **/
+    public void setStatementCacheSize(int size) {
+        String property = "statementCacheSize";
+
+        if (size < 0 || size > JDStatementCache.MAXIMUM_SIZE)
+            throw new ExtendedIllegalArgumentException(property, ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+
+        properties_.setString(JDProperties.STATEMENT_CACHE_SIZE, Integer.toString(size));
+    }
+
     /**
      * Indicates whether the user is prompted if a user name or password is
      * needed to connect to the IBM i system.  If a connection can not be made
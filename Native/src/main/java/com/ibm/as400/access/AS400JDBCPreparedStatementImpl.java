@@ -194,6 +194,8 @@ public class AS400JDBCPreparedStatementImpl extends AS400JDBCPreparedStatement {
 
     };
     private int descriptorHandle_;
+    private JDStatementCache.Key statementCacheKey_; // @SC1A null if the connection does not cache this statement
+    private int statementCacheGeneration_; // @SC1A
     private boolean outputParametersExpected_;
     private boolean executingBatchedStatement_ = false; // Flag to prevent
     // clearParameters from
@@ -599,6 +601,11 @@ public class AS400JDBCPreparedStatementImpl extends AS400JDBCPreparedStatement {
             if (isClosed())
                 return;
 
+            // If the connection caches this statement, then it stays // @SC1A
+            // prepared on the system, along with its descriptor.
+            if (statementCacheKey_ != null && connection_.cacheStatement(this))
+                return;
+
             // If a descriptor was created somewhere along
             // the lines, then delete it now.
             if (descriptorHandle_ != 0) {
@@ -637,6 +644,72 @@ public class AS400JDBCPreparedStatementImpl extends AS400JDBCPreparedStatement {
         }
     }
 
+    // @SC1A
+    /**
+     * Resets the statement so that it can be kept in the statement cache
+     * of the connection.  This also clears the parameters.
+     *
+     * @return true if the statement was reset; false if it must be closed.
+     * @throws SQLException If an error occurs.
+     **/
+    boolean resetForStatementCache() throws SQLException {
+        synchronized (internalLock_) {
+            clearParameters();
+            return super.resetForStatementCache();
+        }
+    }
+
+    // @SC1A
+    /**
+     * Makes the statement one that the connection keeps in its statement
+     * cache when the statement is closed.
+     *
+     * @param key        The key of the statement in the cache.
+     * @param generation The number of times the cache was invalidated.
+     *                   The statement is not cached if this changes
+     *                   before it is closed.
+     **/
+    void setStatementCacheKey(JDStatementCache.Key key, int generation) {
+        statementCacheKey_ = key;
+        statementCacheGeneration_ = generation;
+    }
+
+    JDStatementCache.Key getStatementCacheKey() {
+        return statementCacheKey_;
+    }
+
+    int getStatementCacheGeneration() {
+        return statementCacheGeneration_;
+    }
+
+    // @SC1A
+    /**
+     * Reopens a statement that the connection took from its statement cache.
+     *
+     * @param generation The number of times the cache was invalidated.
+     **/
+    void reopenFromStatementCache(int generation) {
+        synchronized (internalLock_) {
+            statementCacheGeneration_ = generation;
+            reopen();
+        }
+    }
+
+    // @SC1A
+    /**
+     * Closes the statement on the system, even if it is in the statement
+     * cache of the connection.
+     *
+     * @throws SQLException If an error occurs.
+     **/
+    void closeUncached() throws SQLException {
+        synchronized (internalLock_) {
+            statementCacheKey_ = null;
+            reopen();
+            close();
+        }
+    }
+
     /**
      * Performs common operations needed after an execute.
      *
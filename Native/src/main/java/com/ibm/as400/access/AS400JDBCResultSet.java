@@ -2378,18 +2378,23 @@ endif */
     public byte[] getBytes(int columnIndex)
             throws SQLException {
         synchronized (internalLock_) {                                            // @D1A
-            // Get the data and check for SQL NULL.
-            SQLData data = getValue(columnIndex);
+            // Check for SQL NULL.  The type is known without converting
+            // the value, which the raw bytes path does not need.
+            int location = locateValue(columnIndex);
+            SQLData data = null;
             int sqlType = 0;
-            if (data != null) {
+            if (location == VALUE_UPDATED) {
+                data = updateRow_.getSQLData(columnIndex);
                 sqlType = data.getSQLType();
+            } else if (location == VALUE_ROW) {
+                sqlType = row_.getSQLType(columnIndex).getSQLType();
             }
             byte[] value;                                                               // @C1C
 
             // Treat this differently from the other get's.  If the data is not a       // @C1A
             // BINARY, VARBINARY, or BLOB, and we have access to the bytes, then return // @C1A @D4C
             // the bytes directly.                                                      // @C1A
-            if ((data != null)
+            if ((location != VALUE_NULL)
                     && (!(sqlType == SQLData.BINARY))
                     && (!(sqlType == SQLData.VARBINARY))
                     && (!(sqlType == SQLData.BLOB))                                   // @D4A
@@ -2425,7 +2430,7 @@ endif */
                         }
                     }
                 } else if (sqlType == SQLData.CLOB_LOCATOR) {
-                    String x = data.getString();
+                    String x = getLocatedValue(columnIndex, location).getString();
                     try {
                         value = x.getBytes("ISO8859_1");
                     } catch (Exception cpException) {
@@ -2433,7 +2438,7 @@ endif */
                     }
                 } else if (sqlType == SQLData.DBCLOB_LOCATOR ||
                         sqlType == SQLData.NCLOB_LOCATOR) {
-                    String x = data.getString();
+                    String x = getLocatedValue(columnIndex, location).getString();
                     try {
                         value = x.getBytes("UTF-16BE");
                     } catch (Exception cpException) {
@@ -2441,6 +2446,7 @@ endif */
                     }
                 }
             } else {                                                                      // @C1A
+                if (data == null) data = getLocatedValue(columnIndex, location);
                 value = (data == null) ? null : data.getBytes();                        // @C1C
                 testDataTruncation(columnIndex, data, false); //@trunc //@trunc2
             }                                                                           // @C1A
@@ -2705,7 +2711,23 @@ endif */
             throws SQLException {
         synchronized (internalLock_) {                                            // @D1A
             // Get the data and check for SQL NULL.
-            SQLData data = getValue(columnIndex);
+            int location = locateValue(columnIndex);
+            // Decode numbers straight from the reply data, as in getInt().  Dividing
+            // exact doubles gives the same correctly rounded result as BigDecimal,
+            // as long as the unscaled value has no more than 53 bits.
+            int scale = getDirectScale(columnIndex, location);
+            if (scale >= 0) {
+                try {
+                    long value = ((JDServerRow) row_).getUnscaledLong(columnIndex);
+                    if (scale == 0)
+                        return (double) value;
+                    if (value >= -MAX_EXACT_DOUBLE_LONG && value <= MAX_EXACT_DOUBLE_LONG)
+                        return (double) value / AS400PackedDecimal.POWERS_OF_TEN[scale];
+                } catch (IllegalArgumentException e) {
+                    // Not valid decimal data.  The SQLData object reports the error.
+                }
+            }
+            SQLData data = getLocatedValue(columnIndex, location);
             double value = (data == null) ? 0 : data.getDouble();
             testDataTruncation(columnIndex, data, true); //@trunc
             return value;
@@ -2805,7 +2827,20 @@ endif */
             throws SQLException {
         synchronized (internalLock_) {                                            // @D1A
             // Get the data and check for SQL NULL.
-            SQLData data = getValue(columnIndex);
+            int location = locateValue(columnIndex);
+            // Decode numbers straight from the reply data when they fit.  Otherwise
+            // the SQLData object converts the value and reports truncation.
+            int scale = getDirectScale(columnIndex, location);
+            if (scale >= 0) {
+                try {
+                    long value = ((JDServerRow) row_).getUnscaledLong(columnIndex);
+                    if (isDirectValueInRange(value, scale, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                        return (int) ((scale > 0) ? value / AS400PackedDecimal.POWERS_OF_TEN[scale] : value);
+                } catch (IllegalArgumentException e) {
+                    // Not valid decimal data.  The SQLData object reports the error.
+                }
+            }
+            SQLData data = getLocatedValue(columnIndex, location);
             int value = (data == null) ? 0 : data.getInt();
             testDataTruncation(columnIndex, data, true); //@trunc
             return value;
@@ -2852,7 +2887,19 @@ endif */
             throws SQLException {
         synchronized (internalLock_) {                                            // @D1A
             // Get the data and check for SQL NULL.
-            SQLData data = getValue(columnIndex);
+            int location = locateValue(columnIndex);
+            // Decode numbers straight from the reply data, as in getInt().
+            int scale = getDirectScale(columnIndex, location);
+            if (scale >= 0) {
+                try {
+                    long value = ((JDServerRow) row_).getUnscaledLong(columnIndex);
+                    if (isDirectValueInRange(value, scale, Long.MIN_VALUE, Long.MAX_VALUE))
+                        return (scale > 0) ? value / AS400PackedDecimal.POWERS_OF_TEN[scale] : value;
+                } catch (IllegalArgumentException e) {
+                    // Not valid decimal data.  The SQLData object reports the error.
+                }
+            }
+            SQLData data = getLocatedValue(columnIndex, location);
             long value = (data == null) ? 0 : data.getLong();
             testDataTruncation(columnIndex, data, true); //@trunc
             return value;
@@ -3407,6 +3454,30 @@ endif */
      **/
     private SQLData getValue(int columnIndex)
             throws SQLException {
+        return getLocatedValue(columnIndex, locateValue(columnIndex));
+    }
+
+    // Where locateValue() found the value of a column.
+    private static final int VALUE_NULL = 0;        // SQL NULL or a data mapping error
+    private static final int VALUE_UPDATED = 1;     // in the update row
+    private static final int VALUE_ROW = 2;         // in the current row
+
+    // Largest magnitude of a long that converts to a double exactly.
+    private static final long MAX_EXACT_DOUBLE_LONG = 1L << 53;
+
+    /**
+     * Performs the validation of getValue(), and finds the value
+     * without converting it.  Getters that can decode a value
+     * straight from the row data use this instead of getValue().
+     *
+     * @param columnIndex The column index (1-based).
+     * @return VALUE_NULL, VALUE_UPDATED, or VALUE_ROW.
+     * @throws SQLException If the result set is not open,
+     *                      the cursor is not positioned on a row,
+     *                      or the column index is not valid.
+     **/
+    private int locateValue(int columnIndex)
+            throws SQLException {
         checkOpen();
         clearCurrentValue();
 
@@ -3427,10 +3498,7 @@ endif */
                     || (positionInsert_ == true)) {
                 wasNull_ = updateNulls_[columnIndex - 1];
                 wasDataMappingError_ = false;
-                if (wasNull_)
-                    return null;
-                else
-                    return updateRow_.getSQLData(columnIndex);
+                return wasNull_ ? VALUE_NULL : VALUE_UPDATED;
             }
         }
 
@@ -3449,10 +3517,57 @@ endif */
                 && statement_ != null) //@mdrs2                  //@xml3
             statement_.setAssociatedWithLocators(true);             //@KBL
 
-        if (wasNull_ || wasDataMappingError_)
-            return null;
-        else
-            return row_.getSQLData(columnIndex);
+        return (wasNull_ || wasDataMappingError_) ? VALUE_NULL : VALUE_ROW;
+    }
+
+    // Returns the value found by locateValue(), converting it if it is in the current row.
+    private SQLData getLocatedValue(int columnIndex, int location)
+            throws SQLException {
+        switch (location) {
+            case VALUE_UPDATED:
+                return updateRow_.getSQLData(columnIndex);
+            case VALUE_ROW:
+                return row_.getSQLData(columnIndex);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the scale of a numeric column in the current row whose value
+     * can be decoded straight from the reply data with getUnscaledLong(),
+     * or -1 if the value must be converted by its SQLData object.
+     *
+     * @param columnIndex The column index (1-based).
+     * @param location    The location returned by locateValue().
+     * @return The scale, or -1.
+     **/
+    private int getDirectScale(int columnIndex, int location) {
+        if (location != VALUE_ROW || !(row_ instanceof JDServerRow))
+            return -1;
+        return ((JDServerRow) row_).getDirectScale(columnIndex);
+    }
+
+    /**
+     * Indicates if a value decoded with getUnscaledLong() lies within a range,
+     * comparing the value with its fraction, as the SQLData objects do.  A value
+     * such as 2147483647.5 is out of the range of an int, and must be converted
+     * by its SQLData object so that the truncation is reported.
+     *
+     * @param value The unscaled value.
+     * @param scale The scale of the value.
+     * @param min   The smallest value in the range.
+     * @param max   The largest value in the range.
+     * @return true if the value is within the range; false otherwise.
+     **/
+    private static boolean isDirectValueInRange(long value, int scale, long min, long max) {
+        if (scale == 0)
+            return value >= min && value <= max;
+        long factor = AS400PackedDecimal.POWERS_OF_TEN[scale];
+        long whole = value / factor;
+        long fraction = value % factor;
+        return (whole > min || (whole == min && fraction >= 0))
+                && (whole < max || (whole == max && fraction <= 0));
     }
 
 
@@ -141,8 +141,8 @@ endif */
     private DBReplyRequestedDS getMoreResultsReply = null;
 
     private boolean queryRunning_;    // Used to determine whether or not we need to track}
-    // a QueryCancelThread.  @D4A
-    private AS400JDBCQueryCancelThread cancelThread_;    /*@D4A*/
+    // a query cancel timeout.  @D4A
+    private QueryCancelTimeout cancelTimeout_;    /*@D4A*/
 
 
     boolean disableRllCompression_ = false; //@L9A
@@ -313,7 +313,7 @@ endif */
             throws SQLException {
         synchronized (internalLock_) {    // @E6A
             checkOpen();
-            JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+            JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                     settings_.getDecimalSeparator(), escapeProcessing_,
                     packageCriteria_, connection_);    //@G4C
             currentJDSQLStatement_ = sqlStatement;
@@ -670,6 +670,48 @@ endif */
 
     }
 
+    //@SC1A
+
+    /**
+     * Resets the statement so that it can be kept in the statement cache
+     * of the connection instead of being closed.  The result set is
+     * closed and the batch and warnings are cleared, but the RPB and the
+     * prepared statement are kept on the system.  The statement is then
+     * marked as closed until the connection takes it from the cache.
+     *
+     * @return true if the statement was reset; false if its attributes
+     * were changed from their defaults or it has results that can not
+     * be reset, in which case it must be closed instead.
+     * @throws SQLException If an error occurs.
+     **/
+    boolean resetForStatementCache()
+            throws SQLException {
+        synchronized (internalLock_) {
+            if (connectionReset_ || isHoldStatement() || isAssociatedWithLocators()
+                    || numberOfResults_ > 1 || generatedKeys_ != null || closeOnCompletion_
+                    || !escapeProcessing_ || fetchDirection_ != ResultSet.FETCH_FORWARD
+                    || fetchSize_ != 0 || maxFieldSize_ != 0 || maxRows_ != 0 || longMaxRows_ != 0
+                    || queryTimeout_ != 0 || !cursor_.getName().equals(cursorDefaultName_))
+                return false;
+
+            closeResultSet(JDCursor.REUSE_YES);
+            if (batch_ != null)
+                batch_.removeAllElements();
+            sqlWarning_ = null;
+            closed_ = true;
+            return true;
+        }
+    }
+
+    //@SC1A
+
+    /**
+     * Reopens a statement that was reset by resetForStatementCache().
+     **/
+    void reopen() {
+        closed_ = false;
+    }
+
     /**
      * Closes the result set and cursor.
      *
@@ -730,6 +772,12 @@ endif */
                 startCancelThread();
             }
 
+            // Statements cached by the connection may refer to an      //@SC1A
+            // object that this statement changes, or resolve unqualified  //@SC2C
+            // names against a schema or path that this statement changes.
+            if (sqlStatement.isDDL() || sqlStatement.isSetStatementForSpecialRegister()) //@SC2C
+                connection_.invalidateStatementCache();
+
             /* If the connect statement has not been executed, then do it now */
             /* @W4A*/
             if (sqlStatement.getNativeType() == JDSQLStatement.TYPE_CONNECT && (!allowImmediate_)) {
@@ -1243,6 +1291,11 @@ endif */
                             commonExecuteAfter(sqlStatement, commonExecuteReply);
                         } catch (SQLException sqlex) {
 
+                            // The system no longer has an object or a prepared     //@SC1A
+                            // statement, so cached statements may be out of date.
+                            if (JDStatementCache.isInvalidatingError(sqlex))
+                                connection_.invalidateStatementCache();
+
                             // Handle interrupted exception
                             String messageText = sqlex.getMessage();
                             messageText = messageText.toLowerCase();
@@ -2025,7 +2078,7 @@ endif */
         synchronized (internalLock_) { // @E6A
 
             checkOpen();
-            JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+            JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                     settings_.getDecimalSeparator(), escapeProcessing_,
                     packageCriteria_, connection_); // @A1A @G4C
             currentJDSQLStatement_ = sqlStatement;
@@ -2107,7 +2160,7 @@ endif */
         {
             synchronized (internalLock_) {
                 checkOpen();
-                JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+                JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                         settings_.getDecimalSeparator(), escapeProcessing_,
                         packageCriteria_, connection_);
                 currentJDSQLStatement_ = sqlStatement;
@@ -2130,7 +2183,7 @@ endif */
                 if (sqlStatement.isInsert_) {
                     String selectStatement = connection_.makeGeneratedKeySelectStatement(sql);
                     //Construct the new JDSQLStatement object
-                    sqlStatement = new JDSQLStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
+                    sqlStatement = JDSQLStatement.getStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
                     if (JDTrace.isTraceOn())
                         JDTrace.logInformation(this, "Generated keys, SQL Statement -->[" + sqlStatement + "]");
                     sqlStatement.setSelectFromInsert(true);
@@ -2189,7 +2242,7 @@ endif */
         {
             synchronized (internalLock_) {
                 checkOpen();
-                JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+                JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                         settings_.getDecimalSeparator(), escapeProcessing_,
                         packageCriteria_, connection_);
                 currentJDSQLStatement_ = sqlStatement;
@@ -2212,7 +2265,7 @@ endif */
                 //check if the statement is an insert statement
                 if (sqlStatement.isInsert_) {
                     String selectStatement = connection_.makeGeneratedKeySelectStatement(sql, columnIndexes, null);
-                    sqlStatement = new JDSQLStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
+                    sqlStatement = JDSQLStatement.getStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
                     currentJDSQLStatement_ = sqlStatement;
                     if (JDTrace.isTraceOn())
                         JDTrace.logInformation(this, "Generated keys, SQL Statement -->[" + sqlStatement + "]");
@@ -2274,7 +2327,7 @@ endif */
         {
             synchronized (internalLock_) {
                 checkOpen();
-                JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+                JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                         settings_.getDecimalSeparator(), escapeProcessing_,
                         packageCriteria_, connection_);
                 currentJDSQLStatement_ = sqlStatement;
@@ -2297,7 +2350,7 @@ endif */
                 //check if the statement is an insert statement
                 if (sqlStatement.isInsert_) {
                     String selectStatement = connection_.makeGeneratedKeySelectStatement(sql, null, columnNames);
-                    sqlStatement = new JDSQLStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
+                    sqlStatement = JDSQLStatement.getStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
                     currentJDSQLStatement_ = sqlStatement;
 
                     if (JDTrace.isTraceOn())
@@ -2427,7 +2480,7 @@ endif */
             throws SQLException {
         synchronized (internalLock_) {    // @E6A
             checkOpen();
-            JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+            JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                     settings_.getDecimalSeparator(), escapeProcessing_,
                     packageCriteria_, connection_);    // @A1A @G4C
             currentJDSQLStatement_ = sqlStatement;
@@ -2485,7 +2538,7 @@ endif */
             throws SQLException {
         synchronized (internalLock_) {    // @E6A
             checkOpen();
-            JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+            JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                     settings_.getDecimalSeparator(), escapeProcessing_,
                     packageCriteria_, connection_);    // @A1A @G4A
             currentJDSQLStatement_ = sqlStatement;
@@ -2564,7 +2617,7 @@ endif */
         {
             synchronized (internalLock_) {
                 checkOpen();
-                JDSQLStatement sqlStatement = new JDSQLStatement(sql,
+                JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql,
                         settings_.getDecimalSeparator(), escapeProcessing_,
                         packageCriteria_, connection_);
                 currentJDSQLStatement_ = sqlStatement;
@@ -2587,7 +2640,7 @@ endif */
                 if (sqlStatement.isInsert_) {
                     String selectStatement = connection_.makeGeneratedKeySelectStatement(sql);
                     //Create a new JDSQLStatement
-                    sqlStatement = new JDSQLStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
+                    sqlStatement = JDSQLStatement.getStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
                     if (JDTrace.isTraceOn())
                         JDTrace.logInformation(this, "Generated keys, SQL Statement -->[" + sqlStatement + "]");
                     currentJDSQLStatement_ = sqlStatement;
@@ -2650,7 +2703,7 @@ endif */
                 checkOpen();
 
                 //create the sql statement object.
-                JDSQLStatement sqlStatement = new JDSQLStatement(sql, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
+                JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
                 currentJDSQLStatement_ = sqlStatement;
 
                 if (JDTrace.isTraceOn())
@@ -2672,7 +2725,7 @@ endif */
                 //check if the statement is an insert statement
                 if (sqlStatement.isInsert_) {
                     String selectStatement = connection_.makeGeneratedKeySelectStatement(sql, columnIndexes, null);
-                    sqlStatement = new JDSQLStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
+                    sqlStatement = JDSQLStatement.getStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
                     currentJDSQLStatement_ = sqlStatement;
                     if (JDTrace.isTraceOn())
                         JDTrace.logInformation(this, "Generated keys, SQL Statement -->[" + sqlStatement + "]");
@@ -2740,7 +2793,7 @@ endif */
                 checkOpen();
 
                 //create the sql statement object.
-                JDSQLStatement sqlStatement = new JDSQLStatement(sql, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
+                JDSQLStatement sqlStatement = JDSQLStatement.getStatement(sql, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
                 currentJDSQLStatement_ = sqlStatement;
 
                 if (JDTrace.isTraceOn())
@@ -2762,7 +2815,7 @@ endif */
                 //check if the statement is an insert statement
                 if (sqlStatement.isInsert_) {
                     String selectStatement = connection_.makeGeneratedKeySelectStatement(sql, null, columnNames);
-                    sqlStatement = new JDSQLStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
+                    sqlStatement = JDSQLStatement.getStatement(selectStatement, settings_.getDecimalSeparator(), escapeProcessing_, packageCriteria_, connection_);
                     currentJDSQLStatement_ = sqlStatement;
                     if (JDTrace.isTraceOn())
                         JDTrace.logInformation(this, "Generated keys, SQL Statement -->[" + sqlStatement + "]");
@@ -4145,10 +4198,11 @@ endif */
     /*@D4A*/
 
     /**
-     * Handles the work involved in supporting a setQueryTimeout option with the cancel property set. .
+     * Handles the work involved in supporting a setQueryTimeout option with the cancel property set.
+     * The timeout is scheduled on the shared TimeoutScheduler, rather than on a thread of its own.
      **/
     protected void startCancelThread() {
-        // Start a cancel thread if there is a query running and a timeout value has been
+        // Schedule a cancel if there is a query running and a timeout value has been
         // specified.
         if (queryTimeoutSet_ && queryTimeout_ != 0) {
 
@@ -4158,16 +4212,10 @@ endif */
 
             queryRunning_ = true;
 
-            // Create a thread to do the cancel if needed.  Start the thread.
-            cancelThread_ = new AS400JDBCQueryCancelThread(this);
-
-            // Uncommented this @A7A ..
-            // this is needed to prevent job from hanging if the extra threads
-            // we started don't end.
-            //
-            cancelThread_.setDaemon(true);
-
-            cancelThread_.start();
+            // The timeout object is reused by every query the statement runs.
+            if (cancelTimeout_ == null)
+                cancelTimeout_ = new QueryCancelTimeout(this);
+            TimeoutScheduler.schedule(cancelTimeout_, queryTimeout_ * 1000L);
         }
     }
 
@@ -4179,17 +4227,41 @@ endif */
      * endTheCancelThread
      **/
     protected void endCancelThread() {
-        // Deal with the cancel thread at this point.
+        // Deal with the cancel at this point.
         if (queryTimeout_ != 0) {
 
             // Set the flag saying the query is no longer running.
             queryRunning_ = false;
 
-            // Detach the thread from the statement.
-            cancelThread_.statement_ = null;
+            // Remove the timeout from the scheduler.
+            if (cancelTimeout_ != null)
+                TimeoutScheduler.cancel(cancelTimeout_);
+        }
+    }
+
+    // Cancels the running query when the query timeout expires.
+    private static final class QueryCancelTimeout extends TimeoutScheduler.Timeout {
+        private final AS400JDBCStatement statement_;
+
+        QueryCancelTimeout(AS400JDBCStatement statement) {
+            statement_ = statement;
+        }
 
-            // Interrupt the thread so that it wakes up and dies.
-            cancelThread_.interrupt();
+        void timedOut() {
+            boolean traceOn = JDTrace.isTraceOn();
+            try {
+                if (statement_.isQueryRunning()) {
+                    if (traceOn)
+                        JDTrace.logInformation(statement_, "NOTE:  Query timeout is cancelling a statement by user request.");
+                    statement_.cancel();
+                } else {
+                    if (traceOn)
+                        JDTrace.logInformation(statement_, "Doing nothing since query not running");
+                }
+            } catch (Exception e) {
+                if (traceOn)
+                    JDTrace.logInformation(statement_, "Exception " + e + " caught");
+            }
         }
     }
 
@@ -133,7 +133,10 @@ class AS400NoThreadServer extends AS400Server
       }
         int correlationID = newCorrelationId();
         requestStream.setCorrelation(correlationID);
+        HostServerMetrics metrics = HostServerMetrics.active_;
+        if (metrics != null) recordSendTime(correlationID);
         requestStream.write(outStream_);
+        if (metrics != null) metrics.requestSent(service_, getMetricsLength(requestStream));
         return correlationID;
     }
 
@@ -153,7 +156,10 @@ class AS400NoThreadServer extends AS400Server
         requestStream.setConnectionID(connectionID_);
       }
         requestStream.setCorrelation(correlationId);
+        HostServerMetrics metrics = HostServerMetrics.active_;
+        if (metrics != null) recordSendTime(correlationId);
         requestStream.write(outStream_);
+        if (metrics != null) metrics.requestSent(service_, getMetricsLength(requestStream));
     }
 
     synchronized DataStream receive(int correlationId) throws IOException
@@ -199,6 +205,9 @@ class AS400NoThreadServer extends AS400Server
 
                 boolean keepDataStream = true;
                 int correlation = ds.getCorrelation();
+
+                HostServerMetrics metrics = HostServerMetrics.active_;
+                if (metrics != null) metrics.replyReceived(service_, getMetricsLength(ds), getRoundTripNanos(correlation));
                 for (int i = 0; i < discardList_.size(); i++)
                 {
                     if (((Integer)discardList_.elementAt(i)).intValue() == correlation)
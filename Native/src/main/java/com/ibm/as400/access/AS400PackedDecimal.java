@@ -31,6 +31,38 @@ public class AS400PackedDecimal implements AS400DataType
 
     private boolean useDouble_ = false;
 
+    // The largest number of digits whose value always fits in a long.
+    static final int MAX_LONG_DIGITS = 18;
+
+    // Powers of ten that fit in a long, indexed by exponent.
+    static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS+1];
+
+    // The value of the two digits in a packed byte, or -1 if either nibble is not a digit.
+    private static final int[] PACKED_TO_INT = new int[256];
+
+    // The packed byte for each two digit value from 0 to 99.
+    private static final byte[] INT_TO_PACKED = new byte[100];
+
+    static
+    {
+      long power = 1;
+      for (int i = 0; i <= MAX_LONG_DIGITS; ++i)
+      {
+        POWERS_OF_TEN[i] = power;
+        power *= 10;
+      }
+      for (int i = 0; i < 256; ++i)
+      {
+        int high = i >>> 4;
+        int low = i & 0x0F;
+        PACKED_TO_INT[i] = (high > 9 || low > 9) ? -1 : high * 10 + low;
+      }
+      for (int i = 0; i < 100; ++i)
+      {
+        INT_TO_PACKED[i] = (byte)(((i / 10) << 4) | (i % 10));
+      }
+    }
+
     /**
      * Constructs an AS400PackedDecimal object.
      * @param numDigits The number of digits in the packed decimal number.  It must be greater than or equal to one and less than or equal to thirty-one.
@@ -198,6 +230,27 @@ public class AS400PackedDecimal implements AS400DataType
          throw new ExtendedIllegalArgumentException("javaValue (" + javaValue.toString() + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
      }
 
+     // If the value fits in a long, encode it without building a String.
+     // Values that do not fit are left to the code below, which reports the error.
+     if (outDigits <= MAX_LONG_DIGITS)
+     {
+       int shift = outDecimalPlaces - inValue.scale();
+       if (shift <= outDigits)
+       {
+         // Fewer than 63 bits leaves out Long.MIN_VALUE, whose absolute value is negative.
+         // Longer values have more than 18 digits, so they would not fit anyway.
+         BigInteger unscaled = inValue.unscaledValue();
+         if (unscaled.bitLength() < 63)
+         {
+           long value = unscaled.longValue();
+           if (Math.abs(value) < POWERS_OF_TEN[outDigits - shift])
+           {
+             return toBytesUnscaled(value * POWERS_OF_TEN[shift], as400Value, offset);
+           }
+         }
+       }
+     }
+
      // read the sign
      int sign = inValue.signum();
 
@@ -257,6 +310,66 @@ public class AS400PackedDecimal implements AS400DataType
      return outLength;
     }
 
+    /**
+     * Converts the specified unscaled value to IBM i format.  The value is
+     * interpreted with the number of decimal positions of this object, so
+     * for an object with two decimal positions, 12345 is converted as 123.45.
+     * No intermediate objects are created for values of up to 18 digits.
+     * @param unscaledValue The unscaled value.  It must have a less than or equal to number of digits.
+     * @return The IBM i representation of the data type.
+     **/
+    public byte[] toBytesUnscaled(long unscaledValue)
+    {
+     byte[] as400Value = new byte[this.digits_/2+1];
+     this.toBytesUnscaled(unscaledValue, as400Value, 0);
+     return as400Value;
+    }
+
+    /**
+     * Converts the specified unscaled value into IBM i format in the specified byte array.
+     * The value is interpreted with the number of decimal positions of this object, so
+     * for an object with two decimal positions, 12345 is converted as 123.45.
+     * No intermediate objects are created for values of up to 18 digits.
+     * @param unscaledValue The unscaled value.  It must have a less than or equal to number of digits.
+     * @param as400Value The array to receive the data type in IBM i format.  There must be enough space to hold the IBM i value.
+     * @param offset The offset into the byte array for the start of the IBM i value. It must be greater than or equal to zero.
+     * @return The number of bytes in the IBM i representation of the data type.
+     **/
+    public int toBytesUnscaled(long unscaledValue, byte[] as400Value, int offset)
+    {
+     // Long.MIN_VALUE has no positive counterpart.  It has 19 digits, so it only
+     // fits in a larger field, which the BigDecimal code handles.
+     if (unscaledValue == Long.MIN_VALUE)
+     {
+       if (this.digits_ <= MAX_LONG_DIGITS)
+       {
+         throw new ExtendedIllegalArgumentException("unscaledValue (" + String.valueOf(unscaledValue) + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+       }
+       return toBytes(BigDecimal.valueOf(unscaledValue, this.scale_), as400Value, offset);
+     }
+
+     long absValue = Math.abs(unscaledValue);
+     if (this.digits_ <= MAX_LONG_DIGITS && absValue >= POWERS_OF_TEN[this.digits_])
+     {
+       throw new ExtendedIllegalArgumentException("unscaledValue (" + String.valueOf(unscaledValue) + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+     }
+
+     int outLength = this.digits_/2+1;
+     int position = offset + outLength - 1;
+
+     // place last digit and sign nibble
+     as400Value[position] = (byte)(((int)(absValue % 10) << 4) | (unscaledValue < 0 ? 0x0D : 0x0F));
+     absValue /= 10;
+
+     // place the remaining digits two at a time, working to the left
+     while (--position >= offset)
+     {
+       as400Value[position] = INT_TO_PACKED[(int)(absValue % 100)];
+       absValue /= 100;
+     }
+     return outLength;
+    }
+
     // @E0A
     /**
      * Converts the specified Java object to IBM i format.
@@ -505,8 +618,13 @@ public class AS400PackedDecimal implements AS400DataType
       return toObject(as400Value, offset, false); 
     }
     public Object toObject(byte[] as400Value, int offset, boolean ignoreErrors)     {  /*@Q2C*/
-      int startOffset = offset;
       if (useDouble_) return new Double(toDouble(as400Value, offset));
+      return toBigDecimal(as400Value, offset, ignoreErrors);
+    }
+
+    private BigDecimal toBigDecimal(byte[] as400Value, int offset, boolean ignoreErrors)
+    {
+      int startOffset = offset;
 
      // Check offset to prevent bogus NumberFormatException message
      if (offset < 0)
@@ -521,6 +639,17 @@ public class AS400PackedDecimal implements AS400DataType
      int numDigits = this.digits_;
      int inputSize = numDigits/2+1;
 
+     // If the value fits in a long, decode it without building a String.
+     // Values that are not valid are left to the code below, which reports the error.
+     if (fitsInLong(as400Value, offset))
+     {
+       long unscaledValue = decodeUnscaled(as400Value, offset, inputSize);
+       if (unscaledValue != Long.MIN_VALUE)
+       {
+         return BigDecimal.valueOf(unscaledValue, this.scale_);
+       }
+     }
+
      // even number of digits will have a leading zero
      if (numDigits%2 == 0) ++numDigits;
 
@@ -609,6 +738,100 @@ public class AS400PackedDecimal implements AS400DataType
      return new BigDecimal(new BigInteger(new String(outputData)), this.scale_);
     }
 
+    /**
+     * Converts the specified IBM i data type to its unscaled value.  The decimal
+     * positions of this object are not applied, so for an object with two decimal
+     * positions, 123.45 is returned as 12345.
+     * No intermediate objects are created for values of up to 18 digits.
+     * @param as400Value The array containing the data type in IBM i format.  The entire data type must be represented.
+     * @return The unscaled value.
+     **/
+    public long toUnscaledLong(byte[] as400Value)
+    {
+     return toUnscaledLong(as400Value, 0);
+    }
+
+    /**
+     * Converts the specified IBM i data type to its unscaled value.  The decimal
+     * positions of this object are not applied, so for an object with two decimal
+     * positions, 123.45 is returned as 12345.
+     * No intermediate objects are created for values of up to 18 digits.
+     * @param as400Value The array containing the data type in IBM i format.  The entire data type must be represented and the data type must have valid packed decimal format.
+     * @param offset The offset into the byte array for the start of the IBM i value.  It must be greater than or equal to zero.
+     * @return The unscaled value.
+     **/
+    public long toUnscaledLong(byte[] as400Value, int offset)
+    {
+     // Check offset to prevent bogus NumberFormatException message
+     if (offset < 0)
+     {
+         throw new ArrayIndexOutOfBoundsException(String.valueOf(offset));
+     }
+
+     if (fitsInLong(as400Value, offset))
+     {
+       long unscaledValue = decodeUnscaled(as400Value, offset, this.digits_/2+1);
+       if (unscaledValue != Long.MIN_VALUE)
+       {
+         return unscaledValue;
+       }
+     }
+
+     // Either the value has more digits than a long can always hold, or a
+     // nibble is not valid and toBigDecimal() reports it.
+     BigInteger unscaled = toBigDecimal(as400Value, offset, false).unscaledValue();
+     if (unscaled.bitLength() > 63)
+     {
+       throw new ExtendedIllegalArgumentException("as400Value", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+     }
+     return unscaled.longValue();
+    }
+
+    // Indicates if the value at the offset has at most MAX_LONG_DIGITS significant digits.
+    // An even number of digits has a leading pad nibble, which is normally zero.
+    private boolean fitsInLong(byte[] as400Value, int offset)
+    {
+     if (this.digits_ < MAX_LONG_DIGITS) return true;
+     if (this.digits_ > MAX_LONG_DIGITS) return false;
+     return (as400Value[offset] & 0xF0) == 0;
+    }
+
+    // Returns the unscaled value of a packed decimal that has at most MAX_LONG_DIGITS
+    // significant digits, or Long.MIN_VALUE if a nibble is not valid.
+    private static long decodeUnscaled(byte[] as400Value, int offset, int length)
+    {
+     int last = offset + length - 1;
+     long value = 0;
+
+     // read the digits two at a time, except the last one
+     for (int i = offset; i < last; ++i)
+     {
+       int pair = PACKED_TO_INT[as400Value[i] & 0xFF];
+       if (pair < 0) return Long.MIN_VALUE;
+       value = value * 100 + pair;
+     }
+
+     // read last digit and sign nibble
+     int lastByte = as400Value[last] & 0xFF;
+     int digit = lastByte >>> 4;
+     if (digit > 0x09) return Long.MIN_VALUE;
+     value = value * 10 + digit;
+
+     switch (lastByte & 0x0F)
+     {
+       case 0x0B: // valid negative sign bits
+       case 0x0D:
+         return -value;
+       case 0x0A: // valid positive sign bits
+       case 0x0C:
+       case 0x0E:
+       case 0x0F:
+         return value;
+       default:  // others invalid
+         return Long.MIN_VALUE;
+     }
+    }
+
     static final void throwNumberFormatException(boolean highNibble, int byteOffset, int byteValue, byte[] fieldBytes) throws NumberFormatException
     {
       String text;
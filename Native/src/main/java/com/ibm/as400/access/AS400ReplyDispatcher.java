@@ -0,0 +1,491 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: AS400ReplyDispatcher.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reads replies for many AS400ThreadedServer connections using a small set of selector threads.
+// Each selector thread reads whatever bytes are available on its ready sockets, assembles them
+// into complete client access data streams, and hands each data stream to its server.  The server
+// then wakes only the threads waiting for that correlation ID.
+//
+// The dispatcher is used when the com.ibm.as400.access.AS400.replyDispatcher system property is true.
+// A socket can only be multiplexed if it was created from a SocketChannel, is not secure, and carries
+// client access data streams, so DDM and SSL connections keep their own read daemon.
+final class AS400ReplyDispatcher
+{
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    // Whether the dispatcher is enabled for this JVM.
+    static final boolean ENABLED;
+    static
+    {
+        boolean enabled = false;
+        String propVal = SystemProperties.getProperty(SystemProperties.AS400_REPLY_DISPATCHER);
+        if (propVal != null)
+        {
+            try
+            {
+                enabled = Boolean.parseBoolean(propVal);
+            }
+            catch (Exception e)
+            {
+                Trace.log(Trace.WARNING, "Error retrieving replyDispatcher property value:", e);
+            }
+        }
+        ENABLED = enabled;
+    }
+
+    private static final int MAXIMUM_READERS = 4;
+    // Size of the buffer each selector thread reads into.
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // Initial size of the buffer a connection assembles a data stream in.  Larger data streams grow it.
+    private static final int FRAME_BUFFER_SIZE = 8 * 1024;
+    // A frame buffer grown beyond this size is released once its data stream has been delivered.
+    private static final int MAXIMUM_RETAINED_FRAME_BUFFER_SIZE = 1024 * 1024;
+    // How often, in milliseconds, connections with a socket timeout are checked for expiry.
+    private static final long TIMEOUT_CHECK_INTERVAL = 100;
+
+    private static AS400ReplyDispatcher dispatcher_ = null;
+
+    private final Reader[] readers_;
+    private final AtomicInteger nextReader_ = new AtomicInteger();
+
+    private AS400ReplyDispatcher() throws IOException
+    {
+        int count = Math.max(1, Math.min(MAXIMUM_READERS, Runtime.getRuntime().availableProcessors()));
+        readers_ = new Reader[count];
+        for (int i = 0; i < count; ++i)
+        {
+            readers_[i] = new Reader(i);
+        }
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Reply dispatcher started, selector threads:", count);
+    }
+
+    static synchronized AS400ReplyDispatcher getDispatcher() throws IOException
+    {
+        if (dispatcher_ == null)
+        {
+            dispatcher_ = new AS400ReplyDispatcher();
+        }
+        return dispatcher_;
+    }
+
+    // Returns the channel of a socket that can be multiplexed, or null if the socket needs its own read daemon.
+    static SocketChannel getChannel(SocketContainer socket, int service)
+    {
+        if (!ENABLED || service == AS400.RECORDACCESS) return null;
+        if (socket.getClass() != SocketContainerInet.class) return null;
+        Socket s = ((SocketContainerInet)socket).socket_;
+        return (s == null) ? null : s.getChannel();
+    }
+
+    // Creates an unconnected socket.  When the dispatcher is enabled the socket is created from a
+    // SocketChannel, so that it can later be multiplexed.  The socket stays in blocking mode until then.
+    static Socket createSocket() throws IOException
+    {
+        if (ENABLED)
+        {
+            return SocketChannel.open().socket();
+        }
+        return new Socket();
+    }
+
+    // Starts reading replies for a server.  The channel is put in non-blocking mode, so the
+    // server must write its requests with the output stream of the returned connection.
+    Connection register(AS400ThreadedServer server, SocketChannel channel, Hashtable instanceReplyStreams, Hashtable replyStreams, AS400ImplRemote system, int connectionID, int soTimeout) throws IOException
+    {
+        channel.configureBlocking(false);
+        Reader reader = readers_[(nextReader_.getAndIncrement() & 0x7FFFFFFF) % readers_.length];
+        Connection connection = new Connection(reader, server, channel, instanceReplyStreams, replyStreams, system, connectionID);
+        connection.setSoTimeout(soTimeout);
+        reader.register(connection);
+        return connection;
+    }
+
+
+    // A socket multiplexed by the dispatcher.
+    static final class Connection
+    {
+        private final Reader reader_;
+        private final AS400ThreadedServer server_;
+        private final SocketChannel channel_;
+        private final Hashtable instanceReplyStreams_;
+        private final Hashtable replyStreams_;
+        private final AS400ImplRemote system_;
+        private final int connectionID_;
+        private final ChannelOutputStream outStream_;
+
+        private SelectionKey key_ = null;
+        private volatile boolean closed_ = false;
+        private volatile int soTimeout_ = 0;
+        private volatile long lastReadTime_ = System.currentTimeMillis();
+
+        // The data stream being assembled.  Only the selector thread touches these.
+        private byte[] frame_ = new byte[FRAME_BUFFER_SIZE];
+        private int frameLength_ = 0;
+        private int frameFilled_ = 0;
+        private final FrameInputStream frameStream_ = new FrameInputStream();
+
+        Connection(Reader reader, AS400ThreadedServer server, SocketChannel channel, Hashtable instanceReplyStreams, Hashtable replyStreams, AS400ImplRemote system, int connectionID)
+        {
+            reader_ = reader;
+            server_ = server;
+            channel_ = channel;
+            instanceReplyStreams_ = instanceReplyStreams;
+            replyStreams_ = replyStreams;
+            system_ = system;
+            connectionID_ = connectionID;
+            outStream_ = new ChannelOutputStream(channel);
+        }
+
+        OutputStream getOutputStream()
+        {
+            return outStream_;
+        }
+
+        void setSoTimeout(int timeout)
+        {
+            soTimeout_ = timeout;
+            lastReadTime_ = System.currentTimeMillis();
+            if (timeout > 0 && !reader_.timeoutsUsed_)
+            {
+                reader_.timeoutsUsed_ = true;
+                reader_.wakeup();
+            }
+        }
+
+        // Stops reading replies.  The caller is responsible for closing the socket.
+        void close()
+        {
+            closed_ = true;
+            outStream_.close();
+            reader_.closed_ = true;
+            reader_.wakeup();
+        }
+
+        // Reads what is available and delivers every complete data stream.  Called by the selector thread.
+        private void read(ByteBuffer buffer) throws IOException
+        {
+            while (true)
+            {
+                buffer.clear();
+                int count = channel_.read(buffer);
+                if (count < 0)
+                {
+                    if (Trace.traceOn_) Trace.log(Trace.ERROR, "Failed to read all of the data stream header.");
+                    throw new ConnectionDroppedException(ConnectionDroppedException.CONNECTION_DROPPED);
+                }
+                if (count == 0) return;
+                lastReadTime_ = System.currentTimeMillis();
+                buffer.flip();
+                while (buffer.hasRemaining())
+                {
+                    consume(buffer);
+                }
+                if (count < buffer.capacity()) return;
+            }
+        }
+
+        // Copies bytes from the buffer into the data stream being assembled.
+        private void consume(ByteBuffer buffer) throws IOException
+        {
+            if (frameFilled_ < ClientAccessDataStream.HEADER_LENGTH)
+            {
+                int count = Math.min(ClientAccessDataStream.HEADER_LENGTH - frameFilled_, buffer.remaining());
+                buffer.get(frame_, frameFilled_, count);
+                frameFilled_ += count;
+                if (frameFilled_ < ClientAccessDataStream.HEADER_LENGTH) return;
+
+                frameLength_ = BinaryConverter.byteArrayToInt(frame_, 0);
+                if (frameLength_ < ClientAccessDataStream.HEADER_LENGTH)
+                {
+                    if (Trace.traceOn_) Trace.log(Trace.ERROR, "Incorrect data stream header detected.", frame_, 0, ClientAccessDataStream.HEADER_LENGTH);
+                    throw new ConnectionDroppedException(ConnectionDroppedException.CONNECTION_DROPPED);
+                }
+                if (frameLength_ > frame_.length)
+                {
+                    byte[] frame = new byte[frameLength_];
+                    System.arraycopy(frame_, 0, frame, 0, ClientAccessDataStream.HEADER_LENGTH);
+                    frame_ = frame;
+                }
+            }
+
+            int count = Math.min(frameLength_ - frameFilled_, buffer.remaining());
+            buffer.get(frame_, frameFilled_, count);
+            frameFilled_ += count;
+            if (frameFilled_ == frameLength_)
+            {
+                frameStream_.reset(frame_, frameLength_);
+                frameFilled_ = 0;
+                if (frame_.length > MAXIMUM_RETAINED_FRAME_BUFFER_SIZE) frame_ = new byte[FRAME_BUFFER_SIZE];
+                DataStream reply = ClientAccessDataStream.construct(frameStream_, instanceReplyStreams_, replyStreams_, system_, connectionID_);
+                server_.replyReceived(reply);
+            }
+        }
+    }
+
+
+    // One selector thread and the connections registered with it.
+    private static final class Reader implements Runnable
+    {
+        private final Selector selector_;
+        private final Thread thread_;
+        private final ConcurrentLinkedQueue<Connection> pending_ = new ConcurrentLinkedQueue<Connection>();
+        private final ByteBuffer buffer_ = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        volatile boolean timeoutsUsed_ = false;
+        volatile boolean closed_ = false;
+        private long lastTimeoutCheck_ = 0;
+
+        Reader(int index) throws IOException
+        {
+            selector_ = Selector.open();
+            thread_ = new Thread(this, "AS400 Reply Dispatcher-" + index);
+            thread_.setDaemon(true);
+            thread_.start();
+        }
+
+        void register(Connection connection)
+        {
+            pending_.add(connection);
+            selector_.wakeup();
+        }
+
+        void wakeup()
+        {
+            selector_.wakeup();
+        }
+
+        public void run()
+        {
+            while (true)
+            {
+                try
+                {
+                    registerPending();
+                    if (timeoutsUsed_) selector_.select(TIMEOUT_CHECK_INTERVAL);
+                    else selector_.select();
+
+                    Iterator it = selector_.selectedKeys().iterator();
+                    while (it.hasNext())
+                    {
+                        SelectionKey key = (SelectionKey)it.next();
+                        it.remove();
+                        Connection connection = (Connection)key.attachment();
+                        if (connection.closed_ || !key.isValid()) continue;
+                        try
+                        {
+                            connection.read(buffer_);
+                        }
+                        catch (IOException e)
+                        {
+                            fail(connection, e);
+                        }
+                        catch (RuntimeException e)
+                        {
+                            fail(connection, e);
+                        }
+                    }
+                    checkConnections();
+                }
+                catch (Throwable t)
+                {
+                    // Keep serving the other connections.
+                    Trace.log(Trace.ERROR, "Reply dispatcher error:", t);
+                }
+            }
+        }
+
+        private void registerPending()
+        {
+            Connection connection;
+            while ((connection = pending_.poll()) != null)
+            {
+                if (connection.closed_) continue;
+                try
+                {
+                    connection.key_ = connection.channel_.register(selector_, SelectionKey.OP_READ, connection);
+                }
+                catch (ClosedChannelException e)
+                {
+                    fail(connection, e);
+                }
+            }
+        }
+
+        // Drops closed connections and fails the connections whose socket timeout has expired.
+        private void checkConnections()
+        {
+            long now = System.currentTimeMillis();
+            boolean checkTimeouts = timeoutsUsed_ && now - lastTimeoutCheck_ >= TIMEOUT_CHECK_INTERVAL;
+            if (checkTimeouts) lastTimeoutCheck_ = now;
+            if (!checkTimeouts && !closed_) return;
+            closed_ = false;
+
+            Iterator it = selector_.keys().iterator();
+            while (it.hasNext())
+            {
+                SelectionKey key = (SelectionKey)it.next();
+                Connection connection = (Connection)key.attachment();
+                if (connection.closed_)
+                {
+                    key.cancel();
+                }
+                else if (checkTimeouts)
+                {
+                    int timeout = connection.soTimeout_;
+                    if (timeout > 0 && now - connection.lastReadTime_ >= timeout)
+                    {
+                        fail(connection, new SocketTimeoutException("Read timed out"));
+                    }
+                }
+            }
+        }
+
+        // Stops reading from a connection and reports the error to its waiting threads.
+        private void fail(Connection connection, IOException e)
+        {
+            connection.closed_ = true;
+            if (connection.key_ != null) connection.key_.cancel();
+            connection.server_.readFailed(e);
+        }
+
+        private void fail(Connection connection, RuntimeException e)
+        {
+            connection.closed_ = true;
+            if (connection.key_ != null) connection.key_.cancel();
+            connection.server_.readFailed(e);
+        }
+    }
+
+
+    // Reads one assembled data stream.  Not thread safe; only the selector thread uses it.
+    private static final class FrameInputStream extends InputStream
+    {
+        private byte[] buf_;
+        private int pos_;
+        private int count_;
+
+        void reset(byte[] buf, int count)
+        {
+            buf_ = buf;
+            pos_ = 0;
+            count_ = count;
+        }
+
+        public int available()
+        {
+            return count_ - pos_;
+        }
+
+        public int read()
+        {
+            return (pos_ < count_) ? (buf_[pos_++] & 0xFF) : -1;
+        }
+
+        public int read(byte[] b, int off, int len)
+        {
+            if (pos_ >= count_) return -1;
+            int n = Math.min(len, count_ - pos_);
+            System.arraycopy(buf_, pos_, b, off, n);
+            pos_ += n;
+            return n;
+        }
+
+        public long skip(long n)
+        {
+            int skipped = (int)Math.min(n, count_ - pos_);
+            pos_ += skipped;
+            return skipped;
+        }
+    }
+
+
+    // Writes requests to a non-blocking channel, waiting for the socket to become writable when its send buffer is full.
+    private static final class ChannelOutputStream extends OutputStream
+    {
+        private final SocketChannel channel_;
+        private volatile Selector writeSelector_ = null;
+        private volatile boolean closed_ = false;
+
+        ChannelOutputStream(SocketChannel channel)
+        {
+            channel_ = channel;
+        }
+
+        public void write(int b) throws IOException
+        {
+            write(new byte[] { (byte)b }, 0, 1);
+        }
+
+        public synchronized void write(byte[] b, int off, int len) throws IOException
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining())
+            {
+                if (channel_.write(buffer) == 0)
+                {
+                    if (writeSelector_ == null)
+                    {
+                        Selector selector = Selector.open();
+                        channel_.register(selector, SelectionKey.OP_WRITE);
+                        writeSelector_ = selector;
+                    }
+                    if (closed_) throw new ConnectionDroppedException(ConnectionDroppedException.DISCONNECT_RECEIVED);
+                    try
+                    {
+                        writeSelector_.select();
+                        writeSelector_.selectedKeys().clear();
+                    }
+                    catch (ClosedSelectorException e)
+                    {
+                        throw new ConnectionDroppedException(ConnectionDroppedException.DISCONNECT_RECEIVED);
+                    }
+                }
+            }
+        }
+
+        // Not synchronized, so that it releases a thread blocked in write().
+        public void close()
+        {
+            closed_ = true;
+            Selector selector = writeSelector_;
+            if (selector != null)
+            {
+                try
+                {
+                    selector.close();
+                }
+                catch (IOException e)
+                {
+                    Trace.log(Trace.ERROR, "Write selector close failed:", e);
+                }
+            }
+        }
+    }
+}
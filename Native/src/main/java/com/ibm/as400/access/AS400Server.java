@@ -16,6 +16,8 @@ package com.ibm.as400.access;
 import java.io.IOException;
 import java.net.SocketException;
 import java.util.Hashtable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Abstract class representing an IBM i server job.
@@ -24,6 +26,11 @@ import java.util.Hashtable;
 public abstract class AS400Server {
     protected int connectionID_;
 
+    // Send times of recent requests, indexed by correlation ID, for the round trip times of HostServerMetrics.
+    // Created when the first request is timed.
+    private static final int SEND_TIMES = 256;
+    private volatile AtomicLongArray sendNanos_ = null;
+
     // The following static array holds the reply streams hash tables for all server daemons.  These Hashtables are populated by the access classes using the addReplyStream(...) method.
     static Hashtable[] replyStreamsHashTables = {new Hashtable(), new Hashtable(), new Hashtable(), new Hashtable(), new Hashtable(), new Hashtable(), new Hashtable(), new Hashtable()};
 
@@ -108,6 +115,29 @@ public abstract class AS400Server {
     }
 
 
+    // Records the send time of a request, for HostServerMetrics.  Call before writing the request.
+    final void recordSendTime(int correlationId) {
+        AtomicLongArray sendNanos = sendNanos_;
+        if (sendNanos == null) {
+            sendNanos = new AtomicLongArray(SEND_TIMES);
+            sendNanos_ = sendNanos;
+        }
+        sendNanos.set(correlationId & (SEND_TIMES - 1), System.nanoTime());
+    }
+
+    // Returns the time since a request was sent, or -1 if its send time was not recorded.
+    final long getRoundTripNanos(int correlationId) {
+        AtomicLongArray sendNanos = sendNanos_;
+        if (sendNanos == null) return -1;
+        long sent = sendNanos.getAndSet(correlationId & (SEND_TIMES - 1), 0);
+        return (sent == 0) ? -1 : System.nanoTime() - sent;
+    }
+
+    // Returns the length of a datastream, for HostServerMetrics.
+    static final int getMetricsLength(DataStream ds) {
+        return (ds instanceof ClientAccessDataStream) ? ds.getLength() : ds.data_.length;
+    }
+
     abstract int getService();
 
     abstract String getJobString();
@@ -136,6 +166,22 @@ public abstract class AS400Server {
 
     abstract DataStream receive(int correlationId) throws IOException, InterruptedException;
 
+    // Sends a request and returns a future that is completed with its reply.  Only use this for requests that have exactly one reply.
+    // This implementation receives the reply before returning.  AS400ThreadedServer overrides it to return as soon as the request is sent.
+    CompletableFuture<DataStream> sendAsync(DataStream requestStream) throws IOException
+    {
+        CompletableFuture<DataStream> future = new CompletableFuture<DataStream>();
+        try
+        {
+            future.complete(sendAndReceive(requestStream));
+        }
+        catch (InterruptedException e)
+        {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     abstract void forceDisconnect();
 
     abstract int getSoTimeout() throws SocketException;
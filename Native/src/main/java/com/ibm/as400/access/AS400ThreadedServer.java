@@ -17,7 +17,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketException;
+import java.nio.channels.SocketChannel;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 final class AS400ThreadedServer extends AS400Server implements Runnable
 {
@@ -36,8 +40,10 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
     private Hashtable instanceReplyStreams_ = new Hashtable();
 
     private Thread readDaemon_ = null;
-    private IOException readDaemonException_ = null;
-    private RuntimeException unlikelyException_ = null;
+    // Set when replies are read by the shared reply dispatcher instead of readDaemon_.
+    private AS400ReplyDispatcher.Connection dispatcherConnection_ = null;
+    private volatile IOException readDaemonException_ = null;
+    private volatile RuntimeException unlikelyException_ = null;
 
     private DataStream exchangeAttrReply_ = null;
 
@@ -46,11 +52,7 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
 
     private static final class DataStreamCollection
     {
-        DataStream[] chain_;
-        DataStreamCollection(DataStream ds)
-        {
-            chain_ = new DataStream[] { ds };
-        }
+        DataStream[] chain_ = new DataStream[1];
     }
 
     private static final class ReplyList
@@ -58,6 +60,16 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
         final DataStreamCollection[] streams_ = new DataStreamCollection[16];
         private DiscardList discardList_;
 
+        ReplyList()
+        {
+            // Create every collection up front, so that adding a reply always synchronizes on its collection.
+            // A receiving thread relies on that to see a reply added just before it was signaled.
+            for (int i = 0; i < streams_.length; ++i)
+            {
+                streams_[i] = new DataStreamCollection();
+            }
+        }
+
 
         final void add(DataStream ds)
         {
@@ -72,11 +84,6 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
 
             // Use the collection object for synchronization to prevent bottlenecks.
             DataStreamCollection coll = streams_[hash];
-            if (coll == null)
-            {
-                streams_[hash] = new DataStreamCollection(ds);
-                return;
-            }
             synchronized (coll)
             {
                 DataStream[] chain = coll.chain_;
@@ -100,7 +107,6 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
         {
             int hash = correlation % 16;
             DataStreamCollection coll = streams_[hash];
-            if (coll == null) return null;
             // Use the collection object for synchronization to prevent bottlenecks.
             synchronized (coll)
             {
@@ -187,10 +193,22 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
 
     private int lastCorrelationId_ = 0;
     private class CorrelationIdLock extends Object {}          //@C7A
-    private class ReceiveLock extends Object {}          //@C7A
 
     private final CorrelationIdLock correlationIdLock_ = new CorrelationIdLock();
-    private final ReceiveLock receiveLock_ = new ReceiveLock();
+
+    // The threads waiting in receive(), by correlation ID.  A reply wakes only the threads waiting for its correlation ID.
+    private final ConcurrentHashMap<Integer, ReplyWaiter> waiters_ = new ConcurrentHashMap<Integer, ReplyWaiter>();
+
+    // The requests sent with sendAsync(), by correlation ID.  Their replies complete the future rather than going to the reply list.
+    private final ConcurrentHashMap<Integer, CompletableFuture<DataStream>> futures_ = new ConcurrentHashMap<Integer, CompletableFuture<DataStream>>();
+
+    private static final class ReplyWaiter
+    {
+        // Number of threads waiting.  Only changed while the map entry is locked.
+        int count_ = 0;
+        // Incremented each time a reply or an error is signaled.  Guarded by this object.
+        int signals_ = 0;
+    }
 
     AS400ThreadedServer(AS400ImplRemote system, int service, SocketContainer socket, String jobString) throws IOException
     {
@@ -208,6 +226,14 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
         discardList_.setReplyList(replyList_);
         replyList_.setDiscardList(discardList_);
 
+        SocketChannel channel = AS400ReplyDispatcher.getChannel(socket, service);
+        if (channel != null)
+        {
+            dispatcherConnection_ = AS400ReplyDispatcher.getDispatcher().register(this, channel, instanceReplyStreams_, replyStreams_, system, connectionID_, socket_.getSoTimeout());
+            outStream_ = dispatcherConnection_.getOutputStream();
+            return;
+        }
+
         String jobID;
         if (jobString != null && jobString.length() != 0) jobID = jobString;
         else jobID = AS400.getServerName(service) + "/" + (++threadCount_);
@@ -250,6 +276,23 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
                 Trace.log(Trace.ERROR, "Send end job data stream failed:", e);
             }
         }
+        if (dispatcherConnection_ != null)
+        {
+            // The channel defers releasing the socket descriptor until the dispatcher has dropped it.
+            dispatcherConnection_.close();
+            try
+            {
+                socket_.close();
+            }
+            catch (IOException e)
+            {
+                Trace.log(Trace.ERROR, "Socket close failed:", e);
+            }
+            // There is no read daemon to notice the closed socket, so wake the waiting threads here.
+            signalAllWaiters();
+            return;
+        }
+
         Trace.log(Trace.INFORMATION , "forceDisconnect calling readDaemon_.interrupt"); 
         readDaemon_.interrupt();
 
@@ -306,43 +349,183 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
     final DataStream receive(int correlationId) throws IOException, InterruptedException
     {
         if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "AS400Server.receive");
-        synchronized (receiveLock_)
-        {
-      while (true) {
-        // Changed March 2018 to give priority to exceptions.. 
-        // Otherwise exceptions are being lost. 
-        if (readDaemonException_ != null) {
-          Trace.log(Trace.ERROR, "receive(): Read daemon exception:",
-              readDaemonException_);
-          throw readDaemonException_;
-        } else if (unlikelyException_ != null) {
-          Trace.log(Trace.ERROR, "receive(): Read daemon exception:",
-              unlikelyException_);
-          throw unlikelyException_;
-        } else {
-          DataStream ds = replyList_.remove(correlationId);
-          if (ds != null) {
-            if (Trace.traceOn_) {
-              Trace.log(Trace.DIAGNOSTIC, "receive(): Valid reply found:",
-                  correlationId);
+        ReplyWaiter waiter = null;
+        try
+        {
+            while (true)
+            {
+                int signals = 0;
+                if (waiter != null)
+                {
+                    synchronized (waiter)
+                    {
+                        signals = waiter.signals_;
+                    }
+                }
+                // Changed March 2018 to give priority to exceptions.. 
+                // Otherwise exceptions are being lost. 
+                if (readDaemonException_ != null)
+                {
+                    Trace.log(Trace.ERROR, "receive(): Read daemon exception:", readDaemonException_);
+                    throw readDaemonException_;
+                }
+                else if (unlikelyException_ != null)
+                {
+                    Trace.log(Trace.ERROR, "receive(): Read daemon exception:", unlikelyException_);
+                    throw unlikelyException_;
+                }
+                DataStream ds = replyList_.remove(correlationId);
+                if (ds != null)
+                {
+                    if (Trace.traceOn_)
+                    {
+                        Trace.log(Trace.DIAGNOSTIC, "receive(): Valid reply found:", correlationId);
+                    }
+
+                    if (DBDSPool.monitor)
+                    {
+                        if (ds instanceof DBReplyRequestedDS)
+                        {
+                            ((DBReplyRequestedDS) ds).setAllocatedLocation();
+                        }
+                    } /* @B5A */
+
+                    return ds;
+                }
+                if (waiter == null)
+                {
+                    // Register, then look again, so that a reply added in the meantime is not missed.
+                    waiter = addWaiter(correlationId);
+                    continue;
+                }
+                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "receive(): Reply not found. Waiting...");
+                synchronized (waiter)
+                {
+                    while (waiter.signals_ == signals)
+                    {
+                        waiter.wait();
+                    }
+                }
             }
+        }
+        finally
+        {
+            if (waiter != null) removeWaiter(correlationId);
+        }
+    }
 
-            if (DBDSPool.monitor) {
-              if (ds instanceof DBReplyRequestedDS) {
-                ((DBReplyRequestedDS) ds).setAllocatedLocation();
-              }
-            } /* @B5A */
+    private ReplyWaiter addWaiter(int correlationId)
+    {
+        return waiters_.compute(correlationId, (id, waiter) -> {
+            if (waiter == null) waiter = new ReplyWaiter();
+            ++waiter.count_;
+            return waiter;
+        });
+    }
 
-            return ds;
-          }
+    private void removeWaiter(int correlationId)
+    {
+        waiters_.computeIfPresent(correlationId, (id, waiter) -> (--waiter.count_ == 0) ? null : waiter);
+    }
+
+    // Wakes the threads waiting for a reply with the given correlation ID.
+    private void signalWaiter(int correlationId)
+    {
+        ReplyWaiter waiter = waiters_.get(correlationId);
+        if (waiter != null)
+        {
+            synchronized (waiter)
+            {
+                ++waiter.signals_;
+                waiter.notifyAll();
+            }
         }
-        if (Trace.traceOn_)
-          Trace.log(Trace.DIAGNOSTIC, "receive(): Reply not found. Waiting...");
-        receiveLock_.wait();
+    }
+
+    // Wakes every waiting thread so that it sees the read daemon exception, and fails every pending future with that exception.
+    private void signalAllWaiters()
+    {
+        for (ReplyWaiter waiter : waiters_.values())
+        {
+            synchronized (waiter)
+            {
+                ++waiter.signals_;
+                waiter.notifyAll();
+            }
+        }
+        if (!futures_.isEmpty())
+        {
+            Exception e = (readDaemonException_ != null) ? (Exception)readDaemonException_ : unlikelyException_;
+            for (Iterator<CompletableFuture<DataStream>> it = futures_.values().iterator(); it.hasNext(); )
+            {
+                CompletableFuture<DataStream> future = it.next();
+                it.remove();
+                future.completeExceptionally(e);
             }
         }
     }
 
+    // Note: The following methods are called by the read daemon, or by the reply dispatcher when it reads for this server.
+
+    final void replyReceived(DataStream reply)
+    {
+        int correlation = reply.getCorrelation();
+
+        HostServerMetrics metrics = HostServerMetrics.active_;
+        if (metrics != null) metrics.replyReceived(service_, getMetricsLength(reply), getRoundTripNanos(correlation));
+
+        if (!futures_.isEmpty())
+        {
+            CompletableFuture<DataStream> future = futures_.remove(correlation);
+            if (future != null)
+            {
+                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Completing future:", correlation);
+                future.complete(reply);
+                return;
+            }
+        }
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Adding reply:", correlation);
+        replyList_.add(reply);
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Notifying threads.");
+        signalWaiter(correlation);
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Threads notified.");
+    }
+
+    final void readFailed(IOException e)
+    {
+        if (Trace.traceOn_)
+        {
+          if (disconnecting_ &&
+              e instanceof SocketException )
+          {
+            // It's an expected consequence of a client-initiated disconnect.
+            Trace.log(Trace.DIAGNOSTIC, "run(): Caught SocketException during disconnect:", e);
+          }
+          else Trace.log(Trace.ERROR, "run(): Caught IOException:", e);
+        }
+
+        // At this point, all waiting threads must be notified that the connection has ended...
+        if (readDaemonException_ == null)
+        {
+            readDaemonException_ = e;
+        }
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Notifying threads after IOException.");
+        signalAllWaiters();
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Threads notified after IOException.");
+    }
+
+    final void readFailed(RuntimeException e)
+    {
+        if (Trace.traceOn_) Trace.log(Trace.ERROR, "run(): Caught RuntimeException:", e);
+        if (unlikelyException_ == null)
+        {
+            unlikelyException_ = e;
+        }
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Notifying threads after RuntimeException.");
+        signalAllWaiters();
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Threads notified after RuntimeException.");
+    }
+
     public void run()
     {
         while (readDaemonException_ == null && unlikelyException_ == null)
@@ -364,55 +547,15 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
                 }
                 // Note: the thread is blocked on the above call if the inputStream has nothing to receive.
 
-                int correlation = reply.getCorrelation();
-
-                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Adding reply:", correlation);
-                replyList_.add(reply);
-                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Notifying threads.");
-                synchronized (receiveLock_)
-                {
-                    receiveLock_.notifyAll();  // Notify all waiting threads.
-                }
-                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Threads notified.");
+                replyReceived(reply);
             }
             catch (IOException e)
             {
-                if (Trace.traceOn_)
-                {
-                  if (disconnecting_ &&
-                      e instanceof SocketException )
-                  {
-                    // It's an expected consequence of a client-initiated disconnect.
-                    Trace.log(Trace.DIAGNOSTIC, "run(): Caught SocketException during disconnect:", e);
-                  }
-                  else Trace.log(Trace.ERROR, "run(): Caught IOException:", e);
-                }
-
-                // At this point, all waiting threads must be notified that the connection has ended...
-                if (readDaemonException_ == null)
-                {
-                    readDaemonException_ = e;
-                }
-                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Notifying threads after IOException.");
-                synchronized (receiveLock_)
-                {
-                    receiveLock_.notifyAll();  // Notify all waiting threads.
-                }
-                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Threads notified after IOException.");
+                readFailed(e);
             }
             catch (RuntimeException e)
             {
-                if (Trace.traceOn_) Trace.log(Trace.ERROR, "run(): Caught RuntimeException:", e);
-                if (unlikelyException_ == null)
-                {
-                    unlikelyException_ = e;
-                }
-                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Notifying threads after RuntimeException.");
-                synchronized (receiveLock_)
-                {
-                    receiveLock_.notifyAll();
-                }
-                if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "run(): Threads notified after RuntimeException.");
+                readFailed(e);
             }
             //@socket2 removed finally close because we were doing double closes. 
             //@socket2finally
@@ -448,7 +591,10 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
         }
         int correlationID = newCorrelationId();
         requestStream.setCorrelation(correlationID);
+        HostServerMetrics metrics = HostServerMetrics.active_;
+        if (metrics != null) recordSendTime(correlationID);
         requestStream.write(outStream_);
+        if (metrics != null) metrics.requestSent(service_, getMetricsLength(requestStream));
         return correlationID;
     }
 
@@ -469,7 +615,35 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
             throw unlikelyException_;
         }
         requestStream.setCorrelation(correlationId);
+        HostServerMetrics metrics = HostServerMetrics.active_;
+        if (metrics != null) recordSendTime(correlationId);
         requestStream.write(outStream_);
+        if (metrics != null) metrics.requestSent(service_, getMetricsLength(requestStream));
+    }
+
+    // The future is completed by the thread that reads the reply, so callers should continue on their own executor.
+    final CompletableFuture<DataStream> sendAsync(DataStream requestStream) throws IOException
+    {
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "send async(): ...");
+        int correlationID = newCorrelationId();
+        CompletableFuture<DataStream> future = new CompletableFuture<DataStream>();
+        // Register before sending, so that the reply cannot arrive first.
+        futures_.put(correlationID, future);
+        try
+        {
+            send(requestStream, correlationID);
+        }
+        catch (IOException e)
+        {
+            futures_.remove(correlationID);
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            futures_.remove(correlationID);
+            throw e;
+        }
+        return future;
     }
 
     final void sendAndDiscardReply(DataStream requestStream) throws IOException
@@ -509,5 +683,6 @@ final class AS400ThreadedServer extends AS400Server implements Runnable
 
     void setSoTimeout(int timeout) throws SocketException {
       socket_.setSoTimeout(timeout);
+      if (dispatcherConnection_ != null) dispatcherConnection_.setSoTimeout(timeout);
     }
 }
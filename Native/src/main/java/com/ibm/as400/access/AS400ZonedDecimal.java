@@ -28,6 +28,8 @@ public class AS400ZonedDecimal implements AS400DataType
     private static final long defaultValue = 0;
     private static final boolean HIGH_NIBBLE = AS400PackedDecimal.HIGH_NIBBLE;
     private static final boolean LOW_NIBBLE  = AS400PackedDecimal.LOW_NIBBLE;
+    private static final int MAX_LONG_DIGITS = AS400PackedDecimal.MAX_LONG_DIGITS;
+    private static final long[] POWERS_OF_TEN = AS400PackedDecimal.POWERS_OF_TEN;
 
     private boolean useDouble_ = false;
 
@@ -190,6 +192,27 @@ public class AS400ZonedDecimal implements AS400DataType
          throw new ExtendedIllegalArgumentException("javaValue (" + javaValue.toString() + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
      }
 
+     // If the value fits in a long, encode it without building a String.
+     // Values that do not fit are left to the code below, which reports the error.
+     if (outDigits <= MAX_LONG_DIGITS)
+     {
+       int shift = outDecimalPlaces - inValue.scale();
+       if (shift <= outDigits)
+       {
+         // Fewer than 63 bits leaves out Long.MIN_VALUE, whose absolute value is negative.
+         // Longer values have more than 18 digits, so they would not fit anyway.
+         BigInteger unscaled = inValue.unscaledValue();
+         if (unscaled.bitLength() < 63)
+         {
+           long value = unscaled.longValue();
+           if (Math.abs(value) < POWERS_OF_TEN[outDigits - shift])
+           {
+             return toBytesUnscaled(value * POWERS_OF_TEN[shift], as400Value, offset);
+           }
+         }
+       }
+     }
+
      // read the sign
      int sign = inValue.signum();
 
@@ -229,6 +252,65 @@ public class AS400ZonedDecimal implements AS400DataType
      return outDigits;
     }
 
+    /**
+     * Converts the specified unscaled value to IBM i format.  The value is
+     * interpreted with the number of decimal positions of this object, so
+     * for an object with two decimal positions, 12345 is converted as 123.45.
+     * No intermediate objects are created for values of up to 18 digits.
+     * @param unscaledValue The unscaled value.  It must have a less than or equal to number of digits.
+     * @return The IBM i representation of the data type.
+     **/
+    public byte[] toBytesUnscaled(long unscaledValue)
+    {
+     byte[] as400Value = new byte[this.digits];
+     this.toBytesUnscaled(unscaledValue, as400Value, 0);
+     return as400Value;
+    }
+
+    /**
+     * Converts the specified unscaled value into IBM i format in the specified byte array.
+     * The value is interpreted with the number of decimal positions of this object, so
+     * for an object with two decimal positions, 12345 is converted as 123.45.
+     * No intermediate objects are created for values of up to 18 digits.
+     * @param unscaledValue The unscaled value.  It must have a less than or equal to number of digits.
+     * @param as400Value The array to receive the data type in IBM i format.  There must be enough space to hold the IBM i value.
+     * @param offset The offset into the byte array for the start of the IBM i value. It must be greater than or equal to zero.
+     * @return The number of bytes in the IBM i representation of the data type.
+     **/
+    public int toBytesUnscaled(long unscaledValue, byte[] as400Value, int offset)
+    {
+     // Long.MIN_VALUE has no positive counterpart.  It has 19 digits, so it only
+     // fits in a larger field, which the BigDecimal code handles.
+     if (unscaledValue == Long.MIN_VALUE)
+     {
+       if (this.digits <= MAX_LONG_DIGITS)
+       {
+         throw new ExtendedIllegalArgumentException("unscaledValue (" + String.valueOf(unscaledValue) + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+       }
+       return toBytes(BigDecimal.valueOf(unscaledValue, this.scale), as400Value, offset);
+     }
+
+     long absValue = Math.abs(unscaledValue);
+     if (this.digits <= MAX_LONG_DIGITS && absValue >= POWERS_OF_TEN[this.digits])
+     {
+       throw new ExtendedIllegalArgumentException("unscaledValue (" + String.valueOf(unscaledValue) + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+     }
+
+     int position = offset + this.digits - 1;
+
+     // place the sign and last digit
+     as400Value[position] = (byte)((int)(absValue % 10) | (unscaledValue < 0 ? 0x00D0 : 0x00F0));
+     absValue /= 10;
+
+     // place the remaining digits, working to the left
+     while (--position >= offset)
+     {
+       as400Value[position] = (byte)((int)(absValue % 10) | 0x00F0);
+       absValue /= 10;
+     }
+     return this.digits;
+    }
+
     // @E0A
     /**
      * Converts the specified Java object to IBM i format.
@@ -456,6 +538,11 @@ public class AS400ZonedDecimal implements AS400DataType
     public Object toObject(byte[] as400Value, int offset)
     {
       if (useDouble_) return new Double(toDouble(as400Value, offset));
+      return toBigDecimal(as400Value, offset);
+    }
+
+    private BigDecimal toBigDecimal(byte[] as400Value, int offset)
+    {
 
      // Check offset to prevent bogus NumberFormatException message
      if (offset < 0)
@@ -465,6 +552,17 @@ public class AS400ZonedDecimal implements AS400DataType
 
      int size = this.digits;
 
+     // If the value fits in a long, decode it without building a String.
+     // Values that are not valid are left to the code below, which reports the error.
+     if (size <= MAX_LONG_DIGITS)
+     {
+       long unscaledValue = decodeUnscaled(as400Value, offset, size);
+       if (unscaledValue != Long.MIN_VALUE)
+       {
+         return BigDecimal.valueOf(unscaledValue, this.scale);
+       }
+     }
+
      int outputPosition = 0; // position in char[]
      int digitsPlaced = 0; // number of digits moved from input to output
 
@@ -514,6 +612,91 @@ public class AS400ZonedDecimal implements AS400DataType
      return new BigDecimal(new BigInteger(new String(outputData)), this.scale);
     }
 
+    /**
+     * Converts the specified IBM i data type to its unscaled value.  The decimal
+     * positions of this object are not applied, so for an object with two decimal
+     * positions, 123.45 is returned as 12345.
+     * No intermediate objects are created for values of up to 18 digits.
+     * @param as400Value The array containing the data type in IBM i format.  The entire data type must be represented.
+     * @return The unscaled value.
+     **/
+    public long toUnscaledLong(byte[] as400Value)
+    {
+     return toUnscaledLong(as400Value, 0);
+    }
+
+    /**
+     * Converts the specified IBM i data type to its unscaled value.  The decimal
+     * positions of this object are not applied, so for an object with two decimal
+     * positions, 123.45 is returned as 12345.
+     * No intermediate objects are created for values of up to 18 digits.
+     * @param as400Value The array containing the data type in IBM i format.  The entire data type must be represented.
+     * @param offset The offset into the byte array for the start of the IBM i value.  It must be greater than or equal to zero.
+     * @return The unscaled value.
+     **/
+    public long toUnscaledLong(byte[] as400Value, int offset)
+    {
+     // Check offset to prevent bogus NumberFormatException message
+     if (offset < 0)
+     {
+         throw new ArrayIndexOutOfBoundsException(String.valueOf(offset));
+     }
+
+     if (this.digits <= MAX_LONG_DIGITS)
+     {
+       long unscaledValue = decodeUnscaled(as400Value, offset, this.digits);
+       if (unscaledValue != Long.MIN_VALUE)
+       {
+         return unscaledValue;
+       }
+     }
+
+     // Either the value has more digits than a long can always hold, or a
+     // nibble is not valid and toBigDecimal() reports it.
+     BigInteger unscaled = toBigDecimal(as400Value, offset).unscaledValue();
+     if (unscaled.bitLength() > 63)
+     {
+       throw new ExtendedIllegalArgumentException("as400Value", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+     }
+     return unscaled.longValue();
+    }
+
+    // Returns the unscaled value of a zoned decimal that has at most MAX_LONG_DIGITS
+    // digits, or Long.MIN_VALUE if a nibble is not valid.
+    private static long decodeUnscaled(byte[] as400Value, int offset, int length)
+    {
+     int last = offset + length - 1;
+     long value = 0;
+
+     // read the digits, except the last one
+     for (int i = offset; i < last; ++i)
+     {
+       int digit = as400Value[i] & 0x0F;
+       if (digit > 0x09) return Long.MIN_VALUE;
+       value = value * 10 + digit;
+     }
+
+     // read the last digit and sign nibble
+     int lastByte = as400Value[last] & 0xFF;
+     int digit = lastByte & 0x0F;
+     if (digit > 0x09) return Long.MIN_VALUE;
+     value = value * 10 + digit;
+
+     switch (lastByte >>> 4)
+     {
+       case 0x0B: // valid negative sign bits
+       case 0x0D:
+         return -value;
+       case 0x0A: // valid positive sign bits
+       case 0x0C:
+       case 0x0E:
+       case 0x0F:
+         return value;
+       default:  // others invalid
+         return Long.MIN_VALUE;
+     }
+    }
+
     static final void throwNumberFormatException(boolean highNibble, int byteOffset, int byteValue, byte[] fieldBytes) throws NumberFormatException
     {
       String text;
@@ -32,4 +32,8 @@ interface BaseDataQueueImpl
     DQQueryRecord retrieveAttributes(boolean keyed) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException;
     // Provide an implementation of write, key is null for non-keyed queues.
     void write(byte[] key, byte[] data) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException;
+    // Provide an implementation of writing many entries in order, keys is null for non-keyed queues, written[i] is set to true when entry i is written, even if an exception is thrown for another entry.
+    void writeAll(byte[][] keys, byte[][] data, boolean[] written) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException;
+    // Provide an implementation of reading up to maxEntries entries, wait applies to the first entry only, key is null for non-keyed queues, returns the entries read, which may be none.
+    DQReceiveRecord[] readAll(String search, int wait, int maxEntries, byte[] key) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException;
 }
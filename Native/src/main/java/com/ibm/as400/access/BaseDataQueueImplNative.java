@@ -264,6 +264,37 @@ class BaseDataQueueImplNative extends BaseDataQueueImplRemote
         }
     }
 
+    // Native implementation for writing many entries.
+    // Keys is null for non-keyed queues.
+    // Each entry is a local call, so the entries are written one at a time.
+    public void writeAll(byte[][] keys, byte[][] data, boolean[] written) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException
+    {
+        for (int i = 0; i < data.length; ++i)
+        {
+            write(keys == null ? null : keys[i], data[i]);
+            written[i] = true;
+        }
+    }
+
+    // Native implementation for reading many entries.
+    // Only the first read waits.
+    // Returns the entries read, which may be none.
+    public DQReceiveRecord[] readAll(String search, int wait, int maxEntries, byte[] key) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException
+    {
+        DQReceiveRecord[] records = new DQReceiveRecord[maxEntries];
+        int count = 0;
+        while (count < maxEntries)
+        {
+            DQReceiveRecord record = read(search, count == 0 ? wait : 0, false, key);
+            if (record == null) break;
+            records[count++] = record;
+        }
+        if (count == maxEntries) return records;
+        DQReceiveRecord[] result = new DQReceiveRecord[count];
+        System.arraycopy(records, 0, result, 0, count);
+        return result;
+    }
+
     // Return or throw an exception based on the data received from the native method.
     // This function returns an AS400Exception and throw all others.
     private AS400Exception buildException(NativeException e) throws AS400SecurityException, ObjectDoesNotExistException
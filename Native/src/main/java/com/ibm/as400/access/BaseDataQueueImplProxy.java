@@ -141,4 +141,44 @@ class BaseDataQueueImplProxy extends AbstractProxyImpl implements BaseDataQueueI
             throw ProxyClientConnection.rethrow5(e);
         }
     }
+
+    // Proxy implementation for writing many entries, keys is null for non-keyed queues.  The written flags are only returned when no exception is thrown.
+    public void writeAll(byte[][] keys, byte[][] data, boolean[] written) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException
+    {
+        try
+        {
+            ProxyReturnValue rv = connection_.callMethod(pxId_, "writeAll", new Class[] { byte[][].class, byte[][].class, boolean[].class }, new Object[] { keys, data, written }, new boolean[] { false, false, true }, false);
+            boolean[] returnWritten = (boolean[])rv.getArgument(2);
+            System.arraycopy(returnWritten, 0, written, 0, written.length);
+        }
+        catch (InvocationTargetException e)
+        {
+            // Throw an appropriate exception.
+            Throwable target = e.getTargetException();
+            if (target instanceof IllegalObjectTypeException)
+            {
+                throw (IllegalObjectTypeException)target;
+            }
+            throw ProxyClientConnection.rethrow5(e);
+        }
+    }
+
+    // Proxy implementation for reading many entries.
+    public DQReceiveRecord[] readAll(String search, int wait, int maxEntries, byte[] key) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException
+    {
+        try
+        {
+            return (DQReceiveRecord[])connection_.callMethod(pxId_, "readAll", new Class[] { String.class, Integer.TYPE, Integer.TYPE, byte[].class }, new Object[] { search, Integer.valueOf(wait), Integer.valueOf(maxEntries), key }, true).getReturnValue();
+        }
+        catch (InvocationTargetException e)
+        {
+            // Throw an appropriate exception.
+            Throwable target = e.getTargetException();
+            if (target instanceof IllegalObjectTypeException)
+            {
+                throw (IllegalObjectTypeException)target;
+            }
+            throw ProxyClientConnection.rethrow5(e);
+        }
+    }
 }
@@ -26,6 +26,9 @@ class BaseDataQueueImplRemote implements BaseDataQueueImpl
         AS400Server.addReplyStream(new DQReadNormalReplyDataStream(), AS400.DATAQUEUE);
     }
 
+    // The most requests writeAll and readAll send before receiving their replies.  Bounded so the replies waiting to be received fit in the socket buffers.
+    private static final int PIPELINE_WINDOW = 16;
+
     AS400ImplRemote system_;
     private AS400Server server_ = null;  // The server job that processes requests.
     String path_;
@@ -216,27 +219,7 @@ class BaseDataQueueImplRemote implements BaseDataQueueImpl
 
         try
         {
-            DataStream baseReply = server_.sendAndReceive(request);
-            switch (baseReply.hashCode())
-            {
-                case 0x8003:  // DQReadNormalReplyDataStream.
-                    DQReadNormalReplyDataStream reply = (DQReadNormalReplyDataStream)baseReply;
-                    byte[] senderInformationBytes = reply.getSenderInformation();
-                    return new DQReceiveRecord(senderInformationBytes[0] == 0x40 ? null : converter_.byteArrayToString(senderInformationBytes), reply.getEntry(), reply.getKey());
-                case 0x8002:  // DQCommonReplyDataStream.
-                    DQCommonReplyDataStream commonReply = (DQCommonReplyDataStream)baseReply;
-                    int rc = commonReply.getRC();
-                    if (rc == 0xF006)  // No data to return.
-                    {
-                        Trace.log(Trace.INFORMATION, "No entry on data queue.");
-                        return null;
-                    }
-                    // Throw an appropriate exception.
-                    throw buildException(key != null, rc, commonReply.getMessage()); // General errors.
-                default:  // Unknown data stream.
-                    Trace.log(Trace.ERROR, "Unknown read reply datastream ", baseReply.data_);
-                    throw new InternalErrorException(InternalErrorException.DATA_STREAM_UNKNOWN);
-            }
+            return processReadReply(server_.sendAndReceive(request), key != null);
         }
         catch (IOException e)
         {
@@ -323,21 +306,107 @@ class BaseDataQueueImplRemote implements BaseDataQueueImpl
 
         try
         {
-            DataStream baseReply = server_.sendAndReceive(request);
-            switch (baseReply.hashCode())
+            processWriteReply(server_.sendAndReceive(request), key != null);
+        }
+        catch (IOException e)
+        {
+            Trace.log(Trace.ERROR, "Lost connection to data queue server:", e);
+            system_.disconnectServer(server_);
+            throw e;
+        }
+    }
+
+    // Remote implementation for writing many entries, keys is null for non-keyed queues.  The requests are pipelined: up to PIPELINE_WINDOW are sent before their replies are received.  After an error no more requests are sent, and the first error is thrown once the outstanding replies are received.
+    public void writeAll(byte[][] keys, byte[][] data, boolean[] written) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException
+    {
+        // Connect to the data queue server.
+        open();
+
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Processing write of " + data.length + " entries: " + path_);
+        int[] correlationIds = new int[Math.max(1, Math.min(PIPELINE_WINDOW, data.length))];
+        Exception failure = null;
+
+        try
+        {
+            int sent = 0;
+            int received = 0;
+            while (received < sent || (sent < data.length && failure == null))
             {
-                case 0x8002:  // DQCommonReplyDataStream.
-                    DQCommonReplyDataStream reply = (DQCommonReplyDataStream)baseReply;
-                    int rc = reply.getRC();
-                    if (rc != 0xF000)
+                if (sent < data.length && failure == null && sent - received < correlationIds.length)
+                {
+                    DQWriteDataStream request = new DQWriteDataStream(queueNameBytes_, libraryBytes_, keys == null ? null : keys[sent], data[sent]);
+                    correlationIds[sent % correlationIds.length] = server_.send(request);
+                    ++sent;
+                    continue;
+                }
+                DataStream baseReply = server_.receive(correlationIds[received % correlationIds.length]);
+                ++received;
+                try
+                {
+                    processWriteReply(baseReply, keys != null);
+                    written[received - 1] = true;
+                }
+                catch (Exception e)
+                {
+                    if (failure == null) failure = e;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            Trace.log(Trace.ERROR, "Lost connection to data queue server:", e);
+            system_.disconnectServer(server_);
+            throw e;
+        }
+        if (failure != null) rethrow(failure);
+    }
+
+    // Remote implementation for reading many entries, key == null means non-keyed queue, returns the entries read, which may be none.  Only the first request waits; the others are processed after it and read the entries on the queue by then.  The requests are pipelined as in writeAll.  Since the entries read are removed from the queue, an error is only thrown if no entries were read.
+    public DQReceiveRecord[] readAll(String search, int wait, int maxEntries, byte[] key) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException
+    {
+        // Connect to the data queue server.
+        open();
+
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Processing read of up to " + maxEntries + " entries: " + path_);
+        byte[] searchBytes = (key == null) ? new byte[2] : converter_.stringToByteArray(search);
+        int[] correlationIds = new int[Math.max(1, Math.min(PIPELINE_WINDOW, maxEntries))];
+        DQReceiveRecord[] records = new DQReceiveRecord[maxEntries];
+        int count = 0;
+        boolean done = false;  // Set when the queue is found empty, or on an error.
+        Exception failure = null;
+
+        try
+        {
+            int sent = 0;
+            int received = 0;
+            while (received < sent || (sent < maxEntries && !done))
+            {
+                if (sent < maxEntries && !done && sent - received < correlationIds.length)
+                {
+                    DQReadDataStream request = new DQReadDataStream(queueNameBytes_, libraryBytes_, searchBytes, sent == 0 ? wait : 0, false, key);
+                    correlationIds[sent % correlationIds.length] = server_.send(request);
+                    ++sent;
+                    continue;
+                }
+                DataStream baseReply = server_.receive(correlationIds[received % correlationIds.length]);
+                ++received;
+                try
+                {
+                    DQReceiveRecord record = processReadReply(baseReply, key != null);
+                    if (record == null)
                     {
-                        // Throw an appropriate exception.
-                        throw buildException(key != null, rc, reply.getMessage());
+                        done = true;
                     }
-                    break;
-                default:  // Unknown data stream.
-                    Trace.log(Trace.ERROR, "Unknown write reply datastream:", baseReply.data_);
-                    throw new InternalErrorException(InternalErrorException.DATA_STREAM_UNKNOWN);
+                    else
+                    {
+                        records[count++] = record;
+                    }
+                }
+                catch (Exception e)
+                {
+                    done = true;
+                    if (failure == null) failure = e;
+                }
             }
         }
         catch (IOException e)
@@ -346,6 +415,72 @@ class BaseDataQueueImplRemote implements BaseDataQueueImpl
             system_.disconnectServer(server_);
             throw e;
         }
+        if (failure != null)
+        {
+            if (count == 0) rethrow(failure);
+            Trace.log(Trace.ERROR, "Returning " + count + " entries read before error:", failure);
+        }
+
+        if (count == records.length) return records;
+        DQReceiveRecord[] result = new DQReceiveRecord[count];
+        System.arraycopy(records, 0, result, 0, count);
+        return result;
+    }
+
+    // Processes the reply to a read request, returns the entry read, or null if no entries on the queue.
+    private DQReceiveRecord processReadReply(DataStream baseReply, boolean keyed) throws AS400SecurityException, ErrorCompletingRequestException, IllegalObjectTypeException, ObjectDoesNotExistException
+    {
+        switch (baseReply.hashCode())
+        {
+            case 0x8003:  // DQReadNormalReplyDataStream.
+                DQReadNormalReplyDataStream reply = (DQReadNormalReplyDataStream)baseReply;
+                byte[] senderInformationBytes = reply.getSenderInformation();
+                return new DQReceiveRecord(senderInformationBytes[0] == 0x40 ? null : converter_.byteArrayToString(senderInformationBytes), reply.getEntry(), reply.getKey());
+            case 0x8002:  // DQCommonReplyDataStream.
+                DQCommonReplyDataStream commonReply = (DQCommonReplyDataStream)baseReply;
+                int rc = commonReply.getRC();
+                if (rc == 0xF006)  // No data to return.
+                {
+                    Trace.log(Trace.INFORMATION, "No entry on data queue.");
+                    return null;
+                }
+                // Throw an appropriate exception.
+                throw buildException(keyed, rc, commonReply.getMessage()); // General errors.
+            default:  // Unknown data stream.
+                Trace.log(Trace.ERROR, "Unknown read reply datastream ", baseReply.data_);
+                throw new InternalErrorException(InternalErrorException.DATA_STREAM_UNKNOWN);
+        }
+    }
+
+    // Processes the reply to a write request.
+    private void processWriteReply(DataStream baseReply, boolean keyed) throws AS400SecurityException, ErrorCompletingRequestException, IllegalObjectTypeException, ObjectDoesNotExistException
+    {
+        switch (baseReply.hashCode())
+        {
+            case 0x8002:  // DQCommonReplyDataStream.
+                DQCommonReplyDataStream reply = (DQCommonReplyDataStream)baseReply;
+                int rc = reply.getRC();
+                if (rc != 0xF000)
+                {
+                    // Throw an appropriate exception.
+                    throw buildException(keyed, rc, reply.getMessage());
+                }
+                break;
+            default:  // Unknown data stream.
+                Trace.log(Trace.ERROR, "Unknown write reply datastream:", baseReply.data_);
+                throw new InternalErrorException(InternalErrorException.DATA_STREAM_UNKNOWN);
+        }
+    }
+
+    // Throws an exception saved while processing pipelined replies.
+    private static void rethrow(Exception e) throws AS400SecurityException, ErrorCompletingRequestException, IllegalObjectTypeException, ObjectDoesNotExistException
+    {
+        if (e instanceof AS400SecurityException) throw (AS400SecurityException)e;
+        if (e instanceof ErrorCompletingRequestException) throw (ErrorCompletingRequestException)e;
+        if (e instanceof IllegalObjectTypeException) throw (IllegalObjectTypeException)e;
+        if (e instanceof ObjectDoesNotExistException) throw (ObjectDoesNotExistException)e;
+        if (e instanceof RuntimeException) throw (RuntimeException)e;
+        throw new InternalErrorException(InternalErrorException.UNEXPECTED_EXCEPTION, e);
     }
 
     // Returns or throws the appropriate exception based on the return code and error message arguments.
@@ -38,6 +38,7 @@ public class ClientAccessDataStream extends DataStream
   boolean inUse_; //@P0A 
   private CADSPool fromPool_ = null;
   private int fromPoolIndex_ = 0;
+  private boolean pooledData_ = false; // data_ came from the ReplyBufferPool and may be longer than the data stream
 
 
   // Note: The following method is called by AS400ThreadedServer and AS400NoThreadServer.
@@ -197,16 +198,25 @@ public class ClientAccessDataStream extends DataStream
       //}
       
       // 
-      // TODO:   Restructure this code so that a new byte array is not always allocated.
+      // Replies whose consumers release them are received into a pooled array.
+      // Other replies still get a new byte array of exactly the data stream length.
       // 
-      newDataStream.data_ = new byte[nowLength];
+      if (ReplyBufferPool.enabled_ && newDataStream.isReplyBufferPoolable())
+      {
+        newDataStream.data_ = ReplyBufferPool.get(nowLength);
+        newDataStream.pooledData_ = true;
+      }
+      else
+      {
+        newDataStream.data_ = new byte[nowLength];
+      }
       System.arraycopy(baseDataStream.data_, 0, newDataStream.data_, 0, HEADER_LENGTH);
 
       
-      if (newDataStream.data_.length - HEADER_LENGTH > 0)
+      if (nowLength - HEADER_LENGTH > 0)
       {
         // Receive any remaining bytes.
-    	// The number of bytes to read is calculated from newDataStream.data_.length - HEADER_LENGTH 
+    	// The number of bytes to read is calculated from the length in the header.
         newDataStream.readAfterHeader(is);
       }
       return newDataStream;
@@ -238,6 +248,43 @@ public class ClientAccessDataStream extends DataStream
     fromPool_ = pool; 
     fromPoolIndex_ = poolIndex; 
   }
+  // Indicates whether replies of this type can be received into an array from the ReplyBufferPool.
+  // A subclass that returns true must use the length in the header rather than data_.length,
+  // and the consumer of the reply must call releaseData() when it is done with it.
+  // @return  true if the reply can use a pooled array.
+  boolean isReplyBufferPoolable()
+  {
+    return false;
+  }
+
+  // Returns the data of this reply to the ReplyBufferPool, if it came from there.
+  // The data stream cannot be used afterwards.
+  void releaseData()
+  {
+    if (pooledData_)
+    {
+      byte[] data = data_;
+      pooledData_ = false;
+      data_ = null;
+      ReplyBufferPool.release(data);
+    }
+  }
+
+  // Receive the rest of the data stream.  A pooled array can be longer than the data stream,
+  // so only the length in the header is read.
+  protected int readAfterHeader(InputStream in) throws IOException
+  {
+    if (!pooledData_) return super.readAfterHeader(in);
+    int length = getLength() - HEADER_LENGTH;
+    int bytesRead = readFromStream(in, data_, HEADER_LENGTH, length);
+    if (bytesRead < length)
+    {
+      if (Trace.traceOn_) Trace.log(Trace.ERROR, "Failed to read all of the data stream.");
+      throw new ConnectionDroppedException(ConnectionDroppedException.CONNECTION_DROPPED);
+    }
+    return bytesRead;
+  }
+
   // Retrieve the request correlation for this data stream.  The return value may be invalid if it has not been set.
   // @return  The request correlation number.
   int getCorrelation()
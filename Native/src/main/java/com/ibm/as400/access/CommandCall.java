@@ -21,6 +21,9 @@ import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents an IBM i command object.  This class allows the user to call any non-interactive CL command.
@@ -851,6 +854,56 @@ public class CommandCall implements Serializable {
 
         // Run the command.
         boolean result = impl_.runCommand(command_, threadSafetyValue_, messageOption_);
+        completeRun();
+        return result;
+    }
+
+    /**
+     * Runs the command on the system without waiting for it to complete, using the common fork-join pool.
+     * See {@link #runAsync(Executor)}.
+     *
+     * @return A future that is completed with true if the command is successful, or false otherwise.
+     **/
+    public CompletableFuture<Boolean> runAsync() {
+        return runAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the command on the system without waiting for it to complete.  The command must be set prior to this call.
+     * <p>The command is sent on the command server connection of the system object, and the calling thread returns immediately.
+     * No thread waits for the reply: connecting, sending the request, and processing the reply are done on the executor.
+     * Calls made through different CommandCall or ProgramCall objects that share a system object can be outstanding at the same time on the one connection.
+     * The system runs them one after another in the command server job.
+     * <p>When running on the system's JVM, the command is run by running {@link #run() run()} on the executor instead.
+     * <p>The messages and action completed event are available when the future completes.  Do not change or run this object again before then.
+     * <br>Note: Interactive (screen-oriented) results are not returned.
+     *
+     * @param executor The executor on which the command is sent and its reply processed.
+     * @return A future that is completed with true if the command is successful, or false otherwise.
+     *         If the command fails, the future is completed exceptionally with the exception that run() would have thrown.
+     **/
+    public CompletableFuture<Boolean> runAsync(Executor executor) {
+        if (executor == null) throw new NullPointerException("executor");
+        if (Trace.traceOn_) Trace.log(Trace.INFORMATION, "Running command asynchronously: " + command_);
+
+        return RemoteCommandImplRemote.callAsync(() -> {
+            if (command_ == null || command_.length() == 0) {
+                Trace.log(Trace.ERROR, "Attempt to run before setting command.");
+                throw new ExtendedIllegalStateException("command", ExtendedIllegalStateException.PROPERTY_NOT_SET);
+            }
+
+            chooseImpl();
+            if (!(impl_ instanceof RemoteCommandImplRemote) || impl_.isNative()) return CompletableFuture.completedFuture(Boolean.valueOf(run()));
+
+            return ((RemoteCommandImplRemote) impl_).runCommandAsync(command_, messageOption_, executor).thenApply(result -> {
+                completeRun();
+                return result;
+            });
+        }, executor);
+    }
+
+    // Retrieves the messages and fires the action completed event once the command has run.
+    private void completeRun() {
         // Retrieve the messages.
         messageList_ = impl_.getMessageList();
         // Set our system into each of the messages.
@@ -862,7 +915,6 @@ public class CommandCall implements Serializable {
 
         // Fire action completed event.
         if (actionCompletedListeners_ != null) fireActionCompleted();
-        return result;
     }
 
     /**
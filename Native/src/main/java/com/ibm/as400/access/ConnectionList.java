@@ -17,14 +17,25 @@
 package com.ibm.as400.access;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
-import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** 
   *  ConnectionList is a list of connections specific to an IBM i system and userID.  The 
   *  connection list is used to create new connections and get connections from the pool.
   *  The connection list can remove connections that have exceeded inactivity time and 
   *  replace connections that have exceeded the maximum use count or maximum lifetime.
+  *  <p>
+  *  Connections that are not in use are kept in lock-free deques, one for each
+  *  combination of secure, locale and service that the connection was last obtained for.
+  *  A connection is claimed by removing it from its deque, so getting and returning
+  *  connections do not take a lock, and maintenance can remove an unused connection
+  *  only if no other thread has claimed it first.
  **/
 final class ConnectionList 
 {
@@ -37,11 +48,24 @@ final class ConnectionList
   private static final String EXPIRED_MAX_USE_TIME = "CL_REMUSETIME";
   private static final String EXPIRED_FAILED_PRETEST = "CL_REMPRETEST";
 
+  // Key for connections that were created without a locale.
+  private static final Object NO_LOCALE = new Object();
+  // Partition index for connections that were obtained without connecting a service.
+  private static final int NO_SERVICE = -1;
+  private static final int NUMBER_OF_SERVICES = 10;
+
   private String systemName_;
   private String userID_;
   private ConnectionPoolProperties properties_;
   private Log log_;
-  private Vector connectionList_ = new Vector(); 
+
+  // All the connections in the list, in use or not.
+  private final ConcurrentHashMap<AS400, PoolItem> connectionList_ = new ConcurrentHashMap<AS400, PoolItem>();
+  // The number of connections in the list, plus the number being created.
+  private final AtomicInteger connectionCount_ = new AtomicInteger();
+  // The partitions of connections that are not in use, keyed by locale.
+  private final ConcurrentHashMap<Object, List<ConcurrentLinkedDeque<PoolItem>>> partitions_ = new ConcurrentHashMap<Object, List<ConcurrentLinkedDeque<PoolItem>>>();
+  private final ConcurrentHashMap<Object, List<ConcurrentLinkedDeque<PoolItem>>> securePartitions_ = new ConcurrentHashMap<Object, List<ConcurrentLinkedDeque<PoolItem>>>();
 
   // Handles loading the appropriate resource bundle
 //@CRS  private static ResourceBundleLoader loader_;
@@ -118,15 +142,16 @@ final class ConnectionList
   {
     if (log_ != null || Trace.traceOn_)
       log(ResourceBundleLoader.getText("CL_CLEANUP", new String[] {systemName_, userID_} ));
-    synchronized (connectionList_) 
+    Iterator<PoolItem> items = connectionList_.values().iterator();
+    while (items.hasNext())
     {
-      int size = connectionList_.size();  //@A5M
-      for (int i=0; i<size; i++)
+      PoolItem p = items.next();
+      if (connectionList_.remove(p.getAS400Object()) != null)
       {
-        PoolItem p = (PoolItem)connectionList_.elementAt(i); 
+        removeIdle(p);
+        connectionCount_.decrementAndGet();
         p.getAS400Object().disconnectAllServices();
       }
-      connectionList_.removeAllElements();   
     }
     if (log_ != null || Trace.traceOn_)
       log(ResourceBundleLoader.getText("CL_CLEANUPCOMP"));
@@ -155,8 +180,7 @@ final class ConnectionList
     if (log_ != null || Trace.traceOn_)
       log(ResourceBundleLoader.getText("CL_CREATING", new String[] {systemName_, userID_} ));
 
-    if ((properties_.getMaxConnections() > 0) && 
-        (getConnectionCount() >= properties_.getMaxConnections()))
+    if (!reserveConnection())
     {
       if (log_ != null || Trace.traceOn_)
         log(ResourceBundleLoader.getText("CL_CLEANUPEXP"));
@@ -164,13 +188,13 @@ final class ConnectionList
       removeExpiredConnections(poolListeners);  
 
       // if that didn't do the trick, try shutting down unused connections
-      if (getConnectionCount() >= properties_.getMaxConnections())
+      if (!reserveConnection())
       {
         if (log_ != null || Trace.traceOn_)
           log(ResourceBundleLoader.getText("CL_CLEANUPOLD"));
         shutDownOldest(); 
         // if not enough connections were freed, throw an exception!
-        if (getConnectionCount() >= properties_.getMaxConnections())
+        if (!reserveConnection())
         {
           throw new ConnectionPoolException(ConnectionPoolException.MAX_CONNECTIONS_REACHED); //@A1C
         }
@@ -179,27 +203,31 @@ final class ConnectionList
 
     boolean threadUse = properties_.isThreadUsed();
     // create a new connection
-    PoolItem sys = new PoolItem (systemName_, userID_, poolAuth, secure, locale, service, connect, threadUse, socketProperties, ccsid);    //@B2C //@B4C //@C1C
-    //@B4D if (connect)
-    //@B4D {
-    //@B4D 	sys.getAS400Object().connectService(service);
-    //@B4D }
-
-    //@B4D if (!properties_.isThreadUsed())						//@A2A
-    //@B4D {									//@A2A
-    //@B4D 	try
-    //@B4D 	{							  //@A2A						   //@A2A		
-    //@B4D 		sys.getAS400Object().setThreadUsed(false);	//@A2A
-    //@B4D 	}							//@A2A
-    //@B4D 	catch (java.beans.PropertyVetoException e)		//@A2A
-    //@B4D 	{							//@A2A
-    //@B4D 		//Ignore                                        //@A2A
-    //@B4D 	}							//@A2A
-    //@B4D }									//@A2A
+    PoolItem sys;
+    try
+    {
+      sys = new PoolItem (systemName_, userID_, poolAuth, secure, locale, service, connect, threadUse, socketProperties, ccsid);    //@B2C //@B4C //@C1C
+    }
+    catch (AS400SecurityException e)
+    {
+      connectionCount_.decrementAndGet();
+      throw e;
+    }
+    catch (IOException e)
+    {
+      connectionCount_.decrementAndGet();
+      throw e;
+    }
+    catch (RuntimeException e)
+    {
+      connectionCount_.decrementAndGet();
+      throw e;
+    }
 
     // set the item is in use since we are going to return it to caller
     sys.setInUse(true);
-    connectionList_.addElement(sys);  
+    sys.setService(connect ? service : NO_SERVICE);
+    connectionList_.put(sys.getAS400Object(), sys);  
 
     if (poolListeners != null)
     {
@@ -220,17 +248,7 @@ final class ConnectionList
    **/
   PoolItem findElement(AS400 systemToFind)
   {
-    synchronized (connectionList_)
-    {
-      int size = connectionList_.size();        
-      for (int i=0; i<size; i++)
-      {
-        PoolItem item = (PoolItem)connectionList_.elementAt(i);
-        if (item.getAS400Object().equals(systemToFind))
-          return item;
-      }
-    }
-    return null;
+    return connectionList_.get(systemToFind);
   }
 
   /**
@@ -241,16 +259,13 @@ final class ConnectionList
   public int getActiveConnectionCount()
   {
     int count = 0;
-    synchronized (connectionList_) 
+    Iterator<PoolItem> items = connectionList_.values().iterator();
+    while (items.hasNext())
     {
-      int size = connectionList_.size();    
-      for (int i=0; i<size; i++)
+      PoolItem p = items.next();      
+      if (p.isInUse())
       {
-        PoolItem p = (PoolItem)connectionList_.elementAt(i);      
-        if (p.isInUse())
-        {
-          count++;
-        }
+        count++;
       }
     }
     return count;
@@ -264,16 +279,13 @@ final class ConnectionList
   public int getAvailableConnectionCount()
   {
     int count = 0;
-    synchronized (connectionList_) 
+    Iterator<PoolItem> items = connectionList_.values().iterator();
+    while (items.hasNext())
     {
-      int size = connectionList_.size();    
-      for (int i=0; i<size; i++)
+      PoolItem p = items.next();      
+      if (!p.isInUse())
       {
-        PoolItem p = (PoolItem)connectionList_.elementAt(i);      
-        if (!p.isInUse())
-        {
-          count++;
-        }
+        count++;
       }
     }
     return count;
@@ -296,54 +308,9 @@ final class ConnectionList
   PoolItem getConnection(boolean secure, ConnectionPoolEventSupport poolListeners, Locale locale, AS400ConnectionPoolAuthentication poolAuth, SocketProperties socketProperties, int ccsid)    //@B2C //@B4C //@C1C
   throws AS400SecurityException, IOException, ConnectionPoolException
   {
-    PoolItem poolItem = null;
-    boolean pretestConnections = properties_.isPretestConnections();
-    synchronized(connectionList_)  //@A5A
-    {
-      int size = connectionList_.size();
-      for (int i=0; i<size; i++)
-      {
-        PoolItem item = (PoolItem)connectionList_.elementAt(i);    
-        // check to see if that connection is in use
-        if (!item.isInUse())
-        {
-          //@B2A Add a check for locales.  If the user did not specify a locale at
-          //creation time, item.getLocale() will be null.  If the user did 
-          // not pass in a locale on their getConnection(), locale will be null.
-          if (secure && item.getAS400Object() instanceof SecureAS400
-              && ((item.getLocale() == null && locale == null)        //@B2A //@C1C
-                  || (locale != null && (item.getLocale() != null) && item.getLocale().equals(locale))))   //@B2A //@C1C
-          {
-            if (pretestConnections && !isConnectionAlive(item)) {
-              continue;  // Skip this connection, since it's no longer valid.
-            }
-            // return item found
-            poolItem = item; 
-            break;   
-          }
-          
-          // NEED TO HANDLE WHEN item.getLocale() returns null BUT locale is NOT NULL... searching for a match, but no local in item.getLocale()
-          else if (!secure && !(item.getAS400Object() instanceof SecureAS400)
-                   && ((item.getLocale() == null && locale == null)   //@B2A //@C1C
-                       || (locale != null && (item.getLocale() != null) && item.getLocale().equals(locale))))   //@B2A //@C1C
-          {
-            if (pretestConnections && !isConnectionAlive(item)) {
-              continue;  // Skip this connection, since it's no longer valid.
-            }
-            // return item found
-            poolItem = item; 
-            break;
-          }
-        }
-      }  //end 'for' loop
-      if (poolItem != null)  //@A5A
-      {
-    	  synchronized (poolItem) { 
-             poolItem.setInUse(true);  //@A5M
-    	  }
-      }
-    } //end synchronized
-
+    // Any unused connection with the same secure and locale will do; prefer
+    // one that was obtained without a service.
+    PoolItem poolItem = claimConnection(getPartition(secure, locale), NO_SERVICE, poolListeners);
     if (poolItem == null)
     {
       // didn't find a suitable connection, create a new one
@@ -369,93 +336,37 @@ final class ConnectionList
   PoolItem getConnection(int service, boolean secure, ConnectionPoolEventSupport poolListeners, Locale locale, AS400ConnectionPoolAuthentication poolAuth, SocketProperties socketProperties, int ccsid)  //@B2C //@B4C //@C1C 
   throws AS400SecurityException, IOException, ConnectionPoolException
   {
-    PoolItem poolItem = null;
-    boolean pretestConnections = properties_.isPretestConnections();
-    synchronized (connectionList_)  //@B1A
+    // Prefer a connection that was last obtained for the same service, which is
+    // likely to be connected to it already.  Otherwise use the first available.
+    PoolItem poolItem = claimConnection(getPartition(secure, locale), service, poolListeners);
+    if (poolItem != null)
     {
-      int size = connectionList_.size();       
-      for (int i=0; i<size; i++)
+      try
       {
-        PoolItem item = (PoolItem)connectionList_.elementAt(i);  
-        // check to see if that connection is in use
-        if (!item.isInUse())
+        if (!poolItem.getAS400Object().isConnected(service))
         {
-          if (secure && item.getAS400Object() instanceof SecureAS400 &&
-              item.getAS400Object().isConnected(service) 
-              && ((item.getLocale() == null && locale == null)         //@B2A //@C1C
-                  || (locale != null && (item.getLocale() != null) && item.getLocale().equals(locale)))) //@B2A //@C1C
-          {
-            if (pretestConnections && !isConnectionAlive(item)) {
-              continue;  // Skip this connection, since it's no longer valid.
-            }
-            if (Trace.traceOn_)
-              log(Trace.INFORMATION, "Using already connected connection");
-            poolItem = item;
-            break;
-          }
-          else if (!secure && !(item.getAS400Object() instanceof SecureAS400) &&
-                   item.getAS400Object().isConnected(service)
-                   && ((item.getLocale() == null && locale == null)     //@B2A //@C1C
-                       || (locale != null && (item.getLocale() != null) && item.getLocale().equals(locale))))     //@B2A //@C1C
-          {
-            if (pretestConnections && !isConnectionAlive(item)) {
-              continue;  // Skip this connection, since it's no longer valid.
-            }
-            if (Trace.traceOn_)
-              log(Trace.INFORMATION, "Using already connected connection");
-            poolItem = item;
-            break;
-          }
+          if (Trace.traceOn_)
+            log(Trace.INFORMATION, "Must not have found a suitable connection, using first available.");
+          poolItem.getAS400Object().connectService(service); //@CRS
         }
-      }
-
-      if (poolItem == null)
-      {
-        // must not have found a suitable connected system, use the first available
-        //@B1D size = connectionList_.size();     
-        for (int i=0; i<size; i++)
+        else if (Trace.traceOn_)
         {
-          PoolItem item = (PoolItem)connectionList_.elementAt(i);   
-          // check to see if that connection is in use
-          if (!item.isInUse())
-          {
-            if (secure && item.getAS400Object() instanceof SecureAS400
-                && ((item.getLocale() == null && locale == null)  //@B2A //@C1C
-                    || (locale != null && item.getLocale().equals(locale))))      //@B2A //@C1C
-            {
-              if (pretestConnections && !isConnectionAlive(item)) {
-                continue;  // Skip this connection, since it's no longer valid.
-              }
-              if (Trace.traceOn_)
-                log(Trace.INFORMATION, "Must not have found a suitable connection, using first available");
-              poolItem = item;                  
-              break;
-            }
-            else if (!secure && !(item.getAS400Object() instanceof SecureAS400)
-                     && ((item.getLocale() == null && locale == null)     //@B2A //@C1C
-                         || (locale != null && item.getLocale().equals(locale))))     //@B2A //@C1C
-            {
-              if (pretestConnections && !isConnectionAlive(item)) {
-                continue;  // Skip this connection, since it's no longer valid.
-              }
-              if (Trace.traceOn_)
-                log(Trace.INFORMATION, "Must not have found a suitable connection, using first available.");
-              poolItem = item;                  
-              break;
-            }
-          }
+          log(Trace.INFORMATION, "Using already connected connection");
         }
       }
-      if (poolItem != null)  //B1A
+      catch (AS400SecurityException e)
       {
-    	synchronized(poolItem ) {   
-          if (!poolItem.getAS400Object().isConnected(service)) poolItem.getAS400Object().connectService(service); //@CRS
-          poolItem.setInUse(true); //@B1M
-    	}
+        returnElement(poolItem);
+        throw e;
       }
-    }//@B1A end outer synchronized block
-
-    if (poolItem == null)
+      catch (IOException e)
+      {
+        returnElement(poolItem);
+        throw e;
+      }
+      poolItem.setService(service);
+    }
+    else
     {
       poolItem = createNewConnection(service, true, secure, poolListeners, locale, poolAuth, socketProperties, ccsid);    //@B2C  //@B4C //@C1C
     }
@@ -464,6 +375,41 @@ final class ConnectionList
   }
 
 
+  /**
+   *  Claims an unused connection from a partition.  The deque for the service is
+   *  tried first, then the other deques of the partition.  Connections that fail
+   *  the validation pretest are removed from the pool.
+   *
+   *  @param partition The deques of unused connections for the secure and locale requested.
+   *  @param service The service, or NO_SERVICE.
+   *  @param poolListeners The pool listeners to which events will be fired.
+   *  @return The pool item, marked in use, or null if there are no unused connections.
+   **/
+  private PoolItem claimConnection(List<ConcurrentLinkedDeque<PoolItem>> partition, int service, ConnectionPoolEventSupport poolListeners)
+  {
+    boolean pretestConnections = properties_.isPretestConnections();
+    int first = getPartitionIndex(service);
+    for (int i = 0; i < partition.size(); ++i)
+    {
+      ConcurrentLinkedDeque<PoolItem> idle = partition.get((first + i) % partition.size());
+      PoolItem item;
+      while ((item = idle.pollFirst()) != null)
+      {
+        if (!connectionList_.containsKey(item.getAS400Object())) continue;  // Removed while it was being returned.
+        if (pretestConnections && !isConnectionAlive(item))
+        {
+          // Skip this connection, since it's no longer valid.
+          removeConnection(item, EXPIRED_FAILED_PRETEST, poolListeners);
+          continue;
+        }
+        item.setInUse(true);
+        return item;
+      }
+    }
+    return null;
+  }
+
+
   /**
    *  Return the number of connections.
    *
@@ -475,6 +421,47 @@ final class ConnectionList
   }
 
 
+  /**
+   *  Returns the deques of unused connections for a secure and locale combination,
+   *  indexed by getPartitionIndex().
+   **/
+  private List<ConcurrentLinkedDeque<PoolItem>> getPartition(boolean secure, Locale locale)
+  {
+    ConcurrentHashMap<Object, List<ConcurrentLinkedDeque<PoolItem>>> partitions = secure ? securePartitions_ : partitions_;
+    Object key = (locale == null) ? NO_LOCALE : locale;
+    List<ConcurrentLinkedDeque<PoolItem>> partition = partitions.get(key);
+    if (partition == null)
+    {
+      partition = new ArrayList<ConcurrentLinkedDeque<PoolItem>>(NUMBER_OF_SERVICES + 1);
+      for (int i = 0; i < NUMBER_OF_SERVICES + 1; ++i)
+      {
+        partition.add(new ConcurrentLinkedDeque<PoolItem>());
+      }
+      List<ConcurrentLinkedDeque<PoolItem>> existing = partitions.putIfAbsent(key, partition);
+      if (existing != null) partition = existing;
+    }
+    return partition;
+  }
+
+  private static int getPartitionIndex(int service)
+  {
+    return (service < 0 || service >= NUMBER_OF_SERVICES) ? 0 : service + 1;
+  }
+
+  // Returns the deque that holds the pool item when it is not in use.
+  private ConcurrentLinkedDeque<PoolItem> getIdleDeque(PoolItem item)
+  {
+    return getPartition(item.getAS400Object() instanceof SecureAS400, item.getLocale()).get(getPartitionIndex(item.getService()));
+  }
+
+  // Removes the pool item from its deque of unused connections.
+  // Returns false if the item is not there, because another thread claimed it.
+  private boolean removeIdle(PoolItem item)
+  {
+    return getIdleDeque(item).remove(item);
+  }
+
+
   /**
    *  Indicates whether at least one of the pool items in the list is
    *  currently connected to any service; that is, whether at least one pool item
@@ -484,15 +471,12 @@ final class ConnectionList
    **/
   boolean hasConnectedConnection()
   {
-    synchronized (connectionList_)
+    Iterator<PoolItem> items = connectionList_.values().iterator();
+    while (items.hasNext())
     {
-      int size = connectionList_.size();       
-      for (int i=0; i<size; i++)
-      {
-        PoolItem item = (PoolItem)connectionList_.elementAt(i);  
-        // Check to see if that connection is connected.
-        if (item.getAS400Object().isConnected()) return true; 
-      }
+      PoolItem item = items.next();  
+      // Check to see if that connection is connected.
+      if (item.getAS400Object().isConnected()) return true; 
     }
     return false;
   }
@@ -624,123 +608,73 @@ final class ConnectionList
   void removeExpiredConnections(ConnectionPoolEventSupport poolListeners)   //@B1D synchronized
   throws AS400SecurityException, IOException
   {    
-    synchronized (connectionList_)  //@B1A
+    Iterator<PoolItem> items = connectionList_.values().iterator();
+    while (items.hasNext())
     {
-      int size = connectionList_.size();  
-      for (int i=size-1; i>=0; i--)
-      {
-        PoolItem p = (PoolItem)connectionList_.elementAt(i);    
-
-        // Be conservative about removing in-use connections.
-        if (p.isInUse())
-        {
-          // Reclaim an in-use connection, only if its maxUseTime limit is exceeded.
-          if ((properties_.getMaxUseTime() >= 0) &&
-                   (p.getInUseTime() >= properties_.getMaxUseTime()))
-          {
-            // Limit exceeded, so disconnect and remove the connection.
-            if (log_ != null || Trace.traceOn_) {
-              log(ResourceBundleLoader.getText(EXPIRED_MAX_USE_TIME, new String[] {systemName_, userID_} ));
-            }
-            if (Trace.traceOn_) {
-              log(Trace.WARNING, "Disconnecting pooled connection (currently in use) because it has exceeded the maximum use time limit of " + properties_.getMaxUseTime() + " milliseconds.");
-            }
-            p.getAS400Object().disconnectAllServices();
-            connectionList_.removeElementAt(i);
-            if (poolListeners != null)
-            {
-              ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(p.getAS400Object(), ConnectionPoolEvent.CONNECTION_EXPIRED); //@A5C
-              poolListeners.fireConnectionExpiredEvent(poolEvent);  
-            }
-          }
-        }  // if p.inUse()
-
-
-        // The remaining cases are for connections that aren't currently in use.
-
-
-        // See if the pool item has failed a connection validity pretest.
-        else if (p.isFailedPretest())
-        {
-          // Failed a validation, so disconnect and remove the connection.
-          if (log_ != null || Trace.traceOn_) {
-            log(ResourceBundleLoader.getText(EXPIRED_FAILED_PRETEST, new String[] {systemName_, userID_} ));
-          }
-          if (Trace.traceOn_) {
-            log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because it has failed a validation pretest.");
-          }
-          p.getAS400Object().disconnectAllServices();
-          connectionList_.removeElementAt(i);
-          if (poolListeners != null)
-          {
-            ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(p.getAS400Object(), ConnectionPoolEvent.CONNECTION_EXPIRED);
-            poolListeners.fireConnectionExpiredEvent(poolEvent);  
-          }
-        }
-
+      PoolItem p = items.next();    
 
-        // See if the connection has exceeded the maximum inactivity time.
-        else if ((properties_.getMaxInactivity() >= 0) && 
-                 (p.getInactivityTime() >= properties_.getMaxInactivity()))
+      // Be conservative about removing in-use connections.
+      if (p.isInUse())
+      {
+        // Reclaim an in-use connection, only if its maxUseTime limit is exceeded.
+        if ((properties_.getMaxUseTime() >= 0) &&
+                 (p.getInUseTime() >= properties_.getMaxUseTime()))
         {
           // Limit exceeded, so disconnect and remove the connection.
-          if (log_ != null || Trace.traceOn_) {
-            log(ResourceBundleLoader.getText(EXPIRED_INACTIVE, new String[] {systemName_, userID_} ));
-          }
           if (Trace.traceOn_) {
-            log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because it has exceeded the maximum inactivity time limit of " + properties_.getMaxInactivity() + " milliseconds.");
-          }
-          p.getAS400Object().disconnectAllServices();
-          connectionList_.removeElementAt(i);
-          if (poolListeners != null)
-          {
-            ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(p.getAS400Object(), ConnectionPoolEvent.CONNECTION_EXPIRED); //@A5C
-            poolListeners.fireConnectionExpiredEvent(poolEvent);  
+            log(Trace.WARNING, "Disconnecting pooled connection (currently in use) because it has exceeded the maximum use time limit of " + properties_.getMaxUseTime() + " milliseconds.");
           }
+          removeConnection(p, EXPIRED_MAX_USE_TIME, poolListeners);
         }
+        continue;
+      }
 
-        // See if the connection has exceeded the maximum use count.
-        else if ((properties_.getMaxUseCount() >= 0) &&
-                 (p.getUseCount() >= properties_.getMaxUseCount()))
-        {
-          // Limit exceeded, so disconnect and remove the connection.
-          if (log_ != null || Trace.traceOn_) {
-            log(ResourceBundleLoader.getText(EXPIRED_MAX_USE_COUNT, new String[] {systemName_, userID_} ));
-          }
-          if (Trace.traceOn_) {
-            log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because it has exceeded the maximum use count of " + properties_.getMaxUseCount());
-          }
-          p.getAS400Object().disconnectAllServices();
-          connectionList_.removeElementAt(i);             
-          if (poolListeners != null)
-          {
-            ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(p.getAS400Object(), ConnectionPoolEvent.CONNECTION_EXPIRED); //@A5C //@B2C
-            poolListeners.fireConnectionExpiredEvent(poolEvent);  
-          }
+      // The remaining cases are for connections that aren't currently in use.
+      // A connection can only be removed if no other thread has claimed it.
+      String expirationStatus;
+      if (p.isFailedPretest())
+      {
+        expirationStatus = EXPIRED_FAILED_PRETEST;
+      }
+      else
+      {
+        expirationStatus = checkConnectionExpiration(p);
+        // Connections that aren't in use have no use time.
+        if (expirationStatus == EXPIRED_MAX_USE_TIME) expirationStatus = NOT_EXPIRED;
+      }
+      if (expirationStatus != NOT_EXPIRED && removeIdle(p))
+      {
+        if (Trace.traceOn_) {
+          log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because it has expired.");
         }
+        removeConnection(p, expirationStatus, poolListeners);
+      }
+    }
+  }
 
-        // See if the connection has exceeded the maximum lifetime.
-        else if ( (properties_.getMaxLifetime() >= 0) && 
-                  (p.getLifeSpan() >= properties_.getMaxLifetime()))
-        {
-          // Limit exceeded, so disconnect and remove the connection.
-          if (log_ != null || Trace.traceOn_) {
-            log(ResourceBundleLoader.getText(EXPIRED_MAX_LIFETIME, new String[] {systemName_, userID_} ));
-          }
-          if (Trace.traceOn_) {
-            log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because it has exceeded the maximum lifetime limit of " + properties_.getMaxLifetime() + " milliseconds.");
-          }
-          p.getAS400Object().disconnectAllServices();
-          connectionList_.removeElementAt(i);           
-          if (poolListeners != null)
-          {
-            ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(p.getAS400Object(), ConnectionPoolEvent.CONNECTION_EXPIRED); //@A5C //@B2C
-            poolListeners.fireConnectionExpiredEvent(poolEvent);  
-          }
-        }
+  /**
+   * Removes a connection that the caller has claimed, disconnects it, and fires
+   * an expired event.
+   *
+   * @param poolItem The pool item.
+   * @param expirationStatus The MRI textID specifying the type of expiration.
+   * @param poolListeners The pool listeners to which events will be fired.
+   **/
+  private void removeConnection(PoolItem poolItem, String expirationStatus, ConnectionPoolEventSupport poolListeners)
+  {
+    if (connectionList_.remove(poolItem.getAS400Object()) == null) return;  // Already removed.
+    connectionCount_.decrementAndGet();
 
-      }//end 'for' loop
-    }//@B1A end synchronized
+    if (log_ != null || Trace.traceOn_)
+    {
+      log(ResourceBundleLoader.getText(expirationStatus, new String[] {systemName_, userID_} ));
+    }
+    poolItem.getAS400Object().disconnectAllServices();
+    if (poolListeners != null)
+    {
+      ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(poolItem.getAS400Object(), ConnectionPoolEvent.CONNECTION_EXPIRED);
+      poolListeners.fireConnectionExpiredEvent(poolEvent);  
+    }
   }
 
   /**
@@ -756,36 +690,14 @@ final class ConnectionList
   {
     if (connectionList_.isEmpty()) return false;
 
-    boolean connectionIsExpired = false;
-    String expirationStatus = null;
-    synchronized (connectionList_)
-    {
-      expirationStatus = checkConnectionExpiration(poolItem);
-      if (expirationStatus == NOT_EXPIRED) {}  // do nothing
-      else {
-        connectionList_.removeElement(poolItem);
-        connectionIsExpired = true;
-      }
-    }
-    // Now that we're out of the sync block (and the connection has been removed from connectionList_), disconnect the connection.
-    if (connectionIsExpired)
-    {
-      if ((log_ != null || Trace.traceOn_) && expirationStatus != null)
-      {
-        log(ResourceBundleLoader.getText(expirationStatus, new String[] {systemName_, userID_} ));
-      }
-      if (poolListeners != null)
-      {
-        ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(poolItem.getAS400Object(), ConnectionPoolEvent.CONNECTION_EXPIRED);
-        poolListeners.fireConnectionExpiredEvent(poolEvent);  
-      }
-      if (Trace.traceOn_) {
-        log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because it has expired.");
-      }
-      poolItem.getAS400Object().disconnectAllServices();
-    }
+    String expirationStatus = checkConnectionExpiration(poolItem);
+    if (expirationStatus == NOT_EXPIRED) return false;
 
-    return connectionIsExpired;
+    if (Trace.traceOn_) {
+      log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because it has expired.");
+    }
+    removeConnection(poolItem, expirationStatus, poolListeners);
+    return true;
   }
 
 
@@ -795,32 +707,22 @@ final class ConnectionList
   **/
   boolean removeUnusedElements()
   {
-    synchronized (connectionList_)
+    Iterator<PoolItem> items = connectionList_.values().iterator();
+    while (items.hasNext())
     {
-      if (connectionList_.size() > 0)
+      PoolItem item = items.next();
+      if (!item.isInUse() && removeIdle(item))
       {
-        int size = connectionList_.size();
-        //if there are no more elements remaining in the list, remove and 
-        //return false.
-        if (size == 0)
-          return false;
-        //incrementally search the list, looking for elements that are not in 
-        //use to remove
-
-        for (int numToCheck = size - 1; numToCheck >= 0; numToCheck--)
+        if (Trace.traceOn_) {
+          log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because removeFromPool() was called.");
+        }
+        if (connectionList_.remove(item.getAS400Object()) != null)
         {
-          PoolItem item = (PoolItem)connectionList_.elementAt(numToCheck);
-          if (!item.isInUse())
-          {
-            if (Trace.traceOn_) {
-              log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) because removeFromPool() was called.");
-            }
-            item.getAS400Object().disconnectAllServices();
-            connectionList_.removeElementAt(numToCheck);   
-          }
-        }// end 'for' loop
-      }//end if (connectionList_.size() > 0)	 
-    }//end synchronized
+          connectionCount_.decrementAndGet();
+          item.getAS400Object().disconnectAllServices();
+        }
+      }
+    }
     return true;
   }
 
@@ -831,19 +733,42 @@ final class ConnectionList
    **/
   void removeElement(AS400 systemToFind)
   {
-    synchronized(connectionList_)   //@A3A
+    PoolItem item = connectionList_.remove(systemToFind);   //@A3C //@A4C
+    if (item != null)
     {
-      int size = connectionList_.size();        
-      for (int i=0; i<size; i++)
-      {
-        PoolItem item = (PoolItem)connectionList_.elementAt(i);
-        if (item.getAS400Object().equals(systemToFind))   //@A3C //@A4C
-        {
-          connectionList_.removeElement(item);
-          return;     //@A3A
-        }
-      }  
-    }                   
+      removeIdle(item);
+      connectionCount_.decrementAndGet();
+    }
+  }
+
+
+  /**
+   *  Makes a connection that was in use available to other callers.
+   *  Called by AS400ConnectionPool when a connection is returned to the pool.
+   *
+   *  @param poolItem The pool item.
+   **/
+  void returnElement(PoolItem poolItem)
+  {
+    poolItem.setInUse(false); // indicate that this connection is available
+    // Most recently used connections are claimed first, so idle ones age out.
+    if (connectionList_.containsKey(poolItem.getAS400Object()))
+    {
+      getIdleDeque(poolItem).offerFirst(poolItem);
+    }
+  }
+
+
+  // Reserves room for one new connection, if the maximum number of connections allows it.
+  private boolean reserveConnection()
+  {
+    int maxConnections = properties_.getMaxConnections();
+    while (true)
+    {
+      int count = connectionCount_.get();
+      if (maxConnections > 0 && count >= maxConnections) return false;
+      if (connectionCount_.compareAndSet(count, count + 1)) return true;
+    }
   }
 
 
@@ -867,44 +792,37 @@ final class ConnectionList
   {
     if (log_ != null || Trace.traceOn_)
       log(ResourceBundleLoader.getText("CL_REMOLD", new String[] {systemName_, userID_} ));
-    int oldest = 0;
-    synchronized (connectionList_)
+    int reduce = ((connectionCount_.get() - properties_.getMaxConnections() + 1));
+    for (int j = 0; j < reduce; j++)
     {
-      int reduce = ((getConnectionCount() - properties_.getMaxConnections() + 1));
-      for (int j = 0; j < reduce; j++)
+      PoolItem oldest = null;
+      long t = 0;
+      Iterator<PoolItem> items = connectionList_.values().iterator();
+      while (items.hasNext())
       {
-        oldest = 0;
-        if (connectionList_.size() > 0)
+        PoolItem item = items.next();
+        if (!item.isInUse())
         {
-          long t = 0;
-          int size = connectionList_.size();            
-          for (int i=0; i<size; i++)
+          if (oldest == null || item.getInactivityTime() > t)
           {
-            PoolItem item = (PoolItem)connectionList_.elementAt(i);
-            if (!item.isInUse())
-            {
-              if (item.getInactivityTime() > t || oldest == 0)
-              {
-                oldest = i;
-                t = item.getInactivityTime();
-              }
-            }
+            oldest = item;
+            t = item.getInactivityTime();
           }
+        }
+      }
 
-          //only disconnect oldest item if it is not in use
-          PoolItem item = (PoolItem)connectionList_.elementAt(oldest);      
-          if (!item.isInUse())
-          {
-            if (Trace.traceOn_) {
-              log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) during removal of oldest unallocated connections.");
-            }
-            item.getAS400Object().disconnectAllServices();
-            connectionList_.removeElementAt(oldest);   
-            if (log_ != null || Trace.traceOn_)
-              log(ResourceBundleLoader.getText("CL_REMOLDCOMP", new String[] {systemName_, userID_} ));
-          }
-        }//end if (connectionList_.size() > 0)	
-      }//end 'for' loop
-    }//end synchronized
+      //only disconnect oldest item if it is not in use
+      if (oldest == null) return;
+      if (removeIdle(oldest) && connectionList_.remove(oldest.getAS400Object()) != null)
+      {
+        connectionCount_.decrementAndGet();
+        if (Trace.traceOn_) {
+          log(Trace.DIAGNOSTIC, "Disconnecting pooled connection (not currently in use) during removal of oldest unallocated connections.");
+        }
+        oldest.getAS400Object().disconnectAllServices();
+        if (log_ != null || Trace.traceOn_)
+          log(ResourceBundleLoader.getText("CL_REMOLDCOMP", new String[] {systemName_, userID_} ));
+      }
+    }//end 'for' loop
   }//end shutDownOldest()
 }
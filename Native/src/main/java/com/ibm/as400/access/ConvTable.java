@@ -86,6 +86,15 @@ public abstract class ConvTable {
         return dumpCharArray(charArray, charArray.length);
     }
 
+    //@CT1A
+    // Creates the table for a ConvTable class name, from the precompiled binary
+    // form of the table when there is one, so that the class is not loaded.
+    private static ConvTable newTable(String className) throws Exception {
+        ConvTable table = ConvTableBinary.getTable(className.substring(prefix_.length()));
+        if (table != null) return table;
+        return (ConvTable) Class.forName(className).newInstance();
+    }
+
     // Factory method for finding appropriate table based on encoding name.
     public static final ConvTable getTable(String encoding) throws UnsupportedEncodingException {
         String className = (NLS.forceJavaTables_) ? encoding : prefix_ + ConversionMaps.encodingToCcsidString(encoding);
@@ -104,7 +113,7 @@ public abstract class ConvTable {
                 if (Trace.traceOn_) Trace.log(Trace.CONVERSION, "User set to force loading Java tables.");
                 throw new CharConversionException();
             }
-            newTable = (ConvTable) Class.forName(className).newInstance();
+            newTable = newTable(className); //@CT1C
         } catch (Throwable e) {
             if (Trace.traceOn_)
                 Trace.log(Trace.CONVERSION, "Could not load conversion table class for encoding: " + encoding + ". Will attempt to let Java do the conversion.", e);
@@ -173,7 +182,7 @@ public abstract class ConvTable {
                 if (Trace.traceOn_) Trace.log(Trace.CONVERSION, "User set to force loading Java tables.");
                 throw new CharConversionException();
             }
-            newTable = (ConvTable) Class.forName(className).newInstance();
+            newTable = newTable(className); //@CT1C
         } catch (Throwable e) {
             if (Trace.traceOn_)
                 Trace.log(Trace.CONVERSION, "Could not load conversion table class for ccsid: " + ccsid + ". Will attempt to let Java do the conversion.", e);
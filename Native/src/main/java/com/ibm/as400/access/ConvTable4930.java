@@ -1657,11 +1657,16 @@ class ConvTable4930 extends ConvTableDoubleMap {
                     "\u4954\uFFFF\u0081\uFEFE\u424A\u416B\u425F\u414C\u426A\u416C\u42E0\uFFFF\u0019\uFEFE";
 
 
+    // The compressed tables, made once, so that the tables decompressed  //@DM2A
+    // from them are shared by every table built for this ccsid.
+    private static final char[] toUnicodeArray_ = toUnicode_.toCharArray();
+    private static final char[] fromUnicodeArray_ = fromUnicode_.toCharArray();
+
     ConvTable4930() {
         this(4930);
     }
 
     ConvTable4930(int ccsid) {
-        super(ccsid, toUnicode_.toCharArray(), fromUnicode_.toCharArray());
+        super(ccsid, toUnicodeArray_, fromUnicodeArray_); //@DM2C
     }
 }
@@ -583,8 +583,13 @@ class ConvTable61952 extends ConvTableDoubleMap
       "\uE9E8\uE7E6\uE5E4\uE3E2\uE1E0\uDFDE\uDDDC\uDBDA\uD9D8\uD7D6\uD5D4\uF8D3\uFFFE\u0791\uF86F";
 
 
+    // The compressed tables, made once, so that the tables decompressed  //@DM2A
+    // from them are shared by every table built for this ccsid.
+    private static final char[] toUnicodeArray_ = toUnicode_.toCharArray();
+    private static final char[] fromUnicodeArray_ = fromUnicode_.toCharArray();
+
     ConvTable61952()
     {
-        super(61952, toUnicode_.toCharArray(), fromUnicode_.toCharArray());
+        super(61952, toUnicodeArray_, fromUnicodeArray_); //@DM2C
     }
 }
@@ -2028,11 +2028,16 @@ class ConvTable835 extends ConvTableDoubleMap {
     // Support for extensions with fixes detected by testing @V5A
     // 
 
+    // The compressed tables, made once, so that the tables decompressed  //@DM2A
+    // from them are shared by every table built for this ccsid.
+    private static final char[] toUnicodeArray_ = toUnicode_.toCharArray();
+    private static final char[] fromUnicodeArray_ = fromUnicode_.toCharArray();
+
     ConvTable835() {
-        super(835, toUnicode_.toCharArray(), fromUnicode_.toCharArray());
+        super(835, toUnicodeArray_, fromUnicodeArray_); //@DM2C
     }
     ConvTable835(int ccsid) {
-        super(ccsid, toUnicode_.toCharArray(), fromUnicode_.toCharArray());
+        super(ccsid, toUnicodeArray_, fromUnicodeArray_); //@DM2C
     }
 
     static ConvTableDoubleMap makeAlternateMap(ConvTableDoubleMap inMap, int ccsid) {
@@ -23,6 +23,13 @@ public abstract class ConvTableAsciiMap extends ConvTable
     public char[] toUnicode_ = null;
     public byte[] fromUnicode_ = null;
 
+    // toUnicode_ narrowed to bytes, or null if some byte maps outside Latin-1.
+    private final byte[] toLatin1_;
+    // true if every byte maps to the same Latin-1 character.
+    private final boolean latin1Identity_;
+    // The byte for a blank.
+    private final byte blank_;
+
     // Constructor.
     ConvTableAsciiMap(int ccsid, char[] toUnicode, char[] fromUnicode)
     {
@@ -31,6 +38,9 @@ public abstract class ConvTableAsciiMap extends ConvTable
         toUnicode_ = toUnicode;
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Decompressing single-byte ASCII conversion table for ccsid: " + ccsid_, fromUnicode.length);
         fromUnicode_ = decompressSB(fromUnicode, (byte)0x1A);
+        blank_ = fromUnicode_[' '];
+        toLatin1_ = ConvTableSingleMap.toLatin1(toUnicode_);
+        latin1Identity_ = ConvTableSingleMap.isIdentity(toLatin1_);
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Successfully loaded single-byte ASCII map for ccsid: " + ccsid_);
     }
 
@@ -38,9 +48,14 @@ public abstract class ConvTableAsciiMap extends ConvTable
     final String byteArrayToString(byte[] buf, int offset, int length, BidiConversionProperties properties)
     {
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Converting byte array to string for ccsid: " + ccsid_, buf, offset, length);
+        if (toLatin1_ != null)
+        {
+            String result = ConvTableSingleMap.latin1String(toLatin1_, latin1Identity_, buf, offset, length, blank_);
+            if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Destination string for ccsid: " + ccsid_, ConvTable.dumpCharArray(result.toCharArray()));
+            return result;
+        }
         char[] dest = new char[length];
-        // The 0x00FF is so we don't get any negative indices.
-        for (int i=0; i<length; dest[i] = toUnicode_[0x00FF & buf[offset + (i++)]]);
+        ConvTableSingleMap.translate(toUnicode_, buf, offset, dest, 0, length, blank_);
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Destination string for ccsid: " + ccsid_, ConvTable.dumpCharArray(dest));
         return String.copyValueOf(dest);
     }
@@ -57,7 +72,7 @@ public abstract class ConvTableAsciiMap extends ConvTable
     {
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Converting string to byte array for ccsid: " + ccsid_, ConvTable.dumpCharArray(src, offset, length));
         byte[] dest = new byte[length];
-        for (int i=offset; i<length; dest[i] = fromUnicode_[src[i++]]);
+        ConvTableSingleMap.translate(fromUnicode_, src, offset, dest, 0, length);
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Destination byte array for ccsid: " + ccsid_, dest);
         return dest;
     }
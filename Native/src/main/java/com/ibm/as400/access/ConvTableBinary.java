@@ -0,0 +1,318 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename:  ConvTableBinary.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others.  All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Hashtable;
+
+/**
+ * Loads a double-byte conversion table from its precompiled binary form,
+ * written by ConvTableBinaryGenerator at build time.  Loading a table this
+ * way does not load its ConvTable class, whose string literals and static
+ * initializer make the first use of a double-byte CCSID slow.
+ *
+ * <p>The ConvTableIndex.ctb resource lists the ccsids that have binary
+ * tables, so that looking up any other ccsid costs nothing more.  Tables
+ * with the same content share one ConvTable<i>ccsid</i>.ctb resource.
+ * A resource is memory-mapped when it is a file, and read into memory when
+ * it is in a jar.  The toUnicode and fromUnicode arrays start out empty,
+ * and each page of 1024 characters is copied from the resource the first
+ * time a lookup finds UNLOADED (0) in it.  Because a loaded character is
+ * never changed again, a lookup only needs to synchronize when it finds
+ * UNLOADED, which is a valid value at only a few indexes of a few tables.
+ *
+ * <p>The formats of the resources are, in big-endian order:
+ * <pre>
+ *   ConvTableIndex.ctb:
+ *     int     MAGIC
+ *     int     VERSION
+ *     int     number of entries
+ *     for each entry:
+ *       int   ccsid, as it appears in the name of its ConvTable class
+ *       int   ccsid of the table
+ *       int   ccsid of the resource holding its data
+ *
+ *   ConvTable<i>ccsid</i>.ctb:
+ *     int     MAGIC
+ *     int     VERSION
+ *     int     1 if the table has multi-character mappings, otherwise 0
+ *     int     number of surrogate and combining mappings
+ *     int     number of triplet mappings
+ *     int     number of quad mappings
+ *     char[]  toUnicode, 65536 characters
+ *     char[]  fromUnicode, 65536 characters
+ *     char[]  the rows of the surrogate, triplet, and quad mappings
+ * </pre>
+ *
+ * <p>Binary tables are used unless the
+ * com.ibm.as400.access.ConvTable.binaryTables system property is false.
+ **/
+final class ConvTableBinary
+{
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    static final String INDEX_NAME = "ConvTableIndex.ctb";
+    static final int MAGIC = 0x43544231; // "CTB1"
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 24;
+    static final int TABLE_LENGTH = 65536;
+    static final char UNLOADED = 0;
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_LENGTH = 1 << PAGE_SHIFT;
+    private static final int PAGES = TABLE_LENGTH >>> PAGE_SHIFT; // One bit of a long for each page.
+
+    static final boolean enabled_ = !"false".equalsIgnoreCase(SystemProperties.getProperty(SystemProperties.CONVTABLE_BINARY_TABLES));
+
+    // The index, from ccsid to { table ccsid, data ccsid }, read the first time it is needed.
+    private static Hashtable<String, int[]> index_;
+    // The binaries loaded so far, by data ccsid.
+    private static final Hashtable<Integer, ConvTableBinary> binaries_ = new Hashtable<Integer, ConvTableBinary>();
+
+    private final CharBuffer data_;
+    final char[] toUnicode_ = new char[TABLE_LENGTH];
+    final char[] fromUnicode_ = new char[TABLE_LENGTH];
+    private long toUnicodeLoaded_;
+    private long fromUnicodeLoaded_;
+    final ConvTableMultiCharMap multiCharMap_;
+
+    private ConvTableBinary(ByteBuffer buffer)
+    {
+        buffer.position(HEADER_LENGTH);
+        data_ = buffer.slice().asCharBuffer();
+
+        if (buffer.getInt(8) != 0)
+        {
+            CharBuffer rows = data_.duplicate();
+            rows.position(2 * TABLE_LENGTH);
+            char[][] surrogateMapping = readRows(rows, buffer.getInt(12), 3);
+            char[][] tripleMapping = readRows(rows, buffer.getInt(16), 4);
+            char[][] quadMapping = readRows(rows, buffer.getInt(20), 5);
+            multiCharMap_ = ConvTableMultiCharMap.getMap(surrogateMapping, tripleMapping, quadMapping);
+        }
+        else
+        {
+            multiCharMap_ = null;
+        }
+    }
+
+    private static char[][] readRows(CharBuffer rows, int count, int width)
+    {
+        if (count == 0) return null;
+        char[] chars = new char[count * width];
+        rows.get(chars);
+        char[][] mapping = new char[count][width];
+        for (int i = 0; i < count; ++i)
+        {
+            System.arraycopy(chars, i * width, mapping[i], 0, width);
+        }
+        return mapping;
+    }
+
+    /**
+     * Returns a new table for a ccsid from its binary resource.
+     *
+     * @param ccsid The ccsid, as it appears in the name of its ConvTable class.
+     * @return The table, or null if there is no binary resource for it,
+     * or binary tables are turned off.
+     **/
+    static ConvTableDoubleMap getTable(String ccsid)
+    {
+        if (!enabled_) return null;
+        try
+        {
+            int[] entry = getIndex().get(ccsid);
+            if (entry == null) return null;
+            ConvTableBinary binary = getBinary(entry[1]);
+            if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Loaded binary conversion table for ccsid: " + entry[0]);
+            return new ConvTableDoubleMap(entry[0], binary);
+        }
+        catch (IOException e)
+        {
+            if (Trace.traceOn_) Trace.log(Trace.WARNING, "Could not load binary conversion table for ccsid: " + ccsid, e);
+            return null;
+        }
+    }
+
+    // Returns the index, reading it the first time.  The index is empty if
+    // there is no index resource, or it cannot be read.
+    static synchronized Hashtable<String, int[]> getIndex()
+    {
+        if (index_ == null)
+        {
+            Hashtable<String, int[]> index = new Hashtable<String, int[]>();
+            InputStream stream = ConvTableBinary.class.getResourceAsStream(INDEX_NAME);
+            if (stream != null)
+            {
+                try
+                {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+                    try
+                    {
+                        if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Binary conversion table index not valid.");
+                        int count = in.readInt();
+                        for (int i = 0; i < count; ++i)
+                        {
+                            String ccsid = String.valueOf(in.readInt());
+                            index.put(ccsid, new int[] { in.readInt(), in.readInt() });
+                        }
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                }
+                catch (IOException e)
+                {
+                    if (Trace.traceOn_) Trace.log(Trace.WARNING, "Could not read binary conversion table index.", e);
+                    index.clear();
+                }
+            }
+            index_ = index;
+        }
+        return index_;
+    }
+
+    // Returns the binary of a data resource, loading it the first time.
+    private static synchronized ConvTableBinary getBinary(int ccsid) throws IOException
+    {
+        Integer key = Integer.valueOf(ccsid);
+        ConvTableBinary binary = binaries_.get(key);
+        if (binary == null)
+        {
+            // String.concat, because the first use of a + concatenation can cost more than reading the table.
+            binary = new ConvTableBinary(read("ConvTable".concat(String.valueOf(ccsid)).concat(".ctb")));
+            binaries_.put(key, binary);
+        }
+        return binary;
+    }
+
+    // Maps a resource, or reads it when it is not a file, and checks its header.
+    private static ByteBuffer read(String name) throws IOException
+    {
+        URL url = ConvTableBinary.class.getResource(name);
+        if (url == null) throw new IOException("Binary conversion table not found: " + name);
+        File path = null;
+        if ("file".equals(url.getProtocol()))
+        {
+            try
+            {
+                path = new File(url.toURI());
+            }
+            catch (Exception e)
+            {
+                // Read it as a stream.
+            }
+        }
+        ByteBuffer buffer;
+        if (path != null)
+        {
+            RandomAccessFile file = new RandomAccessFile(path, "r");
+            try
+            {
+                // The mapping stays valid after the file is closed.
+                buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            }
+            finally
+            {
+                file.close();
+            }
+        }
+        else
+        {
+            InputStream in = url.openStream();
+            try
+            {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_LENGTH + 4 * TABLE_LENGTH);
+                byte[] chunk = new byte[8192];
+                int n;
+                while ((n = in.read(chunk)) != -1)
+                {
+                    out.write(chunk, 0, n);
+                }
+                buffer = ByteBuffer.wrap(out.toByteArray());
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        if (buffer.limit() < HEADER_LENGTH + 4 * TABLE_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+        {
+            throw new IOException("Binary conversion table not valid: " + url);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the toUnicode character at an index, loading its page if needed.
+     * Called when toUnicode_ holds UNLOADED at the index.
+     **/
+    synchronized char toUnicode(int index)
+    {
+        int page = index >>> PAGE_SHIFT;
+        if ((toUnicodeLoaded_ & (1L << page)) == 0)
+        {
+            loadPage(toUnicode_, 0, page);
+            toUnicodeLoaded_ |= 1L << page;
+        }
+        return toUnicode_[index];
+    }
+
+    /**
+     * Returns the fromUnicode character at an index, loading its page if needed.
+     * Called when fromUnicode_ holds UNLOADED at the index.
+     **/
+    synchronized char fromUnicode(int index)
+    {
+        int page = index >>> PAGE_SHIFT;
+        if ((fromUnicodeLoaded_ & (1L << page)) == 0)
+        {
+            loadPage(fromUnicode_, TABLE_LENGTH, page);
+            fromUnicodeLoaded_ |= 1L << page;
+        }
+        return fromUnicode_[index];
+    }
+
+    /**
+     * Loads all of the pages, so that the arrays can be used directly.
+     **/
+    synchronized void loadAll()
+    {
+        for (int page = 0; page < PAGES; ++page)
+        {
+            if ((toUnicodeLoaded_ & (1L << page)) == 0) loadPage(toUnicode_, 0, page);
+            if ((fromUnicodeLoaded_ & (1L << page)) == 0) loadPage(fromUnicode_, TABLE_LENGTH, page);
+        }
+        toUnicodeLoaded_ = -1L;
+        fromUnicodeLoaded_ = -1L;
+    }
+
+    private void loadPage(char[] table, int offset, int page)
+    {
+        CharBuffer source = data_.duplicate();
+        source.position(offset + (page << PAGE_SHIFT));
+        source.get(table, page << PAGE_SHIFT, PAGE_LENGTH);
+    }
+}
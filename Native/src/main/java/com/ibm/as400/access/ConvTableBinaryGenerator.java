@@ -0,0 +1,220 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename:  ConvTableBinaryGenerator.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others.  All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * Writes the precompiled binary form of the double-byte conversion tables,
+ * for ConvTableBinary, as part of the build.
+ * <p>
+ * Usage: <code>ConvTableBinaryGenerator <i>classesDirectory</i> <i>outputDirectory</i></code>
+ * <p>
+ * Every ConvTable<i>ccsid</i> class in the classes directory that is a
+ * ConvTableDoubleMap is constructed, and its decompressed tables are written
+ * to ConvTable<i>ccsid</i>.ctb in the output directory, along with the
+ * ConvTableIndex.ctb resource that lists them.  Because the tables
+ * are taken from the constructed object, any changes a class makes to its
+ * tables after they are decompressed are kept.  Classes that add behavior of
+ * their own, by declaring instance methods, are skipped, and are still loaded
+ * as classes.  A table with the same content as one written before it is
+ * only listed in the index, with the ccsid of that one.
+ **/
+final class ConvTableBinaryGenerator
+{
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    private static final String PREFIX = "ConvTable";
+
+    private ConvTableBinaryGenerator()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length != 2)
+        {
+            System.out.println("Usage: ConvTableBinaryGenerator classesDirectory outputDirectory");
+            System.exit(1);
+        }
+        File classes = new File(args[0], "com" + File.separator + "ibm" + File.separator + "as400" + File.separator + "access");
+        File output = new File(args[1]);
+        if (!output.isDirectory() && !output.mkdirs())
+        {
+            throw new IOException("Cannot create directory: " + output);
+        }
+
+        String[] names = classes.list();
+        if (names == null)
+        {
+            throw new IOException("Not a directory: " + classes);
+        }
+        Arrays.sort(names);
+        Vector<String> writtenCcsids = new Vector<String>();
+        Vector<ConvTableDoubleMap> writtenTables = new Vector<ConvTableDoubleMap>();
+        // Entries of the index, { ccsid, table ccsid, data ccsid }.
+        Vector<int[]> index = new Vector<int[]>();
+        for (int i = 0; i < names.length; ++i)
+        {
+            String ccsid = getCcsid(names[i]);
+            if (ccsid == null) continue;
+            Class<?> tableClass = Class.forName("com.ibm.as400.access." + PREFIX + ccsid);
+            if (!isPlainDoubleMap(tableClass)) continue;
+
+            ConvTableDoubleMap table = (ConvTableDoubleMap)tableClass.getDeclaredConstructor().newInstance();
+            String dataCcsid = null;
+            for (int j = 0; j < writtenTables.size() && dataCcsid == null; ++j)
+            {
+                if (sameContent(table, writtenTables.elementAt(j))) dataCcsid = writtenCcsids.elementAt(j);
+            }
+            if (dataCcsid == null)
+            {
+                writeTable(new File(output, PREFIX + ccsid + ".ctb"), table);
+                writtenCcsids.addElement(ccsid);
+                writtenTables.addElement(table);
+                dataCcsid = ccsid;
+            }
+            index.addElement(new int[] { Integer.parseInt(ccsid), table.getCcsid(), Integer.parseInt(dataCcsid) });
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(output, ConvTableBinary.INDEX_NAME))));
+        try
+        {
+            out.writeInt(ConvTableBinary.MAGIC);
+            out.writeInt(ConvTableBinary.VERSION);
+            out.writeInt(index.size());
+            for (int i = 0; i < index.size(); ++i)
+            {
+                int[] entry = index.elementAt(i);
+                out.writeInt(entry[0]);
+                out.writeInt(entry[1]);
+                out.writeInt(entry[2]);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        System.out.println("Wrote " + writtenTables.size() + " binary conversion tables for " + index.size() + " ccsids to " + output);
+    }
+
+    private static void writeTable(File file, ConvTableDoubleMap table) throws IOException
+    {
+        ConvTableMultiCharMap map = table.getMultiCharMap();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try
+        {
+            out.writeInt(ConvTableBinary.MAGIC);
+            out.writeInt(ConvTableBinary.VERSION);
+            out.writeInt(map == null ? 0 : 1);
+            out.writeInt(map == null ? 0 : countRows(map.getMapping(ConvTableMultiCharMap.PAIR)));
+            out.writeInt(map == null ? 0 : countRows(map.getMapping(ConvTableMultiCharMap.TRIPLE)));
+            out.writeInt(map == null ? 0 : countRows(map.getMapping(ConvTableMultiCharMap.QUAD)));
+            writeChars(out, table.getToUnicode());
+            writeChars(out, table.getFromUnicode());
+            if (map != null)
+            {
+                writeRows(out, map.getMapping(ConvTableMultiCharMap.PAIR), 3);
+                writeRows(out, map.getMapping(ConvTableMultiCharMap.TRIPLE), 4);
+                writeRows(out, map.getMapping(ConvTableMultiCharMap.QUAD), 5);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    // Returns the ccsid in the name of a ConvTable class file, or null if it is not one.
+    private static String getCcsid(String name)
+    {
+        if (!name.startsWith(PREFIX) || !name.endsWith(".class")) return null;
+        String ccsid = name.substring(PREFIX.length(), name.length() - 6);
+        if (ccsid.length() == 0) return null;
+        for (int i = 0; i < ccsid.length(); ++i)
+        {
+            if (!Character.isDigit(ccsid.charAt(i))) return null;
+        }
+        return ccsid;
+    }
+
+    // Indicates if a class is a ConvTableDoubleMap that only supplies tables.
+    private static boolean isPlainDoubleMap(Class<?> tableClass)
+    {
+        if (!ConvTableDoubleMap.class.isAssignableFrom(tableClass)) return false;
+        for (Class<?> c = tableClass; c != ConvTableDoubleMap.class; c = c.getSuperclass())
+        {
+            Method[] methods = c.getDeclaredMethods();
+            for (int i = 0; i < methods.length; ++i)
+            {
+                if (!Modifier.isStatic(methods[i].getModifiers()) && !methods[i].isSynthetic()) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameContent(ConvTableDoubleMap table, ConvTableDoubleMap other)
+    {
+        if (!Arrays.equals(table.getToUnicode(), other.getToUnicode())) return false;
+        if (!Arrays.equals(table.getFromUnicode(), other.getFromUnicode())) return false;
+        ConvTableMultiCharMap map = table.getMultiCharMap();
+        ConvTableMultiCharMap otherMap = other.getMultiCharMap();
+        if (map == otherMap) return true;
+        if (map == null || otherMap == null) return false;
+        return Arrays.deepEquals(map.getMapping(ConvTableMultiCharMap.PAIR), otherMap.getMapping(ConvTableMultiCharMap.PAIR))
+            && Arrays.deepEquals(map.getMapping(ConvTableMultiCharMap.TRIPLE), otherMap.getMapping(ConvTableMultiCharMap.TRIPLE))
+            && Arrays.deepEquals(map.getMapping(ConvTableMultiCharMap.QUAD), otherMap.getMapping(ConvTableMultiCharMap.QUAD));
+    }
+
+    private static int countRows(char[][] mapping)
+    {
+        return (mapping == null) ? 0 : mapping.length;
+    }
+
+    private static void writeChars(DataOutputStream out, char[] chars) throws IOException
+    {
+        if (chars.length != ConvTableBinary.TABLE_LENGTH)
+        {
+            throw new IOException("Conversion table has " + chars.length + " characters");
+        }
+        for (int i = 0; i < chars.length; ++i)
+        {
+            out.writeChar(chars[i]);
+        }
+    }
+
+    private static void writeRows(DataOutputStream out, char[][] mapping, int width) throws IOException
+    {
+        if (mapping == null) return;
+        for (int i = 0; i < mapping.length; ++i)
+        {
+            if (mapping[i].length != width)
+            {
+                throw new IOException("Conversion table mapping has " + mapping[i].length + " characters, expected " + width);
+            }
+            for (int j = 0; j < mapping[i].length; ++j)
+            {
+                out.writeChar(mapping[i][j]);
+            }
+        }
+    }
+}
@@ -13,9 +13,7 @@
 
 package com.ibm.as400.access;
 
-import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.WeakHashMap;
 
 /** This is the parent class for all ConvTableXXX classes that represent double-byte ccsids.
  * 
@@ -28,9 +26,6 @@ public class ConvTableDoubleMap extends ConvTable
     private char[] toUnicode_ = null;
     protected char[] fromUnicode_ = null;
     
-    char[][] toUnicodeSurrogate_ = null; 
-    char[][] toUnicodeTriple_ = null; 
-    char[][] toUnicodeQuad_ = null; 
     // To convert from unicode, @KDA 
     // The first index is based off of D800
     // The second index is based off of DC00
@@ -38,25 +33,18 @@ public class ConvTableDoubleMap extends ConvTable
     public static final int LEADING_SURROGATE_BASE = 0xD800; 
     public static final int TRAILING_SURROGATE_BASE = 0xDC00; 
     public static final int FROM_UNICODE_SURROGATE_DIMENSION_LENGTH = 0x400; 
-    char[][] fromUnicodeSurrogate_ = null;
 
-    
-    
-    char[][][] fromUnicodeTriple_ = null;
-    int firstTripleMin_;
-    int secondTripleMin_; 
-    int thirdTripleMin_; 
-    char[][][][] fromUnicodeQuad_ = null;
-    int firstQuadMin_;
-    int secondQuadMin_; 
-    int thirdQuadMin_; 
-    int fourthQuadMin_; 
-    
-    
-    // combining characters used for unicode to ebcdic conversion 
-    char[] combiningCharacters_;
-    char[][] combiningCombinations_; 
-    
+    // The surrogate, combining, triplet, and quad mappings, shared by all  @DM1C
+    // of the tables built from the same mapping arrays.
+    ConvTableMultiCharMap multiCharMap_ = null;
+
+    // The decompressed tables, by the compressed table they came from, so that
+    // aliases of a ccsid share them. @DM1A
+    private static final WeakHashMap<char[], char[]> decompressedTables_ = new WeakHashMap<char[], char[]>();
+
+    // The precompiled table that toUnicode_ and fromUnicode_ are loaded from  @CT1A
+    // a page at a time, or null.
+    private ConvTableBinary binary_ = null;
 
     ConvTableDoubleMap(int ccsid, char[] toUnicode, char[] fromUnicode,
         char[][] toUnicodeSurrogateMapping, char[][] toUnicodeTripleMapping) {
@@ -69,191 +57,15 @@ public class ConvTableDoubleMap extends ConvTable
       char[][] toUnicodeTripleMapping,
       char[][] toUnicodeQuadMapping) {
     this(ccsid, toUnicode, fromUnicode);
-    toUnicodeSurrogate_ = new char[65535][];
-    fromUnicodeSurrogate_ = new char[FROM_UNICODE_SURROGATE_DIMENSION_LENGTH][];
-    ArrayList combiningCombinationArrayList = new ArrayList();
-    Hashtable combiningCharacterHashtable  = new Hashtable(); 
-    for (int i = 0; i < toUnicodeSurrogateMapping.length; i++) {
-      char ebcdicChar = toUnicodeSurrogateMapping[i][0];
-      char leadingSurrogate = toUnicodeSurrogateMapping[i][1];
-      char trailingSurrogate = toUnicodeSurrogateMapping[i][2];
-
-      char[] pair = new char[2];
-      pair[0] = leadingSurrogate;
-      pair[1] = trailingSurrogate;
-      toUnicodeSurrogate_[0xffff & (int) ebcdicChar] = pair;
-
-      
-      // Create fromUnicodeSurrogate mapping @KDA
-      int leadingIndex = leadingSurrogate - LEADING_SURROGATE_BASE;
-      int trailingIndex = trailingSurrogate - TRAILING_SURROGATE_BASE;
-      if (leadingIndex >= 0
-          && leadingIndex < FROM_UNICODE_SURROGATE_DIMENSION_LENGTH) {
-        if (fromUnicodeSurrogate_[leadingIndex] == null) {
-          fromUnicodeSurrogate_[leadingIndex] = new char[FROM_UNICODE_SURROGATE_DIMENSION_LENGTH];
-        }
-        char[] fromUnicodeSurrogate2 = fromUnicodeSurrogate_[leadingIndex];
-        if (trailingIndex >= 0 && trailingIndex < FROM_UNICODE_SURROGATE_DIMENSION_LENGTH) {
-           fromUnicodeSurrogate2[trailingIndex] = ebcdicChar;
-        } else {
-          // Error case here.. Should never happen. 
-        }
-      } else {
-        // Leading index not surrogate, must be combining combination
-        char[] triplet = new char[3]; 
-        triplet[0] = leadingSurrogate;
-        triplet[1] = trailingSurrogate; 
-        triplet[2] = ebcdicChar; 
-        combiningCombinationArrayList.add(triplet); 
-        combiningCharacterHashtable.put(new Integer(trailingSurrogate), pair); 
-        
-      }
-    } /* for i */ 
-    int combiningCharacterSize = combiningCharacterHashtable.size(); 
-    combiningCharacters_ = new char[combiningCharacterSize]; 
-    int i = 0; 
-    Enumeration keys = combiningCharacterHashtable.keys();
-    while (keys.hasMoreElements()) {
-      Integer x = (Integer) keys.nextElement(); 
-      combiningCharacters_[i] = (char) x.intValue(); 
-      i++; 
-    }
-    
-    int combiningCombinationSize = combiningCombinationArrayList.size(); 
-    combiningCombinations_ = new char[combiningCombinationSize][]; 
-    for (i = 0; i < combiningCombinationSize; i++) {
-      combiningCombinations_[i] = (char[]) combiningCombinationArrayList.get(i); 
-    }
-
-    if (toUnicodeTripleMapping != null) {
-      // Determine the dimensions for each of the array mappings
-      firstTripleMin_ = 0xFFFF;
-      secondTripleMin_ = 0xFFFF;
-      thirdTripleMin_ = 0xFFFF;
-      
-      int firstTripleMax = 0; 
-      int secondTripleMax = 0; 
-      int thirdTripleMax = 0; 
-      
-      for (int j = 0; j < toUnicodeTripleMapping.length; j++) {
-        char[] row = toUnicodeTripleMapping[j]; 
-        int firstTriple = 0xffff & row[1]; 
-        int secondTriple = 0xffff & row[2]; 
-        int thirdTriple = 0xffff & row[3]; 
-        if (firstTriple < firstTripleMin_) firstTripleMin_ = firstTriple;
-        if (firstTriple > firstTripleMax ) firstTripleMax = firstTriple;
-        if (secondTriple < secondTripleMin_) secondTripleMin_ = secondTriple;
-        if (secondTriple > secondTripleMax ) secondTripleMax = secondTriple;
-        if (thirdTriple < thirdTripleMin_) thirdTripleMin_ = thirdTriple;
-        if (thirdTriple > thirdTripleMax ) thirdTripleMax = thirdTriple;
-      }
-      
-      fromUnicodeTriple_ = new char[firstTripleMax-firstTripleMin_+1][][];
-      toUnicodeTriple_ = new char[65535][];
-     
-      // Populate the to and from tables 
-      for (int j = 0; j < toUnicodeTripleMapping.length; j++) {
-        char[] row = toUnicodeTripleMapping[j]; 
-        int ebcdic      = 0xffff & row[0];
-        int firstIndex  = (0xffff & row[1]) - firstTripleMin_; 
-        int secondIndex = (0xffff & row[2]) - secondTripleMin_; 
-        int thirdIndex  = (0xffff & row[3]) - thirdTripleMin_; 
-        
-        toUnicodeTriple_[ebcdic] = new char[3];
-        toUnicodeTriple_[ebcdic][0] = row[1]; 
-        toUnicodeTriple_[ebcdic][1] = row[2]; 
-        toUnicodeTriple_[ebcdic][2] = row[3]; 
-        
-        char[][] secondLevel = fromUnicodeTriple_[firstIndex]; 
-        if (secondLevel == null) {
-          secondLevel = new char[secondTripleMax-secondTripleMin_+1][];
-          fromUnicodeTriple_[firstIndex] = secondLevel; 
-        }
-        char[] thirdLevel = secondLevel[secondIndex];
-        if (thirdLevel == null) {
-          thirdLevel = new char[thirdTripleMax-thirdTripleMin_+1];
-          secondLevel[secondIndex] = thirdLevel; 
-        }
-        thirdLevel[thirdIndex] = (char) ebcdic; 
-      } /* int j*/ 
-    } /* toUnicodeTriple != null */ 
-
-    if (toUnicodeQuadMapping != null) {
-      // Determine the dimensions for each of the array mappings
-      firstQuadMin_ = 0xFFFF;
-      secondQuadMin_ = 0xFFFF;
-      thirdQuadMin_ = 0xFFFF;
-      fourthQuadMin_ = 0xFFFF;
-      
-      int firstQuadMax = 0; 
-      int secondQuadMax = 0; 
-      int thirdQuadMax = 0; 
-      int fourthQuadMax = 0; 
-      
-      for (int j = 0; j < toUnicodeQuadMapping.length; j++) {
-        char[] row = toUnicodeQuadMapping[j]; 
-        int firstQuad = 0xffff & row[1]; 
-        int secondQuad = 0xffff & row[2]; 
-        int thirdQuad = 0xffff & row[3]; 
-        int fourthQuad = 0xffff & row[4]; 
-        if (firstQuad < firstQuadMin_) firstQuadMin_ = firstQuad;
-        if (firstQuad > firstQuadMax ) firstQuadMax = firstQuad;
-        if (secondQuad < secondQuadMin_) secondQuadMin_ = secondQuad;
-        if (secondQuad > secondQuadMax ) secondQuadMax = secondQuad;
-        if (thirdQuad < thirdQuadMin_) thirdQuadMin_ = thirdQuad;
-        if (thirdQuad > thirdQuadMax ) thirdQuadMax = thirdQuad;
-        if (fourthQuad < fourthQuadMin_) fourthQuadMin_ = fourthQuad;
-        if (fourthQuad > fourthQuadMax ) fourthQuadMax = fourthQuad;
-      }
-      
-      fromUnicodeQuad_ = new char[firstQuadMax-firstQuadMin_+1][][][];
-      toUnicodeQuad_ = new char[65535][];
-     
-      // Populate the to and from tables 
-      for (int j = 0; j < toUnicodeQuadMapping.length; j++) {
-        char[] row = toUnicodeQuadMapping[j]; 
-        int ebcdic      = 0xffff & row[0];
-        int firstIndex  = (0xffff & row[1]) - firstQuadMin_; 
-        int secondIndex = (0xffff & row[2]) - secondQuadMin_; 
-        int thirdIndex  = (0xffff & row[3]) - thirdQuadMin_; 
-        int fourthIndex  = (0xffff & row[4]) - fourthQuadMin_; 
-        
-        toUnicodeQuad_[ebcdic] = new char[4];
-        toUnicodeQuad_[ebcdic][0] = row[1]; 
-        toUnicodeQuad_[ebcdic][1] = row[2]; 
-        toUnicodeQuad_[ebcdic][2] = row[3]; 
-        toUnicodeQuad_[ebcdic][3] = row[4]; 
-        
-        char[][][] secondLevel = fromUnicodeQuad_[firstIndex]; 
-        if (secondLevel == null) {
-          secondLevel = new char[secondQuadMax-secondQuadMin_+1][][];
-          fromUnicodeQuad_[firstIndex] = secondLevel; 
-        }
-        char[][] thirdLevel = secondLevel[secondIndex];
-        if (thirdLevel == null) {
-          thirdLevel = new char[thirdQuadMax-thirdQuadMin_+1][];
-          secondLevel[secondIndex] = thirdLevel; 
-        }
-        char[] fourthLevel = thirdLevel[thirdIndex];
-        if (fourthLevel == null) {
-          fourthLevel = new char[fourthQuadMax-fourthQuadMin_+1];
-          thirdLevel[thirdIndex] = fourthLevel; 
-        }
-        fourthLevel[fourthIndex] = (char) ebcdic; 
-      } /* int j*/ 
-    } /* toUnicodeQuad != null */ 
-    
-
-    
-    
+    multiCharMap_ = ConvTableMultiCharMap.getMap(toUnicodeSurrogateMapping, toUnicodeTripleMapping, toUnicodeQuadMapping); //@DM1C
   }
 
     // Constructor.
     ConvTableDoubleMap(int ccsid, char[] toUnicode, char[] fromUnicode)
     {
         super(ccsid);
-        toUnicode_ = decompress(toUnicode);
-        fromUnicode_ = decompress(fromUnicode);
+        toUnicode_ = decompressShared(toUnicode);     //@DM1C
+        fromUnicode_ = decompressShared(fromUnicode); //@DM1C
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Successfully loaded double-byte map for ccsid: " + ccsid_);
     }
 
@@ -263,13 +75,37 @@ public class ConvTableDoubleMap extends ConvTable
         super(oldMap.ccsid_);
         toUnicode_ = oldMap.toUnicode_; 
         fromUnicode_ = oldMap.fromUnicode_;
-        toUnicodeSurrogate_ = oldMap.toUnicodeSurrogate_; 
-        fromUnicodeSurrogate_ = oldMap.fromUnicodeSurrogate_; 
-        combiningCharacters_ = oldMap.combiningCharacters_;
-        combiningCombinations_ = oldMap.combiningCombinations_;
+        multiCharMap_ = oldMap.multiCharMap_; //@DM1C
+        binary_ = oldMap.binary_;             //@CT1A
+    }
+
+    //@CT1A
+    // Constructor for a table loaded from its binary resource.
+    ConvTableDoubleMap(int ccsid, ConvTableBinary binary)
+    {
+        super(ccsid);
+        binary_ = binary;
+        toUnicode_ = binary.toUnicode_;
+        fromUnicode_ = binary.fromUnicode_;
+        multiCharMap_ = binary.multiCharMap_;
+        if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Successfully loaded double-byte map for ccsid: " + ccsid_);
     }
     
     
+    //@DM1A
+    // Returns the decompressed table, decompressing it only the first time
+    // for each compressed table.
+    private char[] decompressShared(char[] arr) {
+      synchronized (decompressedTables_) {
+        char[] buf = decompressedTables_.get(arr);
+        if (buf == null) {
+          buf = decompress(arr);
+          decompressedTables_.put(arr, buf);
+        }
+        return buf;
+      }
+    }
+
     // Helper method used to decompress conversion tables when they are initialized.
     char[] decompress(char[] arr) { 
       return decompress(arr, ccsid_); 
@@ -378,92 +214,44 @@ public class ConvTableDoubleMap extends ConvTable
 
     public int toUnicode(char[] dest, int to, int fromIndex) {
       int length = 0; 
-      dest[to] = toUnicode_[fromIndex];
+      char unicode = toUnicode_[fromIndex];
+      if (unicode == ConvTableBinary.UNLOADED && binary_ != null) unicode = binary_.toUnicode(fromIndex); //@CT1A
+      dest[to] = unicode;
       // Check if surrogate lookup needed. 
       if (dest[to] == 0xD800) {
-        if (toUnicodeSurrogate_ != null) {
-          char[] surrogates = toUnicodeSurrogate_[fromIndex];
-          if (surrogates != null) {
-            dest[to] = surrogates[0];
-            to++;
-            length++;
-            dest[to] = surrogates[1];
-            to++;
-            length++;
-          } else { 
-            // surrogate not defined, replace with sub
-            dest[to] = dbSubUnic_; 
-            to++; 
-            length++;
-          }
-        } else {
-          // Not handling surrogates, replace with sub
+        if (multiCharMap_ != null) {
+          length = multiCharMap_.toUnicode(dest, to, fromIndex, ConvTableMultiCharMap.PAIR); //@DM1C
+        }
+        if (length == 0) {
+          // surrogate not defined, replace with sub
           dest[to] = dbSubUnic_; 
-          to++;
-          length++; 
+          length = 1;
         }
       } else if (dest[to] == 0xD801) {   /* check for triplet */ 
-        if (toUnicodeTriple_ != null) {
-          char[] triple = toUnicodeTriple_[fromIndex]; 
-          if (triple != null) {
-            dest[to] = triple[0];
-            to++;
-            length++;
-            dest[to] = triple[1];
-            to++;
-            length++;
-            dest[to] = triple[2];
-            to++;
-            length++;
+        if (multiCharMap_ != null) {
+          length = multiCharMap_.toUnicode(dest, to, fromIndex, ConvTableMultiCharMap.TRIPLE); //@DM1C
+        }
+        if (length == 0) {
+          // triple not defined, replace with sub
+          if (ccsid_ == 61952 && multiCharMap_ != null && multiCharMap_.hasMappings(ConvTableMultiCharMap.TRIPLE)) {
+             // Keep the destination as D801
           } else { 
-            // triple not defined, replace with sub
-            if (ccsid_ == 61952) {
-               // Keep the destination as D801
-            } else { 
-               dest[to] = dbSubUnic_; 
-               to++; 
-               length++;
-            }
-         }
-        } else {
-          
-          // Not handling triplets, replace with sub
-          dest[to] = dbSubUnic_; 
-          to++;
-          length++; 
+             dest[to] = dbSubUnic_; 
+             length = 1;
+          }
         }
       } else if (dest[to] == 0xD802) {  /* check for quad */ 
-        if (toUnicodeQuad_ != null) {
-          char[] quad = toUnicodeQuad_[fromIndex]; 
-          if (quad != null) {
-            dest[to] = quad[0];
-            to++;
-            length++;
-            dest[to] = quad[1];
-            to++;
-            length++;
-            dest[to] = quad[2];
-            to++;
-            length++;
-            dest[to] = quad[3];
-            to++;
-            length++;
-          } else { 
-            // triple not defined, replace with sub
-               dest[to] = dbSubUnic_; 
-               to++; 
-               length++;
-         }
-        } else {
-          // Not handling quad, replace with sub
+        if (multiCharMap_ != null) {
+          length = multiCharMap_.toUnicode(dest, to, fromIndex, ConvTableMultiCharMap.QUAD); //@DM1C
+        }
+        if (length == 0) {
+          // quad not defined, replace with sub
           dest[to] = dbSubUnic_; 
-          to++;
-          length++; 
+          length = 1;
         }
       } else {
-        // Single character.  Increment counter; 
-        to++;
-        length++; 
+        // Single character.
+        length = 1; 
       }
       return length;
     }
@@ -503,57 +291,25 @@ public class ConvTableDoubleMap extends ConvTable
     char returnChar = 0;
     char currentChar = src[i];
     boolean found = false;
+    ConvTableMultiCharMap multiCharMap = multiCharMap_;
     /* Search the quad mappings first. For CCSID 1399 */
     /* D841 DF0E DB40 DB40 -> 0xF486 */
     /* D841 DF0E -> 0xCA47 */
-    if (fromUnicodeQuad_ != null && (i + 3 < src.length)) {
-      int index1 = (0xFFFF & src[i]) - firstQuadMin_;
-      if (index1 >= 0 && index1 < fromUnicodeQuad_.length) {
-        char[][][] secondLevel = fromUnicodeQuad_[index1];
-        if (secondLevel != null) {
-          int index2 = (0xFFFF & src[i + 1]) - secondQuadMin_;
-          if (index2 >= 0 && index2 < secondLevel.length) {
-            char[][] thirdLevel = secondLevel[index2];
-            int index3 = (0xFFFF & src[i + 2]) - thirdQuadMin_;
-            if (index3 >= 0 && index3 < thirdLevel.length) {
-              char[] fourthLevel = thirdLevel[index3]; 
-              int index4 = (0xFFFF & src[i + 3]) - fourthQuadMin_;
-              if (index4 >= 0 && index4 < fourthLevel.length) {
-
-                returnChar = fourthLevel[index4];
-                if (returnChar != 0) {
-                  found = true;
-                  incrementValue += 3;
-                } /* return Char 1 != 0 */
-              } /* index4 in range */ 
-            } /* index3 in range */
-          } /* index2 inRange */
-        } /* secondLevel is not null */ 
-      } /* index1 inRange */ 
+    if (multiCharMap != null && (i + 3 < src.length)) {
+      returnChar = multiCharMap.fromUnicodeQuad(src, i); //@DM1C
+      if (returnChar != 0) {
+        found = true;
+        incrementValue += 3;
+      }
     }
     /* Search the triple mappings next */ 
-    if (!found && fromUnicodeTriple_ != null) {
-      if (i + 2 < src.length) {
-        int index1 = (0xFFFF & src[i]) - firstTripleMin_;
-        if (index1 >= 0 && index1 < fromUnicodeTriple_.length) {
-          char[][] secondLevel = fromUnicodeTriple_[index1];
-          if (secondLevel != null) {
-            int index2 = (0xFFFF & src[i + 1]) - secondTripleMin_;
-            if (index2 >= 0 && index2 < secondLevel.length) {
-              char[] thirdLevel = secondLevel[index2];
-              int index3 = (0xFFFF & src[i + 2]) - thirdTripleMin_;
-              if (index3 >= 0 && index3 < thirdLevel.length) {
-                returnChar = thirdLevel[index3];
-                if (returnChar != 0) {
-                  found = true;
-                  incrementValue += 2;
-                } /* return Char 1 != 0 */
-              } /* index3 in range */
-            } /* index2 inRange */
-          } /* secondLevel is not null */ 
-        } /* index1 inRange */ 
-      } /* i + 2 < src.length */ 
-    } /* fromUnicodeTriple_ != null) */ 
+    if (!found && multiCharMap != null && (i + 2 < src.length)) {
+      returnChar = multiCharMap.fromUnicodeTriple(src, i); //@DM1C
+      if (returnChar != 0) {
+        found = true;
+        incrementValue += 2;
+      }
+    }
 
     if (!found) {
       
@@ -561,15 +317,17 @@ public class ConvTableDoubleMap extends ConvTable
         || currentChar >= TRAILING_SURROGATE_BASE) {
       int next = i + 1;
 
-      if ((combiningCharacters_ != null) && (next < src.length)) {
+      if ((multiCharMap != null) && (next < src.length)) {
+        char[] combiningCharacters = multiCharMap.combiningCharacters_;
+        char[][] combiningCombinations = multiCharMap.combiningCombinations_;
         char nextChar = src[next];
-        for (int j = 0; !found && j < combiningCharacters_.length; j++) {
-          if (nextChar == combiningCharacters_[j]) {
-            for (int k = 0; !found && k < combiningCombinations_.length; k++) {
-              if ((currentChar == combiningCombinations_[k][0])
-                  && (nextChar == combiningCombinations_[k][1])) {
+        for (int j = 0; !found && j < combiningCharacters.length; j++) {
+          if (nextChar == combiningCharacters[j]) {
+            for (int k = 0; !found && k < combiningCombinations.length; k++) {
+              if ((currentChar == combiningCombinations[k][0])
+                  && (nextChar == combiningCombinations[k][1])) {
                 found = true;
-                returnChar = combiningCombinations_[k][2];
+                returnChar = combiningCombinations[k][2];
                 i++; /*
                       * We handle a leading surrogate, which must be following
                       * by a trailing
@@ -583,32 +341,24 @@ public class ConvTableDoubleMap extends ConvTable
       } /* combining characters */ 
       if (!found) {
         returnChar = fromUnicode_[src[i]];
+        if (returnChar == ConvTableBinary.UNLOADED && binary_ != null) returnChar = binary_.fromUnicode(src[i]); //@CT1A
       }
     } else {
-      int leadingIndex = src[i] - LEADING_SURROGATE_BASE;
+      char leadingSurrogate = src[i];
       i++; /*
             * We handle a leading surrogate, which must be following by a
             * trailing
             */
       incrementValue++;
       /*
-       * We don't need to check the leadingIndex since we know it is already in
-       * range
+       * We don't need to check the leading surrogate since we know it is
+       * already in range
        */
-      if (fromUnicodeSurrogate_ != null) {
-        char[] fromUnicodeSurrogate2 = fromUnicodeSurrogate_[leadingIndex];
-        if (fromUnicodeSurrogate2 != null) {
-          int trailingIndex = src[i] - TRAILING_SURROGATE_BASE;
-          /* Check for valid index and for existing mapping */
-          if (trailingIndex >= 0
-              && trailingIndex < FROM_UNICODE_SURROGATE_DIMENSION_LENGTH
-              && fromUnicodeSurrogate2[trailingIndex] != 0) {
-            returnChar = fromUnicodeSurrogate2[trailingIndex];
-          } else {
-            /* We could not handle. Add substitution character */
-            returnChar = dbSubChar_;
-          }
-        } else {
+      if (multiCharMap != null) {
+        /* Check for valid index and for existing mapping */
+        char trailingSurrogate = (i < src.length) ? src[i] : 0;
+        returnChar = multiCharMap.fromUnicodeSurrogate(leadingSurrogate, trailingSurrogate); //@DM1C
+        if (returnChar == 0) {
           /* We could not handle. Add substitution character */
           returnChar = dbSubChar_;
         }
@@ -623,21 +373,31 @@ public class ConvTableDoubleMap extends ConvTable
   }
     
     public char[] getFromUnicode() {
+      if (binary_ != null) binary_.loadAll(); //@CT1A
       return fromUnicode_;
     }
 
     void setFromUnicode(char[] fromUnicode) { 
+      if (binary_ != null) { binary_.loadAll(); binary_ = null; } //@CT1A
       fromUnicode_ = fromUnicode; 
     }
 
     public char[] getToUnicode() {
+      if (binary_ != null) binary_.loadAll(); //@CT1A
       return toUnicode_;
     }
 
     void setToUnicode(char[] toUnicode) { 
+      if (binary_ != null) { binary_.loadAll(); binary_ = null; } //@CT1A
       toUnicode_ = toUnicode; 
     }
 
+    //@CT1A
+    // Returns the multi-character mappings of this table, for ConvTableBinaryGenerator.
+    ConvTableMultiCharMap getMultiCharMap() {
+      return multiCharMap_;
+    }
+
 
 
     
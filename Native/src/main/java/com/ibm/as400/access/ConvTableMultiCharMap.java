@@ -0,0 +1,341 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename:  ConvTableMultiCharMap.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others.  All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Hashtable;
+
+/**
+ * Holds the mappings of a double-byte table in which one double-byte code
+ * maps to more than one Unicode character:  surrogate pairs, combining
+ * sequences, triplets, and quads.  Only a few thousand of the 65536 codes
+ * have such a mapping, so they are kept in compact form:
+ * <ul>
+ * <li>To Unicode, each mapping width has a table of 256 pages indexed by
+ * the high byte of the code.  Only the pages that hold a mapping are
+ * allocated, and the Unicode characters of a code are stored inline in
+ * its page.
+ * <li>From Unicode, surrogate pairs are looked up in pages indexed by the
+ * leading surrogate, and triplets and quads are looked up in sorted arrays
+ * of the characters packed into a long.
+ * </ul>
+ * <p>The mappings never change once built, so one object is shared by all
+ * of the tables, aliases, and alternate maps built from the same mapping
+ * arrays.
+ **/
+final class ConvTableMultiCharMap
+{
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    static final int PAIR = 2;
+    static final int TRIPLE = 3;
+    static final int QUAD = 4;
+
+    // The maps built so far, by the identity of their mapping arrays.
+    private static final Hashtable<Key, ConvTableMultiCharMap> maps_ = new Hashtable<Key, ConvTableMultiCharMap>();
+
+    // Indexed by width - PAIR, then by the high byte of the code.  Each page
+    // holds width characters for each low byte; a 0 first character means no mapping.
+    private final char[][][] toUnicode_ = new char[QUAD - PAIR + 1][][];
+
+    // Indexed by leading surrogate - D800, then by trailing surrogate - DC00.
+    private final char[][] fromUnicodeSurrogate_ = new char[ConvTableDoubleMap.FROM_UNICODE_SURROGATE_DIMENSION_LENGTH][];
+
+    // The Unicode characters of each triplet and quad packed into a long, sorted,
+    // and the codes they map to.
+    private final long[] fromUnicodeTripleKeys_;
+    private final char[] fromUnicodeTripleValues_;
+    private final long[] fromUnicodeQuadKeys_;
+    private final char[] fromUnicodeQuadValues_;
+    // A bit for each character that starts a triplet or a quad, so that the
+    // other characters are not searched for.
+    private final long[] firstTripleChars_;
+    private final long[] firstQuadChars_;
+
+    // The mapping arrays the map was built from.
+    private final char[][] surrogateMapping_;
+    private final char[][] tripleMapping_;
+    private final char[][] quadMapping_;
+
+    // Combining characters used for Unicode to EBCDIC conversion.
+    final char[] combiningCharacters_;
+    final char[][] combiningCombinations_;
+
+    // The key of a map:  its mapping arrays, compared by identity.
+    private static final class Key
+    {
+        private final char[][] surrogateMapping_;
+        private final char[][] tripleMapping_;
+        private final char[][] quadMapping_;
+
+        Key(char[][] surrogateMapping, char[][] tripleMapping, char[][] quadMapping)
+        {
+            surrogateMapping_ = surrogateMapping;
+            tripleMapping_ = tripleMapping;
+            quadMapping_ = quadMapping;
+        }
+
+        public boolean equals(Object object)
+        {
+            if (!(object instanceof Key)) return false;
+            Key other = (Key)object;
+            return surrogateMapping_ == other.surrogateMapping_ && tripleMapping_ == other.tripleMapping_ && quadMapping_ == other.quadMapping_;
+        }
+
+        public int hashCode()
+        {
+            return (System.identityHashCode(surrogateMapping_) * 31 + System.identityHashCode(tripleMapping_)) * 31 + System.identityHashCode(quadMapping_);
+        }
+    }
+
+    /**
+     * Returns the map for the specified mapping arrays, building it the
+     * first time.  Each row of a mapping array holds the double-byte code
+     * followed by its Unicode characters.
+     *
+     * @param surrogateMapping The surrogate and combining mappings.
+     * @param tripleMapping The triplet mappings, or null.
+     * @param quadMapping The quad mappings, or null.
+     * @return The shared map.
+     **/
+    static synchronized ConvTableMultiCharMap getMap(char[][] surrogateMapping, char[][] tripleMapping, char[][] quadMapping)
+    {
+        Key key = new Key(surrogateMapping, tripleMapping, quadMapping);
+        ConvTableMultiCharMap map = maps_.get(key);
+        if (map == null)
+        {
+            map = new ConvTableMultiCharMap(surrogateMapping, tripleMapping, quadMapping);
+            maps_.put(key, map);
+        }
+        return map;
+    }
+
+    private ConvTableMultiCharMap(char[][] surrogateMapping, char[][] tripleMapping, char[][] quadMapping)
+    {
+        surrogateMapping_ = surrogateMapping;
+        tripleMapping_ = tripleMapping;
+        quadMapping_ = quadMapping;
+        toUnicode_[PAIR - PAIR] = toUnicodePages(surrogateMapping, PAIR);
+        toUnicode_[TRIPLE - PAIR] = toUnicodePages(tripleMapping, TRIPLE);
+        toUnicode_[QUAD - PAIR] = toUnicodePages(quadMapping, QUAD);
+
+        ArrayList<char[]> combiningCombinationArrayList = new ArrayList<char[]>();
+        HashMap<Integer, char[]> combiningCharacterMap = new HashMap<Integer, char[]>();
+        for (int i = 0; i < surrogateMapping.length; i++)
+        {
+            char ebcdicChar = surrogateMapping[i][0];
+            char leadingSurrogate = surrogateMapping[i][1];
+            char trailingSurrogate = surrogateMapping[i][2];
+
+            int leadingIndex = leadingSurrogate - ConvTableDoubleMap.LEADING_SURROGATE_BASE;
+            int trailingIndex = trailingSurrogate - ConvTableDoubleMap.TRAILING_SURROGATE_BASE;
+            if (leadingIndex >= 0 && leadingIndex < ConvTableDoubleMap.FROM_UNICODE_SURROGATE_DIMENSION_LENGTH)
+            {
+                if (fromUnicodeSurrogate_[leadingIndex] == null)
+                {
+                    fromUnicodeSurrogate_[leadingIndex] = new char[ConvTableDoubleMap.FROM_UNICODE_SURROGATE_DIMENSION_LENGTH];
+                }
+                if (trailingIndex >= 0 && trailingIndex < ConvTableDoubleMap.FROM_UNICODE_SURROGATE_DIMENSION_LENGTH)
+                {
+                    fromUnicodeSurrogate_[leadingIndex][trailingIndex] = ebcdicChar;
+                }
+            }
+            else
+            {
+                // Leading index not surrogate, must be combining combination.
+                char[] triplet = new char[3];
+                triplet[0] = leadingSurrogate;
+                triplet[1] = trailingSurrogate;
+                triplet[2] = ebcdicChar;
+                combiningCombinationArrayList.add(triplet);
+                combiningCharacterMap.put(Integer.valueOf(trailingSurrogate), triplet);
+            }
+        }
+        combiningCharacters_ = new char[combiningCharacterMap.size()];
+        int i = 0;
+        for (Integer key : combiningCharacterMap.keySet())
+        {
+            combiningCharacters_[i++] = (char)key.intValue();
+        }
+        combiningCombinations_ = combiningCombinationArrayList.toArray(new char[combiningCombinationArrayList.size()][]);
+
+        fromUnicodeTripleKeys_ = fromUnicodeKeys(tripleMapping, TRIPLE);
+        fromUnicodeTripleValues_ = fromUnicodeValues(tripleMapping, TRIPLE, fromUnicodeTripleKeys_);
+        fromUnicodeQuadKeys_ = fromUnicodeKeys(quadMapping, QUAD);
+        fromUnicodeQuadValues_ = fromUnicodeValues(quadMapping, QUAD, fromUnicodeQuadKeys_);
+        firstTripleChars_ = firstChars(tripleMapping);
+        firstQuadChars_ = firstChars(quadMapping);
+    }
+
+    // Builds the to-Unicode pages for the mappings of one width.
+    private static char[][] toUnicodePages(char[][] mapping, int width)
+    {
+        if (mapping == null) return null;
+        char[][] pages = new char[256][];
+        for (int i = 0; i < mapping.length; i++)
+        {
+            int ebcdic = 0xFFFF & mapping[i][0];
+            char[] page = pages[ebcdic >>> 8];
+            if (page == null)
+            {
+                page = new char[256 * width];
+                pages[ebcdic >>> 8] = page;
+            }
+            System.arraycopy(mapping[i], 1, page, (ebcdic & 0xFF) * width, width);
+        }
+        return pages;
+    }
+
+    // Returns a bit for each first Unicode character of the mappings.
+    private static long[] firstChars(char[][] mapping)
+    {
+        if (mapping == null) return null;
+        long[] bits = new long[65536 / 64];
+        for (int i = 0; i < mapping.length; i++)
+        {
+            char first = mapping[i][1];
+            bits[first >>> 6] |= 1L << first;
+        }
+        return bits;
+    }
+
+    // Packs width characters starting at offset into a long.
+    private static long pack(char[] chars, int offset, int width)
+    {
+        long key = 0;
+        for (int i = 0; i < width; i++)
+        {
+            key = (key << 16) | chars[offset + i];
+        }
+        return key;
+    }
+
+    // Returns the sorted, distinct, packed Unicode characters of the mappings.
+    private static long[] fromUnicodeKeys(char[][] mapping, int width)
+    {
+        if (mapping == null) return null;
+        long[] keys = new long[mapping.length];
+        for (int i = 0; i < mapping.length; i++)
+        {
+            keys[i] = pack(mapping[i], 1, width);
+        }
+        Arrays.sort(keys);
+        int count = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (count == 0 || keys[i] != keys[count - 1]) keys[count++] = keys[i];
+        }
+        long[] distinct = new long[count];
+        System.arraycopy(keys, 0, distinct, 0, count);
+        return distinct;
+    }
+
+    // Returns the codes for the keys.  A later row replaces an earlier one with the same characters.
+    private static char[] fromUnicodeValues(char[][] mapping, int width, long[] keys)
+    {
+        if (mapping == null) return null;
+        char[] values = new char[keys.length];
+        for (int i = 0; i < mapping.length; i++)
+        {
+            values[Arrays.binarySearch(keys, pack(mapping[i], 1, width))] = mapping[i][0];
+        }
+        return values;
+    }
+
+    /**
+     * Returns the mapping array the map was built from for the specified width.
+     *
+     * @param width PAIR for the surrogate and combining mappings, TRIPLE, or QUAD.
+     * @return The rows of the code and its Unicode characters, or null if there are none.
+     **/
+    char[][] getMapping(int width)
+    {
+        return (width == PAIR) ? surrogateMapping_ : (width == TRIPLE) ? tripleMapping_ : quadMapping_;
+    }
+
+    /**
+     * Indicates if there are to-Unicode mappings of the specified width.
+     **/
+    boolean hasMappings(int width)
+    {
+        return toUnicode_[width - PAIR] != null;
+    }
+
+    /**
+     * Copies the Unicode characters that a double-byte code maps to.
+     *
+     * @param dest The destination.
+     * @param to The offset in the destination.
+     * @param ebcdic The double-byte code.
+     * @param width The number of Unicode characters the code maps to.
+     * @return The number of characters copied:  width, or 0 if the code has no such mapping.
+     **/
+    int toUnicode(char[] dest, int to, int ebcdic, int width)
+    {
+        char[][] pages = toUnicode_[width - PAIR];
+        if (pages == null) return 0;
+        char[] page = pages[ebcdic >>> 8];
+        if (page == null) return 0;
+        int offset = (ebcdic & 0xFF) * width;
+        if (page[offset] == 0) return 0;
+        for (int i = 0; i < width; i++)
+        {
+            dest[to + i] = page[offset + i];
+        }
+        return width;
+    }
+
+    /**
+     * Returns the double-byte code for a surrogate pair.
+     *
+     * @param leading The leading surrogate, from D800 to DBFF.
+     * @param trailing The trailing surrogate.
+     * @return The code, or 0 if the pair has no mapping.
+     **/
+    char fromUnicodeSurrogate(char leading, char trailing)
+    {
+        char[] page = fromUnicodeSurrogate_[leading - ConvTableDoubleMap.LEADING_SURROGATE_BASE];
+        int trailingIndex = trailing - ConvTableDoubleMap.TRAILING_SURROGATE_BASE;
+        if (page == null || trailingIndex < 0 || trailingIndex >= ConvTableDoubleMap.FROM_UNICODE_SURROGATE_DIMENSION_LENGTH) return 0;
+        return page[trailingIndex];
+    }
+
+    /**
+     * Returns the double-byte code for the triplet starting at src[i].
+     * The caller ensures that three characters are available.
+     *
+     * @return The code, or 0 if the characters are not a mapped triplet.
+     **/
+    char fromUnicodeTriple(char[] src, int i)
+    {
+        if (firstTripleChars_ == null || (firstTripleChars_[src[i] >>> 6] & (1L << src[i])) == 0) return 0;
+        int index = Arrays.binarySearch(fromUnicodeTripleKeys_, pack(src, i, TRIPLE));
+        return (index < 0) ? 0 : fromUnicodeTripleValues_[index];
+    }
+
+    /**
+     * Returns the double-byte code for the quad starting at src[i].
+     * The caller ensures that four characters are available.
+     *
+     * @return The code, or 0 if the characters are not a mapped quad.
+     **/
+    char fromUnicodeQuad(char[] src, int i)
+    {
+        if (firstQuadChars_ == null || (firstQuadChars_[src[i] >>> 6] & (1L << src[i])) == 0) return 0;
+        int index = Arrays.binarySearch(fromUnicodeQuadKeys_, pack(src, i, QUAD));
+        return (index < 0) ? 0 : fromUnicodeQuadValues_[index];
+    }
+}
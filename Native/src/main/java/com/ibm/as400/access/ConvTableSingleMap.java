@@ -14,6 +14,10 @@
 package com.ibm.as400.access;
 
 import java.io.CharConversionException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**  This is the parent class for all ConvTableXXX classes that represent single-byte ccsids.
  * 
@@ -25,6 +29,17 @@ public abstract class ConvTableSingleMap extends ConvTable
     public char[] toUnicode_ = null;
     public byte[] fromUnicode_ = null;
 
+    // Longest string translated through the per-thread scratch buffer.
+    private static final int SCRATCH_SIZE = 1024;
+    private static final ThreadLocal scratch_ = new ThreadLocal();
+
+    // toUnicode_ narrowed to bytes, or null if some byte maps outside Latin-1.
+    private byte[] toLatin1_;
+    // true if every byte maps to the same Latin-1 character.
+    private boolean latin1Identity_;
+    // The byte for a blank.
+    private final byte blank_;
+
     // Constructor.
     public ConvTableSingleMap(int ccsid, char[] toUnicode, char[] fromUnicode)
     {
@@ -34,20 +49,231 @@ public abstract class ConvTableSingleMap extends ConvTable
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Decompressing single-byte conversion table for ccsid: " + ccsid_, fromUnicode.length);
         //Moved decompression algorithm to parent.
         fromUnicode_ = decompressSB(fromUnicode, (byte)0x3F);
+        blank_ = fromUnicode_[' '];
+        initializeLatin1();
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Successfully loaded single-byte map for ccsid: " + ccsid_);
     }
 
+    // Precomputes the Latin-1 form of toUnicode_.
+    private void initializeLatin1()
+    {
+        toLatin1_ = toLatin1(toUnicode_);
+        latin1Identity_ = isIdentity(toLatin1_);
+    }
+
+    // Returns a table narrowed to Latin-1 bytes, or null if some byte maps outside Latin-1.
+    static byte[] toLatin1(char[] toUnicode)
+    {
+        byte[] toLatin1 = new byte[256];
+        for (int i = 0; i < 256; ++i)
+        {
+            if (toUnicode[i] > 0x00FF) return null;
+            toLatin1[i] = (byte)toUnicode[i];
+        }
+        return toLatin1;
+    }
+
+    // Indicates if a Latin-1 table maps every byte to itself.
+    static boolean isIdentity(byte[] toLatin1)
+    {
+        if (toLatin1 == null) return false;
+        for (int i = 0; i < 256; ++i)
+        {
+            if (toLatin1[i] != (byte)i) return false;
+        }
+        return true;
+    }
+
+    // Builds a string from bytes that a Latin-1 table translates.  On JVMs with
+    // compact strings, decoding ISO-8859-1 copies the bytes as they are.
+    static String latin1String(byte[] toLatin1, boolean identity, byte[] buf, int offset, int length, byte blank)
+    {
+        if (identity) return new String(buf, offset, length, StandardCharsets.ISO_8859_1);
+        byte[] dest = (length <= SCRATCH_SIZE) ? getScratch() : new byte[length];
+        translate(toLatin1, buf, offset, dest, 0, length, blank);
+        return new String(dest, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Indicates if every byte of this CCSID maps to the Latin-1 (ISO 8859-1)
+     * character with the same value, so that data needs no translation.
+     * @return true if the table is the Latin-1 identity; false otherwise.
+     */
+    public final boolean isLatin1Identity()
+    {
+        return latin1Identity_;
+    }
+
+    // Returns a scratch buffer of at least SCRATCH_SIZE bytes for the current thread.
+    private static byte[] getScratch()
+    {
+        byte[] scratch = (byte[])scratch_.get();
+        if (scratch == null)
+        {
+            scratch = new byte[SCRATCH_SIZE];
+            scratch_.set(scratch);
+        }
+        return scratch;
+    }
+
+    // Returns the length of some bytes without their trailing blanks.
+    static int trimmedLength(byte[] buf, int offset, int length, byte blank)
+    {
+        int end = offset + length;
+        while (end > offset && buf[end - 1] == blank) --end;
+        return end - offset;
+    }
+
+    // Translates bytes through a table of 256 entries.  A run of trailing
+    // blanks, the padding of fixed-length fields, is filled in, not translated.
+    static void translate(byte[] table, byte[] src, int srcOffset, byte[] dest, int destOffset, int length, byte blank)
+    {
+        int count = trimmedLength(src, srcOffset, length, blank);
+        for (int i = 0; i < count; ++i)
+        {
+            dest[destOffset + i] = table[0x00FF & src[srcOffset + i]];
+        }
+        if (count < length) Arrays.fill(dest, destOffset + count, destOffset + length, table[0x00FF & blank]);
+    }
+
+    // Translates bytes to characters.  A run of trailing blanks is filled in, not translated.
+    static void translate(char[] table, byte[] src, int srcOffset, char[] dest, int destOffset, int length, byte blank)
+    {
+        int count = trimmedLength(src, srcOffset, length, blank);
+        for (int i = 0; i < count; ++i)
+        {
+            dest[destOffset + i] = table[0x00FF & src[srcOffset + i]];
+        }
+        if (count < length) Arrays.fill(dest, destOffset + count, destOffset + length, table[0x00FF & blank]);
+    }
+
+    // Translates characters to bytes.
+    static void translate(byte[] table, char[] src, int srcOffset, byte[] dest, int destOffset, int length)
+    {
+        for (int i = 0; i < length; ++i)
+        {
+            dest[destOffset + i] = table[src[srcOffset + i]];
+        }
+    }
+
     // Perform an OS/400 CCSID to Unicode conversion.
     final String byteArrayToString(byte[] buf, int offset, int length, BidiConversionProperties properties)
     {
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, 
               "Converting byte array to string for ccsid: " + ccsid_+" offset:"+offset+" len:"+length, 
               buf, offset, length);
-        char[] dest = new char[length];
-        // The 0x00FF is so we don't get any negative indices.
-        for (int i = 0; i < length; dest[i] = toUnicode_[0x00FF & buf[offset + (i++)]]);
-        if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Destination string for ccsid: " + ccsid_, ConvTable.dumpCharArray(dest));
-        return String.copyValueOf(dest);
+        String result;
+        byte[] toLatin1 = toLatin1_;
+        if (toLatin1 != null)
+        {
+            result = latin1String(toLatin1, latin1Identity_, buf, offset, length, blank_);
+        }
+        else
+        {
+            char[] dest = new char[length];
+            translate(toUnicode_, buf, offset, dest, 0, length, blank_);
+            result = String.copyValueOf(dest);
+        }
+        if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Destination string for ccsid: " + ccsid_, ConvTable.dumpCharArray(result.toCharArray()));
+        return result;
+    }
+
+    // Single-byte tables ignore the bidi properties, so none are created.
+    public String byteArrayToString(byte[] buf, int offset, int length)
+    {
+        return byteArrayToString(buf, offset, length, (BidiConversionProperties)null);
+    }
+
+    /**
+     * Converts bytes of this CCSID into a caller-supplied character array.
+     * @param buf The bytes.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @param dest The character array.
+     * @param destOffset The offset in the character array.
+     * @return The number of characters stored, which is always <i>length</i>.
+     */
+    public final int byteArrayToCharArray(byte[] buf, int offset, int length, char[] dest, int destOffset)
+    {
+        if (destOffset < 0 || length > dest.length - destOffset) throw new ExtendedIllegalArgumentException("dest", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+        translate(toUnicode_, buf, offset, dest, destOffset, length, blank_);
+        return length;
+    }
+
+    /**
+     * Converts bytes of this CCSID into a caller-supplied character buffer, at its position.
+     * The position is advanced by <i>length</i>.
+     * @param buf The bytes.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @param dest The character buffer.
+     * @exception java.nio.BufferOverflowException If the buffer has fewer than <i>length</i> characters remaining.
+     */
+    public final void byteArrayToCharBuffer(byte[] buf, int offset, int length, CharBuffer dest)
+    {
+        if (dest.remaining() < length) throw new java.nio.BufferOverflowException();
+        if (dest.hasArray())
+        {
+            translate(toUnicode_, buf, offset, dest.array(), dest.arrayOffset() + dest.position(), length, blank_);
+            dest.position(dest.position() + length);
+        }
+        else
+        {
+            char[] toUnicode = toUnicode_;
+            for (int i = 0; i < length; ++i)
+            {
+                dest.put(toUnicode[0x00FF & buf[offset + i]]);
+            }
+        }
+    }
+
+    /**
+     * Converts characters into bytes of this CCSID, in a caller-supplied byte array.
+     * Characters that cannot be converted are replaced by the substitution character.
+     * @param src The characters.
+     * @param offset The offset of the first character.
+     * @param length The number of characters.
+     * @param dest The byte array.
+     * @param destOffset The offset in the byte array.
+     * @return The number of bytes stored, which is always <i>length</i>.
+     */
+    public final int charArrayToByteArray(char[] src, int offset, int length, byte[] dest, int destOffset)
+    {
+        if (destOffset < 0 || length > dest.length - destOffset) throw new ExtendedIllegalArgumentException("dest", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+        translate(fromUnicode_, src, offset, dest, destOffset, length);
+        return length;
+    }
+
+    /**
+     * Converts characters into bytes of this CCSID, in a caller-supplied byte buffer, at its position.
+     * The position is advanced by the number of characters.
+     * Characters that cannot be converted are replaced by the substitution character.
+     * @param source The characters.
+     * @param dest The byte buffer.
+     * @exception java.nio.BufferOverflowException If the buffer has too few bytes remaining.
+     */
+    public final void stringToByteBuffer(CharSequence source, ByteBuffer dest)
+    {
+        int length = source.length();
+        if (dest.remaining() < length) throw new java.nio.BufferOverflowException();
+        byte[] fromUnicode = fromUnicode_;
+        if (dest.hasArray())
+        {
+            byte[] array = dest.array();
+            int position = dest.arrayOffset() + dest.position();
+            for (int i = 0; i < length; ++i)
+            {
+                array[position + i] = fromUnicode[source.charAt(i)];
+            }
+            dest.position(dest.position() + length);
+        }
+        else
+        {
+            for (int i = 0; i < length; ++i)
+            {
+                dest.put(fromUnicode[source.charAt(i)]);
+            }
+        }
     }
 
     // Perform a Unicode to OS/400 CCSID conversion.
@@ -62,7 +288,7 @@ public abstract class ConvTableSingleMap extends ConvTable
     {
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Converting string to byte array for ccsid: " + ccsid_, ConvTable.dumpCharArray(src, offset, length));
         byte[] dest = new byte[length];
-        for (int i = offset; i < length; dest[i] = fromUnicode_[src[i++]]);
+        translate(fromUnicode_, src, offset, dest, 0, length);
         if (Trace.traceConversion_) Trace.log(Trace.CONVERSION, "Destination byte array for ccsid: " + ccsid_, dest);
         return dest;
     }
@@ -105,6 +331,7 @@ public abstract class ConvTableSingleMap extends ConvTable
         toUnicode_[i] = oldToUnicode[i]; 
       }
       toUnicode_[ebcdic] = unicode; 
+      initializeLatin1();
     }
     
 }
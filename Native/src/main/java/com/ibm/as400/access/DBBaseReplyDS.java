@@ -586,6 +586,8 @@ abstract class DBBaseReplyDS
             System.arraycopy(data_, 4, newData, 4, 36);                             // @E2A
             DataStreamCompression.decompressRLE(data_, 50, get32bit(0) - 50,          // @E2A @E3C
                     newData, 40, DataStreamCompression.DEFAULT_ESCAPE, true);                 // @E2A
+            HostServerMetrics metrics = HostServerMetrics.active_;
+            if (metrics != null) metrics.dataCompressed(AS400.DATABASE, false, newData.length, get32bit(0));
             data_ = newData;                                                        // @E2A
             byteCount_ = data_.length - 20;                                         // @E2A
         }                                                                           // @E2A
@@ -1057,6 +1057,8 @@ Overrides the superclass to write the datastream.
           if (useCompression)
           {                                                       // @E3A
             int compressedSizeWithHeader = compressedSize + 50;                         // @E3A @E5C
+            HostServerMetrics metrics = HostServerMetrics.active_;
+            if (metrics != null) metrics.dataCompressed(AS400.DATABASE, true, currentOffset_, compressedSizeWithHeader);
             BinaryConverter.intToByteArray(compressedSizeWithHeader, compressedBytes, 0); // @E3A
             System.arraycopy(data_, 4, compressedBytes, 4, 36);                         // @E3A
             BinaryConverter.intToByteArray(compressedSize + 10, compressedBytes, 40);   // @E5A
@@ -0,0 +1,257 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: DBConcurrentPool.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * <p>This class is a pool of free objects that does not take a lock
+ * to get or release an object.  Each thread keeps a small cache of
+ * the objects it released most recently.  When that cache is full,
+ * objects overflow to a global lock-free stack that all threads
+ * share.  When the global stack is full, released objects are left
+ * for the garbage collector.
+ *
+ * <p>A pool can hold the objects on its global stack through soft
+ * references, as the synchronized pools do, so that the garbage
+ * collector can reclaim them when memory is low.  Only the few objects
+ * in the caches of the threads are then strongly held.  Objects that
+ * were reclaimed are dropped from the stack when get() reaches them.
+ *
+ * <p>The pool only holds free objects.  It does not track objects
+ * that are in use, so the caller claims an object returned by get()
+ * using its canUse() method, and must allocate a new one when get()
+ * returns null.
+ *
+ * <p>This pool is used by DBDSPool and DBStoragePool when the
+ * com.ibm.as400.access.DBDSPool.concurrent system property is set,
+ * and by ReplyBufferPool for each of its size classes.
+ **/
+final class DBConcurrentPool {
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    static final int LOCAL_CACHE_SIZE = 8;
+
+    private final String name_;
+    private final int maximumGlobalSize_;
+    private final int localCacheSize_;
+    private final boolean softReferences_;
+
+    private final ThreadLocal<LocalCache> localCache_;
+    private final AtomicReference<Node> top_ = new AtomicReference<Node>();
+    private final AtomicInteger globalSize_ = new AtomicInteger();
+
+    // Statistics.
+    private final LongAdder localHits_ = new LongAdder();
+    private final LongAdder globalHits_ = new LongAdder();
+    private final LongAdder misses_ = new LongAdder();
+    private final LongAdder overflows_ = new LongAdder();
+    private final LongAdder discards_ = new LongAdder();
+    private final LongAdder reclaimed_ = new LongAdder();
+    private final LongAdder contentions_ = new LongAdder();
+
+    /**
+     * Constructs a DBConcurrentPool object.
+     *
+     * @param name              The name of the pool, used for tracing.
+     * @param maximumGlobalSize The maximum number of free objects
+     *                          kept on the global stack.
+     * @param localCacheSize    The maximum number of free objects
+     *                          kept by each thread.
+     **/
+    DBConcurrentPool(String name, int maximumGlobalSize, int localCacheSize) {
+        this(name, maximumGlobalSize, localCacheSize, false);
+    }
+
+    /**
+     * Constructs a DBConcurrentPool object.
+     *
+     * @param name              The name of the pool, used for tracing.
+     * @param maximumGlobalSize The maximum number of free objects
+     *                          kept on the global stack.
+     * @param localCacheSize    The maximum number of free objects
+     *                          kept by each thread.
+     * @param softReferences    true to hold the objects on the global
+     *                          stack through soft references; false to
+     *                          hold them strongly.
+     **/
+    DBConcurrentPool(String name, int maximumGlobalSize, int localCacheSize, boolean softReferences) {
+        name_ = name;
+        maximumGlobalSize_ = maximumGlobalSize;
+        localCacheSize_ = localCacheSize;
+        softReferences_ = softReferences;
+        localCache_ = ThreadLocal.withInitial(() -> new LocalCache(localCacheSize));
+    }
+
+    /**
+     * Returns a free object, or null if the pool is empty.
+     * The calling thread's cache is checked first, then the
+     * global stack.
+     *
+     * @return a free object, or null.
+     **/
+    Object get() {
+        LocalCache cache = localCache_.get();
+        if (cache.count_ > 0) {
+            int i = --cache.count_;
+            Object item = cache.items_[i];
+            cache.items_[i] = null;
+            localHits_.increment();
+            return item;
+        }
+
+        while (true) {
+            Node top = top_.get();
+            if (top == null) {
+                misses_.increment();
+                return null;
+            }
+            if (top_.compareAndSet(top, top.next_)) {
+                globalSize_.decrementAndGet();
+                Object item = softReferences_ ? ((SoftReference<?>) top.item_).get() : top.item_;
+                if (item == null) {
+                    reclaimed_.increment();
+                    continue;
+                }
+                globalHits_.increment();
+                return item;
+            }
+            contentions_.increment();
+        }
+    }
+
+    /**
+     * Releases a free object to the pool.  The caller must already
+     * have marked the object as not in use.
+     *
+     * @param item The object.
+     **/
+    void release(Object item) {
+        LocalCache cache = localCache_.get();
+        if (cache.count_ < localCacheSize_) {
+            cache.items_[cache.count_++] = item;
+            return;
+        }
+
+        overflows_.increment();
+        if (globalSize_.incrementAndGet() > maximumGlobalSize_) {
+            globalSize_.decrementAndGet();
+            discards_.increment();
+            return;
+        }
+
+        Node node = new Node(softReferences_ ? new SoftReference<Object>(item) : item);
+        while (true) {
+            Node top = top_.get();
+            node.next_ = top;
+            if (top_.compareAndSet(top, node)) {
+                return;
+            }
+            contentions_.increment();
+        }
+    }
+
+    /**
+     * Returns the number of gets satisfied from a thread's own cache.
+     **/
+    long getLocalHits() {
+        return localHits_.sum();
+    }
+
+    /**
+     * Returns the number of gets satisfied from the global stack.
+     **/
+    long getGlobalHits() {
+        return globalHits_.sum();
+    }
+
+    /**
+     * Returns the number of gets that found the pool empty.
+     **/
+    long getMisses() {
+        return misses_.sum();
+    }
+
+    /**
+     * Returns the number of releases that did not fit in a thread's own cache.
+     **/
+    long getOverflows() {
+        return overflows_.sum();
+    }
+
+    /**
+     * Returns the number of releases dropped because the global stack was full.
+     **/
+    long getDiscards() {
+        return discards_.sum();
+    }
+
+    /**
+     * Returns the number of objects on the global stack that the garbage
+     * collector reclaimed before they were used again.
+     **/
+    long getReclaimed() {
+        return reclaimed_.sum();
+    }
+
+    /**
+     * Returns the number of times a compare-and-set on the global stack
+     * failed because another thread changed it first.
+     **/
+    long getContentions() {
+        return contentions_.sum();
+    }
+
+    /**
+     * Returns the pool statistics.
+     *
+     * @return The pool statistics.
+     **/
+    public String toString() {
+        return name_ + ": localHits=" + getLocalHits()
+                + " globalHits=" + getGlobalHits()
+                + " misses=" + getMisses()
+                + " overflows=" + getOverflows()
+                + " discards=" + getDiscards()
+                + " reclaimed=" + getReclaimed()
+                + " contentions=" + getContentions()
+                + " globalSize=" + globalSize_.get();
+    }
+
+
+    // The free objects most recently released by one thread.
+    private static final class LocalCache {
+        final Object[] items_;
+        int count_ = 0;
+
+        LocalCache(int size) {
+            items_ = new Object[size];
+        }
+    }
+
+    // An entry on the global stack.  Its item is a SoftReference to the
+    // object if the pool uses soft references.
+    private static final class Node {
+        final Object item_;
+        Node next_;
+
+        Node(Object item) {
+            item_ = item;
+        }
+    }
+}
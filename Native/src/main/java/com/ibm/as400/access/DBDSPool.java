@@ -19,7 +19,20 @@ import java.lang.ref.SoftReference;
 // This handles all of the datastream pooling for JDBC.
 final class DBDSPool {
     static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
-    static final DBStoragePool storagePool_ = new DBStoragePool();
+    // When this property is set, DBStorage, DBSQLRequestDS and DBReplyRequestedDS objects    //@CP1A
+    // are pooled using per-thread caches and a lock-free global stack (DBConcurrentPool)    //@CP1A
+    // instead of the synchronized arrays below.                                            //@CP1A
+    // The global stacks hold their objects through soft references, like the storage     //@CP2A
+    // and reply stream arrays, so the objects of a burst of requests can be reclaimed.    //@CP2A
+    // NOTE:  We must use SystemProperties.getProperty to read the property.                //@CP1A
+    static final boolean concurrentPooling = (SystemProperties.getProperty(SystemProperties.DBDSPOOL_CONCURRENT) != null); //@CP1C
+    static final DBStoragePool storagePool_ = new DBStoragePool(concurrentPooling); //@CP1C
+    static final int CONCURRENT_POOL_INDEX = -2;                                           //@CP1A
+    private static final int CONCURRENT_POOL_MAXIMUM = 16384;                              //@CP1A
+    private static final DBConcurrentPool dbreplyrequesteddsConcurrentPool_ =                //@CP1A
+            concurrentPooling ? new DBConcurrentPool("DBReplyRequestedDS", CONCURRENT_POOL_MAXIMUM, DBConcurrentPool.LOCAL_CACHE_SIZE, true) : null; //@CP2C
+    private static final DBConcurrentPool dbsqlrequestdsConcurrentPool_ =                    //@CP1A
+            concurrentPooling ? new DBConcurrentPool("DBSQLRequestDS", CONCURRENT_POOL_MAXIMUM, DBConcurrentPool.LOCAL_CACHE_SIZE, true) : null; //@CP2C
     private static final Object dbsqlrpbdsPoolLock_ = new Object(); //@P1A
     private static final Object dbsqldescriptordsPoolLock_ = new Object(); //@P1A
     private static final Object dbsqlresultsetdsPoolLock_ = new Object(); //@P1A
@@ -72,6 +85,12 @@ final class DBDSPool {
     private DBDSPool() {
     }
 
+    // Reports to HostServerMetrics whether a datastream came from the pool.
+    private static void recordPoolAccess(boolean hit) {
+        HostServerMetrics metrics = HostServerMetrics.active_;
+        if (metrics != null) metrics.datastreamPoolAccessed(hit);
+    }
+
     static void returnToDBReplyRequestedPool(int poolIndex) {                                        //@B5A
         if (poolIndex >= 0) {
             if (dbReplyRequestedPoolFull_) {
@@ -86,6 +105,36 @@ final class DBDSPool {
         }
     }
 
+    //@CP1A
+    // Releases a DBReplyRequestedDS to the concurrent pool.
+    // The caller must already have marked it as not in use.
+    static void returnToDBReplyRequestedPool(DBReplyRequestedDS ds) {
+        dbreplyrequesteddsConcurrentPool_.release(ds);
+    }
+
+    //@CP1A
+    // Releases a DBSQLRequestDS to the concurrent pool.
+    // The caller must already have marked it as not in use.
+    static void returnToDBSQLRequestPool(DBSQLRequestDS ds) {
+        dbsqlrequestdsConcurrentPool_.release(ds);
+    }
+
+    //@CP1A
+    /**
+     * Returns the hit, miss and contention counters of the concurrent pools,
+     * or null if the concurrent pools are not used.
+     *
+     * @return The statistics, or null.
+     **/
+    static String getConcurrentPoolStatistics() {
+        if (!concurrentPooling) {
+            return null;
+        }
+        return dbreplyrequesteddsConcurrentPool_.toString() + "; "
+                + dbsqlrequestdsConcurrentPool_.toString() + "; "
+                + storagePool_.getConcurrentPoolStatistics();
+    }
+
     public static int getDBReplyRequestedDSPoolSize() {
         return dbreplyrequesteddsPool_.length;
     }
@@ -93,9 +142,27 @@ final class DBDSPool {
     static final DBReplyRequestedDS getDBReplyRequestedDS() {
         if (noDBReplyPooling) {
             DBReplyRequestedDS unpooledDS = new DBReplyRequestedDS(monitor, -1); // @B5C
+            recordPoolAccess(false);
             unpooledDS.canUse();
             unpooledDS.setInPool(false); // @B5A
             return unpooledDS;
+        } else if (concurrentPooling) {                                                 //@CP1A
+            DBReplyRequestedDS ds;
+            while ((ds = (DBReplyRequestedDS) dbreplyrequesteddsConcurrentPool_.get()) != null) {
+                // Skip an entry whose storage was freed by the finalizer (see below).
+                if (ds.canUse()) {
+                    if (ds.storage_ != null) {
+                        ds.initialize();
+                        recordPoolAccess(true);
+                        return ds;
+                    }
+                }
+            }
+            ds = new DBReplyRequestedDS(monitor, CONCURRENT_POOL_INDEX);
+            recordPoolAccess(false);
+            ds.canUse();
+            ds.setInPool(true);
+            return ds;
         } else {
             synchronized (dbreplyrequesteddsPoolLock_) // @P1C
             {
@@ -121,6 +188,7 @@ final class DBDSPool {
                 for (int i = searchStart; i < pool.length; ++i) {
                     if (pool[i] == null) {
                         DBReplyRequestedDS pooledDs = new DBReplyRequestedDS(monitor, i);
+                        recordPoolAccess(false);
                         pooledDs.canUse();
                         pooledDs.setInPool(true);
                         pool[i] = new SoftReference(pooledDs);
@@ -135,6 +203,7 @@ final class DBDSPool {
                         // GC bug.  If so, do not use it.
                         if (ds == null || ds.storage_ == null) {
                             ds = new DBReplyRequestedDS(monitor, i);
+                            recordPoolAccess(false);
                             ds.canUse();
                             ds.setInPool(true);
                             pool[i] = new SoftReference(ds);
@@ -153,6 +222,7 @@ final class DBDSPool {
                                     // up on the next search (see above).
                                 } else {
                                     ds.initialize();
+                                    recordPoolAccess(true);
                                     // pool[i].setPoolIndex(i);
                                     dbReplyRequestedPoolSearchStart_ = i + 1;
                                     return ds;
@@ -179,6 +249,7 @@ final class DBDSPool {
                     SoftReference[] temp = new SoftReference[max * 2];
                     System.arraycopy(pool, 0, temp, 0, max);
                     DBReplyRequestedDS pooledDs = new DBReplyRequestedDS(monitor, max);
+                    recordPoolAccess(false);
                     pooledDs.canUse();
                     pooledDs.setInPool(true); // @B5A
                     temp[max] = new SoftReference(pooledDs);
@@ -190,6 +261,7 @@ final class DBDSPool {
                     return pooledDs;
                 } else {
                     DBReplyRequestedDS nonpooledDS = new DBReplyRequestedDS(monitor, -1);
+                    recordPoolAccess(false);
                     nonpooledDS.canUse();
                     nonpooledDS.setInPool(false);
                     if (!dbReplyRequestedPoolFull_) {
@@ -209,12 +281,14 @@ final class DBDSPool {
             for (int i = 0; i < pool.length; ++i) {
                 if (pool[i] == null) {
                     DBXARequestDS request = new DBXARequestDS(a, b, c, d);
+                    recordPoolAccess(false);
                     request.canUse();
                     pool[i] = request;
                     return request;
                 }
                 if ((pool[i].inUse_ == false) && pool[i].canUse()) {
                     pool[i].initialize(a, b, c, d);
+                    recordPoolAccess(true);
                     return pool[i];
                 }
             }
@@ -222,6 +296,7 @@ final class DBDSPool {
             DBXARequestDS[] temp = new DBXARequestDS[max * 2];
             System.arraycopy(pool, 0, temp, 0, max);
             DBXARequestDS request = new DBXARequestDS(a, b, c, d);
+            recordPoolAccess(false);
             request.canUse();
             temp[max] = request;
             dbxarequestdsPool_ = temp;
@@ -237,6 +312,7 @@ final class DBDSPool {
             for (int i = 0; i < pool.length; ++i) {
                 if (pool[i] == null) {
                     DBSQLAttributesDS request = new DBSQLAttributesDS(a, b, c, d);
+                    recordPoolAccess(false);
                     request.canUse();
                     pool[i] = request;
                     return request;
@@ -244,6 +320,7 @@ final class DBDSPool {
 
                 if ((pool[i].inUse_ == false) && pool[i].canUse()) {
                     pool[i].initialize(a, b, c, d);
+                    recordPoolAccess(true);
                     return pool[i];
                 }
             }
@@ -251,6 +328,7 @@ final class DBDSPool {
             DBSQLAttributesDS[] temp = new DBSQLAttributesDS[max * 2];
             System.arraycopy(pool, 0, temp, 0, max);
             DBSQLAttributesDS ds = new DBSQLAttributesDS(a, b, c, d);
+            recordPoolAccess(false);
             ds.canUse();
             temp[max] = ds;
             dbsqlattributesdsPool_ = temp;
@@ -266,6 +344,7 @@ final class DBDSPool {
             for (int i = 0; i < pool.length; ++i) {
                 if (pool[i] == null) {
                     DBNativeDatabaseRequestDS request = new DBNativeDatabaseRequestDS(a, b, c, d);
+                    recordPoolAccess(false);
                     // Mark as used before placing in the pool
                     request.canUse();
                     pool[i] = request;
@@ -273,6 +352,7 @@ final class DBDSPool {
                 }
                 if ((pool[i].inUse_ == false) && pool[i].canUse()) {
                     pool[i].initialize(a, b, c, d);
+                    recordPoolAccess(true);
                     return pool[i];
                 }
             }
@@ -280,6 +360,7 @@ final class DBDSPool {
             DBNativeDatabaseRequestDS[] temp = new DBNativeDatabaseRequestDS[max * 2];
             System.arraycopy(pool, 0, temp, 0, max);
             DBNativeDatabaseRequestDS newRequest = new DBNativeDatabaseRequestDS(a, b, c, d);
+            recordPoolAccess(false);
             // Mark as inuse before adding to the pool
             newRequest.canUse();
             temp[max] = newRequest;
@@ -297,6 +378,7 @@ final class DBDSPool {
             for (int i = 0; i < pool.length; ++i) {
                 if (pool[i] == null) {
                     DBReturnObjectInformationRequestDS request = new DBReturnObjectInformationRequestDS(a, b, c, d);
+                    recordPoolAccess(false);
                     request.canUse();
                     pool[i] = request;
 
@@ -306,6 +388,7 @@ final class DBDSPool {
 
                     if ((pool[i].inUse_ == false) && pool[i].canUse()) {
                         pool[i].initialize(a, b, c, d);
+                        recordPoolAccess(true);
                         return pool[i];
                     }
                 }
@@ -314,6 +397,7 @@ final class DBDSPool {
             DBReturnObjectInformationRequestDS[] temp = new DBReturnObjectInformationRequestDS[max * 2];
             System.arraycopy(pool, 0, temp, 0, max);
             DBReturnObjectInformationRequestDS newRequest = new DBReturnObjectInformationRequestDS(a, b, c, d);
+            recordPoolAccess(false);
             newRequest.canUse();
             temp[max] = newRequest;
             dbreturnobjectinformationrequestdsPool_ = temp;
@@ -329,6 +413,7 @@ final class DBDSPool {
             for (int i = 0; i < max; ++i) {
                 if (pool[i] == null) {
                     DBSQLDescriptorDS ds = new DBSQLDescriptorDS(a, b, c, d);
+                    recordPoolAccess(false);
                     ds.canUse();
                     pool[i] = ds;
                     return ds;
@@ -337,6 +422,7 @@ final class DBDSPool {
 
                     if ((pool[i].inUse_ == false) && pool[i].canUse()) {
                         pool[i].initialize(a, b, c, d);
+                        recordPoolAccess(true);
                         return pool[i];
                     }
                 }
@@ -345,6 +431,7 @@ final class DBDSPool {
             DBSQLDescriptorDS[] temp = new DBSQLDescriptorDS[max * 2];
             System.arraycopy(pool, 0, temp, 0, max);
             DBSQLDescriptorDS ds = new DBSQLDescriptorDS(a, b, c, d);
+            recordPoolAccess(false);
             ds.canUse();
             temp[max] = ds;
             dbsqldescriptordsPool_ = temp;
@@ -353,6 +440,21 @@ final class DBDSPool {
     }
 
     static final DBSQLRequestDS getDBSQLRequestDS(int a, int b, int c, int d) {
+        if (concurrentPooling) {                                                       //@CP1A
+            DBSQLRequestDS ds;
+            while ((ds = (DBSQLRequestDS) dbsqlrequestdsConcurrentPool_.get()) != null) {
+                if (ds.canUse()) {
+                    ds.initialize(a, b, c, d);
+                    recordPoolAccess(true);
+                    return ds;
+                }
+            }
+            ds = new DBSQLRequestDS(a, b, c, d);
+            recordPoolAccess(false);
+            ds.setConcurrentPooled();
+            ds.canUse();
+            return ds;
+        }
         synchronized (dbsqlrequestdsPoolLock_) //@P1C
         {
             DBSQLRequestDS[] pool = dbsqlrequestdsPool_; //@P1M
@@ -379,6 +481,7 @@ final class DBDSPool {
             for (int i = 0; i < max; ++i) {
                 if (pool[i] == null) {
                     DBSQLRequestDS ds = new DBSQLRequestDS(a, b, c, d);
+                    recordPoolAccess(false);
                     ds.canUse();
                     pool[i] = ds;
                     if (i > dbsqlrequestdsPoolHighMark_) dbsqlrequestdsPoolHighMark_ = i;   // @A8A
@@ -386,6 +489,7 @@ final class DBDSPool {
                 }
                 if ((pool[i].inUse_ == false) && pool[i].canUse()) {
                     pool[i].initialize(a, b, c, d);
+                    recordPoolAccess(true);
                     if (i > dbsqlrequestdsPoolHighMark_) dbsqlrequestdsPoolHighMark_ = i;
                     return pool[i];
                 }
@@ -394,6 +498,7 @@ final class DBDSPool {
             DBSQLRequestDS[] temp = new DBSQLRequestDS[max * 2];
             System.arraycopy(pool, 0, temp, 0, max);
             DBSQLRequestDS ds = new DBSQLRequestDS(a, b, c, d);
+            recordPoolAccess(false);
             ds.canUse();
             temp[max] = ds;
             dbsqlrequestdsPool_ = temp;
@@ -410,12 +515,14 @@ final class DBDSPool {
             for (int i = 0; i < max; ++i) {
                 if (pool[i] == null) {
                     DBSQLResultSetDS ds = new DBSQLResultSetDS(a, b, c, d);
+                    recordPoolAccess(false);
                     ds.canUse();
                     pool[i] = ds;
                     return ds;
                 }
                 if ((pool[i].inUse_ == false) && pool[i].canUse()) {
                     pool[i].initialize(a, b, c, d);
+                    recordPoolAccess(true);
                     return pool[i];
                 }
             }
@@ -423,6 +530,7 @@ final class DBDSPool {
             DBSQLResultSetDS[] temp = new DBSQLResultSetDS[max * 2];
             System.arraycopy(pool, 0, temp, 0, max);
             DBSQLResultSetDS ds = new DBSQLResultSetDS(a, b, c, d);
+            recordPoolAccess(false);
             ds.canUse();
             temp[max] = ds;
             dbsqlresultsetdsPool_ = temp;
@@ -438,12 +546,14 @@ final class DBDSPool {
             for (int i = 0; i < max; ++i) {
                 if (pool[i] == null) {
                     DBSQLRPBDS ds = new DBSQLRPBDS(a, b, c, d);
+                    recordPoolAccess(false);
                     ds.canUse();
                     pool[i] = ds;
                     return ds;
                 }
                 if ((pool[i].inUse_ == false) && pool[i].canUse()) {
                     pool[i].initialize(a, b, c, d);
+                    recordPoolAccess(true);
                     return pool[i];
                 }
             }
@@ -451,6 +561,7 @@ final class DBDSPool {
             DBSQLRPBDS[] temp = new DBSQLRPBDS[max * 2];
             System.arraycopy(pool, 0, temp, 0, max);
             DBSQLRPBDS ds = new DBSQLRPBDS(a, b, c, d);
+            recordPoolAccess(false);
             ds.canUse();
             temp[max] = ds;
             dbsqlrpbdsPool_ = temp;
@@ -84,6 +84,9 @@ final class DBReplyRequestedDS extends DBBaseReplyDS
 		  DBDSPool.returnToDBReplyRequestedPool(poolIndex);
 	  }
 	  super.returnToPool();
+	  if (poolIndex == DBDSPool.CONCURRENT_POOL_INDEX) {   //@CP1A
+		  DBDSPool.returnToDBReplyRequestedPool(this);
+	  }
 	} /*@B5A*/
 
 
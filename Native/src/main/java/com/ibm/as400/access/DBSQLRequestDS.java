@@ -100,6 +100,31 @@ extends DBBaseRequestDS
 
 
 
+    private boolean concurrentPooled_ = false;                          //@CP1A
+
+/**
+   Indicates that this datastream belongs to the concurrent pool of DBDSPool,
+   so it is released to that pool when it is returned.
+**/
+    void setConcurrentPooled()                                          //@CP1A
+    {
+       concurrentPooled_ = true;
+    }
+
+
+
+/**
+   Returns this datastream to the pool.
+**/
+    synchronized void returnToPool()                                    //@CP1A
+    {
+       super.returnToPool();
+       if (concurrentPooled_)
+          DBDSPool.returnToDBSQLRequestPool(this);
+    }
+
+
+
 
 
 /**
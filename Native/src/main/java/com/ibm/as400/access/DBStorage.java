@@ -158,6 +158,8 @@ final class DBStorage //@P0C
         }
         if (id_ >= 0) {
             pool_.returned(id_);   //@B5A
+        } else if (id_ == DBStoragePool.CONCURRENT_POOL_ID) {
+            pool_.returned(this);  //@CP1A
         }
     }
 
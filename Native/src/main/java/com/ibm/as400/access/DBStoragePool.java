@@ -32,6 +32,9 @@ class DBStoragePool {
 
     private static final int STORAGE_POOL_LOCALITY = 256;  //@B5A
 
+    static final int CONCURRENT_POOL_ID = -2;               //@CP1A
+    private static final int CONCURRENT_POOL_MAXIMUM = 16384; //@CP1A
+
 
     //@P0D private int     count_;
     //@P0D private BitSet  lockState_;
@@ -43,6 +46,23 @@ class DBStoragePool {
     private SoftReference[] pool_ = new SoftReference[16]; //@P0A
     private int lastReturned_;                                                   // @B5A
     private int searches_ = 0;                                                  // @B5A
+    private final DBConcurrentPool concurrentPool_;                              //@CP1A
+
+    /**
+     * Constructs a DBStoragePool object.
+     *
+     * @param concurrent true to pool the storage using per-thread caches
+     *                   and a lock-free global stack; false to use the
+     *                   synchronized array.
+     **/
+    DBStoragePool(boolean concurrent) //@CP1A
+    {
+        // Like the array, the global stack uses soft references, since each   //@CP2A
+        // DBStorage can hold a large buffer.  Only the few objects cached by   //@CP2A
+        // each thread are strongly held.                                      //@CP2A
+        concurrentPool_ = concurrent ? new DBConcurrentPool("DBStorage", CONCURRENT_POOL_MAXIMUM, //@CP2C
+                DBConcurrentPool.LOCAL_CACHE_SIZE, true) : null;
+    }
 
     /**
      * Constructs a DBStoragePool object.
@@ -83,12 +103,43 @@ class DBStoragePool {
      **/
 
 
-    final synchronized DBStorage getUnpooledStorage() {
+    // Note: This method does not use any pool state, so it is not      @CP1C
+    //       synchronized.  Every reply datastream calls it.
+    final DBStorage getUnpooledStorage() {
         DBStorage storage = new DBStorage(-1, this);
         storage.canUse();
         return storage;
     } //@B5A
 
+    //@CP1A
+    /**
+     * Returns an unused DBStorage object from the concurrent pool.  If none
+     * are available, a brand new one will be allocated.
+     *
+     * @return a DBStorage object.
+     **/
+    private DBStorage getConcurrentStorage() {
+        DBStorage storage;
+        while ((storage = (DBStorage) concurrentPool_.get()) != null) {
+            if (storage.canUse()) {
+                return storage;
+            }
+        }
+        storage = new DBStorage(CONCURRENT_POOL_ID, this);
+        storage.canUse();
+        return storage;
+    }
+
+    //@CP1A
+    /**
+     * Returns the statistics of the concurrent pool, or null if it is not used.
+     *
+     * @return The statistics, or null.
+     **/
+    String getConcurrentPoolStatistics() {
+        return (concurrentPool_ == null) ? null : concurrentPool_.toString();
+    }
+
     /**
      * Returns an unused, pre-allocated DBStorage object.  If none
      * are available, a brand new one will be allocated.
@@ -96,10 +147,17 @@ class DBStoragePool {
      * @return a DBStorage object.
      **/
 //
-// Note: This method must be synchronized to make it
-//       threadsafe.
+// Note: The array search must be synchronized to make it
+//       threadsafe.  The concurrent pool does not need it.
 //
-    final synchronized DBStorage getUnusedStorage() // @B0C @B1C @P0C
+    final DBStorage getUnusedStorage() // @B0C @B1C @P0C @CP1C
+    {
+        if (concurrentPool_ != null)                                     //@CP1A
+            return getConcurrentStorage();
+        return getUnusedPooledStorage();
+    }
+
+    private synchronized DBStorage getUnusedPooledStorage() //@CP1A
     {
 //@P0D        DBStorage storage;
         int max = pool_.length; //@P0A
@@ -176,6 +234,12 @@ class DBStoragePool {
         return storage;
     }
 
+    //@CP1A
+    // Called when a storage object from the concurrent pool is returned.
+    void returned(DBStorage storage) {
+        concurrentPool_.release(storage);
+    }
+
     public synchronized void returned(int id_) {
         if (id_ < lastReturned_ && (id_ >= (lastReturned_ - STORAGE_POOL_LOCALITY))) {
             lastReturned_ = id_;
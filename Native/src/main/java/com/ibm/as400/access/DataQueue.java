@@ -14,6 +14,7 @@
 package com.ibm.as400.access;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * The DataQueue class represents an IBM i sequential data queue object.
@@ -232,6 +233,45 @@ public class DataQueue extends BaseDataQueue {
         return entry;
     }
 
+    /**
+     * Reads up to <i>maxEntries</i> entries from the data queue and removes them from the queue.  The read requests are sent without waiting for each reply, so reading many entries takes far fewer round trips to the system than calling {@link #read(int) read} for each one.  The entries are returned in the order they were read, each with its own sender information.
+     * <p>Only the first entry is waited for; the others are the entries on the queue once it has been read.  If an error occurs after some entries were read, those entries are returned, since they have been removed from the queue.
+     *
+     * @param maxEntries The maximum number of entries to read.  It must be greater than zero.
+     * @param wait       The number of seconds to wait if the queue contains no entries.  Negative one (-1) means to wait until an entry is available.
+     * @return The entries read from the queue.  If no entries were available, an empty array is returned.
+     * @throws AS400SecurityException          If a security or authority error occurs.
+     * @throws ErrorCompletingRequestException If an error occurs before the request is completed.
+     * @throws IOException                     If an error occurs while communicating with the system.
+     * @throws IllegalObjectTypeException      If the object on the system is not the required type.
+     * @throws InterruptedException            If this thread is interrupted.
+     * @throws ObjectDoesNotExistException     If the object does not exist on the system.
+     **/
+    public DataQueueEntry[] read(int maxEntries, int wait) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException {
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Reading data queue entries.");
+
+        // Check parmameters.
+        if (maxEntries < 1) {
+            Trace.log(Trace.ERROR, "Value of parameter 'maxEntries' is not valid:", maxEntries);
+            throw new ExtendedIllegalArgumentException("maxEntries (" + maxEntries + ")", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+        }
+        if (wait < -1) {
+            Trace.log(Trace.ERROR, "Value of parameter 'wait' is not valid:", wait);
+            throw new ExtendedIllegalArgumentException("wait (" + wait + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+        }
+
+        open();
+        // Send requests.
+        DQReceiveRecord[] records = impl_.readAll(null, wait, maxEntries, null);
+
+        DataQueueEntry[] entries = new DataQueueEntry[records.length];
+        for (int i = 0; i < records.length; ++i) {
+            entries[i] = new DataQueueEntry(this, records[i].data_, records[i].senderInformation_);
+            if (dataQueueListeners_ != null) fireDataQueueEvent(DataQueueEvent.DQ_READ);
+        }
+        return entries;
+    }
+
     // Retrieves the attributes of the data queue.  This method assumes that the connection to the system has been started.  It must only be called by open().
     void retrieveAttributes() throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException {
         if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Retrieving data queue attributes.");
@@ -306,4 +346,51 @@ public class DataQueue extends BaseDataQueue {
 
         write(stringToByteArray(data));
     }
+
+    /**
+     * Writes entries to the data queue, in list order.  The write requests are sent without waiting for each reply, so writing many entries takes far fewer round trips to the system than calling {@link #write(byte[]) write} for each one.
+     * <p>If an entry cannot be written, no more requests are sent, and the exception for that entry is thrown once the replies to the requests already sent are received.  The entries before it were written; some entries after it may also have been written.  A DQ_WRITTEN event is fired for each entry written before the exception is thrown.
+     *
+     * @param entries The entries to write.  Each entry must be 64512 bytes or less.
+     * @throws AS400SecurityException          If a security or authority error occurs.
+     * @throws ErrorCompletingRequestException If an error occurs before the request is completed.
+     * @throws IOException                     If an error occurs while communicating with the system.
+     * @throws IllegalObjectTypeException      If the object on the system is not the required type.
+     * @throws InterruptedException            If this thread is interrupted.
+     * @throws ObjectDoesNotExistException     If the object does not exist on the system.
+     **/
+    public void writeAll(List<byte[]> entries) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException {
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Writing data queue entries.");
+
+        // Check parmameters.
+        if (entries == null) {
+            Trace.log(Trace.ERROR, "Parameter 'entries' is null.");
+            throw new NullPointerException("entries");
+        }
+        byte[][] data = entries.toArray(new byte[entries.size()][]);
+        for (int i = 0; i < data.length; ++i) {
+            if (data[i] == null) {
+                Trace.log(Trace.ERROR, "Parameter 'entries' contains a null entry at index " + i + ".");
+                throw new NullPointerException("entries[" + i + "]");
+            }
+            if (data[i].length > 64512) {
+                Trace.log(Trace.ERROR, "Length of parameter 'entries[" + i + "]' is not valid:", data[i].length);
+                throw new ExtendedIllegalArgumentException("entries[" + i + "].length (" + data[i].length + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+            }
+        }
+        if (data.length == 0) return;
+
+        open();
+        // Send write requests.  Fire an event for each entry written, even if another entry failed.
+        boolean[] written = new boolean[data.length];
+        try {
+            impl_.writeAll(null, data, written);
+        } finally {
+            if (dataQueueListeners_ != null) {
+                for (int i = 0; i < data.length; ++i) {
+                    if (written[i]) fireDataQueueEvent(DataQueueEvent.DQ_WRITTEN);
+                }
+            }
+        }
+    }
 }
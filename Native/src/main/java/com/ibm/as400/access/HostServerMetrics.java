@@ -0,0 +1,171 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: HostServerMetrics.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+/**
+ * Receives measurements of the traffic between the Toolbox and the host servers.
+ * <p>
+ * Subclasses override the methods for the measurements they collect; the
+ * methods of this class do nothing.  One HostServerMetrics object receives the
+ * measurements for the whole JVM.  It is set with {@link #setDefault setDefault()},
+ * or with the <code>com.ibm.as400.access.HostServerMetrics</code> system property.
+ * While no object is set, the Toolbox does not take the measurements, so
+ * the cost is a single field check per request.
+ * <p>
+ * The methods are called on the threads that send requests and read replies,
+ * so they must be thread safe and must return quickly.
+ * <p>
+ * The <i>service</i> arguments are the service constants of the {@link AS400 AS400}
+ * class, such as {@link AS400#DATABASE AS400.DATABASE}.
+ *
+ * @see InMemoryHostServerMetrics
+ * @see SystemProperties#HOST_SERVER_METRICS
+ **/
+public abstract class HostServerMetrics
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  // The object that receives measurements, or null if they are not taken.
+  static volatile HostServerMetrics active_ = null;
+
+  // Returned by getDefault() when no object is set.
+  private static final HostServerMetrics NO_OP = new HostServerMetrics() {};
+
+  static
+  {
+    String value = SystemProperties.getProperty(SystemProperties.HOST_SERVER_METRICS);
+    if (value != null && value.trim().length() > 0 && !value.trim().equalsIgnoreCase("none"))
+    {
+      value = value.trim();
+      try
+      {
+        if (value.equalsIgnoreCase("memory"))
+        {
+          InMemoryHostServerMetrics metrics = new InMemoryHostServerMetrics();
+          metrics.registerMBean();
+          active_ = metrics;
+        }
+        else
+        {
+          active_ = (HostServerMetrics)Class.forName(value).getDeclaredConstructor().newInstance();
+        }
+      }
+      catch (Throwable e)
+      {
+        if (Trace.traceOn_) Trace.log(Trace.WARNING, "Host server metrics not valid: " + value, e);
+      }
+    }
+  }
+
+  /**
+   * Constructs a HostServerMetrics object.
+   **/
+  protected HostServerMetrics()
+  {
+  }
+
+  /**
+   * Returns the object that receives the measurements.
+   *
+   * @return The object.  If none was set, an object that does nothing is returned.
+   **/
+  public static HostServerMetrics getDefault()
+  {
+    HostServerMetrics metrics = active_;
+    return (metrics == null) ? NO_OP : metrics;
+  }
+
+  /**
+   * Sets the object that receives the measurements.
+   *
+   * @param metrics The object, or null to stop taking measurements.
+   **/
+  public static void setDefault(HostServerMetrics metrics)
+  {
+    active_ = (metrics == NO_OP) ? null : metrics;
+  }
+
+  /**
+   * Called when a request is sent to a host server.
+   *
+   * @param service The service.
+   * @param bytes The length of the request, before compression.
+   **/
+  public void requestSent(int service, int bytes)
+  {
+  }
+
+  /**
+   * Called when a reply is received from a host server.
+   *
+   * @param service The service.
+   * @param bytes The length of the reply as received.
+   * @param roundTripNanos The time, in nanoseconds, from sending the request
+   *                       to receiving the reply, or -1 if it is not known.
+   **/
+  public void replyReceived(int service, int bytes, long roundTripNanos)
+  {
+  }
+
+  /**
+   * Called when a connection is obtained from an {@link AS400ConnectionPool AS400ConnectionPool}.
+   *
+   * @param service The service the connection was requested for, or -1 if none.
+   * @param waitNanos The time, in nanoseconds, taken to obtain the connection.
+   *                  This includes the time to connect when no suitable
+   *                  connection was available.
+   **/
+  public void connectionBorrowed(int service, long waitNanos)
+  {
+  }
+
+  /**
+   * Called when the database host server support needs a datastream object.
+   *
+   * @param hit true if a pooled object was reused; false if one was created.
+   **/
+  public void datastreamPoolAccessed(boolean hit)
+  {
+  }
+
+  /**
+   * Called when a reply is received into an array from the reply buffer pool.
+   *
+   * @param hit true if a pooled array was reused; false if one was allocated.
+   **/
+  public void replyBufferPoolAccessed(boolean hit)
+  {
+  }
+
+  /**
+   * Called when the JVM-wide cache of parsed SQL statements is searched.
+   *
+   * @param hit true if a parsed statement was found; false if the statement had to be parsed.
+   **/
+  public void sqlParseCacheAccessed(boolean hit)
+  {
+  }
+
+  /**
+   * Called when data in a request is compressed, or data in a reply is decompressed.
+   *
+   * @param service The service.
+   * @param request true for a request; false for a reply.
+   * @param uncompressedBytes The length of the data before compression.
+   * @param compressedBytes The length of the compressed data.
+   **/
+  public void dataCompressed(int service, boolean request, int uncompressedBytes, int compressedBytes)
+  {
+  }
+}
@@ -0,0 +1,191 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: IFSAsynchronousFileChannel.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * An AsynchronousFileChannel for a file in the integrated file system.
+ * Each operation runs an IFSFileChannel positional operation on a thread
+ * of the executor.  Operations on one file share its connection, so they
+ * are sent to the file server one at a time.
+ **/
+final class IFSAsynchronousFileChannel extends AsynchronousFileChannel
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private final IFSFileChannel channel_;
+  private final ExecutorService executor_;
+  private final boolean ownsExecutor_;  // whether close() shuts the executor down
+
+  /**
+   * Constructs an IFSAsynchronousFileChannel object.
+   *
+   * @param channel The channel that performs the operations.
+   * @param executor The executor that runs the operations, or null to use a
+   *                 single daemon thread for this channel.
+   **/
+  IFSAsynchronousFileChannel(IFSFileChannel channel, ExecutorService executor)
+  {
+    channel_ = channel;
+    if (executor != null)
+    {
+      executor_ = executor;
+      ownsExecutor_ = false;
+    }
+    else
+    {
+      executor_ = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r)
+        {
+          Thread thread = new Thread(r, "IFSAsynchronousFileChannel");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+      ownsExecutor_ = true;
+    }
+  }
+
+  // Runs the operation, and reports its outcome to the handler.
+  private <V, A> void submit(final Callable<V> operation, final A attachment, final CompletionHandler<V, ? super A> handler)
+  {
+    if (handler == null)
+      throw new NullPointerException("handler");
+    executor_.execute(new Runnable() {
+      public void run()
+      {
+        V result;
+        try
+        {
+          result = operation.call();
+        }
+        catch (Throwable t)
+        {
+          handler.failed(t, attachment);
+          return;
+        }
+        handler.completed(result, attachment);
+      }
+    });
+  }
+
+  public long size() throws IOException
+  {
+    return channel_.size();
+  }
+
+  public AsynchronousFileChannel truncate(long size) throws IOException
+  {
+    channel_.truncate(size);
+    return this;
+  }
+
+  public void force(boolean metaData) throws IOException
+  {
+    channel_.force(metaData);
+  }
+
+  public <A> void lock(final long position, final long size, final boolean shared, A attachment, CompletionHandler<FileLock, ? super A> handler)
+  {
+    submit(new Callable<FileLock>() {
+      public FileLock call() throws IOException
+      {
+        return channel_.lock(position, size, shared);
+      }
+    }, attachment, handler);
+  }
+
+  public Future<FileLock> lock(final long position, final long size, final boolean shared)
+  {
+    return executor_.submit(new Callable<FileLock>() {
+      public FileLock call() throws IOException
+      {
+        return channel_.lock(position, size, shared);
+      }
+    });
+  }
+
+  public FileLock tryLock(long position, long size, boolean shared) throws IOException
+  {
+    return channel_.tryLock(position, size, shared);
+  }
+
+  public <A> void read(final ByteBuffer dst, final long position, A attachment, CompletionHandler<Integer, ? super A> handler)
+  {
+    submit(new Callable<Integer>() {
+      public Integer call() throws IOException
+      {
+        return Integer.valueOf(channel_.read(dst, position));
+      }
+    }, attachment, handler);
+  }
+
+  public Future<Integer> read(final ByteBuffer dst, final long position)
+  {
+    return executor_.submit(new Callable<Integer>() {
+      public Integer call() throws IOException
+      {
+        return Integer.valueOf(channel_.read(dst, position));
+      }
+    });
+  }
+
+  public <A> void write(final ByteBuffer src, final long position, A attachment, CompletionHandler<Integer, ? super A> handler)
+  {
+    submit(new Callable<Integer>() {
+      public Integer call() throws IOException
+      {
+        return Integer.valueOf(channel_.write(src, position));
+      }
+    }, attachment, handler);
+  }
+
+  public Future<Integer> write(final ByteBuffer src, final long position)
+  {
+    return executor_.submit(new Callable<Integer>() {
+      public Integer call() throws IOException
+      {
+        return Integer.valueOf(channel_.write(src, position));
+      }
+    });
+  }
+
+  public boolean isOpen()
+  {
+    return channel_.isOpen();
+  }
+
+  public void close() throws IOException
+  {
+    try
+    {
+      channel_.close();
+    }
+    finally
+    {
+      if (ownsExecutor_) executor_.shutdown();
+    }
+  }
+}
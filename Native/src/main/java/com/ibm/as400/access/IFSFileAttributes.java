@@ -0,0 +1,188 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: IFSFileAttributes.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * The basic attributes of an object in the integrated file system, read
+ * from an IFSFile when the object is constructed.  If the IFSFile came from
+ * a directory listing, its cached attributes are used.
+ **/
+final class IFSFileAttributes implements BasicFileAttributes
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private final long lastModified_;
+  private final long lastAccessed_;
+  private final long created_;
+  private final boolean directory_;
+  private final boolean regularFile_;
+  private final boolean symbolicLink_;
+  private final long size_;
+
+  /**
+   * Reads the attributes of a file.
+   *
+   * @param file The file.
+   * @exception NoSuchFileException If the file does not exist.
+   * @exception IOException If an error occurs while communicating with the system.
+   **/
+  IFSFileAttributes(IFSFile file) throws IOException
+  {
+    if (!file.exists())
+      throw new NoSuchFileException(file.getPath());
+    lastModified_ = file.lastModified();
+    lastAccessed_ = file.lastAccessed();
+    created_ = file.created();
+    directory_ = file.isDirectory();
+    regularFile_ = !directory_ && file.isFile();
+    try
+    {
+      symbolicLink_ = file.isSymbolicLink();
+    }
+    catch (AS400SecurityException e)
+    {
+      throw IFSFileSystemProvider.toIOException(file.getPath(), e);
+    }
+    size_ = directory_ ? 0 : file.length();
+  }
+
+  public FileTime lastModifiedTime()
+  {
+    return FileTime.fromMillis(lastModified_);
+  }
+
+  public FileTime lastAccessTime()
+  {
+    return FileTime.fromMillis(lastAccessed_);
+  }
+
+  public FileTime creationTime()
+  {
+    return FileTime.fromMillis(created_);
+  }
+
+  public boolean isRegularFile()
+  {
+    return regularFile_;
+  }
+
+  public boolean isDirectory()
+  {
+    return directory_;
+  }
+
+  public boolean isSymbolicLink()
+  {
+    return symbolicLink_;
+  }
+
+  public boolean isOther()
+  {
+    return !regularFile_ && !directory_ && !symbolicLink_;
+  }
+
+  public long size()
+  {
+    return size_;
+  }
+
+  /**
+   * Returns null.  The file server does not return a key that identifies a file.
+   **/
+  public Object fileKey()
+  {
+    return null;
+  }
+
+  /**
+   * Returns the named attributes, for Files.readAttributes(Path, String).
+   *
+   * @param names The attribute names, separated by commas, or "*".
+   **/
+  Map<String,Object> toMap(String names)
+  {
+    Map<String,Object> all = new HashMap<String,Object>();
+    all.put("lastModifiedTime", lastModifiedTime());
+    all.put("lastAccessTime", lastAccessTime());
+    all.put("creationTime", creationTime());
+    all.put("size", Long.valueOf(size_));
+    all.put("isRegularFile", Boolean.valueOf(regularFile_));
+    all.put("isDirectory", Boolean.valueOf(directory_));
+    all.put("isSymbolicLink", Boolean.valueOf(symbolicLink_));
+    all.put("isOther", Boolean.valueOf(isOther()));
+    all.put("fileKey", null);
+    if (names.equals("*")) return all;
+
+    Map<String,Object> result = new HashMap<String,Object>();
+    String[] requested = names.split(",");
+    for (int i = 0; i < requested.length; ++i)
+    {
+      if (!all.containsKey(requested[i]))
+        throw new IllegalArgumentException(requested[i]);
+      result.put(requested[i], all.get(requested[i]));
+    }
+    return result;
+  }
+
+
+  /**
+   * The "basic" attribute view of an object in the integrated file system.
+   * Only the last modified time can be set.
+   **/
+  static final class View implements BasicFileAttributeView
+  {
+    private final IFSPath path_;
+
+    View(IFSPath path)
+    {
+      path_ = path;
+    }
+
+    public String name()
+    {
+      return "basic";
+    }
+
+    public BasicFileAttributes readAttributes() throws IOException
+    {
+      return new IFSFileAttributes(path_.getFileSystem().getFile(path_));
+    }
+
+    public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime) throws IOException
+    {
+      if (lastAccessTime != null || createTime != null)
+        throw new UnsupportedOperationException();
+      if (lastModifiedTime == null) return;
+      IFSFile file = new IFSFile(path_.getFileSystem().getSystem(), path_.getIFSPathName());
+      try
+      {
+        if (!file.setLastModified(lastModifiedTime.toMillis()))
+          throw new NoSuchFileException(path_.toString());
+      }
+      catch (java.beans.PropertyVetoException e)
+      {
+        throw new InternalErrorException(InternalErrorException.UNEXPECTED_EXCEPTION, e);
+      }
+    }
+  }
+}
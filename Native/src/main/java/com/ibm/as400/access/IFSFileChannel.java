@@ -0,0 +1,406 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: IFSFileChannel.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+
+/**
+ * A FileChannel for a file in the integrated file system, backed by an
+ * IFSRandomAccessFile.
+ * <p>
+ * Heap buffers are read and written in place, without copying.  Direct
+ * buffers are staged through one array per channel, sized to the largest
+ * block the file server accepts on one request, so each block is one request.
+ * <p>
+ * Memory mapping is not supported.  Shared locks are converted to exclusive
+ * locks, since the file server only grants exclusive byte locks.
+ **/
+final class IFSFileChannel extends FileChannel
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  // Block size to use when the connection has not negotiated one.
+  private static final int DEFAULT_BLOCK_SIZE = 32 * 1024;
+  // How long lock() waits between attempts to lock a region locked by someone else.
+  private static final long LOCK_RETRY_MILLIS = 64;
+
+  private final IFSRandomAccessFile file_;
+  private final boolean readable_;
+  private final boolean writable_;
+  private final boolean append_;
+  private final IFSFile deleteOnClose_;  // null unless DELETE_ON_CLOSE was requested
+  private byte[] stagingBuffer_;
+
+  /**
+   * Constructs an IFSFileChannel object.
+   *
+   * @param file The open file.
+   * @param readable Whether the channel was opened for reading.
+   * @param writable Whether the channel was opened for writing.
+   * @param append Whether each write is made at the end of the file.
+   * @param deleteOnClose The file to delete when the channel is closed, or null.
+   **/
+  IFSFileChannel(IFSRandomAccessFile file, boolean readable, boolean writable, boolean append, IFSFile deleteOnClose)
+  {
+    file_ = file;
+    readable_ = readable;
+    writable_ = writable;
+    append_ = append;
+    deleteOnClose_ = deleteOnClose;
+  }
+
+  /**
+   * Returns the largest amount of data the file server accepts on one request.
+   **/
+  int getBlockSize()
+  {
+    IFSRandomAccessFileImpl impl = file_.getImpl();
+    if (impl instanceof IFSRandomAccessFileImplRemote)
+    {
+      int size = ((IFSRandomAccessFileImplRemote)impl).getMaxDataBlockSize();
+      if (size > 0) return size;
+    }
+    return DEFAULT_BLOCK_SIZE;
+  }
+
+  private byte[] getStagingBuffer()
+  {
+    int size = getBlockSize();
+    if (stagingBuffer_ == null || stagingBuffer_.length != size) stagingBuffer_ = new byte[size];
+    return stagingBuffer_;
+  }
+
+  private void checkOpen() throws ClosedChannelException
+  {
+    if (!isOpen()) throw new ClosedChannelException();
+  }
+
+  private void checkReadable() throws ClosedChannelException
+  {
+    checkOpen();
+    if (!readable_) throw new NonReadableChannelException();
+  }
+
+  private void checkWritable() throws ClosedChannelException
+  {
+    checkOpen();
+    if (!writable_) throw new NonWritableChannelException();
+  }
+
+  // Reads at the current file pointer.
+  private int readAtPointer(ByteBuffer dst) throws IOException
+  {
+    int remaining = dst.remaining();
+    if (remaining == 0) return 0;
+    if (dst.hasArray())
+    {
+      int bytesRead = file_.read(dst.array(), dst.arrayOffset() + dst.position(), remaining);
+      if (bytesRead > 0) dst.position(dst.position() + bytesRead);
+      return bytesRead;
+    }
+    byte[] staging = getStagingBuffer();
+    int total = 0;
+    while (remaining > 0)
+    {
+      int bytesRead = file_.read(staging, 0, Math.min(remaining, staging.length));
+      if (bytesRead <= 0)
+      {
+        return (total == 0) ? bytesRead : total;
+      }
+      dst.put(staging, 0, bytesRead);
+      total += bytesRead;
+      remaining -= bytesRead;
+    }
+    return total;
+  }
+
+  // Writes at the current file pointer.
+  private int writeAtPointer(ByteBuffer src) throws IOException
+  {
+    int remaining = src.remaining();
+    if (remaining == 0) return 0;
+    if (src.hasArray())
+    {
+      file_.write(src.array(), src.arrayOffset() + src.position(), remaining);
+      src.position(src.position() + remaining);
+      return remaining;
+    }
+    byte[] staging = getStagingBuffer();
+    while (src.hasRemaining())
+    {
+      int length = Math.min(src.remaining(), staging.length);
+      src.get(staging, 0, length);
+      file_.write(staging, 0, length);
+    }
+    return remaining;
+  }
+
+  public synchronized int read(ByteBuffer dst) throws IOException
+  {
+    checkReadable();
+    return readAtPointer(dst);
+  }
+
+  public synchronized long read(ByteBuffer[] dsts, int offset, int length) throws IOException
+  {
+    if (offset < 0 || length < 0 || offset > dsts.length - length)
+      throw new IndexOutOfBoundsException();
+    checkReadable();
+    long total = 0;
+    for (int i = offset; i < offset + length; ++i)
+    {
+      int expected = dsts[i].remaining();
+      int bytesRead = readAtPointer(dsts[i]);
+      if (bytesRead < 0) return (total == 0) ? -1 : total;
+      total += bytesRead;
+      if (bytesRead < expected) break;
+    }
+    return total;
+  }
+
+  public synchronized int write(ByteBuffer src) throws IOException
+  {
+    checkWritable();
+    if (append_) file_.seek(file_.length());
+    return writeAtPointer(src);
+  }
+
+  public synchronized long write(ByteBuffer[] srcs, int offset, int length) throws IOException
+  {
+    if (offset < 0 || length < 0 || offset > srcs.length - length)
+      throw new IndexOutOfBoundsException();
+    checkWritable();
+    if (append_) file_.seek(file_.length());
+    long total = 0;
+    for (int i = offset; i < offset + length; ++i)
+    {
+      total += writeAtPointer(srcs[i]);
+    }
+    return total;
+  }
+
+  public synchronized long position() throws IOException
+  {
+    checkOpen();
+    return file_.getFilePointer();
+  }
+
+  public synchronized FileChannel position(long newPosition) throws IOException
+  {
+    if (newPosition < 0)
+      throw new IllegalArgumentException("newPosition");
+    checkOpen();
+    file_.seek(newPosition);
+    return this;
+  }
+
+  public synchronized long size() throws IOException
+  {
+    checkOpen();
+    return file_.length();
+  }
+
+  public synchronized FileChannel truncate(long size) throws IOException
+  {
+    if (size < 0)
+      throw new IllegalArgumentException("size");
+    checkWritable();
+    long position = file_.getFilePointer();
+    if (size < file_.length()) file_.setLength(size);
+    if (position > size) file_.seek(size);
+    return this;
+  }
+
+  public void force(boolean metaData) throws IOException
+  {
+    checkOpen();
+    if (writable_) file_.flush();
+  }
+
+  public synchronized int read(ByteBuffer dst, long position) throws IOException
+  {
+    if (position < 0)
+      throw new IllegalArgumentException("position");
+    checkReadable();
+    long saved = file_.getFilePointer();
+    try
+    {
+      file_.seek(position);
+      return readAtPointer(dst);
+    }
+    finally
+    {
+      file_.seek(saved);
+    }
+  }
+
+  public synchronized int write(ByteBuffer src, long position) throws IOException
+  {
+    if (position < 0)
+      throw new IllegalArgumentException("position");
+    checkWritable();
+    long saved = file_.getFilePointer();
+    try
+    {
+      file_.seek(position);
+      return writeAtPointer(src);
+    }
+    finally
+    {
+      file_.seek(saved);
+    }
+  }
+
+  public long transferTo(long position, long count, WritableByteChannel target) throws IOException
+  {
+    if (position < 0 || count < 0)
+      throw new IllegalArgumentException("position, count");
+    checkReadable();
+    ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(count, getBlockSize()));
+    long total = 0;
+    while (total < count)
+    {
+      buffer.clear();
+      if (buffer.capacity() > count - total) buffer.limit((int)(count - total));
+      int bytesRead = read(buffer, position + total);
+      if (bytesRead <= 0) break;
+      buffer.flip();
+      while (buffer.hasRemaining())
+      {
+        target.write(buffer);
+      }
+      total += bytesRead;
+    }
+    return total;
+  }
+
+  public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException
+  {
+    if (position < 0 || count < 0)
+      throw new IllegalArgumentException("position, count");
+    checkWritable();
+    ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(count, getBlockSize()));
+    long total = 0;
+    while (total < count)
+    {
+      buffer.clear();
+      if (buffer.capacity() > count - total) buffer.limit((int)(count - total));
+      int bytesRead = src.read(buffer);
+      if (bytesRead <= 0) break;
+      buffer.flip();
+      write(buffer, position + total);
+      total += bytesRead;
+    }
+    return total;
+  }
+
+  /**
+   * Memory mapping is not supported.
+   * @exception UnsupportedOperationException Always.
+   **/
+  public MappedByteBuffer map(MapMode mode, long position, long size)
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  public FileLock lock(long position, long size, boolean shared) throws IOException
+  {
+    while (true)
+    {
+      FileLock lock = tryLock(position, size, shared);
+      if (lock != null) return lock;
+      try
+      {
+        Thread.sleep(LOCK_RETRY_MILLIS);
+      }
+      catch (InterruptedException e)
+      {
+        throw new InterruptedIOException();
+      }
+    }
+  }
+
+  public FileLock tryLock(long position, long size, boolean shared) throws IOException
+  {
+    if (position < 0 || size <= 0)
+      throw new IllegalArgumentException("position, size");
+    checkOpen();
+    try
+    {
+      IFSKey key;
+      synchronized (this)
+      {
+        key = file_.lock(position, size);
+      }
+      return new IFSFileLock(this, position, size, key);
+    }
+    catch (ExtendedIOException e)
+    {
+      if (e.getReturnCode() == ExtendedIOException.LOCK_VIOLATION) return null;
+      throw e;
+    }
+  }
+
+  protected void implCloseChannel() throws IOException
+  {
+    try
+    {
+      file_.close();
+    }
+    finally
+    {
+      if (deleteOnClose_ != null) deleteOnClose_.delete();
+    }
+  }
+
+
+  // A byte lock on the file.
+  private final class IFSFileLock extends FileLock
+  {
+    private IFSKey key_;
+
+    IFSFileLock(IFSFileChannel channel, long position, long size, IFSKey key)
+    {
+      super(channel, position, size, false);
+      key_ = key;
+    }
+
+    public synchronized boolean isValid()
+    {
+      return key_ != null && IFSFileChannel.this.isOpen();
+    }
+
+    public synchronized void release() throws IOException
+    {
+      if (key_ == null) return;
+      checkOpen();
+      synchronized (IFSFileChannel.this)
+      {
+        file_.unlock(key_);
+      }
+      key_ = null;
+    }
+  }
+}
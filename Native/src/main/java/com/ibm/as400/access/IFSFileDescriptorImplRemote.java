@@ -29,6 +29,7 @@ package com.ibm.as400.access;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.Vector;
 
 
@@ -67,6 +68,23 @@ implements IFSFileDescriptorImpl
   private int         maxDataBlockSize_ = 1024; // @B2A
        // Used by IFSFileOutputStreamImplRemote, IFSRandomAccessFileImplRemote.
 
+  // The number of read or write requests kept outstanding on the connection.
+  // See SystemProperties.IFSFILE_PIPELINE_DEPTH.
+  private static final int MAX_PIPELINE_DEPTH = 64;
+  private static final int DEFAULT_PIPELINE_DEPTH = getDefaultPipelineDepth();
+  private int         pipelineDepth_ = DEFAULT_PIPELINE_DEPTH;
+  // The most data that read-ahead requests ask for at one time, so that
+  // read-ahead for one file does not tie up much memory or connection.
+  private static final int MAX_READ_AHEAD_BYTES = 1024 * 1024;
+  // Read-ahead state, used when pipelineDepth_ is more than 1.
+  private final Object readAheadLock_ = new Object();
+  private ArrayDeque  readAheadRequests_;  // outstanding ReadAheadRequests, oldest first
+  private byte[]      readAheadData_;      // data received but not yet consumed
+  private int         readAheadIndex_;
+  private long        readAheadOffset_ = -1; // file offset of readAheadData_[readAheadIndex_]
+  private long        nextReadAheadOffset_;  // file offset of the next block to request
+  private boolean     readAheadEndOfFile_;
+
   private boolean     determinedSystemVRM_ = false;  // @B3A @B4C
   private int         systemVRM_;                    // @B3A @B4C
   transient int errorRC_;  // error return code from most recent request
@@ -142,6 +160,7 @@ implements IFSFileDescriptorImpl
 
   public void close0() throws IOException
   {
+    discardReadAhead();
     isOpen_ = false;
     close(fileHandle_);
     fileHandle_ = UNINITIALIZED;
@@ -818,6 +837,12 @@ implements IFSFileDescriptorImpl
     return fileOffset_;
   }
 
+  // Returns the largest amount of data the server accepts on one request.
+  int getMaxDataBlockSize()
+  {
+    return maxDataBlockSize_;
+  }
+
   Object getParent()
   {
     return parent_;
@@ -1217,6 +1242,11 @@ implements IFSFileDescriptorImpl
       return 0;
     }
 
+    if (pipelineDepth_ > 1)
+    {
+      return readPipelined(data, dataOffset, length);
+    }
+
     int totalBytesRead = 0;
     int bytesRemainingToRead = length;
     boolean endOfFile = false;
@@ -1256,12 +1286,11 @@ implements IFSFileDescriptorImpl
         if (ds instanceof IFSReadRep)
         {
           // Copy the data from the reply to the data parameter.
-          byte[] buffer = ((IFSReadRep) ds).getData();
-          if (buffer.length > 0)
+          int bytesCopied = ((IFSReadRep) ds).getData(data, dataOffset);
+          if (bytesCopied > 0)
           {
-            System.arraycopy(buffer, 0, data, dataOffset, buffer.length);
-            bytesReadByThisRequest += buffer.length;
-            dataOffset += buffer.length;
+            bytesReadByThisRequest += bytesCopied;
+            dataOffset += bytesCopied;
           }
           else // no data returned. This implies end-of-file (e.g. if file is empty).
           {
@@ -1301,6 +1330,7 @@ implements IFSFileDescriptorImpl
 
         // Get the next reply if not end of chain.
         endOfChain = ((IFSDataStream) ds).isEndOfChain();
+        ds.releaseData();
         if (!endOfChain)
         {
           try
@@ -1340,6 +1370,273 @@ implements IFSFileDescriptorImpl
     return (endOfFile && totalBytesRead == 0 ? -1 : totalBytesRead);
   }
 
+  // Reads using read-ahead.  Read requests for the blocks that follow the
+  // caller's position are kept outstanding, up to pipelineDepth_ of them
+  // and MAX_READ_AHEAD_BYTES in all, so sequential reads find their data received or already on its way.
+  private int readPipelined(byte[] data,
+                            int    dataOffset,
+                            int    length)
+    throws IOException, AS400SecurityException
+  {
+    synchronized (readAheadLock_)
+    {
+      // If the file was positioned elsewhere, the data read ahead is of no use.
+      if (readAheadOffset_ != fileOffset_)
+      {
+        discardReadAhead();
+      }
+
+      int totalBytesRead = 0;
+      boolean succeeded = false;
+      try
+      {
+        while (totalBytesRead < length)
+        {
+          int available = (readAheadData_ == null) ? 0 : readAheadData_.length - readAheadIndex_;
+          if (available > 0)
+          {
+            int bytesToCopy = Math.min(available, length - totalBytesRead);
+            System.arraycopy(readAheadData_, readAheadIndex_, data, dataOffset + totalBytesRead, bytesToCopy);
+            readAheadIndex_ += bytesToCopy;
+            readAheadOffset_ += bytesToCopy;
+            totalBytesRead += bytesToCopy;
+            continue;
+          }
+          if (readAheadEndOfFile_)
+          {
+            break;
+          }
+
+          requestReadAhead();
+          ReadAheadRequest request = (ReadAheadRequest) readAheadRequests_.poll();
+          byte[] block = receiveReadData(request.correlation_);
+          readAheadData_ = block;
+          readAheadIndex_ = 0;
+          if (block == null)
+          {
+            // End of file.  The requests beyond it will not return data either.
+            readAheadEndOfFile_ = true;
+            drainReadAheadRequests();
+          }
+          else if (block.length < request.length_)
+          {
+            // A short block means the requests after it start at the wrong offsets.
+            drainReadAheadRequests();
+            nextReadAheadOffset_ = request.offset_ + block.length;
+          }
+        }
+        succeeded = true;
+      }
+      finally
+      {
+        if (!succeeded)
+        {
+          abandonReadAhead();
+        }
+      }
+
+      incrementFileOffset(totalBytesRead);
+      return (readAheadEndOfFile_ && totalBytesRead == 0 ? -1 : totalBytesRead);
+    }
+  }
+
+  // Sends read requests of one data block each, until pipelineDepth_ of them
+  // are outstanding, or they ask for MAX_READ_AHEAD_BYTES in all.  At least
+  // one request is always outstanding.  The block size does not depend on
+  // the caller's read length, so a large read does not make every request large.
+  private void requestReadAhead()
+    throws IOException
+  {
+    int blockLength = Math.min(maxDataBlockSize_, MAX_BYTES_PER_READ);
+    int depth = Math.max(1, Math.min(pipelineDepth_, MAX_READ_AHEAD_BYTES / blockLength));
+    if (readAheadRequests_ == null)
+    {
+      readAheadRequests_ = new ArrayDeque(depth);
+    }
+    while (readAheadRequests_.size() < depth)
+    {
+      IFSReadReq req = new IFSReadReq(fileHandle_, nextReadAheadOffset_,
+                                      blockLength, serverDatastreamLevel_);
+      readAheadRequests_.add(new ReadAheadRequest(sendPipelined(req), nextReadAheadOffset_, blockLength));
+      nextReadAheadOffset_ += blockLength;
+    }
+  }
+
+  // Receives the replies to one read request.
+  // Returns the data, or null if the request was at or beyond the end of file.
+  private byte[] receiveReadData(int correlation)
+    throws IOException, AS400SecurityException
+  {
+    byte[] result = null;
+    boolean endOfChain;
+    do
+    {
+      ClientAccessDataStream ds = receivePipelined(correlation);
+      if (ds instanceof IFSReadRep)
+      {
+        byte[] buffer = ((IFSReadRep) ds).getData();
+        if (buffer.length > 0)
+        {
+          if (result == null)
+          {
+            result = buffer;
+          }
+          else
+          {
+            byte[] combined = new byte[result.length + buffer.length];
+            System.arraycopy(result, 0, combined, 0, result.length);
+            System.arraycopy(buffer, 0, combined, result.length, buffer.length);
+            result = combined;
+          }
+        }
+      }
+      else if (ds instanceof IFSReturnCodeRep)
+      {
+        int rc = ((IFSReturnCodeRep) ds).getReturnCode();
+        if (rc != IFSReturnCodeRep.SUCCESS && rc != IFSReturnCodeRep.NO_MORE_DATA)
+        {
+          throwSecurityExceptionIfAccessDenied(path_,rc); // check for "access denied"
+          Trace.log(Trace.ERROR, "IFSReturnCodeRep return code", descriptionForReturnCode(rc));
+          throw new ExtendedIOException(path_, rc);
+        }
+      }
+      else
+      {
+        // Unknown data stream.
+        Trace.log(Trace.ERROR, "Unknown reply data stream", ds.data_);
+        throw new
+          InternalErrorException(Integer.toHexString(ds.getReqRepID()),
+                                 InternalErrorException.DATA_STREAM_UNKNOWN);
+      }
+      endOfChain = ((IFSDataStream) ds).isEndOfChain();
+      ds.releaseData();
+    }
+    while (!endOfChain);
+    return result;
+  }
+
+  // Discards the data read ahead, after receiving the replies to the
+  // outstanding read-ahead requests.
+  private void discardReadAhead()
+    throws IOException
+  {
+    synchronized (readAheadLock_)
+    {
+      try
+      {
+        drainReadAheadRequests();
+      }
+      finally
+      {
+        resetReadAhead();
+      }
+    }
+  }
+
+  // Discards the data read ahead after an error, ignoring further errors.
+  private void abandonReadAhead()
+  {
+    try
+    {
+      drainReadAheadRequests();
+    }
+    catch (Exception e)
+    {
+      Trace.log(Trace.WARNING, "Error while discarding read-ahead data for " + path_, e);
+    }
+    resetReadAhead();
+  }
+
+  // Receives and ignores the replies to the outstanding read-ahead requests.
+  private void drainReadAheadRequests()
+    throws IOException
+  {
+    if (readAheadRequests_ == null) return;
+    ReadAheadRequest request;
+    while ((request = (ReadAheadRequest) readAheadRequests_.poll()) != null)
+    {
+      if (server_ == null) continue;  // the connection was dropped
+      boolean endOfChain;
+      do
+      {
+        ClientAccessDataStream ds = receivePipelined(request.correlation_);
+        endOfChain = ((IFSDataStream) ds).isEndOfChain();
+        ds.releaseData();
+      }
+      while (!endOfChain);
+    }
+  }
+
+  private void resetReadAhead()
+  {
+    if (readAheadRequests_ != null) readAheadRequests_.clear();
+    readAheadData_ = null;
+    readAheadIndex_ = 0;
+    readAheadOffset_ = fileOffset_;
+    nextReadAheadOffset_ = fileOffset_;
+    readAheadEndOfFile_ = false;
+  }
+
+  // Sends a request without waiting for its reply.  Returns the correlation ID.
+  private int sendPipelined(ClientAccessDataStream req)
+    throws IOException
+  {
+    try
+    {
+      return server_.send(req);
+    }
+    catch(ConnectionDroppedException e)
+    {
+      Trace.log(Trace.ERROR, "Byte stream server connection lost");
+      connectionDropped(e);
+      throw e;
+    }
+  }
+
+  // Receives the next reply to a request sent by sendPipelined().
+  private ClientAccessDataStream receivePipelined(int correlation)
+    throws IOException
+  {
+    try
+    {
+      return (ClientAccessDataStream) server_.receive(correlation);
+    }
+    catch(ConnectionDroppedException e)
+    {
+      Trace.log(Trace.ERROR, "Byte stream server connection lost");
+      connectionDropped(e);
+      throw e;
+    }
+    catch(InterruptedException e)
+    {
+      Trace.log(Trace.ERROR, "Interrupted", e);
+      InterruptedIOException throwException = new InterruptedIOException(e.getMessage());
+      try {
+        throwException.initCause(e); 
+      } catch (Throwable t) {} 
+      throw throwException;
+    }
+  }
+
+  // Returns the pipeline depth set by the system property, or 1.
+  private static int getDefaultPipelineDepth()
+  {
+    String value = SystemProperties.getProperty(SystemProperties.IFSFILE_PIPELINE_DEPTH);
+    if (value != null)
+    {
+      try
+      {
+        int depth = Integer.parseInt(value.trim());
+        return Math.max(1, Math.min(depth, MAX_PIPELINE_DEPTH));
+      }
+      catch (NumberFormatException e)
+      {
+        Trace.log(Trace.WARNING, "Ignoring " + SystemProperties.IFSFILE_PIPELINE_DEPTH + " value: " + value);
+      }
+    }
+    return 1;
+  }
+
   void setConverter(ConverterImplRemote converter)
   {
     converter_ = converter;
@@ -1369,6 +1666,7 @@ implements IFSFileDescriptorImpl
     throws IOException, AS400SecurityException
   {
     // Assume that we are connected to the server.
+    discardReadAhead();
 
     // Prepare to issue a 'change attributes' request.
     ClientAccessDataStream ds = null;
@@ -1607,6 +1905,13 @@ implements IFSFileDescriptorImpl
     throws IOException, AS400SecurityException
   {
     // Assume the arguments have been validated by the caller.
+    discardReadAhead();
+
+    if (pipelineDepth_ > 1 && length > maxDataBlockSize_)
+    {
+      writeBytesPipelined(data, dataOffset, length, forceToStorage);
+      return;
+    }
 
     // Send write requests until all data has been written.
     while(length > 0)
@@ -1695,6 +2000,116 @@ implements IFSFileDescriptorImpl
       }
     }
   }
+  // Writes with up to pipelineDepth_ write requests outstanding.  The replies
+  // are checked in the order the requests were sent.  After an error no more
+  // requests are sent; the outstanding ones are answered, then the first
+  // error is thrown.  The file offset advances only over data written before
+  // the first error.
+  private void writeBytesPipelined(byte[]  data,
+                                   int     dataOffset,
+                                   int     length,
+                                   boolean forceToStorage)
+    throws IOException, AS400SecurityException
+  {
+    int depth = pipelineDepth_;
+    int[] correlations = new int[depth];
+    int[] lengths = new int[depth];
+    int oldest = 0;
+    int outstanding = 0;
+    long offset = fileOffset_;
+    Exception failure = null;
+
+    while (outstanding > 0 || (length > 0 && failure == null))
+    {
+      if (length > 0 && failure == null && outstanding < depth)
+      {
+        int writeLength = Math.min(length, maxDataBlockSize_);
+        IFSWriteReq req = new IFSWriteReq(fileHandle_, offset,
+                                          data, dataOffset, writeLength,
+                                          0xffff, forceToStorage, serverDatastreamLevel_);
+        int slot = (oldest + outstanding) % depth;
+        correlations[slot] = sendPipelined(req);
+        lengths[slot] = writeLength;
+        ++outstanding;
+        offset += writeLength;
+        dataOffset += writeLength;
+        length -= writeLength;
+        continue;
+      }
+
+      int correlation = correlations[oldest];
+      int writeLength = lengths[oldest];
+      oldest = (oldest + 1) % depth;
+      --outstanding;
+      try
+      {
+        checkWriteReply(receivePipelined(correlation), writeLength);
+        if (failure == null) incrementFileOffset(writeLength);
+      }
+      catch (ConnectionDroppedException e)
+      {
+        throw e;  // No more replies will arrive.
+      }
+      catch (InterruptedIOException e)
+      {
+        throw e;
+      }
+      catch (IOException e)
+      {
+        if (failure == null) failure = e;
+      }
+      catch (AS400SecurityException e)
+      {
+        if (failure == null) failure = e;
+      }
+    }
+
+    if (failure instanceof AS400SecurityException) throw (AS400SecurityException) failure;
+    if (failure != null) throw (IOException) failure;
+  }
+
+  // Checks the reply to a write request, which must have written all its data.
+  private void checkWriteReply(ClientAccessDataStream ds, int writeLength)
+    throws IOException, AS400SecurityException
+  {
+    if (ds instanceof IFSWriteRep)
+    {
+      IFSWriteRep rep = (IFSWriteRep) ds;
+      int rc = rep.getReturnCode();
+      if (rc != 0)
+      {
+        Trace.log(Trace.ERROR, "IFSWriteRep return code", rc);
+        throw new ExtendedIOException(path_, rc);
+      }
+      int lengthWritten = writeLength - rep.getLengthNotWritten();
+      if (lengthWritten != writeLength)
+      {
+        Trace.log(Trace.ERROR, "Incomplete write.  Only " +
+                  Integer.toString(lengthWritten) + " bytes of a requested " +
+                  Integer.toString(writeLength) + " were written.");
+        throw new ExtendedIOException(path_, ExtendedIOException.UNKNOWN_ERROR);
+      }
+    }
+    else if (ds instanceof IFSReturnCodeRep)
+    {
+      int rc = ((IFSReturnCodeRep) ds).getReturnCode();
+      if (rc != IFSReturnCodeRep.SUCCESS)
+      {
+        throwSecurityExceptionIfAccessDenied(path_,rc); // check for "access denied"
+        Trace.log(Trace.ERROR, "IFSReturnCodeRep return code", descriptionForReturnCode(rc));
+        throw new ExtendedIOException(path_, rc);
+      }
+    }
+    else
+    {
+      // Unknown data stream.
+      Trace.log(Trace.ERROR, "Unknown reply data stream", ds.data_);
+      throw new
+        InternalErrorException(Integer.toHexString(ds.getReqRepID()),
+                               InternalErrorException.DATA_STREAM_UNKNOWN);
+    }
+  }
+
   public int getServerDatastreamLevel() {
     return serverDatastreamLevel_;
   }
@@ -2166,8 +2581,19 @@ implements IFSFileDescriptorImpl
   }
   //@AC7A End
 
-}
-
-
 
+  // A read-ahead request that has been sent, but whose reply has not been received.
+  private static final class ReadAheadRequest
+  {
+    final int correlation_;
+    final long offset_;
+    final int length_;
 
+    ReadAheadRequest(int correlation, long offset, int length)
+    {
+      correlation_ = correlation;
+      offset_ = offset;
+      length_ = length;
+    }
+  }
+}
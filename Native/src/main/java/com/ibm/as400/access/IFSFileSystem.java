@@ -0,0 +1,247 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: IFSFileSystem.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Collections;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+
+/**
+ * The integrated file system of one system, as a java.nio.file.FileSystem.
+ * A file system is created by IFSFileSystemProvider for an "ifs:" URI.
+ **/
+final class IFSFileSystem extends FileSystem
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private final IFSFileSystemProvider provider_;
+  private final String authority_;
+  private final AS400 system_;
+  private final boolean ownsSystem_;  // whether close() disconnects the system
+  private volatile boolean open_ = true;
+
+  /**
+   * Constructs an IFSFileSystem object.
+   *
+   * @param provider The provider that created the file system.
+   * @param authority The authority of the URIs of the file system.
+   * @param system The system.
+   * @param ownsSystem true if the file system created the system object, and
+   *                   should disconnect it when it is closed.
+   **/
+  IFSFileSystem(IFSFileSystemProvider provider, String authority, AS400 system, boolean ownsSystem)
+  {
+    provider_ = provider;
+    authority_ = authority;
+    system_ = system;
+    ownsSystem_ = ownsSystem;
+  }
+
+  String getAuthority()
+  {
+    return authority_;
+  }
+
+  /**
+   * Returns the system that holds the file system.
+   **/
+  AS400 getSystem()
+  {
+    return system_;
+  }
+
+  /**
+   * Returns an IFSFile for the path.  If the path was returned by a directory
+   * stream, the IFSFile has the attributes cached when the directory was listed.
+   **/
+  IFSFile getFile(IFSPath path)
+  {
+    checkOpen();
+    IFSFile cachedFile = path.getCachedFile();
+    return (cachedFile != null) ? cachedFile : new IFSFile(system_, path.getIFSPathName());
+  }
+
+  void checkOpen()
+  {
+    if (!open_) throw new ClosedFileSystemException();
+  }
+
+  public FileSystemProvider provider()
+  {
+    return provider_;
+  }
+
+  public void close()
+  {
+    if (!open_) return;
+    open_ = false;
+    provider_.removeFileSystem(authority_, this);
+    if (ownsSystem_) system_.disconnectService(AS400.FILE);
+  }
+
+  public boolean isOpen()
+  {
+    return open_;
+  }
+
+  public boolean isReadOnly()
+  {
+    return false;
+  }
+
+  public String getSeparator()
+  {
+    return "/";
+  }
+
+  public Iterable<Path> getRootDirectories()
+  {
+    return Collections.<Path>singletonList(new IFSPath(this, "/"));
+  }
+
+  /**
+   * Returns an empty list.  The file server does not describe file stores.
+   **/
+  public Iterable<FileStore> getFileStores()
+  {
+    return Collections.emptyList();
+  }
+
+  public Set<String> supportedFileAttributeViews()
+  {
+    return Collections.singleton("basic");
+  }
+
+  public Path getPath(String first, String... more)
+  {
+    if (more.length == 0) return new IFSPath(this, first);
+    StringBuilder sb = new StringBuilder(first);
+    for (int i = 0; i < more.length; ++i)
+    {
+      if (more[i].length() == 0) continue;
+      if (sb.length() > 0) sb.append('/');
+      sb.append(more[i]);
+    }
+    return new IFSPath(this, sb.toString());
+  }
+
+  /**
+   * Returns a matcher for "glob:" and "regex:" patterns.  Glob patterns support
+   * *, **, ?, [...] and {...,...}.
+   **/
+  public PathMatcher getPathMatcher(String syntaxAndPattern)
+  {
+    int colon = syntaxAndPattern.indexOf(':');
+    if (colon <= 0)
+      throw new IllegalArgumentException(syntaxAndPattern);
+    String syntax = syntaxAndPattern.substring(0, colon);
+    String pattern = syntaxAndPattern.substring(colon + 1);
+    String regex;
+    if (syntax.equalsIgnoreCase("regex")) regex = pattern;
+    else if (syntax.equalsIgnoreCase("glob")) regex = globToRegex(pattern);
+    else throw new UnsupportedOperationException(syntax);
+
+    final Pattern compiled = Pattern.compile(regex);
+    return new PathMatcher() {
+      public boolean matches(Path path)
+      {
+        return compiled.matcher(path.toString()).matches();
+      }
+    };
+  }
+
+  // Converts a glob to a regular expression.
+  static String globToRegex(String glob)
+  {
+    StringBuilder regex = new StringBuilder(glob.length() + 8);
+    boolean inGroup = false;
+    for (int i = 0; i < glob.length(); ++i)
+    {
+      char c = glob.charAt(i);
+      switch (c)
+      {
+        case '*':
+          if (i + 1 < glob.length() && glob.charAt(i + 1) == '*')
+          {
+            regex.append(".*");
+            ++i;
+          }
+          else
+          {
+            regex.append("[^/]*");
+          }
+          break;
+        case '?':
+          regex.append("[^/]");
+          break;
+        case '[':
+          regex.append('[');
+          if (i + 1 < glob.length() && glob.charAt(i + 1) == '!')
+          {
+            regex.append('^');
+            ++i;
+          }
+          break;
+        case ']':
+          regex.append(']');
+          break;
+        case '{':
+          regex.append("(?:");
+          inGroup = true;
+          break;
+        case '}':
+          regex.append(')');
+          inGroup = false;
+          break;
+        case ',':
+          regex.append(inGroup ? "|" : ",");
+          break;
+        case '\\':
+          if (i + 1 < glob.length())
+          {
+            regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+          }
+          break;
+        default:
+          if ("().+^$|".indexOf(c) >= 0) regex.append('\\');
+          regex.append(c);
+      }
+    }
+    return regex.toString();
+  }
+
+  public UserPrincipalLookupService getUserPrincipalLookupService()
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  public WatchService newWatchService()
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  public String toString()
+  {
+    return IFSFileSystemProvider.SCHEME + "://" + authority_;
+  }
+}
@@ -0,0 +1,593 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: IFSFileSystemProvider.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.beans.PropertyVetoException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * The IFSFileSystemProvider class makes the integrated file system available
+ * through the java.nio.file API, for URIs of the form
+ * <code>ifs://[user@]system/path</code>.
+ * <p>
+ * A file system must be created for a system before paths on it can be used:
+ * <pre>
+ * Map env = new HashMap();
+ * env.put("system", as400);   // or "user" and "password"
+ * FileSystem fs = FileSystems.newFileSystem(URI.create("ifs://mysystem/"), env);
+ * try (SeekableByteChannel channel = Files.newByteChannel(fs.getPath("/home/data.bin"))) {
+ *   ...
+ * }
+ * </pre>
+ * The environment can contain:
+ * <ul>
+ * <li>"system" - The AS400 object to use.  The file system does not disconnect it when closed.
+ * <li>"user" - The user ID, if the URI does not contain one and no AS400 object is given.
+ * <li>"password" - The password, as a String or char[], if no AS400 object is given.
+ * </ul>
+ * Files are opened through IFSRandomAccessFile, and the channels returned
+ * are FileChannels.  Directory streams are backed by IFSFile.listFiles(),
+ * so reading the attributes of the paths they return does not make
+ * further requests to the system.  Only the "basic" attribute view is supported.
+ **/
+public class IFSFileSystemProvider extends FileSystemProvider
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  /**
+   * The URI scheme, "ifs".
+   **/
+  public static final String SCHEME = "ifs";
+
+  /**
+   * The environment key for the AS400 object of a new file system.
+   **/
+  public static final String ENV_SYSTEM = "system";
+  /**
+   * The environment key for the user ID of a new file system.
+   **/
+  public static final String ENV_USER = "user";
+  /**
+   * The environment key for the password of a new file system.
+   **/
+  public static final String ENV_PASSWORD = "password";
+
+  // The open file systems, keyed by URI authority.
+  private final ConcurrentHashMap<String,IFSFileSystem> fileSystems_ = new ConcurrentHashMap<String,IFSFileSystem>();
+
+  /**
+   * Constructs an IFSFileSystemProvider object.  It is normally constructed
+   * by java.nio.file.spi.FileSystemProvider.installedProviders().
+   **/
+  public IFSFileSystemProvider()
+  {
+  }
+
+  public String getScheme()
+  {
+    return SCHEME;
+  }
+
+  private static String getAuthority(URI uri)
+  {
+    if (!SCHEME.equalsIgnoreCase(uri.getScheme()))
+      throw new IllegalArgumentException("uri (" + uri + ")");
+    String authority = uri.getAuthority();
+    if (authority == null || uri.getHost() == null)
+      throw new IllegalArgumentException("uri (" + uri + ")");
+    return authority;
+  }
+
+  public FileSystem newFileSystem(URI uri, Map<String,?> env) throws IOException
+  {
+    String authority = getAuthority(uri);
+    AS400 system;
+    boolean ownsSystem;
+    Object value = env.get(ENV_SYSTEM);
+    if (value instanceof AS400)
+    {
+      system = (AS400)value;
+      ownsSystem = false;
+    }
+    else
+    {
+      String userID = uri.getUserInfo();
+      if (userID == null) userID = (String)env.get(ENV_USER);
+      Object password = env.get(ENV_PASSWORD);
+      if (userID == null)
+        system = new AS400(uri.getHost());
+      else if (password == null)
+        system = new AS400(uri.getHost(), userID);
+      else
+        system = new AS400(uri.getHost(), userID, (password instanceof char[]) ? new String((char[])password) : password.toString());
+      ownsSystem = true;
+    }
+
+    IFSFileSystem fileSystem = new IFSFileSystem(this, authority, system, ownsSystem);
+    if (fileSystems_.putIfAbsent(authority, fileSystem) != null)
+      throw new FileSystemAlreadyExistsException(authority);
+    return fileSystem;
+  }
+
+  public FileSystem getFileSystem(URI uri)
+  {
+    String authority = getAuthority(uri);
+    FileSystem fileSystem = fileSystems_.get(authority);
+    if (fileSystem == null)
+      throw new FileSystemNotFoundException(authority);
+    return fileSystem;
+  }
+
+  // Called by IFSFileSystem.close().
+  void removeFileSystem(String authority, IFSFileSystem fileSystem)
+  {
+    fileSystems_.remove(authority, fileSystem);
+  }
+
+  public Path getPath(URI uri)
+  {
+    String path = uri.getPath();
+    return getFileSystem(uri).getPath((path == null || path.length() == 0) ? "/" : path);
+  }
+
+  private static IFSPath toIFSPath(Path path)
+  {
+    if (path == null)
+      throw new NullPointerException("path");
+    if (!(path instanceof IFSPath))
+      throw new ProviderMismatchException();
+    IFSPath ifsPath = (IFSPath)path;
+    ifsPath.getFileSystem().checkOpen();
+    return ifsPath;
+  }
+
+  // Returns a new IFSFile for the path, without cached attributes.
+  private static IFSFile newFile(IFSPath path)
+  {
+    return new IFSFile(path.getFileSystem().getSystem(), path.getIFSPathName());
+  }
+
+  /**
+   * Converts a security exception to an IOException.
+   **/
+  static IOException toIOException(String path, AS400SecurityException e)
+  {
+    IOException exception = new AccessDeniedException(path, null, e.getMessage());
+    exception.initCause(e);
+    return exception;
+  }
+
+  // Converts an ExtendedIOException to the java.nio.file exception for its return code.
+  private static IOException toIOException(String path, ExtendedIOException e)
+  {
+    IOException exception;
+    switch (e.getReturnCode())
+    {
+      case ExtendedIOException.FILE_NOT_FOUND:
+      case ExtendedIOException.PATH_NOT_FOUND:
+        exception = new NoSuchFileException(path);
+        break;
+      case ExtendedIOException.DIR_ENTRY_EXISTS:
+        exception = new FileAlreadyExistsException(path);
+        break;
+      case ExtendedIOException.ACCESS_DENIED:
+        exception = new AccessDeniedException(path);
+        break;
+      case ExtendedIOException.DIR_NOT_EMPTY:
+        exception = new DirectoryNotEmptyException(path);
+        break;
+      default:
+        return e;
+    }
+    exception.initCause(e);
+    return exception;
+  }
+
+  public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException
+  {
+    return newFileChannel(path, options, attrs);
+  }
+
+  /**
+   * Opens a file.  The SYNC, DSYNC and SPARSE options are ignored.
+   * File attributes cannot be set when a file is created.
+   **/
+  public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException
+  {
+    IFSPath ifsPath = toIFSPath(path);
+    if (attrs.length > 0)
+      throw new UnsupportedOperationException("attrs");
+
+    boolean append = options.contains(StandardOpenOption.APPEND);
+    boolean write = append || options.contains(StandardOpenOption.WRITE);
+    boolean read = options.contains(StandardOpenOption.READ) || !write;
+    boolean truncate = write && options.contains(StandardOpenOption.TRUNCATE_EXISTING);
+    if (append && (options.contains(StandardOpenOption.READ) || truncate))
+      throw new IllegalArgumentException("options");
+
+    String mode = read ? (write ? "rw" : "r") : "w";
+    int existenceOption;
+    if (write && options.contains(StandardOpenOption.CREATE_NEW))
+      existenceOption = IFSRandomAccessFile.FAIL_OR_CREATE;
+    else if (write && options.contains(StandardOpenOption.CREATE))
+      existenceOption = truncate ? IFSRandomAccessFile.REPLACE_OR_CREATE : IFSRandomAccessFile.OPEN_OR_CREATE;
+    else
+      existenceOption = truncate ? IFSRandomAccessFile.REPLACE_OR_FAIL : IFSRandomAccessFile.OPEN_OR_FAIL;
+
+    IFSFile file = newFile(ifsPath);
+    IFSRandomAccessFile randomAccessFile;
+    try
+    {
+      randomAccessFile = new IFSRandomAccessFile(file, mode, IFSRandomAccessFile.SHARE_ALL, existenceOption);
+    }
+    catch (AS400SecurityException e)
+    {
+      throw toIOException(ifsPath.toString(), e);
+    }
+    catch (ExtendedIOException e)
+    {
+      throw toIOException(ifsPath.toString(), e);
+    }
+    IFSFile deleteOnClose = options.contains(StandardOpenOption.DELETE_ON_CLOSE) ? file : null;
+    return new IFSFileChannel(randomAccessFile, read, write, append, deleteOnClose);
+  }
+
+  /**
+   * Opens a file for asynchronous access.  If <i>executor</i> is null, the
+   * channel runs its operations on a thread of its own.
+   **/
+  public AsynchronousFileChannel newAsynchronousFileChannel(Path path, Set<? extends OpenOption> options, ExecutorService executor, FileAttribute<?>... attrs) throws IOException
+  {
+    return new IFSAsynchronousFileChannel((IFSFileChannel)newFileChannel(path, options, attrs), executor);
+  }
+
+  public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException
+  {
+    IFSPath ifsPath = toIFSPath(dir);
+    if (filter == null)
+      throw new NullPointerException("filter");
+    IFSFile file = newFile(ifsPath);
+    if (!file.isDirectory())
+    {
+      if (!file.exists()) throw new NoSuchFileException(ifsPath.toString());
+      throw new NotDirectoryException(ifsPath.toString());
+    }
+    return new IFSDirectoryStream(ifsPath, file.listFiles(), filter);
+  }
+
+  public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException
+  {
+    IFSPath ifsPath = toIFSPath(dir);
+    if (attrs.length > 0)
+      throw new UnsupportedOperationException("attrs");
+    IFSFile file = newFile(ifsPath);
+    if (!file.mkdir())
+    {
+      if (file.exists()) throw new FileAlreadyExistsException(ifsPath.toString());
+      IFSFile parent = file.getParentFile();
+      if (parent != null && !parent.exists()) throw new NoSuchFileException(parent.getPath());
+      throw new ExtendedIOException(ifsPath.toString(), ExtendedIOException.UNKNOWN_ERROR);
+    }
+  }
+
+  public void delete(Path path) throws IOException
+  {
+    IFSPath ifsPath = toIFSPath(path);
+    IFSFile file = newFile(ifsPath);
+    if (!file.delete())
+    {
+      if (!file.exists()) throw new NoSuchFileException(ifsPath.toString());
+      if (file.isDirectory()) throw new DirectoryNotEmptyException(ifsPath.toString());
+      throw new ExtendedIOException(ifsPath.toString(), ExtendedIOException.UNKNOWN_ERROR);
+    }
+  }
+
+  /**
+   * Copies a file.  Within one file system the copy is made by the system,
+   * without transferring the data.  Between file systems the data is
+   * transferred through channels.
+   **/
+  public void copy(Path source, Path target, CopyOption... options) throws IOException
+  {
+    IFSPath from = toIFSPath(source);
+    IFSPath to = toIFSPath(target);
+    boolean replace = Arrays.asList(options).contains(StandardCopyOption.REPLACE_EXISTING);
+
+    IFSFile fromFile = newFile(from);
+    if (!fromFile.exists()) throw new NoSuchFileException(from.toString());
+    if (isSameFile(from, to)) return;
+    prepareTarget(to, replace);
+
+    if (fromFile.isDirectory())
+    {
+      createDirectory(to);
+    }
+    else if (from.getFileSystem() == to.getFileSystem())
+    {
+      try
+      {
+        fromFile.copyTo(to.getIFSPathName(), false);
+      }
+      catch (AS400SecurityException e)
+      {
+        throw toIOException(from.toString(), e);
+      }
+      catch (ObjectAlreadyExistsException e)
+      {
+        throw new FileAlreadyExistsException(to.toString());
+      }
+    }
+    else
+    {
+      FileChannel in = newFileChannel(from, new HashSet<OpenOption>(Arrays.asList(new OpenOption[] { StandardOpenOption.READ })));
+      try
+      {
+        FileChannel out = newFileChannel(to, new HashSet<OpenOption>(Arrays.asList(new OpenOption[] { StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW })));
+        try
+        {
+          long size = in.size();
+          long position = 0;
+          while (position < size)
+          {
+            long transferred = in.transferTo(position, size - position, out);
+            if (transferred <= 0) break;
+            position += transferred;
+          }
+        }
+        finally
+        {
+          out.close();
+        }
+      }
+      finally
+      {
+        in.close();
+      }
+    }
+  }
+
+  // Deletes the target of a copy or move, if it exists and may be replaced.
+  private void prepareTarget(IFSPath target, boolean replace) throws IOException
+  {
+    if (newFile(target).exists())
+    {
+      if (!replace) throw new FileAlreadyExistsException(target.toString());
+      delete(target);
+    }
+  }
+
+  /**
+   * Moves or renames a file.  Within one file system the file is renamed,
+   * which is atomic.  Between file systems the file is copied, then deleted.
+   **/
+  public void move(Path source, Path target, CopyOption... options) throws IOException
+  {
+    IFSPath from = toIFSPath(source);
+    IFSPath to = toIFSPath(target);
+    if (from.getFileSystem() != to.getFileSystem())
+    {
+      if (Arrays.asList(options).contains(StandardCopyOption.ATOMIC_MOVE))
+        throw new java.nio.file.AtomicMoveNotSupportedException(from.toString(), to.toString(), null);
+      copy(from, to, options);
+      delete(from);
+      return;
+    }
+
+    IFSFile fromFile = newFile(from);
+    if (!fromFile.exists()) throw new NoSuchFileException(from.toString());
+    if (isSameFile(from, to)) return;
+    prepareTarget(to, Arrays.asList(options).contains(StandardCopyOption.REPLACE_EXISTING));
+    try
+    {
+      if (!fromFile.renameTo(newFile(to)))
+        throw new ExtendedIOException(from.toString(), ExtendedIOException.UNKNOWN_ERROR);
+    }
+    catch (PropertyVetoException e)
+    {
+      throw new InternalErrorException(InternalErrorException.UNEXPECTED_EXCEPTION, e);
+    }
+  }
+
+  public boolean isSameFile(Path path, Path path2) throws IOException
+  {
+    if (path.equals(path2)) return true;
+    if (!(path instanceof IFSPath) || !(path2 instanceof IFSPath)) return false;
+    if (((IFSPath)path).getFileSystem() != ((IFSPath)path2).getFileSystem()) return false;
+    return path.toAbsolutePath().normalize().equals(path2.toAbsolutePath().normalize());
+  }
+
+  public boolean isHidden(Path path) throws IOException
+  {
+    IFSPath ifsPath = toIFSPath(path);
+    try
+    {
+      return ifsPath.getFileSystem().getFile(ifsPath).isHidden();
+    }
+    catch (AS400SecurityException e)
+    {
+      throw toIOException(ifsPath.toString(), e);
+    }
+  }
+
+  /**
+   * File stores are not supported.
+   * @exception UnsupportedOperationException Always.
+   **/
+  public FileStore getFileStore(Path path)
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  public void checkAccess(Path path, AccessMode... modes) throws IOException
+  {
+    IFSPath ifsPath = toIFSPath(path);
+    IFSFile file = newFile(ifsPath);
+    if (!file.exists()) throw new NoSuchFileException(ifsPath.toString());
+    for (int i = 0; i < modes.length; ++i)
+    {
+      boolean allowed;
+      switch (modes[i])
+      {
+        case READ: allowed = file.canRead(); break;
+        case WRITE: allowed = file.canWrite(); break;
+        default: allowed = file.canExecute(); break;
+      }
+      if (!allowed) throw new AccessDeniedException(ifsPath.toString());
+    }
+  }
+
+  public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options)
+  {
+    if (type != BasicFileAttributeView.class) return null;
+    return type.cast(new IFSFileAttributes.View(toIFSPath(path)));
+  }
+
+  public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException
+  {
+    if (type != BasicFileAttributes.class)
+      throw new UnsupportedOperationException(type.getName());
+    IFSPath ifsPath = toIFSPath(path);
+    return type.cast(new IFSFileAttributes(ifsPath.getFileSystem().getFile(ifsPath)));
+  }
+
+  public Map<String,Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException
+  {
+    IFSPath ifsPath = toIFSPath(path);
+    int colon = attributes.indexOf(':');
+    if (colon >= 0)
+    {
+      if (!attributes.substring(0, colon).equals("basic"))
+        throw new UnsupportedOperationException(attributes);
+      attributes = attributes.substring(colon + 1);
+    }
+    return new IFSFileAttributes(ifsPath.getFileSystem().getFile(ifsPath)).toMap(attributes);
+  }
+
+  /**
+   * Sets an attribute.  Only "basic:lastModifiedTime" can be set.
+   **/
+  public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException
+  {
+    IFSPath ifsPath = toIFSPath(path);
+    if (!attribute.equals("lastModifiedTime") && !attribute.equals("basic:lastModifiedTime"))
+      throw new UnsupportedOperationException(attribute);
+    new IFSFileAttributes.View(ifsPath).setTimes((FileTime)value, null, null);
+  }
+
+
+  // The entries of a directory, listed when the stream was opened.
+  private static final class IFSDirectoryStream implements DirectoryStream<Path>
+  {
+    private final IFSPath dir_;
+    private final IFSFile[] entries_;
+    private final DirectoryStream.Filter<? super Path> filter_;
+    private boolean open_ = true;
+    private boolean iteratorReturned_ = false;
+
+    IFSDirectoryStream(IFSPath dir, IFSFile[] entries, DirectoryStream.Filter<? super Path> filter)
+    {
+      dir_ = dir;
+      entries_ = (entries == null) ? new IFSFile[0] : entries;
+      filter_ = filter;
+    }
+
+    public synchronized Iterator<Path> iterator()
+    {
+      if (!open_) throw new IllegalStateException("closed");
+      if (iteratorReturned_) throw new IllegalStateException("iterator");
+      iteratorReturned_ = true;
+      return new Iterator<Path>() {
+        private int index_ = 0;
+        private Path next_;
+
+        public boolean hasNext()
+        {
+          while (next_ == null && open_ && index_ < entries_.length)
+          {
+            IFSFile entry = entries_[index_++];
+            String parent = dir_.toString();
+            String name = (parent.length() == 0) ? entry.getName() : parent + "/" + entry.getName();
+            Path path = new IFSPath(dir_.getFileSystem(), name, entry);
+            try
+            {
+              if (filter_.accept(path)) next_ = path;
+            }
+            catch (IOException e)
+            {
+              throw new DirectoryIteratorException(e);
+            }
+          }
+          return next_ != null;
+        }
+
+        public Path next()
+        {
+          if (!hasNext()) throw new NoSuchElementException();
+          Path result = next_;
+          next_ = null;
+          return result;
+        }
+
+        public void remove()
+        {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    public synchronized void close()
+    {
+      open_ = false;
+    }
+  }
+}
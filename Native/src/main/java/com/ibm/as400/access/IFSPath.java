@@ -0,0 +1,396 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: IFSPath.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * A path to an object in the integrated file system of one system.
+ * The name separator is "/".  Relative paths are resolved against the
+ * root directory, since the file server has no current directory.
+ **/
+final class IFSPath implements Path
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private static final String[] NO_NAMES = new String[0];
+
+  private final IFSFileSystem fileSystem_;
+  private final String path_;      // never has a trailing or doubled separator
+  private String[] names_;         // split lazily
+
+  // The file this path was listed from, with the attributes cached by IFSFile.listFiles().
+  private transient IFSFile cachedFile_;
+
+  IFSPath(IFSFileSystem fileSystem, String path)
+  {
+    fileSystem_ = fileSystem;
+    path_ = normalizeSeparators(path);
+  }
+
+  IFSPath(IFSFileSystem fileSystem, String path, IFSFile cachedFile)
+  {
+    this(fileSystem, path);
+    cachedFile_ = cachedFile;
+  }
+
+  // Removes doubled and trailing separators.
+  private static String normalizeSeparators(String path)
+  {
+    if (path.indexOf('\u0000') >= 0)
+      throw new ExtendedIllegalArgumentException("path (" + path + ")", ExtendedIllegalArgumentException.PATH_NOT_VALID);
+    int length = path.length();
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; ++i)
+    {
+      char c = path.charAt(i);
+      if (c == '/' && sb.length() > 0 && sb.charAt(sb.length() - 1) == '/') continue;
+      sb.append(c);
+    }
+    if (sb.length() > 1 && sb.charAt(sb.length() - 1) == '/') sb.setLength(sb.length() - 1);
+    return (sb.length() == length) ? path : sb.toString();
+  }
+
+  private String[] names()
+  {
+    if (names_ == null)
+    {
+      if (path_.length() == 0)
+      {
+        names_ = new String[] { "" };
+      }
+      else
+      {
+        String relative = isAbsolute() ? path_.substring(1) : path_;
+        names_ = (relative.length() == 0) ? NO_NAMES : relative.split("/");
+      }
+    }
+    return names_;
+  }
+
+  // Returns the path made of names [begin, end), with a root if requested.
+  private IFSPath join(boolean root, String[] names, int begin, int end)
+  {
+    StringBuilder sb = new StringBuilder();
+    if (root) sb.append('/');
+    for (int i = begin; i < end; ++i)
+    {
+      if (i > begin) sb.append('/');
+      sb.append(names[i]);
+    }
+    return new IFSPath(fileSystem_, sb.toString());
+  }
+
+  private IFSPath toIFSPath(Path path)
+  {
+    if (path == null)
+      throw new NullPointerException("path");
+    if (!(path instanceof IFSPath) || ((IFSPath)path).fileSystem_ != fileSystem_)
+      throw new ProviderMismatchException();
+    return (IFSPath)path;
+  }
+
+  /**
+   * Returns the file this path was listed from, or null.  Its attributes
+   * may have been cached when the directory was listed.
+   **/
+  IFSFile getCachedFile()
+  {
+    return cachedFile_;
+  }
+
+  /**
+   * Returns the absolute path string used for IFSFile and IFSRandomAccessFile.
+   **/
+  String getIFSPathName()
+  {
+    return isAbsolute() ? path_ : "/" + path_;
+  }
+
+  public IFSFileSystem getFileSystem()
+  {
+    return fileSystem_;
+  }
+
+  public boolean isAbsolute()
+  {
+    return path_.length() > 0 && path_.charAt(0) == '/';
+  }
+
+  public Path getRoot()
+  {
+    return isAbsolute() ? new IFSPath(fileSystem_, "/") : null;
+  }
+
+  public Path getFileName()
+  {
+    if (path_.length() == 0) return this;
+    String[] names = names();
+    if (names.length == 0) return null;
+    if (names.length == 1 && !isAbsolute()) return this;
+    return new IFSPath(fileSystem_, names[names.length - 1]);
+  }
+
+  public Path getParent()
+  {
+    String[] names = names();
+    if (names.length == 0 || path_.length() == 0) return null;
+    if (names.length == 1) return getRoot();
+    return join(isAbsolute(), names, 0, names.length - 1);
+  }
+
+  public int getNameCount()
+  {
+    return names().length;
+  }
+
+  public Path getName(int index)
+  {
+    String[] names = names();
+    if (index < 0 || index >= names.length)
+      throw new IllegalArgumentException("index");
+    return new IFSPath(fileSystem_, names[index]);
+  }
+
+  public Path subpath(int beginIndex, int endIndex)
+  {
+    String[] names = names();
+    if (beginIndex < 0 || beginIndex >= names.length || endIndex <= beginIndex || endIndex > names.length)
+      throw new IllegalArgumentException("beginIndex, endIndex");
+    return join(false, names, beginIndex, endIndex);
+  }
+
+  public boolean startsWith(Path other)
+  {
+    if (!(other instanceof IFSPath) || ((IFSPath)other).fileSystem_ != fileSystem_) return false;
+    IFSPath that = (IFSPath)other;
+    if (that.isAbsolute() != isAbsolute()) return false;
+    if (that.path_.length() == 0) return path_.length() == 0;
+    String[] names = names();
+    String[] prefix = that.names();
+    if (prefix.length > names.length) return false;
+    for (int i = 0; i < prefix.length; ++i)
+    {
+      if (!prefix[i].equals(names[i])) return false;
+    }
+    return true;
+  }
+
+  public boolean startsWith(String other)
+  {
+    return startsWith(fileSystem_.getPath(other));
+  }
+
+  public boolean endsWith(Path other)
+  {
+    if (!(other instanceof IFSPath) || ((IFSPath)other).fileSystem_ != fileSystem_) return false;
+    IFSPath that = (IFSPath)other;
+    if (that.isAbsolute()) return equals(that);
+    if (that.path_.length() == 0) return path_.length() == 0;
+    String[] names = names();
+    String[] suffix = that.names();
+    if (suffix.length > names.length) return false;
+    for (int i = 1; i <= suffix.length; ++i)
+    {
+      if (!suffix[suffix.length - i].equals(names[names.length - i])) return false;
+    }
+    return true;
+  }
+
+  public boolean endsWith(String other)
+  {
+    return endsWith(fileSystem_.getPath(other));
+  }
+
+  public Path normalize()
+  {
+    String[] names = names();
+    List<String> kept = new ArrayList<String>(names.length);
+    boolean changed = false;
+    for (int i = 0; i < names.length; ++i)
+    {
+      String name = names[i];
+      if (name.equals("."))
+      {
+        changed = true;
+      }
+      else if (name.equals(".."))
+      {
+        int last = kept.size() - 1;
+        if (last >= 0 && !kept.get(last).equals(".."))
+        {
+          kept.remove(last);
+          changed = true;
+        }
+        else if (isAbsolute())
+        {
+          changed = true;  // ".." of the root is the root
+        }
+        else
+        {
+          kept.add(name);
+        }
+      }
+      else
+      {
+        kept.add(name);
+      }
+    }
+    if (!changed) return this;
+    String[] result = kept.toArray(new String[kept.size()]);
+    return join(isAbsolute(), result, 0, result.length);
+  }
+
+  public Path resolve(Path other)
+  {
+    IFSPath that = toIFSPath(other);
+    if (that.isAbsolute()) return that;
+    if (that.path_.length() == 0) return this;
+    if (path_.length() == 0) return that;
+    return new IFSPath(fileSystem_, path_ + "/" + that.path_);
+  }
+
+  public Path resolve(String other)
+  {
+    return resolve(fileSystem_.getPath(other));
+  }
+
+  public Path resolveSibling(Path other)
+  {
+    Path parent = getParent();
+    return (parent == null) ? toIFSPath(other) : parent.resolve(other);
+  }
+
+  public Path resolveSibling(String other)
+  {
+    return resolveSibling(fileSystem_.getPath(other));
+  }
+
+  public Path relativize(Path other)
+  {
+    IFSPath that = toIFSPath(other);
+    if (that.isAbsolute() != isAbsolute())
+      throw new IllegalArgumentException("other");
+    if (equals(that)) return new IFSPath(fileSystem_, "");
+    if (path_.length() == 0) return that;
+
+    String[] names = names();
+    String[] otherNames = (that.path_.length() == 0) ? NO_NAMES : that.names();
+    int common = 0;
+    while (common < names.length && common < otherNames.length && names[common].equals(otherNames[common]))
+    {
+      ++common;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int i = common; i < names.length; ++i)
+    {
+      if (sb.length() > 0) sb.append('/');
+      sb.append("..");
+    }
+    for (int i = common; i < otherNames.length; ++i)
+    {
+      if (sb.length() > 0) sb.append('/');
+      sb.append(otherNames[i]);
+    }
+    return new IFSPath(fileSystem_, sb.toString());
+  }
+
+  public URI toUri()
+  {
+    try
+    {
+      return new URI(IFSFileSystemProvider.SCHEME, fileSystem_.getAuthority(), getIFSPathName(), null, null);
+    }
+    catch (URISyntaxException e)
+    {
+      throw new InternalErrorException(InternalErrorException.UNEXPECTED_EXCEPTION, e);
+    }
+  }
+
+  public Path toAbsolutePath()
+  {
+    return isAbsolute() ? this : new IFSPath(fileSystem_, getIFSPathName());
+  }
+
+  public Path toRealPath(LinkOption... options) throws IOException
+  {
+    IFSPath real = (IFSPath)toAbsolutePath().normalize();
+    IFSFile file = fileSystem_.getFile(real);
+    if (!file.exists())
+      throw new NoSuchFileException(real.toString());
+    return real;
+  }
+
+  public File toFile()
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers)
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  public WatchKey register(WatchService watcher, WatchEvent.Kind<?>... events)
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  public Iterator<Path> iterator()
+  {
+    String[] names = names();
+    List<Path> list = new ArrayList<Path>(names.length);
+    for (int i = 0; i < names.length; ++i)
+    {
+      list.add(new IFSPath(fileSystem_, names[i]));
+    }
+    return list.iterator();
+  }
+
+  public int compareTo(Path other)
+  {
+    return path_.compareTo(((IFSPath)other).path_);
+  }
+
+  public boolean equals(Object obj)
+  {
+    if (!(obj instanceof IFSPath)) return false;
+    IFSPath that = (IFSPath)obj;
+    return that.fileSystem_ == fileSystem_ && that.path_.equals(path_);
+  }
+
+  public int hashCode()
+  {
+    return path_.hashCode();
+  }
+
+  public String toString()
+  {
+    return path_;
+  }
+}
@@ -120,6 +120,17 @@ implements IFSRandomAccessFileImpl
   }
 
 
+  /**
+   Returns the largest amount of data the server accepts on one request,
+   as negotiated when the connection was established.
+   @return The block size, in bytes.
+   **/
+  int getMaxDataBlockSize()
+  {
+    return fd_.getMaxDataBlockSize();
+  }
+
+
   /**
    Returns the current offset in this file.
    @return The offset from the beginning of the file, in bytes, at which the
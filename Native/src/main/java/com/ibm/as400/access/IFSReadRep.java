@@ -47,13 +47,32 @@ class IFSReadRep extends IFSDataStream {
     public byte[] getData() {
         int bytesRead = get32bit(FILE_DATA_LL_OFFSET) - 6;
         byte[] dataRead = new byte[bytesRead];
-        for (int i = 0; i < bytesRead; i++) {
-            dataRead[i] = data_[FILE_DATA_OFFSET + i];
-        }
+        System.arraycopy(data_, FILE_DATA_OFFSET, dataRead, 0, bytesRead);
 
         return dataRead;
     }
 
+    /**
+     * Copy the data into the specified array.
+     *
+     * @param buffer the array to copy the data into
+     * @param offset the offset in the array
+     * @return the number of bytes read
+     **/
+    int getData(byte[] buffer, int offset) {
+        int bytesRead = get32bit(FILE_DATA_LL_OFFSET) - 6;
+        System.arraycopy(data_, FILE_DATA_OFFSET, buffer, offset, bytesRead);
+        return bytesRead;
+    }
+
+    /**
+     * Read replies are received into pooled arrays.  The file descriptor
+     * releases them after copying the data.
+     **/
+    boolean isReplyBufferPoolable() {
+        return true;
+    }
+
     /**
      * Generates a hash code for this data stream.
      *
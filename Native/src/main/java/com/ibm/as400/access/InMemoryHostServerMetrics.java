@@ -0,0 +1,457 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: InMemoryHostServerMetrics.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Keeps host server measurements in memory, for each service.
+ * Round trip times and connection pool waits are kept in histograms, from
+ * which percentiles can be read.  The percentiles are approximate, to within
+ * about 12 percent.  Recording a measurement does not take a lock.
+ * <p>
+ * The measurements can be read with the methods of this class, or through
+ * JMX after {@link #registerMBean registerMBean()} is called.  Setting the
+ * <code>com.ibm.as400.access.HostServerMetrics</code> system property to
+ * <code>memory</code> creates an InMemoryHostServerMetrics object, registers
+ * it, and makes it the {@link HostServerMetrics#setDefault default}.
+ * <pre>
+ * InMemoryHostServerMetrics metrics = new InMemoryHostServerMetrics();
+ * HostServerMetrics.setDefault(metrics);
+ * ...
+ * long p99 = metrics.getRoundTripPercentile(AS400.DATABASE, 99);
+ * </pre>
+ **/
+public class InMemoryHostServerMetrics extends HostServerMetrics implements InMemoryHostServerMetricsMBean
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  /**
+   * The name under which {@link #registerMBean registerMBean()} registers the object.
+   **/
+  public static final String OBJECT_NAME = "com.ibm.as400.access:type=HostServerMetrics";
+
+  // Indexed by service constant.  The last entry counts connections not requested for a service.
+  private static final String[] SERVICE_NAMES = { "FILE", "PRINT", "COMMAND", "DATAQUEUE", "DATABASE", "RECORDACCESS", "CENTRAL", "SIGNON", "NONE" };
+  private static final int NO_SERVICE = SERVICE_NAMES.length - 1;
+
+  private static final class Counters
+  {
+    final LongAdder requests_ = new LongAdder();
+    final LongAdder requestBytes_ = new LongAdder();
+    final LongAdder replies_ = new LongAdder();
+    final LongAdder replyBytes_ = new LongAdder();
+    final LatencyHistogram roundTrips_ = new LatencyHistogram();
+    final LatencyHistogram borrowWaits_ = new LatencyHistogram();
+    final LongAdder uncompressedBytes_ = new LongAdder();
+    final LongAdder compressedBytes_ = new LongAdder();
+  }
+
+  // Replaced as a whole by reset().
+  private volatile Counters[] counters_ = newCounters();
+  private volatile LongAdder poolHits_ = new LongAdder();
+  private volatile LongAdder poolMisses_ = new LongAdder();
+  private volatile LongAdder bufferPoolHits_ = new LongAdder();
+  private volatile LongAdder bufferPoolMisses_ = new LongAdder();
+  private volatile LongAdder sqlParseCacheHits_ = new LongAdder();
+  private volatile LongAdder sqlParseCacheMisses_ = new LongAdder();
+  private ObjectName objectName_;
+
+  /**
+   * Constructs an InMemoryHostServerMetrics object.
+   **/
+  public InMemoryHostServerMetrics()
+  {
+  }
+
+  private static Counters[] newCounters()
+  {
+    Counters[] counters = new Counters[SERVICE_NAMES.length];
+    for (int i = 0; i < counters.length; ++i)
+    {
+      counters[i] = new Counters();
+    }
+    return counters;
+  }
+
+  // Returns the counters of a service, or null if the service is not valid.
+  private Counters countersOf(int service)
+  {
+    if (service == -1) service = NO_SERVICE;
+    return (service >= 0 && service <= NO_SERVICE) ? counters_[service] : null;
+  }
+
+  // Returns the counters of a service, for the query methods.
+  private Counters getCounters(int service)
+  {
+    Counters counters = countersOf(service);
+    if (counters == null)
+      throw new ExtendedIllegalArgumentException("service (" + service + ")", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+    return counters;
+  }
+
+  private static int serviceOf(String service)
+  {
+    if (service == null)
+      throw new NullPointerException("service");
+    for (int i = 0; i < SERVICE_NAMES.length; ++i)
+    {
+      if (SERVICE_NAMES[i].equalsIgnoreCase(service)) return (i == NO_SERVICE) ? -1 : i;
+    }
+    throw new ExtendedIllegalArgumentException("service (" + service + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+  }
+
+  private static void checkPercentile(double percentile)
+  {
+    if (percentile < 0 || percentile > 100)
+      throw new ExtendedIllegalArgumentException("percentile", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+  }
+
+  public void requestSent(int service, int bytes)
+  {
+    Counters counters = countersOf(service);
+    if (counters == null) return;
+    counters.requests_.increment();
+    counters.requestBytes_.add(bytes);
+  }
+
+  public void replyReceived(int service, int bytes, long roundTripNanos)
+  {
+    Counters counters = countersOf(service);
+    if (counters == null) return;
+    counters.replies_.increment();
+    counters.replyBytes_.add(bytes);
+    if (roundTripNanos >= 0) counters.roundTrips_.record(roundTripNanos);
+  }
+
+  public void connectionBorrowed(int service, long waitNanos)
+  {
+    Counters counters = countersOf(service);
+    if (counters == null) return;
+    counters.borrowWaits_.record(waitNanos);
+  }
+
+  public void datastreamPoolAccessed(boolean hit)
+  {
+    if (hit) poolHits_.increment();
+    else poolMisses_.increment();
+  }
+
+  public void replyBufferPoolAccessed(boolean hit)
+  {
+    if (hit) bufferPoolHits_.increment();
+    else bufferPoolMisses_.increment();
+  }
+
+  public void sqlParseCacheAccessed(boolean hit)
+  {
+    if (hit) sqlParseCacheHits_.increment();
+    else sqlParseCacheMisses_.increment();
+  }
+
+  public void dataCompressed(int service, boolean request, int uncompressedBytes, int compressedBytes)
+  {
+    Counters counters = countersOf(service);
+    if (counters == null) return;
+    counters.uncompressedBytes_.add(uncompressedBytes);
+    counters.compressedBytes_.add(compressedBytes);
+  }
+
+  /**
+   * Returns the service names accepted by the JMX operations.  Their positions
+   * match the service constants of the {@link AS400 AS400} class.  The last name,
+   * "NONE", stands for connections that were not requested for a service.
+   *
+   * @return The service names.
+   **/
+  public static String[] getServiceNames()
+  {
+    return (String[])SERVICE_NAMES.clone();
+  }
+
+  /**
+   * Returns the number of requests sent to a service.
+   *
+   * @param service The service.
+   * @return The number of requests.
+   **/
+  public long getRequestCount(int service)
+  {
+    return getCounters(service).requests_.sum();
+  }
+
+  public long getRequestCount(String service)
+  {
+    return getRequestCount(serviceOf(service));
+  }
+
+  /**
+   * Returns the number of request bytes sent to a service, before compression.
+   *
+   * @param service The service.
+   * @return The number of bytes.
+   **/
+  public long getRequestBytes(int service)
+  {
+    return getCounters(service).requestBytes_.sum();
+  }
+
+  public long getRequestBytes(String service)
+  {
+    return getRequestBytes(serviceOf(service));
+  }
+
+  /**
+   * Returns the number of replies received from a service.
+   *
+   * @param service The service.
+   * @return The number of replies.
+   **/
+  public long getReplyCount(int service)
+  {
+    return getCounters(service).replies_.sum();
+  }
+
+  public long getReplyCount(String service)
+  {
+    return getReplyCount(serviceOf(service));
+  }
+
+  /**
+   * Returns the number of reply bytes received from a service.
+   *
+   * @param service The service.
+   * @return The number of bytes.
+   **/
+  public long getReplyBytes(int service)
+  {
+    return getCounters(service).replyBytes_.sum();
+  }
+
+  public long getReplyBytes(String service)
+  {
+    return getReplyBytes(serviceOf(service));
+  }
+
+  /**
+   * Returns the number of round trips timed for a service.
+   *
+   * @param service The service.
+   * @return The number of round trips.
+   **/
+  public long getRoundTripCount(int service)
+  {
+    return getCounters(service).roundTrips_.getCount();
+  }
+
+  /**
+   * Returns the mean round trip time of a service.
+   *
+   * @param service The service.
+   * @return The time, in nanoseconds, or 0 if no round trip was timed.
+   **/
+  public long getMeanRoundTrip(int service)
+  {
+    LatencyHistogram roundTrips = getCounters(service).roundTrips_;
+    long count = roundTrips.getCount();
+    return (count == 0) ? 0 : roundTrips.getSum() / count;
+  }
+
+  /**
+   * Returns a percentile of the round trip times of a service.  For example,
+   * <code>getRoundTripPercentile(AS400.DATABASE, 99)</code> returns a time that
+   * 99 percent of the database round trips did not exceed.
+   *
+   * @param service The service.
+   * @param percentile The percentile, from 0 to 100.
+   * @return The time, in nanoseconds, or 0 if no round trip was timed.
+   **/
+  public long getRoundTripPercentile(int service, double percentile)
+  {
+    checkPercentile(percentile);
+    return getCounters(service).roundTrips_.getPercentile(percentile);
+  }
+
+  public long getRoundTripPercentile(String service, double percentile)
+  {
+    return getRoundTripPercentile(serviceOf(service), percentile);
+  }
+
+  /**
+   * Returns the number of connections obtained from connection pools for a service.
+   *
+   * @param service The service, or -1 for connections not requested for a service.
+   * @return The number of connections.
+   **/
+  public long getBorrowCount(int service)
+  {
+    return getCounters(service).borrowWaits_.getCount();
+  }
+
+  /**
+   * Returns a percentile of the times taken to obtain a connection from a
+   * connection pool for a service.
+   *
+   * @param service The service, or -1 for connections not requested for a service.
+   * @param percentile The percentile, from 0 to 100.
+   * @return The time, in nanoseconds, or 0 if no connection was obtained.
+   **/
+  public long getBorrowWaitPercentile(int service, double percentile)
+  {
+    checkPercentile(percentile);
+    return getCounters(service).borrowWaits_.getPercentile(percentile);
+  }
+
+  public long getBorrowWaitPercentile(String service, double percentile)
+  {
+    return getBorrowWaitPercentile(serviceOf(service), percentile);
+  }
+
+  public long getDatastreamPoolHits()
+  {
+    return poolHits_.sum();
+  }
+
+  public long getDatastreamPoolMisses()
+  {
+    return poolMisses_.sum();
+  }
+
+  public long getReplyBufferPoolHits()
+  {
+    return bufferPoolHits_.sum();
+  }
+
+  public long getReplyBufferPoolMisses()
+  {
+    return bufferPoolMisses_.sum();
+  }
+
+  public long getSqlParseCacheHits()
+  {
+    return sqlParseCacheHits_.sum();
+  }
+
+  public long getSqlParseCacheMisses()
+  {
+    return sqlParseCacheMisses_.sum();
+  }
+
+  public int getSqlParseCacheSize()
+  {
+    return JDSQLStatementCache.getSize();
+  }
+
+  /**
+   * Returns the ratio of compressed to uncompressed bytes, for the requests
+   * and replies of a service whose data was compressed.
+   *
+   * @param service The service.
+   * @return The ratio, or 1 if no data was compressed.
+   **/
+  public double getCompressionRatio(int service)
+  {
+    Counters counters = getCounters(service);
+    long uncompressed = counters.uncompressedBytes_.sum();
+    return (uncompressed == 0) ? 1 : (double)counters.compressedBytes_.sum() / uncompressed;
+  }
+
+  public double getCompressionRatio(String service)
+  {
+    return getCompressionRatio(serviceOf(service));
+  }
+
+  public String[] getSummary()
+  {
+    ArrayList<String> lines = new ArrayList<String>();
+    for (int i = 0; i < SERVICE_NAMES.length; ++i)
+    {
+      Counters counters = counters_[i];
+      long requests = counters.requests_.sum();
+      long borrows = counters.borrowWaits_.getCount();
+      if (requests == 0 && borrows == 0 && counters.replies_.sum() == 0) continue;
+      StringBuffer line = new StringBuffer(SERVICE_NAMES[i]);
+      line.append(": requests=").append(requests);
+      line.append(" requestBytes=").append(counters.requestBytes_.sum());
+      line.append(" replies=").append(counters.replies_.sum());
+      line.append(" replyBytes=").append(counters.replyBytes_.sum());
+      if (counters.roundTrips_.getCount() > 0)
+      {
+        line.append(" roundTripMicros(p50/p99/p999)=");
+        line.append(counters.roundTrips_.getPercentile(50) / 1000).append('/');
+        line.append(counters.roundTrips_.getPercentile(99) / 1000).append('/');
+        line.append(counters.roundTrips_.getPercentile(99.9) / 1000);
+      }
+      if (borrows > 0)
+      {
+        line.append(" borrows=").append(borrows);
+        line.append(" borrowWaitMicros(p50/p99)=");
+        line.append(counters.borrowWaits_.getPercentile(50) / 1000).append('/');
+        line.append(counters.borrowWaits_.getPercentile(99) / 1000);
+      }
+      long uncompressed = counters.uncompressedBytes_.sum();
+      if (uncompressed > 0)
+      {
+        line.append(" compressionRatio=").append((double)counters.compressedBytes_.sum() / uncompressed);
+      }
+      lines.add(line.toString());
+    }
+    return lines.toArray(new String[lines.size()]);
+  }
+
+  public void reset()
+  {
+    counters_ = newCounters();
+    poolHits_ = new LongAdder();
+    poolMisses_ = new LongAdder();
+    bufferPoolHits_ = new LongAdder();
+    bufferPoolMisses_ = new LongAdder();
+    sqlParseCacheHits_ = new LongAdder();
+    sqlParseCacheMisses_ = new LongAdder();
+  }
+
+  /**
+   * Registers this object with the platform MBean server, under {@link #OBJECT_NAME OBJECT_NAME}.
+   * An object registered under that name before is unregistered.
+   *
+   * @exception JMException If the object cannot be registered.
+   **/
+  public synchronized void registerMBean() throws JMException
+  {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (server.isRegistered(name)) server.unregisterMBean(name);
+    server.registerMBean(this, name);
+    objectName_ = name;
+  }
+
+  /**
+   * Unregisters this object from the platform MBean server.
+   * Nothing happens if it is not registered.
+   *
+   * @exception JMException If the object cannot be unregistered.
+   **/
+  public synchronized void unregisterMBean() throws JMException
+  {
+    if (objectName_ == null) return;
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    if (server.isRegistered(objectName_)) server.unregisterMBean(objectName_);
+    objectName_ = null;
+  }
+}
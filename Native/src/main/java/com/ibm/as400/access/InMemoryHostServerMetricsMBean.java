@@ -0,0 +1,141 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: InMemoryHostServerMetricsMBean.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+/**
+ * The JMX management interface of {@link InMemoryHostServerMetrics InMemoryHostServerMetrics}.
+ * Services are named as in {@link InMemoryHostServerMetrics#getServiceNames getServiceNames()}.
+ **/
+public interface InMemoryHostServerMetricsMBean
+{
+  /**
+   * Returns one line for each service that was used, with its counts,
+   * byte totals, and round trip percentiles.
+   *
+   * @return The lines.
+   **/
+  String[] getSummary();
+
+  /**
+   * Returns the number of times a pooled database datastream object was reused.
+   *
+   * @return The number of hits.
+   **/
+  long getDatastreamPoolHits();
+
+  /**
+   * Returns the number of times a database datastream object had to be created.
+   *
+   * @return The number of misses.
+   **/
+  long getDatastreamPoolMisses();
+
+  /**
+   * Returns the number of times a reply was received into a reused array from the reply buffer pool.
+   *
+   * @return The number of hits.
+   **/
+  long getReplyBufferPoolHits();
+
+  /**
+   * Returns the number of times an array had to be allocated for a reply that uses the reply buffer pool.
+   *
+   * @return The number of misses.
+   **/
+  long getReplyBufferPoolMisses();
+
+  /**
+   * Returns the number of times a parsed SQL statement was found in the JVM-wide SQL parse cache.
+   *
+   * @return The number of hits.
+   **/
+  long getSqlParseCacheHits();
+
+  /**
+   * Returns the number of times a SQL statement had to be parsed because it was not in the SQL parse cache.
+   *
+   * @return The number of misses.
+   **/
+  long getSqlParseCacheMisses();
+
+  /**
+   * Returns the number of parsed SQL statements currently kept in the SQL parse cache.
+   *
+   * @return The number of statements.
+   **/
+  int getSqlParseCacheSize();
+
+  /**
+   * Returns the number of requests sent to a service.
+   *
+   * @param service The service name.
+   * @return The number of requests.
+   **/
+  long getRequestCount(String service);
+
+  /**
+   * Returns the number of request bytes sent to a service.
+   *
+   * @param service The service name.
+   * @return The number of bytes.
+   **/
+  long getRequestBytes(String service);
+
+  /**
+   * Returns the number of replies received from a service.
+   *
+   * @param service The service name.
+   * @return The number of replies.
+   **/
+  long getReplyCount(String service);
+
+  /**
+   * Returns the number of reply bytes received from a service.
+   *
+   * @param service The service name.
+   * @return The number of bytes.
+   **/
+  long getReplyBytes(String service);
+
+  /**
+   * Returns a percentile of the round trip times of a service.
+   *
+   * @param service The service name.
+   * @param percentile The percentile, from 0 to 100.
+   * @return The time, in nanoseconds.
+   **/
+  long getRoundTripPercentile(String service, double percentile);
+
+  /**
+   * Returns a percentile of the times taken to obtain a pooled connection for a service.
+   *
+   * @param service The service name, or "NONE" for connections not requested for a service.
+   * @param percentile The percentile, from 0 to 100.
+   * @return The time, in nanoseconds.
+   **/
+  long getBorrowWaitPercentile(String service, double percentile);
+
+  /**
+   * Returns the ratio of compressed to uncompressed bytes for a service.
+   *
+   * @param service The service name.
+   * @return The ratio, or 1 if no data was compressed.
+   **/
+  double getCompressionRatio(String service);
+
+  /**
+   * Sets all counts to zero.
+   **/
+  void reset();
+}
@@ -0,0 +1,670 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: JDCachedPreparedStatement.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+
+
+/**
+ * <p>This class is the handle the application gets for a prepared
+ * statement when the connection caches statements.  When the application
+ * closes the handle, the statement goes back to the statement cache and
+ * can be given to a later caller in a new handle.  The closed handle
+ * stays closed: isClosed() returns true, and any other use of it throws
+ * a function sequence error, as for any closed statement.
+ *
+ * <p>Like AS400JDBCPreparedStatementRedirect, this class is an
+ * AS400JDBCPreparedStatement only so that applications can still cast
+ * to it.  Every method is passed to the statement.
+ **/
+final class JDCachedPreparedStatement extends AS400JDBCPreparedStatementRedirect {
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    private boolean handleClosed_ = false;
+
+    JDCachedPreparedStatement(AS400JDBCPreparedStatement stmt)
+            throws SQLException {
+        super(stmt);
+    }
+
+    private void checkHandle() throws SQLException {
+        if (handleClosed_)
+            JDError.throwSQLException(this, JDError.EXC_FUNCTION_SEQUENCE);
+    }
+
+    void checkOpen() throws SQLException {
+        checkHandle();
+        stmt_.checkOpen();
+    }
+
+    public void close() throws SQLException {
+        if (handleClosed_)
+            return;
+        handleClosed_ = true;
+        stmt_.close();
+    }
+
+    public boolean isClosed() throws SQLException {
+        return handleClosed_ || stmt_.isClosed();
+    }
+
+    public void addBatch(String sql) throws SQLException {
+        checkHandle();
+        stmt_.addBatch(sql);
+    }
+
+    public void cancel() throws SQLException {
+        checkHandle();
+        stmt_.cancel();
+    }
+
+    public void clearBatch() throws SQLException {
+        checkHandle();
+        stmt_.clearBatch();
+    }
+
+    public void clearWarnings() throws SQLException {
+        checkHandle();
+        stmt_.clearWarnings();
+    }
+
+    public boolean execute(String sql) throws SQLException {
+        checkHandle();
+        return stmt_.execute(sql);
+    }
+
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        checkHandle();
+        return stmt_.execute(sql, autoGeneratedKeys);
+    }
+
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        checkHandle();
+        return stmt_.execute(sql, columnIndexes);
+    }
+
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        checkHandle();
+        return stmt_.execute(sql, columnNames);
+    }
+
+    public int[] executeBatch() throws SQLException {
+        checkHandle();
+        return stmt_.executeBatch();
+    }
+
+    public ResultSet executeQuery(String sql) throws SQLException {
+        checkHandle();
+        return stmt_.executeQuery(sql);
+    }
+
+    public int executeUpdate(String sql) throws SQLException {
+        checkHandle();
+        return stmt_.executeUpdate(sql);
+    }
+
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        checkHandle();
+        return stmt_.executeUpdate(sql, autoGeneratedKeys);
+    }
+
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        checkHandle();
+        return stmt_.executeUpdate(sql, columnIndexes);
+    }
+
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        checkHandle();
+        return stmt_.executeUpdate(sql, columnNames);
+    }
+
+    public Connection getConnection() throws SQLException {
+        checkHandle();
+        return stmt_.getConnection();
+    }
+
+    public void setCursorName(String name) throws SQLException {
+        checkHandle();
+        stmt_.setCursorName(name);
+    }
+
+    public int getFetchDirection() throws SQLException {
+        checkHandle();
+        return stmt_.getFetchDirection();
+    }
+
+    public void setFetchDirection(int direction) throws SQLException {
+        checkHandle();
+        stmt_.setFetchDirection(direction);
+    }
+
+    public int getFetchSize() throws SQLException {
+        checkHandle();
+        return stmt_.getFetchSize();
+    }
+
+    public void setFetchSize(int rows) throws SQLException {
+        checkHandle();
+        stmt_.setFetchSize(rows);
+    }
+
+    public ResultSet getGeneratedKeys() throws SQLException {
+        checkHandle();
+        return stmt_.getGeneratedKeys();
+    }
+
+    public int getMaxFieldSize() throws SQLException {
+        checkHandle();
+        return stmt_.getMaxFieldSize();
+    }
+
+    public void setMaxFieldSize(int max) throws SQLException {
+        checkHandle();
+        stmt_.setMaxFieldSize(max);
+    }
+
+    public int getMaxRows() throws SQLException {
+        checkHandle();
+        return stmt_.getMaxRows();
+    }
+
+    public void setMaxRows(int max) throws SQLException {
+        checkHandle();
+        stmt_.setMaxRows(max);
+    }
+
+    public boolean getMoreResults() throws SQLException {
+        checkHandle();
+        return stmt_.getMoreResults();
+    }
+
+    public boolean getMoreResults(int current) throws SQLException {
+        checkHandle();
+        return stmt_.getMoreResults(current);
+    }
+
+    public int getPositionOfSyntaxError() throws SQLException {
+        checkHandle();
+        return stmt_.getPositionOfSyntaxError();
+    }
+
+    public int getQueryTimeout() throws SQLException {
+        checkHandle();
+        return stmt_.getQueryTimeout();
+    }
+
+    public void setQueryTimeout(int seconds) throws SQLException {
+        checkHandle();
+        stmt_.setQueryTimeout(seconds);
+    }
+
+    public ResultSet getResultSet() throws SQLException {
+        checkHandle();
+        return stmt_.getResultSet();
+    }
+
+    public int getResultSetConcurrency() throws SQLException {
+        checkHandle();
+        return stmt_.getResultSetConcurrency();
+    }
+
+    public int getResultSetHoldability() throws SQLException {
+        checkHandle();
+        return stmt_.getResultSetHoldability();
+    }
+
+    public int getResultSetType() throws SQLException {
+        checkHandle();
+        return stmt_.getResultSetType();
+    }
+
+    public int getUpdateCount() throws SQLException {
+        checkHandle();
+        return stmt_.getUpdateCount();
+    }
+
+    public SQLWarning getWarnings() throws SQLException {
+        checkHandle();
+        return stmt_.getWarnings();
+    }
+
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        checkHandle();
+        stmt_.setEscapeProcessing(enable);
+    }
+
+    public boolean isPoolable() throws SQLException {
+        checkHandle();
+        return stmt_.isPoolable();
+    }
+
+    public void setPoolable(boolean poolable) throws SQLException {
+        checkHandle();
+        stmt_.setPoolable(poolable);
+    }
+
+    public void closeOnCompletion() throws SQLException {
+        checkHandle();
+        stmt_.closeOnCompletion();
+    }
+
+    public boolean isCloseOnCompletion() throws SQLException {
+        checkHandle();
+        return stmt_.isCloseOnCompletion();
+    }
+
+    public long getLargeUpdateCount() throws SQLException {
+        checkHandle();
+        return stmt_.getLargeUpdateCount();
+    }
+
+    public long getLargeMaxRows() throws SQLException {
+        checkHandle();
+        return stmt_.getLargeMaxRows();
+    }
+
+    public void setLargeMaxRows(long max) throws SQLException {
+        checkHandle();
+        stmt_.setLargeMaxRows(max);
+    }
+
+    public long[] executeLargeBatch() throws SQLException {
+        checkHandle();
+        return stmt_.executeLargeBatch();
+    }
+
+    public long executeLargeUpdate(String sql) throws SQLException {
+        checkHandle();
+        return stmt_.executeLargeUpdate(sql);
+    }
+
+    public long executeLargeUpdate(String sql,
+                                   int autoGeneratedKeys)
+            throws SQLException {
+        checkHandle();
+        return stmt_.executeLargeUpdate(sql, autoGeneratedKeys);
+    }
+
+    public long executeLargeUpdate(String sql,
+                                   int[] columnIndexes)
+            throws SQLException {
+        checkHandle();
+        return stmt_.executeLargeUpdate(sql, columnIndexes);
+    }
+
+    public long executeLargeUpdate(String sql,
+                                   String[] columnNames) throws SQLException {
+        checkHandle();
+        return stmt_.executeLargeUpdate(sql, columnNames);
+    }
+
+    public ResultSet executeQuery() throws SQLException {
+        checkHandle();
+        return stmt_.executeQuery();
+    }
+
+    public int executeUpdate() throws SQLException {
+        checkHandle();
+        return stmt_.executeUpdate();
+    }
+
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        checkHandle();
+        stmt_.setNull(parameterIndex, sqlType);
+    }
+
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        checkHandle();
+        stmt_.setBoolean(parameterIndex, x);
+    }
+
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        checkHandle();
+        stmt_.setByte(parameterIndex, x);
+    }
+
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        checkHandle();
+        stmt_.setShort(parameterIndex, x);
+    }
+
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        checkHandle();
+        stmt_.setInt(parameterIndex, x);
+    }
+
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        checkHandle();
+        stmt_.setLong(parameterIndex, x);
+    }
+
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        checkHandle();
+        stmt_.setFloat(parameterIndex, x);
+    }
+
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        checkHandle();
+        stmt_.setDouble(parameterIndex, x);
+    }
+
+    public void setBigDecimal(int parameterIndex, BigDecimal x)
+            throws SQLException {
+        checkHandle();
+        stmt_.setBigDecimal(parameterIndex, x);
+    }
+
+    public void setString(int parameterIndex, String x) throws SQLException {
+        checkHandle();
+        stmt_.setString(parameterIndex, x);
+    }
+
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        checkHandle();
+        stmt_.setBytes(parameterIndex, x);
+    }
+
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        checkHandle();
+        stmt_.setDate(parameterIndex, x);
+    }
+
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        checkHandle();
+        stmt_.setTime(parameterIndex, x);
+    }
+
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        checkHandle();
+        stmt_.setTimestamp(parameterIndex, x);
+    }
+
+    public void setAsciiStream(int parameterIndex, InputStream x, int length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Deprecated
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setUnicodeStream(parameterIndex, x, length);
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream stream, int length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setBinaryStream(parameterIndex, stream, length);
+    }
+
+    public void clearParameters() throws SQLException {
+        checkHandle();
+        stmt_.clearParameters();
+    }
+
+    public void setObject(int parameterIndex, Object x, int targetSqlType,
+                          int scale) throws SQLException {
+        checkHandle();
+        stmt_.setObject(parameterIndex, x, targetSqlType, scale);
+    }
+
+    public void setObject(int parameterIndex, Object x, int targetSqlType)
+            throws SQLException {
+        checkHandle();
+        stmt_.setObject(parameterIndex, x, targetSqlType);
+    }
+
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        checkHandle();
+        stmt_.setObject(parameterIndex, x);
+    }
+
+    public boolean execute() throws SQLException {
+        checkHandle();
+        return stmt_.execute();
+    }
+
+    public void addBatch() throws SQLException {
+        checkHandle();
+        stmt_.addBatch();
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader, int length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setCharacterStream(parameterIndex, reader, length);
+    }
+
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        checkHandle();
+        stmt_.setRef(parameterIndex, x);
+    }
+
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        checkHandle();
+        stmt_.setBlob(parameterIndex, x);
+    }
+
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        checkHandle();
+        stmt_.setClob(parameterIndex, x);
+    }
+
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        checkHandle();
+        stmt_.setArray(parameterIndex, x);
+    }
+
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkHandle();
+        return stmt_.getMetaData();
+    }
+
+    public void setDate(int parameterIndex, Date x, Calendar cal)
+            throws SQLException {
+        checkHandle();
+        stmt_.setDate(parameterIndex, x, cal);
+    }
+
+    public void setTime(int parameterIndex, Time x, Calendar cal)
+            throws SQLException {
+        checkHandle();
+        stmt_.setTime(parameterIndex, x, cal);
+    }
+
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal)
+            throws SQLException {
+        checkHandle();
+        stmt_.setTimestamp(parameterIndex, x, cal);
+    }
+
+    public void setNull(int parameterIndex, int sqlType, String typeName)
+            throws SQLException {
+        checkHandle();
+        stmt_.setNull(parameterIndex, sqlType, typeName);
+    }
+
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        checkHandle();
+        stmt_.setURL(parameterIndex, x);
+    }
+
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        checkHandle();
+        return stmt_.getParameterMetaData();
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        checkHandle();
+        stmt_.setRowId(parameterIndex, x);
+    }
+
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        checkHandle();
+        stmt_.setNClob(parameterIndex, reader);
+    }
+
+    public void setAsciiStream(int parameterIndex, InputStream stream) throws SQLException {
+        checkHandle();
+        stmt_.setAsciiStream(parameterIndex, stream);
+    }
+
+    public void setAsciiStream(int parameterIndex, InputStream stream, long length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setAsciiStream(parameterIndex, stream, length);
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream stream) throws SQLException {
+        checkHandle();
+        stmt_.setBinaryStream(parameterIndex, stream);
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream stream, long length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setBinaryStream(parameterIndex, stream, length);
+    }
+
+    public void setBlob(int parameterIndex, InputStream stream) throws SQLException {
+        checkHandle();
+        stmt_.setBlob(parameterIndex, stream);
+    }
+
+    public void setBlob(int parameterIndex, InputStream stream, long length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setBlob(parameterIndex, stream, length);
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        checkHandle();
+        stmt_.setCharacterStream(parameterIndex, reader);
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader, long length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setCharacterStream(parameterIndex, reader, length);
+    }
+
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        checkHandle();
+        stmt_.setClob(parameterIndex, reader);
+    }
+
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        checkHandle();
+        stmt_.setClob(parameterIndex, reader, length);
+    }
+
+    public void setNCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        checkHandle();
+        stmt_.setNCharacterStream(parameterIndex, reader);
+    }
+
+    public void setNCharacterStream(int parameterIndex, Reader reader, long length)
+            throws SQLException {
+        checkHandle();
+        stmt_.setNCharacterStream(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        checkHandle();
+        stmt_.setNClob(parameterIndex, value);
+    }
+
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        checkHandle();
+        stmt_.setNClob(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        checkHandle();
+        stmt_.setSQLXML(parameterIndex, xmlObject);
+    }
+
+    public void setNString(int parameterIndex, String x) throws SQLException {
+        checkHandle();
+        stmt_.setNString(parameterIndex, x);
+    }
+
+    public void setDB2Default(int parameterIndex) throws SQLException {
+        checkHandle();
+        stmt_.setDB2Default(parameterIndex);
+    }
+
+    public void setDBDefault(int parameterIndex) throws SQLException {
+        checkHandle();
+        stmt_.setDBDefault(parameterIndex);
+    }
+
+    public void setDB2Unassigned(int parameterIndex) throws SQLException {
+        checkHandle();
+        stmt_.setDB2Unassigned(parameterIndex);
+    }
+
+    public void setDBUnassigned(int parameterIndex) throws SQLException {
+        checkHandle();
+        stmt_.setDBUnassigned(parameterIndex);
+    }
+
+    public String getDB2ParameterName(int parm) throws SQLException {
+        checkHandle();
+        return stmt_.getDB2ParameterName(parm);
+    }
+
+    public void setObject(int parameterIndex,
+                          Object x,
+/* ifdef JDBC42        
+        SQLType  
+endif*/
+            /* ifndef JDBC42 */
+                          Object
+                                  /* endif */
+                                  targetSqlType,
+                          int scaleOrLength)
+            throws SQLException {
+        checkHandle();
+        stmt_.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    public void setObject(int parameterIndex,
+                          Object x,
+        /* ifdef JDBC42        
+        SQLType  
+  endif*/
+            /* ifndef JDBC42 */
+                          Object
+                                  /* endif */
+                                  targetSqlType)
+            throws SQLException {
+        checkHandle();
+        stmt_.setObject(parameterIndex, x, targetSqlType);
+    }
+
+    public long executeLargeUpdate() throws SQLException {
+        checkHandle();
+        return stmt_.executeLargeUpdate();
+    }
+}
@@ -71,6 +71,8 @@ public class JDMRI extends ListResourceBundle {
             {"PROP_NAME_PACKAGE_LIBRARY", "packageLibrary"},
             {"PROP_NAME_PASSWORD", "password"},
             {"PROP_NAME_PREFETCH", "prefetch"},
+            {"PROP_NAME_READ_AHEAD", "readAhead"}, //@RA1A
+            {"PROP_NAME_STATEMENT_CACHE_SIZE", "statementCacheSize"}, //@SC1A
             {"PROP_NAME_PROMPT", "prompt"},
             {"PROP_NAME_PROXY_SERVER", "proxyServer"},
             {"PROP_NAME_REMARKS", "remarks"},
@@ -180,6 +182,8 @@ public class JDMRI extends ListResourceBundle {
             {"PASSWORD_DESC", "Specifies the password for connecting to the system."}, //@550
             {"PORTNUMBER_DESC", "Specifies the port number used to connect to the ZDA server."},
             {"PREFETCH_DESC", "Specifies whether to prefetch data when running a SELECT statement."},
+            {"READ_AHEAD_DESC", "Specifies whether to request the next block of a forward-only result set while the current block is being processed."}, //@RA1A
+            {"STATEMENT_CACHE_SIZE_DESC", "Specifies the number of closed prepared statements that each connection keeps prepared on the system for reuse."}, //@SC1A
             {"PROMPT_DESC", "Specifies whether the user should be prompted if a user name or password is needed to connect to the system."}, //@550
             {"PROXY_SERVER_DESC", "Specifies the host name and (optionally) port number of the middle-tier machine where the proxy server is running."},  //@A2A
             {"REMARKS_DESC", "Specifies the source of the text for REMARKS columns in ResultSet objects returned by DatabaseMetaData methods."},
@@ -187,6 +187,8 @@ public class JDProperties implements Serializable, Cloneable //@PDC 550
     static final int RETRY_INTERVAL_FOR_CLIENT_REROUTE = 97;
     static final int ENABLE_SEAMLESS_FAILOVER = 98;
     static final int AFFINITY_FAILBACK_INTERVAL = 99;
+    static final int READ_AHEAD = 100;  //@RA1A
+    static final int STATEMENT_CACHE_SIZE = 101;  //@SC1A
     static final String PASSWORD_ = "password";            //@native
     static final String SECONDARY_URL_ = "secondary URL";          // @A3A
     static final String USER_ = "user";                  //@native
@@ -355,7 +357,7 @@ public class JDProperties implements Serializable, Cloneable //@PDC 550
     static final String DECIMAL_DATA_ERRORS_REPORT = "report";
     static final String DECIMAL_DATA_ERRORS_IGNORE_NULL = "ignore null";
     static final String DECIMAL_DATA_ERRORS_REPORT_NULL = "report null";
-    private static final int NUMBER_OF_ATTRIBUTES_ = 100;    // @A0C @C1C @A3A @D0C @E0C
+    private static final int NUMBER_OF_ATTRIBUTES_ = 102;    // @A0C @C1C @A3A @D0C @E0C @RA1C @SC1C
     // Property names.
     private static final String ACCESS_ = "access";
     private static final String AFFINITY_FAILBACK_INTERVAL_ = "affinityFailbackInterval";
@@ -404,6 +406,7 @@ public class JDProperties implements Serializable, Cloneable //@PDC 550
     private static final String PREFETCH_ = "prefetch";
     private static final String PROMPT_ = "prompt";
     private static final String PROXY_SERVER_ = "proxy server";           // @A3A
+    private static final String READ_AHEAD_ = "read ahead";             // @RA1A
     private static final String QUERY_TIMEOUT_MECHANISM_ = "query timeout mechanism";
     private static final String REMARKS_ = "remarks";
     private static final String RETRY_INTERVAL_FOR_CLIENT_REROUTE_ = "retryIntervalForClientReroute";
@@ -412,6 +415,7 @@ public class JDProperties implements Serializable, Cloneable //@PDC 550
     private static final String SORT_LANGUAGE_ = "sort language";
     private static final String SORT_TABLE_ = "sort table";
     private static final String SORT_WEIGHT_ = "sort weight";
+    private static final String STATEMENT_CACHE_SIZE_ = "statement cache size";  // @SC1A
     private static final String THREAD_USED_ = "thread used";            // @E1A
     private static final String TIME_FORMAT_ = "time format";
     private static final String TIMESTAMP_FORMAT_ = "timestamp format";
@@ -988,6 +992,16 @@ public class JDProperties implements Serializable, Cloneable //@PDC 550
         dpi_[i].choices = new String[0];
         defaults_[i] = EMPTY_;
 
+        // Read ahead.  //@RA1A
+        i = READ_AHEAD;
+        dpi_[i] = new DriverPropertyInfo(READ_AHEAD_, "");
+        dpi_[i].description = "READ_AHEAD_DESC";
+        dpi_[i].required = false;
+        dpi_[i].choices = new String[2];
+        dpi_[i].choices[0] = TRUE_;
+        dpi_[i].choices[1] = FALSE_;
+        defaults_[i] = FALSE_;
+
         // Remarks.
         i = REMARKS;
         dpi_[i] = new DriverPropertyInfo(REMARKS_, "");
@@ -1558,6 +1572,14 @@ public class JDProperties implements Serializable, Cloneable //@PDC 550
         dpi_[i].choices[3] = DECIMAL_DATA_ERRORS_REPORT_NULL;
         defaults_[i] = EMPTY_;
 
+        // Statement cache size.  //@SC1A
+        i = STATEMENT_CACHE_SIZE;
+        dpi_[i] = new DriverPropertyInfo(STATEMENT_CACHE_SIZE_, "");
+        dpi_[i].description = "STATEMENT_CACHE_SIZE_DESC";
+        dpi_[i].required = false;
+        dpi_[i].choices = new String[0];
+        defaults_[i] = "0";
+
 
     }
 
@@ -36,6 +36,7 @@ import java.util.Vector;
 // construction time.
 //
 public class JDSQLStatement
+implements Cloneable                                                  // @SP1A
 {
     // Native statement types.
     //
@@ -53,19 +54,23 @@ public class JDSQLStatement
     // String constants.  These will hopefully help performance
     // slightly - assuming a similar optimization does not
     // already take place.
+    private static final String     ALTER_          = "ALTER";      // @SC1A
     private static final String     AS_             = "AS";
     private static final String     CALL_           = "CALL";
     private static final String     CALL0_          = "?";                      // @E1A
     private static final String     CALL1_          = "?=";
     private static final String     CALL2_          = "?=CALL";
+    private static final String     COMMENT_        = "COMMENT";    // @SC1A
     static final String     COMMA_          = ",";
     private static final String     CONNECT_        = "CONNECT";
     private static final String     CONNECTION_     = "CONNECTION";             // @F1A
+    private static final String     CREATE_         = "CREATE";     // @SC1A
     static final String     CROSS_          = "CROSS";
     private static final String     CURRENT_        = "CURRENT";
     private static final String     DECLARE_        = "DECLARE";
     private static final String     DELETE_         = "DELETE";
     private static final String     DISCONNECT_     = "DISCONNECT";
+    private static final String     DROP_           = "DROP";       // @SC1A
     static final String     EXCEPTION_      = "EXCEPTION";
     private static final String     FETCH_          = "FETCH";
     private static final String     FOR_            = "FOR";
@@ -73,12 +78,14 @@ public class JDSQLStatement
     static final String     INNER_          = "INNER";
     private static final String     INSERT_         = "INSERT";
     static final String     JOIN_           = "JOIN";
+    private static final String     LABEL_          = "LABEL";      // @SC1A
     static final String     LEFT_           = "LEFT";
     private static final String     LPAREN_         = "(";
     private static final String     OF_             = "OF";
     private static final String     ONLY_           = "ONLY";
     private static final String     READ_           = "READ";
     private static final String     RELEASE_        = "RELEASE";
+    private static final String     RENAME_         = "RENAME";     // @SC1A
     private static final String     ROWS_           = "ROWS";
     private static final String     SELECT_         = "SELECT";
     private static final String     SET_            = "SET";
@@ -97,6 +104,7 @@ public class JDSQLStatement
     private String          csSchema_                   = null;     // @G4A
     private boolean         hasReturnValueParameter_    = false;    // @E1A
     private boolean         isCall_                     = false;
+    private boolean         isDDL_                      = false;    // @SC1A
     private boolean         isDeclare_                  = false;
     private boolean         isCurrentOf_                = false;
     private boolean         isDRDAConnect_              = false;    // @B1A
@@ -650,6 +658,11 @@ public class JDSQLStatement
         {
             isDeclare_ = true;
         }
+        else if(firstWord.equals(CREATE_) || firstWord.equals(ALTER_) || firstWord.equals(DROP_)     // @SC1A
+                || firstWord.equals(RENAME_) || firstWord.equals(COMMENT_) || firstWord.equals(LABEL_))
+        {
+            isDDL_ = true;
+        }
         else if(firstWord.equals(SET_))  // @F4A - This entire block.
         {
             isSet_ = true;
@@ -977,6 +990,90 @@ public class JDSQLStatement
 
 
 
+    //@SP1A
+    /**
+    Returns a JDSQLStatement object for a SQL statement, taking the
+    parse results from JDSQLStatementCache when the same statement was
+    parsed before with the same connection settings.  The arguments
+    are the same as for the constructor.
+    
+    @param  sql                 A SQL statement.
+    @param  decimalSeparator    The decimal separator.
+    @param  convert             Convert to native SQL?
+    @param  packageCriteria     The package criteria.
+    @param  connection          A connection object to get properties off.
+    @return                     The statement, which the caller may change.
+    
+    @exception  SQLException        If there is a syntax error or
+                                    a reference to an unsupported
+                                    scalar function.
+    **/
+    static JDSQLStatement getStatement(String sql, String decimalSeparator, boolean convert,
+                                       String packageCriteria, AS400JDBCConnection connection)
+    throws SQLException
+    {
+        // Listeners may change the statement each time it is parsed.
+        if(sql == null || connection == null || !statementListeners_.isEmpty()
+           || !JDSQLStatementCache.isCacheable(sql))
+        {
+            return new JDSQLStatement(sql, decimalSeparator, convert, packageCriteria, connection);
+        }
+
+        JDSQLStatementCache.Key key = new JDSQLStatementCache.Key(sql,
+            getParseSettings(decimalSeparator, convert, packageCriteria, connection));
+        JDSQLStatement statement = JDSQLStatementCache.get(key);
+        if(statement == null)
+        {
+            statement = new JDSQLStatement(sql, decimalSeparator, convert, packageCriteria, connection);
+            JDSQLStatementCache.put(key, statement);
+        }
+        return statement.copy();
+    }
+
+
+
+    //@SP1A
+    // Returns the connection settings that the constructor uses, so that
+    // statements parsed for different settings are cached separately.
+    private static String getParseSettings(String decimalSeparator, boolean convert,
+                                           String packageCriteria, AS400JDBCConnection connection)
+    throws SQLException
+    {
+        JDProperties properties = connection.getProperties();
+        AS400 system = connection.getSystem();
+        StringBuffer buffer = new StringBuffer(64);
+        buffer.append(convert ? decimalSeparator : "").append('|');
+        buffer.append(convert).append('|');
+        buffer.append(packageCriteria).append('|');
+        buffer.append(connection.getVRM()).append('|');
+        buffer.append(connection.doUpdateDeleteBlocking()).append('|');
+        buffer.append(properties.getString(JDProperties.NAMING)).append('|');
+        buffer.append(properties.getInt(JDProperties.BIDI_STRING_TYPE)).append('|');
+        buffer.append(properties.getString(JDProperties.BIDI_IMPLICIT_REORDERING)).append('|');
+        buffer.append(properties.getInt(JDProperties.PACKAGE_CCSID)).append('|');
+        buffer.append((system == null) ? 0 : system.getCcsid());
+        return buffer.toString();
+    }
+
+
+
+    //@SP1A
+    // Returns a copy of this statement.  All of the fields are immutable
+    // values, so a shallow copy is enough.
+    private JDSQLStatement copy()
+    {
+        try
+        {
+            return (JDSQLStatement)clone();
+        }
+        catch(CloneNotSupportedException e)
+        {
+            throw new InternalError(e.toString());
+        }
+    }
+
+
+
     //@H2A
     /**
     Indicates if the statement can be batched.
@@ -1200,6 +1297,37 @@ public class JDSQLStatement
 
 
 
+    // @SC1A
+    /**
+    Indicates if the statement creates, changes, or drops a database
+    object, so that statements prepared earlier may be out of date.
+    
+    @return     true if the statement changes a database object;
+                false otherwise.
+    **/
+    boolean isDDL()
+    {
+        return isDDL_;
+    }
+
+
+
+    // @SC2A
+    /**
+    Indicates if the statement is a SET statement for a special register,
+    such as SET SCHEMA, SET PATH, or SET CURRENT, which can change how
+    unqualified names in statements prepared earlier are resolved.
+    
+    @return     true if the statement sets a special register;
+                false otherwise.
+    **/
+    boolean isSetStatementForSpecialRegister()
+    {
+        return isSet_ && isSetSpecialRegister_;
+    }
+
+
+
     /**
     Indicates if the statement a SELECT.
     
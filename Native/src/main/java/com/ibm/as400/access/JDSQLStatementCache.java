@@ -0,0 +1,212 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: JDSQLStatementCache.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * <p>This class holds parsed SQL statements for all connections in the
+ * JVM, so that a statement that is prepared or executed again does not
+ * have to be tokenized and classified again.  A statement is found by
+ * its SQL text and the connection settings that affect parsing.  The
+ * cached JDSQLStatement objects are never handed out; callers get a
+ * copy, since JDSQLStatement has a few setters.
+ *
+ * <p>The cache is split into stripes by the hash of the SQL text, and
+ * each stripe keeps its least recently used statements, so threads
+ * working on different statements rarely wait for each other.
+ *
+ * <p>The number of statements kept is set by the
+ * com.ibm.as400.access.JDBC.sqlParseCacheSize system property.  The
+ * default is 1024, and 0 turns the cache off.
+ **/
+final class JDSQLStatementCache {
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    private static final int DEFAULT_SIZE = 1024;
+    private static final int STRIPES = 16;
+    // Longer statements are rarely repeated, and would take too much memory.
+    private static final int MAXIMUM_SQL_LENGTH = 32 * 1024;
+
+    private static final int size_;
+    private static final Stripe[] stripes_;
+    private static final LongAdder hits_ = new LongAdder();
+    private static final LongAdder misses_ = new LongAdder();
+
+    static {
+        int size = DEFAULT_SIZE;
+        String property = SystemProperties.getProperty(SystemProperties.JDBC_SQL_PARSE_CACHE_SIZE);
+        if (property != null) {
+            try {
+                size = Math.max(0, Integer.parseInt(property.trim()));
+            } catch (NumberFormatException e) {
+                if (Trace.traceOn_)
+                    Trace.log(Trace.WARNING, "Value of " + SystemProperties.JDBC_SQL_PARSE_CACHE_SIZE + " is not valid: " + property);
+            }
+        }
+        size_ = size;
+        stripes_ = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; ++i) {
+            stripes_[i] = new Stripe((size + STRIPES - 1) / STRIPES);
+        }
+    }
+
+    /**
+     * The key of a cached statement.
+     **/
+    static final class Key {
+        private final String sql_;
+        private final String settings_;
+        private final int hashCode_;
+
+        Key(String sql, String settings) {
+            sql_ = sql;
+            settings_ = settings;
+            hashCode_ = sql.hashCode() * 31 + settings.hashCode();
+        }
+
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) return false;
+            Key other = (Key) object;
+            return hashCode_ == other.hashCode_ && sql_.equals(other.sql_) && settings_.equals(other.settings_);
+        }
+
+        public int hashCode() {
+            return hashCode_;
+        }
+    }
+
+    // The least recently used statements of one stripe.
+    private static final class Stripe extends LinkedHashMap<Key, JDSQLStatement> {
+        private final int capacity_;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            capacity_ = capacity;
+        }
+
+        protected boolean removeEldestEntry(java.util.Map.Entry<Key, JDSQLStatement> eldest) {
+            return size() > capacity_;
+        }
+    }
+
+    private JDSQLStatementCache() {
+    }
+
+    /**
+     * Indicates if a statement of the specified length can be cached.
+     *
+     * @param sql The SQL text.
+     * @return true if the cache is on and the statement is not too long.
+     **/
+    static boolean isCacheable(String sql) {
+        return size_ > 0 && sql.length() <= MAXIMUM_SQL_LENGTH;
+    }
+
+    private static Stripe stripeOf(Key key) {
+        return stripes_[(key.hashCode_ ^ (key.hashCode_ >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Returns the parsed statement with the specified key.
+     *
+     * @param key The key.
+     * @return The statement, which must be copied before it is used,
+     * or null if there is none.
+     **/
+    static JDSQLStatement get(Key key) {
+        Stripe stripe = stripeOf(key);
+        JDSQLStatement statement;
+        synchronized (stripe) {
+            statement = stripe.get(key);
+        }
+        if (statement != null)
+            hits_.increment();
+        else
+            misses_.increment();
+        HostServerMetrics metrics = HostServerMetrics.active_;
+        if (metrics != null) metrics.sqlParseCacheAccessed(statement != null);
+        return statement;
+    }
+
+    /**
+     * Adds a parsed statement to the cache.  The statement must not be
+     * changed afterwards.
+     *
+     * @param key       The key.
+     * @param statement The statement.
+     **/
+    static void put(Key key, JDSQLStatement statement) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.put(key, statement);
+        }
+    }
+
+    /**
+     * Removes all of the statements.
+     **/
+    static void clear() {
+        for (int i = 0; i < STRIPES; ++i) {
+            synchronized (stripes_[i]) {
+                stripes_[i].clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum number of statements kept.
+     **/
+    static int getCapacity() {
+        return size_;
+    }
+
+    /**
+     * Returns the number of statements currently kept.
+     **/
+    static int getSize() {
+        int size = 0;
+        for (int i = 0; i < STRIPES; ++i) {
+            synchronized (stripes_[i]) {
+                size += stripes_[i].size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of times a parsed statement was found in the cache.
+     **/
+    static long getHits() {
+        return hits_.sum();
+    }
+
+    /**
+     * Returns the number of times a statement had to be parsed.
+     **/
+    static long getMisses() {
+        return misses_.sum();
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return The statistics.
+     **/
+    static String getStatistics() {
+        return "SQL parse cache: size=" + getSize() + "/" + size_ + " hits=" + getHits() + " misses=" + getMisses();
+    }
+}
@@ -53,6 +53,7 @@ class JDServerRow
     private int[] sqlTypes_;
     private String[] sqlTypeNames_;   /*@L1A*/
     private boolean[] translated_;
+    private byte[] directKinds_;    // how each field is decoded by getUnscaledLong()
     private boolean wasCompressed = false;   // set to true if variable length field compression is used
     private Hashtable insensitiveColumnNames_; // @PDA maps strings to column indexes
 
@@ -173,6 +174,7 @@ class JDServerRow
             sqlTypes_ = new int[count];
             sqlTypeNames_ = new String[count];  /*@L1A*/
             translated_ = new boolean[count];
+            directKinds_ = new byte[count];
             insensitiveColumnNames_ = null;  //@PDA
             containsLob_ = false;   //@re-prep
             containsArray_ = false; //@array
@@ -688,6 +690,79 @@ class JDServerRow
         }
     }
 
+    // Kinds of fields that getUnscaledLong() decodes straight from the reply data.
+    private static final byte DIRECT_UNKNOWN = 0;   // not determined yet
+    private static final byte DIRECT_NONE = 1;      // must be converted by its SQLData object
+    private static final byte DIRECT_SMALLINT = 2;
+    private static final byte DIRECT_INTEGER = 3;
+    private static final byte DIRECT_BIGINT = 4;
+    private static final byte DIRECT_DECIMAL = 5;   // packed decimal of 18 digits or less
+    private static final byte DIRECT_NUMERIC = 6;   // zoned decimal of 18 digits or less
+
+    /**
+     * Returns the scale of a numeric field whose value getUnscaledLong() can
+     * decode straight from the reply data, without converting it into its
+     * SQLData object.  Binary integers without decimal positions and decimal
+     * fields of up to 18 digits can be decoded this way.
+     *
+     * @param index The field index (1-based).
+     * @return The scale, or -1 if the field must be read with getSQLData().
+     **/
+    int getDirectScale(int index) {
+        int index0 = index - 1;
+        if (rowIndex_ < 0 || rawBytes_ == null || index0 < 0 || index0 >= directKinds_.length)
+            return -1;
+        if (directKinds_[index0] == DIRECT_UNKNOWN) {
+            SQLData data = sqlData_[index0];
+            byte kind = DIRECT_NONE;
+            if (data instanceof SQLSmallint && scales_[index0] == 0)
+                kind = DIRECT_SMALLINT;
+            else if (data instanceof SQLInteger && scales_[index0] == 0)
+                kind = DIRECT_INTEGER;
+            else if (data instanceof SQLBigint)
+                kind = DIRECT_BIGINT;
+            else if (data instanceof SQLDecimal && data.getPrecision() <= AS400PackedDecimal.MAX_LONG_DIGITS)
+                kind = DIRECT_DECIMAL;
+            else if (data instanceof SQLNumeric && data.getPrecision() <= AS400PackedDecimal.MAX_LONG_DIGITS)
+                kind = DIRECT_NUMERIC;
+            directKinds_[index0] = kind;
+        }
+        switch (directKinds_[index0]) {
+            case DIRECT_NONE:
+                return -1;
+            case DIRECT_DECIMAL:
+            case DIRECT_NUMERIC:
+                return sqlData_[index0].getScale();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Decodes the unscaled value of a field straight from the reply data.
+     * This must only be called when getDirectScale() returns 0 or more.
+     *
+     * @param index The field index (1-based).
+     * @return The unscaled value.
+     * @throws IllegalArgumentException If the field does not contain valid decimal data.
+     **/
+    long getUnscaledLong(int index) {
+        int index0 = index - 1;
+        int offset = rowDataOffset_ + dataOffset_[index0];
+        switch (directKinds_[index0]) {
+            case DIRECT_SMALLINT:
+                return BinaryConverter.byteArrayToShort(rawBytes_, offset);
+            case DIRECT_INTEGER:
+                return BinaryConverter.byteArrayToInt(rawBytes_, offset);
+            case DIRECT_BIGINT:
+                return BinaryConverter.byteArrayToLong(rawBytes_, offset);
+            case DIRECT_DECIMAL:
+                return ((SQLDecimal) sqlData_[index0]).toUnscaledLong(rawBytes_, offset);
+            default:
+                return ((SQLNumeric) sqlData_[index0]).toUnscaledLong(rawBytes_, offset);
+        }
+    }
+
     //@arrayout
 
     /**
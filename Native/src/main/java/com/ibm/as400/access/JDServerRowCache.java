@@ -44,6 +44,9 @@ implements JDRowCache
   private int                     bufferSize_;                                  //@K54  
   private JDCursor                cursor_ = null; //@pda perf2 - fetch/close
   private DBReplyRequestedDS fetchReply = null; //@P0A
+  private boolean                 readAhead_ = false;             //@RA1A
+  private int                     readAheadCorrelationId_ = 0;    //@RA1A 0 means no block is being read ahead
+  private SQLException            readAheadException_ = null;     //@RA1A
   
 
   // Index always points to the row within the cache.
@@ -114,6 +117,12 @@ prefetched.
 
     bufferSize_ = connection_.getProperties().getInt(JDProperties.BLOCK_SIZE);  //@K54
 
+    // Read ahead is only done for forward-only result sets.  Those are          //@RA1A
+    // never repositioned on the system, so the block requested ahead of         //@RA1A
+    // time is always the block that the next call to next() asks for.          //@RA1A
+    readAhead_ = (resultSetType == java.sql.ResultSet.TYPE_FORWARD_ONLY) &&     //@RA1A
+                 connection_.getProperties().getBoolean(JDProperties.READ_AHEAD); //@RA1A
+
     // We are before the first row.  Actually there is no data in the cache
     // when this c'tor is used so it shouldn't make any difference, but
     // we will set it to 0 just to be consistent.  When an RS is opened
@@ -195,6 +204,9 @@ prefetched.
 
     bufferSize_ = connection_.getProperties().getInt(JDProperties.BLOCK_SIZE);  //@K54
 
+    readAhead_ = (resultSetType == java.sql.ResultSet.TYPE_FORWARD_ONLY) &&     //@RA1A
+                 connection_.getProperties().getBoolean(JDProperties.READ_AHEAD); //@RA1A
+
     try
     {
       cached_ = serverData.getRowCount ();
@@ -288,114 +300,186 @@ Fetches a block of data from the system.
   private boolean fetch (int fetchScrollOption, int rows)
   throws SQLException
   {
-    boolean endBlock = false;
-
-    try
+    // If the next block was already requested, then either          @RA1A
+    // use it, or throw it away and account for the rows that        @RA1A
+    // the system cursor moved past.                                 @RA1A
+    if ((readAheadCorrelationId_ != 0) || (readAheadException_ != null))
     {
-      DBSQLRequestDS request = null; //@P0A
-      try
+      if (fetchScrollOption == DBSQLRequestDS.FETCH_NEXT)
+        return receiveReadAhead ();
+
+      int skipped = cancelReadAhead ();
+      if (skipped > 0)
       {
-        request = DBDSPool.getDBSQLRequestDS ( //@P0C
-                                               DBSQLRequestDS.FUNCTIONID_FETCH,
-                                               id_, DBBaseRequestDS.ORS_BITMAP_RETURN_DATA
-                                               + DBBaseRequestDS.ORS_BITMAP_RESULT_DATA, 0);
-
-        request.setFetchScrollOption (fetchScrollOption, rows);
-
-        // If fetching next, then fetch a block.  Otherwise,
-        // just fetch a single row.  The check was altered under @G1
-        // to fetch a block of rows only when we know the cursor
-        // location.  If we don't know the cursor location when we 
-        // get only one row just in case the next request is to
-        // go backward or relative to the current location.  This 
-        // will be slower but it is the only way to assure accurate 
-        // information is returned to the app. 
-        if ((fetchScrollOption == DBSQLRequestDS.FETCH_NEXT) &&       
-            (blockingFactor_ > 0)                            &&
-            (cursorPositionOfFirstRowInCache_ >= 0))                    // @G1a
+        if (fetchScrollOption == DBSQLRequestDS.FETCH_RELATIVE)
+          rows -= skipped;
+        else if (fetchScrollOption == DBSQLRequestDS.FETCH_PREVIOUS)
         {
-            if(variableFieldCompressionSupported_)   //@K54
-            {                   
-                //Do not need to set the blocking factor if using variable-length field compression
-                //If both the buffer size and blocking factor were set, the buffer size will override
-                //the blocking factor and the number of rows that will fit in the buffer size will be returned
-                //regardless of the blocking factor value                                                                                                        //@K54
-                request.setVariableFieldCompression(true);                                                                              //@K54
-                request.setBufferSize(bufferSize_ * 1024);                                                                                     //@K54
-            }                                                                                                                           //@K54
-            else                                                                                                                        //@K54
-                request.setBlockingFactor (blockingFactor_);
+          fetchScrollOption = DBSQLRequestDS.FETCH_RELATIVE;
+          rows = -(skipped + 1);
         }
-        else
+        else if (fetchScrollOption == DBSQLRequestDS.FETCH_CURRENT)
         {
-          request.setBlockingFactor (1);
-        }   
+          fetchScrollOption = DBSQLRequestDS.FETCH_RELATIVE;
+          rows = -skipped;
+        }
+      }
+    }
 
-        if (JDTrace.isTraceOn ())
-          JDTrace.logInformation (connection_, "Fetching a block of data from the system "+fetchScrollOption+","+rows);
+    DBSQLRequestDS request = null; //@P0A
+    try
+    {
+      request = getFetchRequest (fetchScrollOption, rows);
+
+      if (JDTrace.isTraceOn ())
+        JDTrace.logInformation (connection_, "Fetching a block of data from the system "+fetchScrollOption+","+rows);
+
+      if (fetchReply != null) { fetchReply.returnToPool(); fetchReply = null; } 
+      fetchReply = connection_.sendAndReceive (request, id_); //@P0C
+    }
+    finally
+    {
+      if (request != null) { request.returnToPool(); request =null; } 
+      // if (fetchReply != null) { fetchReply.returnToPool(); fetchReply = null; } 
+    }
 
-        if (fetchReply != null) { fetchReply.returnToPool(); fetchReply = null; } 
-        fetchReply = connection_.sendAndReceive (request, id_); //@P0C
+    return processFetchReply ();
+  }
 
-        int errorClass = fetchReply.getErrorClass();
-        int returnCode = fetchReply.getReturnCode();
 
-        if (((errorClass == 1) && (returnCode == 100))
-            || ((errorClass == 2) && (returnCode == 701)))
+
+/**
+Builds the request to fetch a block of data from the system.
+
+@param  fetchScrollOption   The fetch scroll option.
+@param  rows                The number of rows when
+                            fetchScrollOption is
+                            DBSQLRequestDS.FETCH_RELATIVE.
+@return                     The request.  The caller must
+                            return it to the pool.
+
+@exception  SQLException    If an error occurs.
+**/
+  private DBSQLRequestDS getFetchRequest (int fetchScrollOption, int rows)
+  throws SQLException
+  {
+    DBSQLRequestDS request = DBDSPool.getDBSQLRequestDS ( //@P0C
+                                           DBSQLRequestDS.FUNCTIONID_FETCH,
+                                           id_, DBBaseRequestDS.ORS_BITMAP_RETURN_DATA
+                                           + DBBaseRequestDS.ORS_BITMAP_RESULT_DATA, 0);
+    try
+    {
+      request.setFetchScrollOption (fetchScrollOption, rows);
+
+      // If fetching next, then fetch a block.  Otherwise,
+      // just fetch a single row.  The check was altered under @G1
+      // to fetch a block of rows only when we know the cursor
+      // location.  If we don't know the cursor location when we 
+      // get only one row just in case the next request is to
+      // go backward or relative to the current location.  This 
+      // will be slower but it is the only way to assure accurate 
+      // information is returned to the app. 
+      if ((fetchScrollOption == DBSQLRequestDS.FETCH_NEXT) &&       
+          (blockingFactor_ > 0)                            &&
+          (cursorPositionOfFirstRowInCache_ >= 0))                    // @G1a
+      {
+          if(variableFieldCompressionSupported_)   //@K54
+          {                   
+              //Do not need to set the blocking factor if using variable-length field compression
+              //If both the buffer size and blocking factor were set, the buffer size will override
+              //the blocking factor and the number of rows that will fit in the buffer size will be returned
+              //regardless of the blocking factor value                                                                                                        //@K54
+              request.setVariableFieldCompression(true);                                                                              //@K54
+              request.setBufferSize(bufferSize_ * 1024);                                                                                     //@K54
+          }                                                                                                                           //@K54
+          else                                                                                                                        //@K54
+              request.setBlockingFactor (blockingFactor_);
+      }
+      else
+      {
+        request.setBlockingFactor (1);
+      }   
+    }
+    catch (DBDataStreamException e)
+    {
+      request.returnToPool();
+      JDError.throwSQLException (JDError.EXC_INTERNAL, e);
+    }
+
+    return request;
+  }
+
+
+
+/**
+Processes the reply to a fetch request held in fetchReply.
+
+@return                     true if the first or last block (in
+                            the appropriate direction) was fetched,
+                            false otherwise.
+
+@exception  SQLException    If an error occurs.
+**/
+  private boolean processFetchReply ()
+  throws SQLException
+  {
+    boolean endBlock = false;
+
+    try
+    {
+      int errorClass = fetchReply.getErrorClass();
+      int returnCode = fetchReply.getReturnCode();
+
+      if (((errorClass == 1) && (returnCode == 100))
+          || ((errorClass == 2) && (returnCode == 701)))
+        endBlock = true;
+      else if((errorClass == 2) && (returnCode == 700)) //@pda perf2 - fetch/close
+      {
           endBlock = true;
-        else if((errorClass == 2) && (returnCode == 700)) //@pda perf2 - fetch/close
-        {
-            endBlock = true;
-            if(cursor_ != null)
-                cursor_.setState(true); //closed cursor already on system
-            
-        }
-        // As in AS400JDBCStatement, post a warning if the system gives us a warning,
-        // otherwise throw an exception
-        else if (errorClass != 0)
-        {                                                                                // @D1a
-           // JDError.throwSQLException (connection_, id_, errorClass, returnCode);      // @D1d
-           if (returnCode < 0)    {                                                      // @D1a
-              JDError.throwSQLException (this, connection_, id_, errorClass, returnCode);      // @D1a
-           } else  {                                                                     // @D1a
-              // Post the warning to the resultSet, not the connection @D9A
-             if (resultSet_ != null) { 
-               resultSet_.postWarning (JDError.getSQLWarning (connection_, id_, errorClass, returnCode)); // @D1a
-             } else {
-               if (JDTrace.isTraceOn ())           {
-                 JDTrace.logInformation(connection_, "posting warning to connection");                
-               }
-               connection_.postWarning (JDError.getSQLWarning (connection_, id_, errorClass, returnCode)); // @D1a
+          if(cursor_ != null)
+              cursor_.setState(true); //closed cursor already on system
+          
+      }
+      // As in AS400JDBCStatement, post a warning if the system gives us a warning,
+      // otherwise throw an exception
+      else if (errorClass != 0)
+      {                                                                                // @D1a
+         // JDError.throwSQLException (connection_, id_, errorClass, returnCode);      // @D1d
+         if (returnCode < 0)    {                                                      // @D1a
+            JDError.throwSQLException (this, connection_, id_, errorClass, returnCode);      // @D1a
+         } else  {                                                                     // @D1a
+            // Post the warning to the resultSet, not the connection @D9A
+           if (resultSet_ != null) { 
+             resultSet_.postWarning (JDError.getSQLWarning (connection_, id_, errorClass, returnCode)); // @D1a
+           } else {
+             if (JDTrace.isTraceOn ())           {
+               JDTrace.logInformation(connection_, "posting warning to connection");                
              }
-             
+             connection_.postWarning (JDError.getSQLWarning (connection_, id_, errorClass, returnCode)); // @D1a
            }
            
-        }                                                                                // @D1a
+         }
+         
+      }                                                                                // @D1a
 
-        // Extract data from the row.
-        serverData_ = fetchReply.getResultData ();
+      // Extract data from the row.
+      serverData_ = fetchReply.getResultData ();
 
-        if (serverData_ == null)
-        {
-          endBlock = true; //@rel4 last block was not returned if null????  //@rel9backtotrue and deal with it after called
-          cached_ = 0;
-        }
-        else
-        {
-          row_.setServerData (serverData_);
-          cached_ = serverData_.getRowCount ();
-        }
-
-        if (emptyChecked_ == false) //empty_ is refering to empty resultset, not empty cache_
-        {
-          emptyChecked_ = true;
-          empty_        = (cached_ == 0);
-        }
+      if (serverData_ == null)
+      {
+        endBlock = true; //@rel4 last block was not returned if null????  //@rel9backtotrue and deal with it after called
+        cached_ = 0;
+      }
+      else
+      {
+        row_.setServerData (serverData_);
+        cached_ = serverData_.getRowCount ();
       }
-      finally
+
+      if (emptyChecked_ == false) //empty_ is refering to empty resultset, not empty cache_
       {
-        if (request != null) { request.returnToPool(); request =null; } 
-        // if (fetchReply != null) { fetchReply.returnToPool(); fetchReply = null; } 
+        emptyChecked_ = true;
+        empty_        = (cached_ == 0);
       }
     }
     catch (DBDataStreamException e)
@@ -408,6 +492,127 @@ Fetches a block of data from the system.
 
 
 
+//@RA1A
+/**
+Requests the next block of data from the system without waiting
+for it, if read ahead is enabled and there is a next block.  The
+reply is collected by the next FETCH_NEXT, or thrown away
+when the cursor is positioned some other way or closed.
+**/
+  private void startReadAhead ()
+  {
+    if ((! readAhead_)
+        || (readAheadCorrelationId_ != 0)
+        || (readAheadException_ != null)
+        || (lastBlock_)
+        || (blockingFactor_ <= 1)
+        || (cursorPositionOfFirstRowInCache_ < 0)
+        || ((cursor_ != null) && cursor_.isClosed()))
+      return;
+
+    DBSQLRequestDS request = null;
+    try
+    {
+      request = getFetchRequest (DBSQLRequestDS.FETCH_NEXT, 0);
+
+      if (JDTrace.isTraceOn ())
+        JDTrace.logInformation (connection_, "Reading ahead a block of data from the system");
+
+      readAheadCorrelationId_ = connection_.sendAndDeferReceive (request, id_);
+    }
+    catch (SQLException e)
+    {
+      // Report the error when the block is actually needed.
+      readAheadException_ = e;
+    }
+    finally
+    {
+      if (request != null) { request.returnToPool(); request = null; }
+    }
+  }
+
+
+
+//@RA1A
+/**
+Makes the block that was read ahead the current block.
+
+@return                     true if the last block was fetched,
+                            false otherwise.
+
+@exception  SQLException    If an error occurs.
+**/
+  private boolean receiveReadAhead ()
+  throws SQLException
+  {
+    int correlationId = readAheadCorrelationId_;
+    readAheadCorrelationId_ = 0;
+
+    if (readAheadException_ != null)
+    {
+      SQLException e = readAheadException_;
+      readAheadException_ = null;
+      throw e;
+    }
+
+    if (fetchReply != null) { fetchReply.returnToPool(); fetchReply = null; }
+    fetchReply = connection_.receiveDeferredReply (correlationId);
+
+    return processFetchReply ();
+  }
+
+
+
+//@RA1A
+/**
+Throws away the block that was read ahead, if any.  Errors are
+ignored, since the block is no longer needed.
+
+@return                     The number of positions the system
+                            cursor moved past the current block.
+**/
+  private int cancelReadAhead ()
+  {
+    int correlationId = readAheadCorrelationId_;
+    readAheadCorrelationId_ = 0;
+    readAheadException_ = null;
+
+    if (correlationId == 0)
+      return 0;
+
+    int skipped = 0;
+    DBReplyRequestedDS reply = null;
+    try
+    {
+      reply = connection_.receiveDeferredReply (correlationId);
+
+      int errorClass = reply.getErrorClass();
+      int returnCode = reply.getReturnCode();
+      DBData data = reply.getResultData ();
+      if (data != null)
+        skipped = data.getRowCount ();
+
+      if (((errorClass == 1) && (returnCode == 100))
+          || ((errorClass == 2) && (returnCode == 701)))
+        ++skipped;                                 // Positioned after the last row.
+      else if ((errorClass == 2) && (returnCode == 700) && (cursor_ != null))
+        cursor_.setState(true);                    // Closed cursor already on system.
+    }
+    catch (Exception e)
+    {
+      if (JDTrace.isTraceOn ())
+        JDTrace.logException (connection_, "Read ahead block could not be discarded", e);
+    }
+    finally
+    {
+      if (reply != null) { reply.returnToPool(); reply = null; }
+    }
+
+    return skipped;
+  }
+
+
+
 /**
 Sets the fetch size.
 
@@ -449,6 +654,10 @@ Sets the fetch size.
     // No-op.  It is assumed that the cursor will be closed
     // elsewhere.
     
+      // Collect the block that was read ahead, so the reply is not        //@RA1A
+      // held by the connection forever.                                   //@RA1A
+      cancelReadAhead ();                                                  //@RA1A
+
       // Make sure reply is returned to pool 
       if (fetchReply != null) {
         fetchReply.returnToPool();  fetchReply = null; 
@@ -820,6 +1029,9 @@ Sets the fetch size.
     }
 
     row_.setRowIndex (index_);
+
+    // While the application processes this block, get the next one.   //@RA1A
+    startReadAhead ();                                                 //@RA1A
   }
 
 
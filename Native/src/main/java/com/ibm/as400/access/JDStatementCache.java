@@ -0,0 +1,150 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: JDStatementCache.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * <p>This class holds the closed prepared statements of a connection
+ * that are still prepared on the system, so that they can be reused
+ * when the same SQL statement is prepared again.  A statement is found
+ * by its SQL text, result set type, concurrency, and holdability.  When
+ * the cache is full, the least recently used statement is removed and
+ * must be closed by the caller.
+ *
+ * <p>The connection creates this cache when the "statement cache size"
+ * property is greater than 0.
+ **/
+final class JDStatementCache {
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    static final int MAXIMUM_SIZE = 256;
+
+    private final int size_;
+    // Least recently used first.
+    private final LinkedHashMap<Key, AS400JDBCPreparedStatementImpl> statements_;
+    private long hits_;
+    private long misses_;
+
+    /**
+     * The key of a cached statement.
+     **/
+    static final class Key {
+        private final String sql_;
+        private final int type_;
+        private final int concurrency_;
+        private final int holdability_;
+
+        Key(String sql, int type, int concurrency, int holdability) {
+            sql_ = sql;
+            type_ = type;
+            concurrency_ = concurrency;
+            holdability_ = holdability;
+        }
+
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) return false;
+            Key other = (Key) object;
+            return type_ == other.type_ && concurrency_ == other.concurrency_
+                    && holdability_ == other.holdability_ && sql_.equals(other.sql_);
+        }
+
+        public int hashCode() {
+            return ((sql_.hashCode() * 31 + type_) * 31 + concurrency_) * 31 + holdability_;
+        }
+    }
+
+    /**
+     * Indicates if an error reports that an object or a prepared statement
+     * no longer exists on the system, so that the cached statements may be
+     * out of date:  SQL0204 (object not found), SQL0514 (prepared statement
+     * not found), or SQL0518 (statement not prepared).
+     *
+     * @param e The error.
+     * @return true if the cached statements should be closed; false otherwise.
+     **/
+    static boolean isInvalidatingError(SQLException e) {
+        int sqlCode = e.getErrorCode();
+        return sqlCode == -204 || sqlCode == -514 || sqlCode == -518;
+    }
+
+    /**
+     * Constructs a JDStatementCache object.
+     *
+     * @param size The maximum number of statements.  Values above
+     *             MAXIMUM_SIZE are reduced to it.
+     **/
+    JDStatementCache(int size) {
+        size_ = Math.min(size, MAXIMUM_SIZE);
+        statements_ = new LinkedHashMap<Key, AS400JDBCPreparedStatementImpl>(size_ * 2, 0.75f, true);
+    }
+
+    /**
+     * Removes and returns the statement with the specified key.
+     *
+     * @param key The key.
+     * @return The statement, or null if there is none.
+     **/
+    synchronized AS400JDBCPreparedStatementImpl get(Key key) {
+        AS400JDBCPreparedStatementImpl statement = statements_.remove(key);
+        if (statement != null)
+            ++hits_;
+        else
+            ++misses_;
+        return statement;
+    }
+
+    /**
+     * Adds a statement to the cache.
+     *
+     * @param key       The key.
+     * @param statement The statement.
+     * @return The statement that was removed to make room for this
+     * one, or that had the same key, or null if there is none.
+     * The caller must close it.
+     **/
+    synchronized AS400JDBCPreparedStatementImpl put(Key key, AS400JDBCPreparedStatementImpl statement) {
+        AS400JDBCPreparedStatementImpl removed = statements_.put(key, statement);
+        if (removed == null && statements_.size() > size_) {
+            Iterator<Map.Entry<Key, AS400JDBCPreparedStatementImpl>> eldest = statements_.entrySet().iterator();
+            removed = eldest.next().getValue();
+            eldest.remove();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes and returns all of the statements.
+     *
+     * @return The statements.  The caller must close them.
+     **/
+    synchronized AS400JDBCPreparedStatementImpl[] clear() {
+        AS400JDBCPreparedStatementImpl[] statements = statements_.values().toArray(new AS400JDBCPreparedStatementImpl[statements_.size()]);
+        statements_.clear();
+        return statements;
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return The statistics.
+     **/
+    synchronized String getStatistics() {
+        return "Statement cache: size=" + statements_.size() + "/" + size_ + " hits=" + hits_ + " misses=" + misses_;
+    }
+}
@@ -14,6 +14,7 @@
 package com.ibm.as400.access;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  The KeyedDataQueue class represents a keyed data queue object.
@@ -418,6 +419,71 @@ public class KeyedDataQueue extends BaseDataQueue
         return entry;
     }
 
+    /**
+     Reads up to <i>maxEntries</i> entries from the data queue and removes them from the queue.  The read requests are sent without waiting for each reply, so reading many entries takes far fewer round trips to the system than calling {@link #read(byte[], int, String) read} for each one.  The entries are returned in the order they were read, each with its own key and sender information.
+     <p>Only the first entry is waited for; the others are the matching entries on the queue once it has been read.  If an error occurs after some entries were read, those entries are returned, since they have been removed from the queue.
+     @param  key  The array that contains the key used to search for entries.
+     @param  maxEntries  The maximum number of entries to read.  It must be greater than zero.
+     @param  wait  The number of seconds to wait if the queue contains no entries.  Negative one (-1) indicates to wait until an entry is available.
+     @param  searchType  The type of comparison to use to determine if a key is a match.  Valid values are EQ (equal), NE (not equal), LT (less than), LE (less than or equal), GT (greater than), and GE (greater than or equal).
+     @return  The entries read from the queue.  If no entries were available, an empty array is returned.
+     @exception  AS400SecurityException  If a security or authority error occurs.
+     @exception  ErrorCompletingRequestException  If an error occurs before the request is completed.
+     @exception  IOException  If an error occurs while communicating with the system.
+     @exception  IllegalObjectTypeException  If the object on the system is not the required type.
+     @exception  InterruptedException  If this thread is interrupted.
+     @exception  ObjectDoesNotExistException  If the object does not exist on the system.
+     **/
+    public KeyedDataQueueEntry[] read(byte[] key, int maxEntries, int wait, String searchType) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException
+    {
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Reading data queue entries.");
+
+        // Check parameters.
+        if (key == null)
+        {
+            Trace.log(Trace.ERROR, "Parameter 'key' is null.");
+            throw new NullPointerException("key");
+        }
+        if (key.length > 256)
+        {
+            Trace.log(Trace.ERROR, "Length of parameter 'key' is not valid:", key.length);
+            throw new ExtendedIllegalArgumentException("key.length (" + key.length + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+        }
+        if (maxEntries < 1)
+        {
+            Trace.log(Trace.ERROR, "Value of parameter 'maxEntries' is not valid:", maxEntries);
+            throw new ExtendedIllegalArgumentException("maxEntries (" + maxEntries + ")", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+        }
+        if (wait < -1)
+        {
+            Trace.log(Trace.ERROR, "Value of parameter 'wait' is not valid:", wait);
+            throw new ExtendedIllegalArgumentException("wait (" + wait + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+        }
+        if (searchType == null)
+        {
+            Trace.log(Trace.ERROR, "Parameter 'searchType' is null.");
+            throw new NullPointerException("searchType");
+        }
+        String search = searchType.toUpperCase();
+        if (!search.equals("EQ") && !search.equals("NE") && !search.equals("LT") && !search.equals("LE") && !search.equals("GT") && !search.equals("GE"))
+        {
+            Trace.log(Trace.ERROR, "Value of parameter 'searchType' is not valid: " + searchType);
+            throw new ExtendedIllegalArgumentException("searchType (" + searchType + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+        }
+
+        open();
+        // Send requests.
+        DQReceiveRecord[] records = impl_.readAll(search, wait, maxEntries, key);
+
+        KeyedDataQueueEntry[] entries = new KeyedDataQueueEntry[records.length];
+        for (int i = 0; i < records.length; ++i)
+        {
+            entries[i] = new KeyedDataQueueEntry(this, records[i].key_, records[i].data_, records[i].senderInformation_);
+            if (dataQueueListeners_ != null) fireDataQueueEvent(DataQueueEvent.DQ_READ);
+        }
+        return entries;
+    }
+
     /**
      Reads an entry from the data queue and removes it from the queue.  This method will not wait for entries if there are none on the queue.
      @param  key  The string that contains the key used to search for an entry.  An entry must have a key equal to this value to be read.
@@ -555,4 +621,82 @@ public class KeyedDataQueue extends BaseDataQueue
 
         write(convertKey(key), stringToByteArray(data));
     }
+
+    /**
+     Writes entries to the data queue, in list order.  The write requests are sent without waiting for each reply, so writing many entries takes far fewer round trips to the system than calling {@link #write(byte[], byte[]) write} for each one.
+     <p>If an entry cannot be written, no more requests are sent, and the exception for that entry is thrown once the replies to the requests already sent are received.  The entries before it were written; some entries after it may also have been written.  A DQ_WRITTEN event is fired for each entry written before the exception is thrown.
+     @param  keys  The keys of the entries.  Each key must be 256 bytes or less.
+     @param  data  The entries to write, one for each key.  Each entry must be 64512 bytes or less.
+     @exception  AS400SecurityException  If a security or authority error occurs.
+     @exception  ErrorCompletingRequestException  If an error occurs before the request is completed.
+     @exception  IOException  If an error occurs while communicating with the system.
+     @exception  IllegalObjectTypeException  If the object on the system is not the required type.
+     @exception  InterruptedException  If this thread is interrupted.
+     @exception  ObjectDoesNotExistException  If the object does not exist on the system.
+     **/
+    public void writeAll(List<byte[]> keys, List<byte[]> data) throws AS400SecurityException, ErrorCompletingRequestException, IOException, IllegalObjectTypeException, InterruptedException, ObjectDoesNotExistException
+    {
+        if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Writing keyed data queue entries.");
+
+        // Check parameters.
+        if (keys == null)
+        {
+            Trace.log(Trace.ERROR, "Parameter 'keys' is null.");
+            throw new NullPointerException("keys");
+        }
+        if (data == null)
+        {
+            Trace.log(Trace.ERROR, "Parameter 'data' is null.");
+            throw new NullPointerException("data");
+        }
+        if (keys.size() != data.size())
+        {
+            Trace.log(Trace.ERROR, "Number of keys (" + keys.size() + ") does not match number of entries:", data.size());
+            throw new ExtendedIllegalArgumentException("keys.size (" + keys.size() + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+        }
+        byte[][] keyArray = keys.toArray(new byte[keys.size()][]);
+        byte[][] dataArray = data.toArray(new byte[data.size()][]);
+        for (int i = 0; i < dataArray.length; ++i)
+        {
+            if (keyArray[i] == null)
+            {
+                Trace.log(Trace.ERROR, "Parameter 'keys' contains a null key at index " + i + ".");
+                throw new NullPointerException("keys[" + i + "]");
+            }
+            if (keyArray[i].length > 256)
+            {
+                Trace.log(Trace.ERROR, "Length of parameter 'keys[" + i + "]' is not valid:", keyArray[i].length);
+                throw new ExtendedIllegalArgumentException("keys[" + i + "].length (" + keyArray[i].length + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+            }
+            if (dataArray[i] == null)
+            {
+                Trace.log(Trace.ERROR, "Parameter 'data' contains a null entry at index " + i + ".");
+                throw new NullPointerException("data[" + i + "]");
+            }
+            if (dataArray[i].length > 64512)
+            {
+                Trace.log(Trace.ERROR, "Length of parameter 'data[" + i + "]' is not valid:", dataArray[i].length);
+                throw new ExtendedIllegalArgumentException("data[" + i + "].length (" + dataArray[i].length + ")", ExtendedIllegalArgumentException.LENGTH_NOT_VALID);
+            }
+        }
+        if (dataArray.length == 0) return;
+
+        open();
+        // Send write requests.  Fire an event for each entry written, even if another entry failed.
+        boolean[] written = new boolean[dataArray.length];
+        try
+        {
+            impl_.writeAll(keyArray, dataArray, written);
+        }
+        finally
+        {
+            if (dataQueueListeners_ != null)
+            {
+                for (int i = 0; i < dataArray.length; ++i)
+                {
+                    if (written[i]) fireDataQueueEvent(DataQueueEvent.DQ_WRITTEN);
+                }
+            }
+        }
+    }
 }
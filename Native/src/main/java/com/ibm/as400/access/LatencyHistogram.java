@@ -0,0 +1,110 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: LatencyHistogram.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * <p>This class counts durations in buckets whose width grows with the
+ * duration, so percentiles can be estimated without keeping every value
+ * and without taking a lock.  Values below 16 have a bucket each.  Above
+ * that, each power of two is split into 8 buckets, so an estimate is
+ * never more than 12.5 percent above the value it stands for.
+ **/
+final class LatencyHistogram {
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below this have a bucket each.
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    private static final int BUCKETS = LINEAR_LIMIT + (62 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts_ = new AtomicLongArray(BUCKETS);
+    private final LongAdder count_ = new LongAdder();
+    private final LongAdder sum_ = new LongAdder();
+
+    /**
+     * Records a duration.
+     *
+     * @param value The duration.  Negative values are counted as 0.
+     **/
+    void record(long value) {
+        if (value < 0) value = 0;
+        counts_.incrementAndGet(bucketOf(value));
+        count_.increment();
+        sum_.add(value);
+    }
+
+    /**
+     * Returns the number of durations recorded.
+     **/
+    long getCount() {
+        return count_.sum();
+    }
+
+    /**
+     * Returns the sum of the durations recorded.
+     **/
+    long getSum() {
+        return sum_.sum();
+    }
+
+    /**
+     * Returns the estimated duration that the given percent of the recorded
+     * durations did not exceed.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The upper bound of the bucket holding the percentile, or 0 if
+     *         nothing has been recorded.
+     **/
+    long getPercentile(double percentile) {
+        // Copy the counts first, since other threads can keep recording.
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts[i] = counts_.get(i);
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = (long)Math.ceil(percentile / 100 * total);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts[i];
+            if (seen >= rank) return upperBoundOf(i);
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    // Returns the index of the bucket for a non-negative value.
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) return (int)value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);  // at least SUB_BUCKET_BITS + 1
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int)(value >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Returns the largest value that falls in a bucket.
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) return bucket;
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+}
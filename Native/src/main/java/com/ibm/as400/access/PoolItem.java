@@ -31,6 +31,7 @@ class PoolItem {
     private AS400 AS400object_; // never null after object is constructed
     private PoolItemProperties properties_;
     private Locale locale_ = null; //@C1C
+    private volatile int service_ = -1;  // the service the connection was last obtained for
     //private String locale_ = "";     //@B2A	what locale was used to create the AS400 object
 
     /**
@@ -184,6 +185,18 @@ class PoolItem {
     }
 
 
+    /**
+     * Returns the service the connection was last obtained from the pool for.
+     * The connection list uses this to find connections that are likely to be
+     * connected to a service already.
+     *
+     * @return The service, or -1 if the connection was obtained without a service.
+     **/
+    int getService() {
+        return service_;
+    }
+
+
     /**
      * Returns the number of times the pooled connection has been used.
      *
@@ -222,6 +235,15 @@ class PoolItem {
         properties_.setInUse(inUse);
     }
 
+    /**
+     * Sets the service the connection was last obtained from the pool for.
+     *
+     * @param service The service, or -1 if the connection was obtained without a service.
+     **/
+    void setService(int service) {
+        service_ = service;
+    }
+
     /**
      * Records that the connection has failed a pretest validity check.
      **/
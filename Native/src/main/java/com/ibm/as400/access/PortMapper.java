@@ -214,7 +214,7 @@ class PortMapper {
          solution to finding the jvm version that does not degrade performance. */
             Class.forName("java.net.InetSocketAddress"); //throws ClassNotFoundException (common to all jvm implementations)
 
-            pmSocket = new Socket();
+            pmSocket = AS400ReplyDispatcher.createSocket();
 
             int loginTimeout = 0;
             if (socketProperties.isLoginTimeoutSet()) {
@@ -22,6 +22,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The ProgramCall class allows a user to call an IBM i system program, pass parameters to it (input and output), and access data returned in the output parameters after the program runs.  Use ProgramCall to call programs.  To call service programs, use ServiceProgramCall.
@@ -177,7 +180,7 @@ public class ProgramCall implements Serializable {
 
     private boolean cancelling_ = false;//@D10
 
-    private ProgramCallCancelThread cancelThread_;//@D10
+    private transient CancelTimeout cancelTimeout_;//@D10
 
     private Object cancelLock_ = new CancelLock();//@D10
 
@@ -299,35 +302,51 @@ public class ProgramCall implements Serializable {
     }
 
     private void startCancelThread() {
-        // Start a cancel thread if there is a program running and a timeout value has been specified.
+        // Schedule a cancel if there is a program running and a timeout value has been specified.
         if (timeOut_ != 0) {
 
             // Set a flag that a program is running.
 
             running_ = true;
 
-            // Create a thread to do the cancel if needed.  Start the thread.
-            cancelThread_ = new ProgramCallCancelThread(this);
-
-            cancelThread_.setDaemon(true);
-
-            cancelThread_.start();
+            // The timeout object is reused by every call, and runs on the shared TimeoutScheduler.
+            if (cancelTimeout_ == null) cancelTimeout_ = new CancelTimeout(this);
+            TimeoutScheduler.schedule(cancelTimeout_, timeOut_ * 1000L);
         }
     }
 
     private void endCancelThread() {
-        // Deal with the cancel thread at this point.
+        // Deal with the cancel at this point.
         if (timeOut_ != 0) {
 
             // Set the flag saying the program is no longer running.
             running_ = false;
 
-            // Create a thread to do the cancel if needed.  Start the thread.
-            cancelThread_.programCall_ = null;
+            // Remove the timeout from the scheduler.
+            if (cancelTimeout_ != null) TimeoutScheduler.cancel(cancelTimeout_);
+        }
+    }
+
+    // Ends the program when the time out expires.
+    private static final class CancelTimeout extends TimeoutScheduler.Timeout {
+        private final ProgramCall programCall_;
 
-            // Interrupt the thread so that it wakes up and dies.
-            cancelThread_.interrupt();
+        CancelTimeout(ProgramCall programCall) {
+            programCall_ = programCall;
+        }
 
+        void timedOut() {
+            try {
+                if (programCall_.isRunning()) {
+                    if (Trace.traceOn_)
+                        Trace.log(Trace.INFORMATION, "NOTE:  Program call time out is cancelling a program call by user request.");
+                    programCall_.cancel();
+                } else {
+                    if (Trace.traceOn_) Trace.log(Trace.INFORMATION, "Doing nothing since program not running");
+                }
+            } catch (Exception e) {
+                if (Trace.traceOn_) Trace.log(Trace.INFORMATION, "Exception " + e + " caught");
+            }
         }
     }
 
@@ -897,12 +916,7 @@ public class ProgramCall implements Serializable {
             }
         }
 
-        // Validate that all the program parameters have been set.
-        for (int i = 0; i < parameterList_.length; ++i) {
-            if (parameterList_[i] == null) {
-                throw new ExtendedIllegalArgumentException("parameterList[" + i + "] (" + parameterList_[i] + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
-            }
-        }
+        checkParameterList();
 
         chooseImpl();
 
@@ -922,33 +936,86 @@ public class ProgramCall implements Serializable {
                 result = impl_.runProgram(library_, name_, parameterList_, threadSafetyValue_, messageOption_);
             }
             //@D10C - End
-            // Retrieve the messages.
-            messageList_ = impl_.getMessageList();
-            // Set our system object into each of the messages.
-            if (system_ != null) {
-                for (int i = 0; i < messageList_.length; ++i) {
-                    messageList_[i].setSystem(system_);
-                }
-            }
+            retrieveMessages();
 
             // Fire action completed event.
             if (actionCompletedListeners_ != null) fireActionCompleted();
             return result;
         } catch (ObjectDoesNotExistException e) {
-            // Retrieve the messages.
-            messageList_ = impl_.getMessageList();
-            // Set our system object into each of the messages.
-            if (system_ != null) {
-                for (int i = 0; i < messageList_.length; ++i) {
-                    messageList_[i].setSystem(system_);
-                }
-            }
+            retrieveMessages();
             throw e;
         }
 
 
     }
 
+    /**
+     * Runs the program on the system without waiting for it to complete, using the common fork-join pool.
+     * See {@link #runAsync(Executor)}.
+     *
+     * @return A future that is completed with true if the program ran successfully, or false otherwise.
+     **/
+    public CompletableFuture<Boolean> runAsync() {
+        return runAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the program on the system without waiting for it to complete.  The program and parameter list need to be set prior to this call.
+     * <p>The call is sent on the command server connection of the system object, and the calling thread returns immediately.
+     * No thread waits for the reply: connecting, sending the request, and processing the reply are done on the executor.
+     * Calls made through different ProgramCall or CommandCall objects that share a system object can be outstanding at the same time on the one connection.
+     * The system runs them one after another in the command server job.
+     * <p>When running on the system's JVM, when a time-out is set, or when the program is in an independent ASP,
+     * the call is made by running {@link #run() run()} on the executor instead.
+     * <p>The output parameters, messages, and action completed event are available when the future completes.
+     * Do not change or run this object again before then.
+     *
+     * @param executor The executor on which the call is made and its reply processed.
+     * @return A future that is completed with true if the program ran successfully, or false otherwise.
+     *         If the call fails, the future is completed exceptionally with the exception that run() would have thrown.
+     **/
+    public CompletableFuture<Boolean> runAsync(Executor executor) {
+        if (executor == null) throw new NullPointerException("executor");
+        if (Trace.traceOn_) Trace.log(Trace.INFORMATION, this, "Running program asynchronously: " + program_);
+
+        return RemoteCommandImplRemote.callAsync(() -> {
+            chooseImpl();
+            if (!canRunAsync()) return CompletableFuture.completedFuture(Boolean.valueOf(run()));
+
+            checkParameterList();
+            return ((RemoteCommandImplRemote) impl_).runProgramAsync(library_, name_, parameterList_, messageOption_, executor).whenComplete((result, e) -> {
+                if (e == null || RemoteCommandImplRemote.getCause(e) instanceof ObjectDoesNotExistException) retrieveMessages();
+                if (e == null && actionCompletedListeners_ != null) fireActionCompleted();
+            });
+        }, executor);
+    }
+
+    // Returns true if the program can be called without waiting for the reply.  Must be called after chooseImpl().
+    // Calls on the system's JVM, calls with a time-out, and calls to programs in an independent ASP are made by run().
+    boolean canRunAsync() {
+        return impl_ instanceof RemoteCommandImplRemote && !impl_.isNative() && timeOut_ == 0 && program_.toUpperCase().startsWith("/QSYS.LIB");
+    }
+
+    // Validates that all the program parameters have been set.
+    private void checkParameterList() {
+        for (int i = 0; i < parameterList_.length; ++i) {
+            if (parameterList_[i] == null) {
+                throw new ExtendedIllegalArgumentException("parameterList[" + i + "] (" + parameterList_[i] + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+            }
+        }
+    }
+
+    // Retrieves the messages from the implementation object.
+    void retrieveMessages() {
+        messageList_ = impl_.getMessageList();
+        // Set our system object into each of the messages.
+        if (system_ != null) {
+            for (int i = 0; i < messageList_.length; ++i) {
+                messageList_[i].setSystem(system_);
+            }
+        }
+    }
+
     /**
      * Sets the program name and the parameter list and runs the program on the system.
      *
@@ -53,6 +53,8 @@ class RCCallProgramReplyDataStream extends ClientAccessDataStream
                 if (parameterUsage == 22 || parameterUsage == 23)
                 {
                     outputData = DataStreamCompression.decompressRLE(data_, index + 12, byteLength - 12, outputDataLength, DataStreamCompression.DEFAULT_ESCAPE);
+                    HostServerMetrics metrics = HostServerMetrics.active_;
+                    if (metrics != null) metrics.dataCompressed(AS400.COMMAND, false, outputDataLength, byteLength - 12);
                 }
                 else
                 {
@@ -65,6 +67,13 @@ class RCCallProgramReplyDataStream extends ClientAccessDataStream
         }
     }
 
+    // Call program replies are received into pooled arrays.  RemoteCommandImplRemote
+    // releases them once the output parameters and messages have been copied out.
+    boolean isReplyBufferPoolable()
+    {
+        return true;
+    }
+
     protected int readAfterHeader(InputStream in) throws IOException
     {
         if (Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Receiving call program reply...");
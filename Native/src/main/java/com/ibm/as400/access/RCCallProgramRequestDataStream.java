@@ -56,6 +56,8 @@ class RCCallProgramRequestDataStream extends ClientAccessDataStream
                     compressedInputData = DataStreamCompression.compressRLE(tempInputData, 0, tempInputData.length, DataStreamCompression.DEFAULT_ESCAPE);
                     if (compressedInputData != null)
                     {
+                        HostServerMetrics metrics = HostServerMetrics.active_;
+                        if (metrics != null) metrics.dataCompressed(AS400.COMMAND, true, tempInputData.length, compressedInputData.length);
                         parameterLength = compressedInputData.length;
                         parameterUsage += 20;
                     }
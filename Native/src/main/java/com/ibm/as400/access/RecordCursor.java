@@ -0,0 +1,436 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: RecordCursor.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+/**
+ * Reads the records of an open file without creating a Record object for each record.
+ * The cursor is a view over the block of records most recently received from the system.
+ * Each call to {@link #next next()} moves the view to the next record, and the typed
+ * accessors convert the fields of that record directly from the received bytes.
+ * <p>
+ * A RecordCursor is obtained from {@link AS400File#getRecordCursor AS400File.getRecordCursor()}.
+ * It reads from the first record of the file to the last, in arrival sequence for a
+ * SequentialFile and in key order for a KeyedFile.  Records are requested from the
+ * system using the blocking factor specified when the file was opened.  Reading the
+ * records with a cursor moves the cursor of the file, so after the cursor reaches the
+ * end of the file, the file is positioned after its last record.
+ * <p>
+ * The record format of the file cannot have fields whose length or offset depends on
+ * another field.  A RecordCursor is not thread safe.
+ * <pre>
+ *   SequentialFile file = new SequentialFile(system, "/QSYS.LIB/MYLIB.LIB/ORDERS.FILE");
+ *   file.setRecordFormat();
+ *   file.open(AS400File.READ_ONLY, 1000, AS400File.COMMIT_LOCK_LEVEL_NONE);
+ *   RecordCursor cursor = file.getRecordCursor();
+ *   CharBuffer name = CharBuffer.allocate(50);
+ *   long total = 0;
+ *   while (cursor.next())
+ *   {
+ *     name.clear();
+ *     cursor.getString(1, name);
+ *     total += cursor.getDecimalUnscaled(2);
+ *   }
+ *   file.close();
+ * </pre>
+ **/
+public class RecordCursor
+{
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    private final AS400File file_;
+    private final RecordFormat recordFormat_;
+    private final FieldDescription[] fieldDescriptions_;
+    private final AS400DataType[] dataTypes_;
+    private final int[] instanceTypes_;
+    // The offset of each field from the start of a record.
+    private final int[] fieldOffsets_;
+
+    // The block of records most recently received.
+    private byte[] data_;
+    private int recordOffset_;
+    private int recordIncrement_;
+    private int numberOfRecords_;
+    private int nullFieldMapOffset_;      // -1 if the file has no null capable fields.
+    private int recordNumberOffset_;
+
+    // The record used when records are not read in blocks (native or proxy implementation).
+    private Record record_;
+
+    private int index_;                   // Index of the current record in the block.
+    private int position_;                // Offset of the current record in data_.
+    private boolean started_ = false;
+    private boolean endOfFile_ = false;
+
+    /**
+     * Constructs a RecordCursor object.
+     * @param file The open file to read.
+     **/
+    RecordCursor(AS400File file)
+    {
+        file_ = file;
+        recordFormat_ = file.getRecordFormat();
+        if (recordFormat_.getHasDependentFields())
+        {
+            Trace.log(Trace.ERROR, "A RecordCursor cannot read a record format with dependent fields.");
+            throw new ExtendedIllegalStateException("recordFormat", ExtendedIllegalStateException.UNKNOWN);
+        }
+
+        fieldDescriptions_ = recordFormat_.getFieldDescriptions();
+        int numFields = fieldDescriptions_.length;
+        dataTypes_ = new AS400DataType[numFields];
+        instanceTypes_ = new int[numFields];
+        fieldOffsets_ = new int[numFields];
+        int offset = 0;
+        for (int i = 0; i < numFields; ++i)
+        {
+            FieldDescription f = fieldDescriptions_[i];
+            dataTypes_[i] = f.getDataType();
+            instanceTypes_[i] = dataTypes_[i].getInstanceType();
+            fieldOffsets_[i] = offset;
+            if (isVariableLength(f))
+            {
+                offset += 2;
+            }
+            offset += dataTypes_[i].getByteLength();
+        }
+    }
+
+    /**
+     * Moves the cursor to the next record.  The first call moves the cursor to the
+     * first record of the file.  When the records in the current block have been
+     * read, the next block is requested from the system.
+     *
+     * @return true if the cursor is positioned on a record; false if there are no more records.
+     * @throws AS400Exception             If the system returns an error message.
+     * @throws AS400SecurityException     If a security or authority error occurs.
+     * @throws ConnectionDroppedException If the connection is dropped unexpectedly.
+     * @throws InterruptedException       If this thread is interrupted.
+     * @throws IOException                If an error occurs while communicating with the system.
+     **/
+    public boolean next()
+            throws AS400Exception,
+            AS400SecurityException,
+            InterruptedException,
+            IOException
+    {
+        if (endOfFile_)
+        {
+            return false;
+        }
+        if (started_ && ++index_ < numberOfRecords_)
+        {
+            position_ += recordIncrement_;
+            return true;
+        }
+
+        file_.checkOpen();
+        boolean first = !started_;
+        started_ = true;
+        numberOfRecords_ = 0;
+        if (file_.impl_ instanceof AS400FileImplRemote)
+        {
+            ((AS400FileImplRemote)file_.impl_).readRecordBlock(this, first);
+        }
+        else
+        {
+            // The native and proxy implementations do not expose the received
+            // records, so read them one at a time as Record objects.
+            record_ = first ? file_.readFirst() : file_.readNext();
+            if (record_ != null)
+            {
+                setBlock(record_.getContents(), 0, 0, 1, -1, -1);
+            }
+        }
+
+        if (numberOfRecords_ == 0)
+        {
+            endOfFile_ = true;
+            data_ = null;
+            record_ = null;
+            return false;
+        }
+        index_ = 0;
+        position_ = recordOffset_;
+        return true;
+    }
+
+    /**
+     * Sets the block of records that the cursor reads.
+     * @param data The data containing the records.
+     * @param recordOffset The offset of the first record in <i>data</i>.
+     * @param recordIncrement The number of bytes from the start of one record to the start of the next.
+     * @param numberOfRecords The number of records in the block.
+     * @param nullFieldMapOffset The offset of the null field byte map from the start of a record, or -1 if there is none.
+     * @param recordNumberOffset The offset of the record number from the start of a record, or -1 if there is none.
+     **/
+    void setBlock(byte[] data, int recordOffset, int recordIncrement, int numberOfRecords, int nullFieldMapOffset, int recordNumberOffset)
+    {
+        data_ = data;
+        recordOffset_ = recordOffset;
+        recordIncrement_ = recordIncrement;
+        numberOfRecords_ = numberOfRecords;
+        nullFieldMapOffset_ = nullFieldMapOffset;
+        recordNumberOffset_ = recordNumberOffset;
+    }
+
+    /**
+     * Returns the record format of the records read by this cursor.
+     * @return The record format.
+     **/
+    public RecordFormat getRecordFormat()
+    {
+        return recordFormat_;
+    }
+
+    /**
+     * Returns the record number of the current record.
+     * @return The record number.
+     **/
+    public int getRecordNumber()
+    {
+        checkRecord();
+        if (record_ != null) return record_.getRecordNumber();
+        return BinaryConverter.byteArrayToInt(data_, position_ + recordNumberOffset_);
+    }
+
+    /**
+     * Returns the record number of the current record.  Use this method
+     * for files with more than 2147483647 records.
+     * @return The record number.
+     **/
+    public long getRecordNumberLong()
+    {
+        checkRecord();
+        if (record_ != null) return record_.getRecordNumberLong();
+        return BinaryConverter.byteArrayToUnsignedInt(data_, position_ + recordNumberOffset_);
+    }
+
+    /**
+     * Indicates if the field is null.
+     * @param index The index of the field in the record format.
+     * @return true if the field is null; false otherwise.
+     **/
+    public boolean isNullField(int index)
+    {
+        checkRecord();
+        checkIndex(index);
+        if (record_ != null) return record_.isNullField(index);
+        // 0xF1 = field is null, 0xF0 = field is not null
+        return nullFieldMapOffset_ != -1 && data_[position_ + nullFieldMapOffset_ + index] == (byte)0xF1;
+    }
+
+    /**
+     * Returns the value of a binary field as an int.  The field must be a
+     * one, two, or four byte binary field, or a one or two byte unsigned binary field.
+     * @param index The index of the field in the record format.
+     * @return The value of the field.
+     **/
+    public int getInt(int index)
+    {
+        int offset = getFieldOffset(index);
+        switch (instanceTypes_[index])
+        {
+            case AS400DataType.TYPE_BIN1:
+                return data_[offset];
+            case AS400DataType.TYPE_UBIN1:
+                return data_[offset] & 0xFF;
+            case AS400DataType.TYPE_BIN2:
+                return BinaryConverter.byteArrayToShort(data_, offset);
+            case AS400DataType.TYPE_UBIN2:
+                return BinaryConverter.byteArrayToUnsignedShort(data_, offset);
+            case AS400DataType.TYPE_BIN4:
+                return BinaryConverter.byteArrayToInt(data_, offset);
+            default:
+                throw new ExtendedIllegalArgumentException("index (" + index + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_DATATYPE_NOT_VALID);
+        }
+    }
+
+    /**
+     * Returns the value of a numeric field as a long.  The field must be a binary
+     * field other than an eight byte unsigned binary field, or a packed or zoned
+     * decimal field with no decimal positions.
+     * @param index The index of the field in the record format.
+     * @return The value of the field.
+     **/
+    public long getLong(int index)
+    {
+        int offset = getFieldOffset(index);
+        switch (instanceTypes_[index])
+        {
+            case AS400DataType.TYPE_UBIN4:
+                return BinaryConverter.byteArrayToUnsignedInt(data_, offset);
+            case AS400DataType.TYPE_BIN8:
+                return BinaryConverter.byteArrayToLong(data_, offset);
+            case AS400DataType.TYPE_PACKED:
+                AS400PackedDecimal packed = (AS400PackedDecimal)dataTypes_[index];
+                if (packed.getNumberOfDecimalPositions() == 0) return packed.toUnscaledLong(data_, offset);
+                break;
+            case AS400DataType.TYPE_ZONED:
+                AS400ZonedDecimal zoned = (AS400ZonedDecimal)dataTypes_[index];
+                if (zoned.getNumberOfDecimalPositions() == 0) return zoned.toUnscaledLong(data_, offset);
+                break;
+            default:
+                return getInt(index);
+        }
+        throw new ExtendedIllegalArgumentException("index (" + index + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_DATATYPE_NOT_VALID);
+    }
+
+    /**
+     * Returns the unscaled value of a packed or zoned decimal field.  The decimal
+     * positions of the field are not applied, so a field with two decimal positions
+     * that contains 123.45 returns 12345.
+     * @param index The index of the field in the record format.
+     * @return The unscaled value of the field.
+     * @see AS400PackedDecimal#toUnscaledLong
+     * @see AS400ZonedDecimal#toUnscaledLong
+     **/
+    public long getDecimalUnscaled(int index)
+    {
+        int offset = getFieldOffset(index);
+        switch (instanceTypes_[index])
+        {
+            case AS400DataType.TYPE_PACKED:
+                return ((AS400PackedDecimal)dataTypes_[index]).toUnscaledLong(data_, offset);
+            case AS400DataType.TYPE_ZONED:
+                return ((AS400ZonedDecimal)dataTypes_[index]).toUnscaledLong(data_, offset);
+            default:
+                throw new ExtendedIllegalArgumentException("index (" + index + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_DATATYPE_NOT_VALID);
+        }
+    }
+
+    /**
+     * Converts the value of a character field into the specified buffer.  For a variable
+     * length field, only the current length of the field is converted.  Fields with a
+     * single-byte CCSID are converted without creating any objects.
+     * @param index The index of the field in the record format.
+     * @param buffer The buffer to receive the characters, starting at its current position.
+     *               It must have enough space remaining to hold the field.
+     * @return The number of characters put into the buffer.
+     **/
+    public int getString(int index, CharBuffer buffer)
+    {
+        int offset = getFieldOffset(index);
+        if (instanceTypes_[index] != AS400DataType.TYPE_TEXT)
+        {
+            throw new ExtendedIllegalArgumentException("index (" + index + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_DATATYPE_NOT_VALID);
+        }
+
+        FieldDescription f = fieldDescriptions_[index];
+        AS400Text text = (AS400Text)dataTypes_[index];
+        int length;
+        if (isVariableLength(f))
+        {
+            length = BinaryConverter.byteArrayToUnsignedShort(data_, offset);
+            // The length of a VARGRAPHIC field is the number of characters, each of two bytes.
+            if (f instanceof DBCSGraphicFieldDescription) length *= 2;
+            offset += 2;
+        }
+        else
+        {
+            length = text.getByteLength();
+        }
+
+        ConverterImpl converter = text.getConverter();
+        if (converter instanceof ConverterImplRemote && ((ConverterImplRemote)converter).table_ instanceof ConvTableSingleMap)
+        {
+            // One byte is one character, so map the bytes directly into the buffer.
+            char[] toUnicode = ((ConvTableSingleMap)((ConverterImplRemote)converter).table_).toUnicode_;
+            if (buffer.hasArray())
+            {
+                char[] dest = buffer.array();
+                int destOffset = buffer.arrayOffset() + buffer.position();
+                if (length > buffer.remaining()) throw new java.nio.BufferOverflowException();
+                for (int i = 0; i < length; ++i)
+                {
+                    dest[destOffset + i] = toUnicode[data_[offset + i] & 0xFF];
+                }
+                buffer.position(buffer.position() + length);
+            }
+            else
+            {
+                for (int i = 0; i < length; ++i)
+                {
+                    buffer.put(toUnicode[data_[offset + i] & 0xFF]);
+                }
+            }
+            return length;
+        }
+
+        String value = isVariableLength(f) ? converter.byteArrayToString(data_, offset, length) : (String)text.toObject(data_, offset);
+        buffer.put(value);
+        return value.length();
+    }
+
+    /**
+     * Returns the current record as a Record object.  This creates a new Record
+     * object, so use it only for the records that need to be kept.
+     * @return The current record.
+     * @throws java.io.UnsupportedEncodingException If an error occurs during conversion.
+     **/
+    public Record getRecord()
+            throws java.io.UnsupportedEncodingException
+    {
+        checkRecord();
+        if (record_ != null) return record_;
+
+        Record record = recordFormat_.getNewRecord(data_, position_);
+        if (nullFieldMapOffset_ != -1)
+        {
+            for (int i = 0; i < fieldDescriptions_.length; ++i)
+            {
+                if (isNullField(i)) record.setField(i, null);
+            }
+        }
+        try
+        {
+            record.setRecordNumber(getRecordNumber());
+        }
+        catch (java.beans.PropertyVetoException e)
+        { // We created the Record object.  There is no one to veto anything.
+        }
+        return record;
+    }
+
+    // Returns the offset of a field of the current record in data_.
+    private int getFieldOffset(int index)
+    {
+        checkRecord();
+        checkIndex(index);
+        return position_ + fieldOffsets_[index];
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= fieldOffsets_.length)
+        {
+            throw new ExtendedIllegalArgumentException("index (" + index + ")", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+        }
+    }
+
+    private void checkRecord()
+    {
+        if (data_ == null)
+        {
+            throw new ExtendedIllegalStateException("record", ExtendedIllegalStateException.PROPERTY_NOT_SET);
+        }
+    }
+
+    private static boolean isVariableLength(FieldDescription f)
+    {
+        return f instanceof VariableLengthFieldDescription && ((VariableLengthFieldDescription)f).isVariableLength();
+    }
+}
@@ -15,6 +15,10 @@ package com.ibm.as400.access;
 
 import java.io.IOException;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 // The remote implementation of CommandCall and ProgramCall.
 class RemoteCommandImplRemote implements RemoteCommandImpl
@@ -439,16 +443,36 @@ class RemoteCommandImplRemote implements RemoteCommandImpl
         // Connect to server.
         openOffThread();
 
+        EncodedCommand encoded = encodeCommand(command);
+        return runCommandOffThread(encoded.bytes_, messageOption, encoded.ccsid_);
+    }
+
+    // A command converted for the command server, and the ccsid it is in.
+    private static final class EncodedCommand
+    {
+        final byte[] bytes_;
+        final int ccsid_;
+
+        EncodedCommand(byte[] bytes, int ccsid)
+        {
+            bytes_ = bytes;
+            ccsid_ = ccsid;
+        }
+    }
+
+    // Converts a command for the command server.  Must be called after connecting, so that the datastream level is known.
+    private EncodedCommand encodeCommand(String command)
+    {
         if (serverDataStreamLevel_ >= 10)
         {
-           return runCommandOffThread(unicodeConverter_.stringToByteArray(command), messageOption, 1200);
+           return new EncodedCommand(unicodeConverter_.stringToByteArray(command), 1200);
         }
         //@Bidi-HCG3 return runCommandOffThread(converter_.stringToByteArray(command), messageOption, 0);
         //@Bidi-HCG3 start
         //Perform Bidi transformation for data only
         command = AS400BidiTransform.SQL_statement_reordering(command, system_.getBidiStringType(), converter_.table_.bidiStringType_);
         //this is a trick to prevent Bidi transformation        
-        return runCommandOffThread(converter_.stringToByteArray(command, new BidiConversionProperties(converter_.table_.bidiStringType_)), messageOption, 0);
+        return new EncodedCommand(converter_.stringToByteArray(command, new BidiConversionProperties(converter_.table_.bidiStringType_)), 0);
         //@Bidi-HCG3 end
     }
 
@@ -485,23 +509,7 @@ class RemoteCommandImplRemote implements RemoteCommandImpl
         {
             // Create and send request.
             DataStream baseReply = server_.sendAndReceive(new RCRunCommandRequestDataStream(command, serverDataStreamLevel_, messageOption, ccsid));
-
-            // Punt if unknown data stream.
-            if (!(baseReply instanceof RCRunCommandReplyDataStream))
-            {
-                Trace.log(Trace.ERROR, "Unknown run command reply datastream:", baseReply.data_);
-                disconnectServer();
-                throw new InternalErrorException(InternalErrorException.DATA_STREAM_UNKNOWN);
-            }
-
-            RCRunCommandReplyDataStream reply = (RCRunCommandReplyDataStream)baseReply;
-
-            // Get info from reply.
-            messageList_ = reply.getMessageList(converter_);
-            int rc = reply.getRC();
-            processReturnCode(rc);
-
-            return rc == 0;
+            return processRunCommandReply(baseReply);
         }
         catch (IOException e)
         {
@@ -511,6 +519,26 @@ class RemoteCommandImplRemote implements RemoteCommandImpl
         }
     }
 
+    private boolean processRunCommandReply(DataStream baseReply) throws ErrorCompletingRequestException, IOException
+    {
+        // Punt if unknown data stream.
+        if (!(baseReply instanceof RCRunCommandReplyDataStream))
+        {
+            Trace.log(Trace.ERROR, "Unknown run command reply datastream:", baseReply.data_);
+            disconnectServer();
+            throw new InternalErrorException(InternalErrorException.DATA_STREAM_UNKNOWN);
+        }
+
+        RCRunCommandReplyDataStream reply = (RCRunCommandReplyDataStream)baseReply;
+
+        // Get info from reply.
+        messageList_ = reply.getMessageList(converter_);
+        int rc = reply.getRC();
+        processReturnCode(rc);
+
+        return rc == 0;
+    }
+
     // The ImplNative class overrides this method.
     public boolean runProgram(String library, String name, ProgramParameter[] parameterList) throws AS400SecurityException, ErrorCompletingRequestException, IOException, InterruptedException, ObjectDoesNotExistException
     {
@@ -561,19 +589,32 @@ class RemoteCommandImplRemote implements RemoteCommandImpl
         {
             // Create and send request.
             DataStream baseReply = server_.sendAndReceive(new RCCallProgramRequestDataStream(library, name, parameterList, converter_, serverDataStreamLevel_, messageOption));
+            return processCallProgramReply(baseReply, library, name, parameterList);
+        }
+        catch (IOException e)
+        {
+            Trace.log(Trace.ERROR, "Lost connection to remote command server:", e);
+            disconnectServer();
+            throw e;
+        }
+    }
 
-            // Punt if unknown data stream.
-            if (!(baseReply instanceof RCCallProgramReplyDataStream))
-            {
-                Trace.log(Trace.ERROR, "Unknown run program reply datastream ", baseReply.data_);
-                disconnectServer();
-                throw new InternalErrorException(InternalErrorException.DATA_STREAM_UNKNOWN);
-            }
+    private boolean processCallProgramReply(DataStream baseReply, String library, String name, ProgramParameter[] parameterList) throws ErrorCompletingRequestException, IOException, ObjectDoesNotExistException
+    {
+        // Punt if unknown data stream.
+        if (!(baseReply instanceof RCCallProgramReplyDataStream))
+        {
+            Trace.log(Trace.ERROR, "Unknown run program reply datastream ", baseReply.data_);
+            disconnectServer();
+            throw new InternalErrorException(InternalErrorException.DATA_STREAM_UNKNOWN);
+        }
 
-            RCCallProgramReplyDataStream reply = (RCCallProgramReplyDataStream)baseReply;
+        RCCallProgramReplyDataStream reply = (RCCallProgramReplyDataStream)baseReply;
 
-            // Check for error code returned.
-            int rc = reply.getRC();
+        // Check for error code returned.
+        int rc = reply.getRC();
+        try
+        {
             processReturnCode(rc);
             if (rc == 0)
             {
@@ -583,31 +624,30 @@ class RemoteCommandImplRemote implements RemoteCommandImpl
                 return true;
             }
             messageList_ = reply.getMessageList(converter_);
-            if (rc == 0x0500 && messageList_.length != 0)
-            {
-                String id = messageList_[messageList_.length - 1].getID();
+        }
+        finally
+        {
+            // The output data and messages have been copied, so the reply buffer can be reused.
+            reply.releaseData();
+        }
+        if (rc == 0x0500 && messageList_.length != 0)
+        {
+            String id = messageList_[messageList_.length - 1].getID();
 
-                if (id.equals("MCH3401"))
+            if (id.equals("MCH3401"))
+            {
+                byte[] substitutionBytes = messageList_[messageList_.length - 1].getSubstitutionData();
+                if (substitutionBytes[0] == 0x02 && substitutionBytes[1] == 0x01 && name.equals(converter_.byteArrayToString(substitutionBytes, 2, 30).trim()))
+                {
+                    throw new ObjectDoesNotExistException(QSYSObjectPathName.toPath(library, name, "PGM"), ObjectDoesNotExistException.OBJECT_DOES_NOT_EXIST);
+                }
+                if (substitutionBytes[0] == 0x04 && substitutionBytes[1] == 0x01 && library.equals(converter_.byteArrayToString(substitutionBytes, 2, 30).trim()))
                 {
-                    byte[] substitutionBytes = messageList_[messageList_.length - 1].getSubstitutionData();
-                    if (substitutionBytes[0] == 0x02 && substitutionBytes[1] == 0x01 && name.equals(converter_.byteArrayToString(substitutionBytes, 2, 30).trim()))
-                    {
-                        throw new ObjectDoesNotExistException(QSYSObjectPathName.toPath(library, name, "PGM"), ObjectDoesNotExistException.OBJECT_DOES_NOT_EXIST);
-                    }
-                    if (substitutionBytes[0] == 0x04 && substitutionBytes[1] == 0x01 && library.equals(converter_.byteArrayToString(substitutionBytes, 2, 30).trim()))
-                    {
-                        throw new ObjectDoesNotExistException(QSYSObjectPathName.toPath(library, name, "PGM"), ObjectDoesNotExistException.LIBRARY_DOES_NOT_EXIST);
-                    }
+                    throw new ObjectDoesNotExistException(QSYSObjectPathName.toPath(library, name, "PGM"), ObjectDoesNotExistException.LIBRARY_DOES_NOT_EXIST);
                 }
             }
-            return false;
-        }
-        catch (IOException e)
-        {
-            Trace.log(Trace.ERROR, "Lost connection to remote command server:", e);
-            disconnectServer();
-            throw e;
         }
+        return false;
     }
 
     public byte[] runServiceProgram(String library, String name, String procedureName, ProgramParameter[] serviceParameterList) throws AS400SecurityException, ErrorCompletingRequestException, IOException, InterruptedException, ObjectDoesNotExistException
@@ -622,7 +662,141 @@ class RemoteCommandImplRemote implements RemoteCommandImpl
         // Connect to server.
         open(threadSafety);
 
-        // Set up the parameter list for the program that we will use to call the service program (QZRUCLSP).
+        ProgramParameter[] programParameterList = getServiceProgramParameterList(library, name, procedureName, returnValueFormat, serviceParameterList, procedureNameCCSID, alignOn16Bytes);
+
+        // Note: Depending upon whether the program represented by this ProgramCall object will be run on-thread or through the host servers, we will issue the service program call request accordingly, either on-thread or through the host servers.
+        // Design note: The QZRUCLSP API itself is not documented to be threadsafe.
+        boolean succeeded = runProgram("QSYS", "QZRUCLSP", programParameterList, threadSafety, messageOption);
+        if (!succeeded)
+        {
+            return null;
+        }
+        return programParameterList[6].getOutputData();
+    }
+
+    // Note: The following methods send their request without waiting for the reply, so that several requests can be outstanding on the command server connection.
+    // Connecting, sending the request, and processing the reply are done on the executor.  The caller must not use this object for another call until the future completes.
+
+    CompletableFuture<Boolean> runCommandAsync(String command, int messageOption, Executor executor)
+    {
+        return callAsync(() -> {
+            if (Trace.traceOn_) Trace.log(Trace.INFORMATION, "Remote implementation running command asynchronously: " + command);
+            priorCallWasOnThread_ = OFF_THREAD;
+
+            // Connect to server.
+            openOffThread();
+
+            EncodedCommand encoded = encodeCommand(command);
+            return sendAsync(new RCRunCommandRequestDataStream(encoded.bytes_, serverDataStreamLevel_, messageOption, encoded.ccsid_), executor, baseReply -> processRunCommandReply(baseReply));
+        }, executor);
+    }
+
+    CompletableFuture<Boolean> runProgramAsync(String library, String name, ProgramParameter[] parameterList, int messageOption, Executor executor)
+    {
+        return callAsync(() -> {
+            if (Trace.traceOn_) Trace.log(Trace.INFORMATION, "Remote implementation running program asynchronously: " + library + "/" + name);
+            priorCallWasOnThread_ = OFF_THREAD;
+
+            // Connect to server.
+            openOffThread();
+
+            return sendAsync(new RCCallProgramRequestDataStream(library, name, parameterList, converter_, serverDataStreamLevel_, messageOption), executor, baseReply -> processCallProgramReply(baseReply, library, name, parameterList));
+        }, executor);
+    }
+
+    CompletableFuture<byte[]> runServiceProgramAsync(String library, String name, String procedureName, int returnValueFormat, ProgramParameter[] serviceParameterList, int procedureNameCCSID, int messageOption, boolean alignOn16Bytes, Executor executor)
+    {
+        return callAsync(() -> {
+            if (Trace.traceOn_) Trace.log(Trace.INFORMATION, "Remote implementation running service program asynchronously: " + library + "/" + name + " procedure name: " + procedureName);
+
+            // Connect to server.
+            openOffThread();
+
+            ProgramParameter[] programParameterList = getServiceProgramParameterList(library, name, procedureName, returnValueFormat, serviceParameterList, procedureNameCCSID, alignOn16Bytes);
+            return runProgramAsync("QSYS", "QZRUCLSP", programParameterList, messageOption, executor).thenApply(succeeded -> succeeded ? programParameterList[6].getOutputData() : null);
+        }, executor);
+    }
+
+    // Processes the reply to an asynchronous request.
+    private interface ReplyProcessor<T>
+    {
+        T process(DataStream baseReply) throws Exception;
+    }
+
+    // Sends a request, then processes its reply on the executor.
+    private <T> CompletableFuture<T> sendAsync(DataStream request, Executor executor, ReplyProcessor<T> processor) throws IOException
+    {
+        CompletableFuture<DataStream> reply;
+        try
+        {
+            reply = server_.sendAsync(request);
+        }
+        catch (IOException e)
+        {
+            Trace.log(Trace.ERROR, "Lost connection to remote command server:", e);
+            disconnectServer();
+            throw e;
+        }
+        return reply.handleAsync((baseReply, e) -> {
+            if (e != null)
+            {
+                if (e instanceof IOException)
+                {
+                    Trace.log(Trace.ERROR, "Lost connection to remote command server:", e);
+                    disconnectServer();
+                }
+                throw (e instanceof CompletionException) ? (CompletionException)e : new CompletionException(e);
+            }
+            try
+            {
+                return processor.process(baseReply);
+            }
+            catch (RuntimeException x)
+            {
+                throw x;
+            }
+            catch (Exception x)
+            {
+                if (x instanceof IOException)
+                {
+                    Trace.log(Trace.ERROR, "Lost connection to remote command server:", x);
+                    disconnectServer();
+                }
+                throw new CompletionException(x);
+            }
+        }, executor);
+    }
+
+    // Runs a task on the executor and returns a future for the future the task returns.
+    // A checked exception thrown by the task completes the returned future exceptionally with that exception.
+    static <T> CompletableFuture<T> callAsync(Callable<CompletableFuture<T>> task, Executor executor)
+    {
+        return CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                return task.call();
+            }
+            catch (RuntimeException e)
+            {
+                throw e;
+            }
+            catch (Exception e)
+            {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(future -> future);
+    }
+
+    // Returns the exception that failed an asynchronous call, without the CompletionException that wraps it.
+    static Throwable getCause(Throwable e)
+    {
+        return (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+    }
+
+    // Sets up the parameter list for the program that we will use to call the service program (QZRUCLSP).
+    // The server must already be open.
+    private ProgramParameter[] getServiceProgramParameterList(String library, String name, String procedureName, int returnValueFormat, ProgramParameter[] serviceParameterList, int procedureNameCCSID, boolean alignOn16Bytes) throws IOException
+    {
         ProgramParameter[] programParameterList = new ProgramParameter[7 + serviceParameterList.length];
 
         // First parameter:  qualified service program name - input - char(20).
@@ -708,14 +882,7 @@ class RemoteCommandImplRemote implements RemoteCommandImpl
         // Combines the newly created programParameterList with the value of serviceParameterList input by user to form the perfect parameter list that will be needed in the method runProgram.
         System.arraycopy(serviceParameterList, 0, programParameterList, 7, serviceParameterList.length);
 
-        // Note: Depending upon whether the program represented by this ProgramCall object will be run on-thread or through the host servers, we will issue the service program call request accordingly, either on-thread or through the host servers.
-        // Design note: The QZRUCLSP API itself is not documented to be threadsafe.
-        boolean succeeded = runProgram("QSYS", "QZRUCLSP", programParameterList, threadSafety, messageOption);
-        if (!succeeded)
-        {
-            return null;
-        }
-        return programParameterList[6].getOutputData();
+        return programParameterList;
     }
 
     // Processes the return code received from the server and throws the appropriate exception.
@@ -0,0 +1,158 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: ReplyBufferPool.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * <p>This class pools the byte arrays that host server replies are
+ * received into.  The arrays come in size classes, each a power of two
+ * from 256 bytes to 2 megabytes, and a reply gets an array of the
+ * smallest class that holds it.  Each size class is a DBConcurrentPool,
+ * so each thread keeps a small cache of the arrays it released most
+ * recently, and the other free arrays are shared by all threads.  The
+ * number of free arrays kept is limited by their total size, so large
+ * arrays are cached in smaller numbers.  Larger replies are not pooled.
+ *
+ * <p>With threads used for the host server connections, replies are
+ * received on the connection's thread but released on the caller's
+ * thread, so most arrays go through the shared pool.  The caches of
+ * the threads are therefore kept small, and arrays larger than 32K
+ * are only kept in the shared pool.
+ *
+ * <p>Because the arrays are usually longer than the replies, only reply
+ * data streams that use the length in their header, not the length of
+ * data_, use this pool.  They say so with
+ * ClientAccessDataStream.isReplyBufferPoolable(), and their consumers
+ * call ClientAccessDataStream.releaseData() when they are done.
+ *
+ * <p>The pool is used unless the
+ * com.ibm.as400.access.AS400.replyBufferPool system property is false.
+ **/
+final class ReplyBufferPool {
+    static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+    private static final int MINIMUM_SHIFT = 8;  // 256 bytes
+    private static final int MAXIMUM_SHIFT = 21; // 2 megabytes
+    private static final int LOCAL_CACHE_BYTES = 32 * 1024; // For each size class and thread
+    private static final int GLOBAL_BYTES = 16 * 1024 * 1024; // For each size class
+
+    static final boolean enabled_ = !"false".equalsIgnoreCase(SystemProperties.getProperty(SystemProperties.AS400_REPLY_BUFFER_POOL));
+
+    private static final DBConcurrentPool[] pools_ = new DBConcurrentPool[MAXIMUM_SHIFT - MINIMUM_SHIFT + 1];
+    private static final LongAdder oversized_ = new LongAdder();
+
+    static {
+        for (int i = 0; i < pools_.length; ++i) {
+            int size = 1 << (MINIMUM_SHIFT + i);
+            pools_[i] = new DBConcurrentPool("ReplyBuffer" + size,
+                    Math.max(4, GLOBAL_BYTES / size),
+                    Math.min(8, LOCAL_CACHE_BYTES / size));
+        }
+    }
+
+    private ReplyBufferPool() {
+    }
+
+    // Returns the index of the smallest size class that holds length bytes.
+    private static int sizeClass(int length) {
+        if (length <= (1 << MINIMUM_SHIFT)) return 0;
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - MINIMUM_SHIFT;
+    }
+
+    /**
+     * Returns an array of at least the specified length.  The contents
+     * of a pooled array are not cleared.
+     *
+     * @param length The number of bytes needed.
+     * @return The array.
+     **/
+    static byte[] get(int length) {
+        int sizeClass = sizeClass(length);
+        if (sizeClass >= pools_.length) {
+            oversized_.increment();
+            recordPoolAccess(false);
+            return new byte[length];
+        }
+        byte[] buffer = (byte[]) pools_[sizeClass].get();
+        recordPoolAccess(buffer != null);
+        if (buffer == null) {
+            buffer = new byte[1 << (MINIMUM_SHIFT + sizeClass)];
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns an array obtained from get() to the pool.  The caller
+     * must not use the array afterwards.
+     *
+     * @param buffer The array.
+     **/
+    static void release(byte[] buffer) {
+        int length = buffer.length;
+        int sizeClass = sizeClass(length);
+        // Arrays for oversized replies have their exact length.
+        if (sizeClass < pools_.length && length == (1 << (MINIMUM_SHIFT + sizeClass))) {
+            pools_[sizeClass].release(buffer);
+        }
+    }
+
+    // Reports to HostServerMetrics whether an array came from the pool.
+    private static void recordPoolAccess(boolean hit) {
+        HostServerMetrics metrics = HostServerMetrics.active_;
+        if (metrics != null) metrics.replyBufferPoolAccessed(hit);
+    }
+
+    /**
+     * Returns the number of arrays obtained from the pool.
+     **/
+    static long getHits() {
+        long hits = 0;
+        for (int i = 0; i < pools_.length; ++i) {
+            hits += pools_[i].getLocalHits() + pools_[i].getGlobalHits();
+        }
+        return hits;
+    }
+
+    /**
+     * Returns the number of arrays that had to be allocated, including
+     * those for replies too large to pool.
+     **/
+    static long getMisses() {
+        long misses = oversized_.sum();
+        for (int i = 0; i < pools_.length; ++i) {
+            misses += pools_[i].getMisses();
+        }
+        return misses;
+    }
+
+    /**
+     * Returns the statistics of the size classes that were used.
+     *
+     * @return The statistics.
+     **/
+    static String getStatistics() {
+        StringBuffer statistics = new StringBuffer("ReplyBufferPool: hits=");
+        statistics.append(getHits()).append(" misses=").append(getMisses());
+        statistics.append(" oversized=").append(oversized_.sum());
+        for (int i = 0; i < pools_.length; ++i) {
+            DBConcurrentPool pool = pools_[i];
+            if (pool.getLocalHits() + pool.getGlobalHits() + pool.getMisses() != 0) {
+                statistics.append("; ").append(pool.toString());
+            }
+        }
+        return statistics.toString();
+    }
+}
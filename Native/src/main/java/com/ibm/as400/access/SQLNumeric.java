@@ -81,6 +81,12 @@ final class SQLNumeric
         value_ = ((BigDecimal) typeConverter_.toObject(rawBytes, offset));
     }
 
+    // Decodes the unscaled value in raw bytes straight to a long, without changing the
+    // value of this object.  Used for result set getters when the precision is 18 or less.
+    long toUnscaledLong(byte[] rawBytes, int offset) {
+        return typeConverter_.toUnscaledLong(rawBytes, offset);
+    }
+
     public void convertToRawBytes(byte[] rawBytes, int offset, ConvTable ccsidConverter) //@P0C
             throws SQLException {
         try {
@@ -15,6 +15,9 @@ package com.ibm.as400.access;
 
 import java.beans.PropertyVetoException;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  Allows a user to call an IBM i service program.  Input data is passed via input parameters, 
@@ -293,44 +296,8 @@ public class ServiceProgramCall extends ProgramCall
     public boolean run() throws AS400SecurityException, ErrorCompletingRequestException, IOException, InterruptedException, ObjectDoesNotExistException
     {
         if (Trace.traceOn_) Trace.log(Trace.INFORMATION, "Running service program: " + program_ + " procedure name: " + procedureName_);
-        if (program_.length() == 0)
-        {
-            Trace.log(Trace.ERROR, "Attempt to run before setting program.");
-            throw new ExtendedIllegalStateException("program", ExtendedIllegalStateException.PROPERTY_NOT_SET );
-        }
-        if (procedureName_.length() == 0)
-        {
-            Trace.log(Trace.ERROR, "Attempt to run before setting procedure name.");
-            throw new ExtendedIllegalStateException("procedureName", ExtendedIllegalStateException.PROPERTY_NOT_SET );
-        }
-        
-        //@AE2 For 7.4 and 7.3, QZRUCLSP PTF SI75449 and SI75397 supports 248 parameters. 
-        if (system_.getVRM() > 0x00070200) {
-        	if (parameterList_.length > 248)
-            {
-                Trace.log(Trace.ERROR, "Parameter list length exceeds limit of 248 parameters:", parameterList_.length);
-                throw new ExtendedIllegalArgumentException("parameterList.length (" + parameterList_.length + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
-            }
-            
-            if (parameterList_.length > 7) {
-            	for (int i = 0; i < parameterList_.length; ++i)
-                {
-                    int parameterType = parameterList_[i].getParameterType();
-                    if (parameterType != 2) {
-                    	Trace.log(Trace.ERROR, "Parameter list length is larger than 7 parameters, all parameters must be passed as pointers. The parameter ", i);
-                        throw new ExtendedIllegalArgumentException("The parameter [" + i + "]", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
-                    }
-                }
-            }
-        } else {
-        	//@AE2 End
-        	if (parameterList_.length > 7)
-            {
-                Trace.log(Trace.ERROR, "Parameter list length exceeds limit of 7 parameters:", parameterList_.length);
-                throw new ExtendedIllegalArgumentException("parameterList.length (" + parameterList_.length + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
-            }
-        }
-        
+        checkServiceProgram();
+
         //@M2A Add support for running program located on IASP and path set starting with iasp name.
         //@P2C
         String prg = program_.toUpperCase();
@@ -367,17 +334,91 @@ public class ServiceProgramCall extends ProgramCall
 
         // Run the service program.
         returnValue_ = impl_.runServiceProgram(library_, name_, procedureName_, rvf, parameterList_, threadSafetyValue_, procedureNameCCSID_, messageOption_, alignOn16Bytes_);
+        return completeRun();
+    }
+
+    /**
+     Calls the service program without waiting for it to complete.  The service program and procedure name must be set prior to this call.
+     See {@link ProgramCall#runAsync(Executor) ProgramCall.runAsync()} for how the call is made.
+     @param  executor  The executor on which the call is made and its reply processed.
+     @return  A future that is completed with true if the call is successful, or false otherwise.
+     If the call fails, the future is completed exceptionally with the exception that run() would have thrown.
+     **/
+    public CompletableFuture<Boolean> runAsync(Executor executor)
+    {
+        if (executor == null) throw new NullPointerException("executor");
+        if (Trace.traceOn_) Trace.log(Trace.INFORMATION, "Running service program asynchronously: " + program_ + " procedure name: " + procedureName_);
+
+        return RemoteCommandImplRemote.callAsync(() -> {
+            chooseImpl();
+            if (!canRunAsync()) return CompletableFuture.completedFuture(Boolean.valueOf(run()));
 
-        // Retrieve the messages.
-        messageList_ = impl_.getMessageList();
-        // Set our system object into each of the messages.
-        if (system_ != null)
+            checkServiceProgram();
+            int rvf = returnValueFormat_;
+            if (rvf == RETURN_INTEGER)
+            {
+                rvf = RETURN_INTEGER_AND_ERRNO;
+            }
+            return ((RemoteCommandImplRemote)impl_).runServiceProgramAsync(library_, name_, procedureName_, rvf, parameterList_, procedureNameCCSID_, messageOption_, alignOn16Bytes_, executor).thenApply(returnValue -> {
+                returnValue_ = returnValue;
+                try
+                {
+                    return Boolean.valueOf(completeRun());
+                }
+                catch (ObjectDoesNotExistException e)
+                {
+                    throw new CompletionException(e);
+                }
+            });
+        }, executor);
+    }
+
+    // Validates the properties that must be set before the service program is called.
+    private void checkServiceProgram() throws AS400SecurityException, IOException
+    {
+        if (program_.length() == 0)
         {
-            for (int i = 0; i < messageList_.length; ++i)
+            Trace.log(Trace.ERROR, "Attempt to run before setting program.");
+            throw new ExtendedIllegalStateException("program", ExtendedIllegalStateException.PROPERTY_NOT_SET );
+        }
+        if (procedureName_.length() == 0)
+        {
+            Trace.log(Trace.ERROR, "Attempt to run before setting procedure name.");
+            throw new ExtendedIllegalStateException("procedureName", ExtendedIllegalStateException.PROPERTY_NOT_SET );
+        }
+        
+        //@AE2 For 7.4 and 7.3, QZRUCLSP PTF SI75449 and SI75397 supports 248 parameters. 
+        if (system_.getVRM() > 0x00070200) {
+        	if (parameterList_.length > 248)
             {
-                messageList_[i].setSystem(system_);
+                Trace.log(Trace.ERROR, "Parameter list length exceeds limit of 248 parameters:", parameterList_.length);
+                throw new ExtendedIllegalArgumentException("parameterList.length (" + parameterList_.length + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+            }
+            
+            if (parameterList_.length > 7) {
+            	for (int i = 0; i < parameterList_.length; ++i)
+                {
+                    int parameterType = parameterList_[i].getParameterType();
+                    if (parameterType != 2) {
+                    	Trace.log(Trace.ERROR, "Parameter list length is larger than 7 parameters, all parameters must be passed as pointers. The parameter ", i);
+                        throw new ExtendedIllegalArgumentException("The parameter [" + i + "]", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+                    }
+                }
+            }
+        } else {
+        	//@AE2 End
+        	if (parameterList_.length > 7)
+            {
+                Trace.log(Trace.ERROR, "Parameter list length exceeds limit of 7 parameters:", parameterList_.length);
+                throw new ExtendedIllegalArgumentException("parameterList.length (" + parameterList_.length + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
             }
         }
+    }
+
+    // Retrieves the messages and fires the action completed event once the service program has been called.
+    private boolean completeRun() throws ObjectDoesNotExistException
+    {
+        retrieveMessages();
 
         // The SRVPGM API we call will return an MCH3401 if the object or library do not exist.  We need to monitor the message list for that return code and throw an ObjectDoesNotExistException.  Unfortunately we do not know if it is the object or the library that does not exist.
         if (messageList_.length != 0)
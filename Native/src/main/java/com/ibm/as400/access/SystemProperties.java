@@ -127,6 +127,39 @@ public class SystemProperties
      **/
     public static final String AS400_THREAD_USED = ACCESS_PREFIX + "AS400.threadUsed";
 
+    /**
+     Specifies whether replies from the host servers are read by a small set of shared threads rather than by one thread per connection.  Setting this property to <tt>true</tt> directs the Toolbox to multiplex all eligible host server sockets onto a few selector threads.  Secure (SSL) connections, record-level access connections, and connections made without threads are not affected.
+     <ul>
+     <li>Property name: com.ibm.as400.access.AS400.replyDispatcher
+     <li>Values/syntax: <tt>true</tt> or <tt>false</tt>
+     <li>Default: <tt>false</tt>
+     <li>Overridden by: (none)
+     </ul>
+     **/
+    public static final String AS400_REPLY_DISPATCHER = ACCESS_PREFIX + "AS400.replyDispatcher";
+
+    /**
+     Specifies whether the byte arrays that integrated file system read replies and program call replies are received into are pooled and reused.  The arrays are kept in power-of-two size classes, with a small cache for each thread and a shared pool behind it.  Setting this property to <tt>false</tt> directs the Toolbox to allocate a new array for every reply.
+     <ul>
+     <li>Property name: com.ibm.as400.access.AS400.replyBufferPool
+     <li>Values/syntax: <tt>true</tt> or <tt>false</tt>
+     <li>Default: <tt>true</tt>
+     <li>Overridden by: (none)
+     </ul>
+     **/
+    public static final String AS400_REPLY_BUFFER_POOL = ACCESS_PREFIX + "AS400.replyBufferPool";
+
+    /**
+     Specifies how many read or write requests an integrated file system stream or random access file keeps outstanding on its file server connection.  With a depth greater than 1, large writes are sent as several requests without waiting for each reply, and sequential reads request the following blocks of the file before the caller asks for them.  Replies are still consumed in order, and the first error is reported after the outstanding requests have been answered.  Data read ahead is discarded when the file is positioned elsewhere, written, truncated, or closed.
+     <ul>
+     <li>Property name: com.ibm.as400.access.IFSFile.pipelineDepth
+     <li>Values/syntax: An integer from 1 to 64.
+     <li>Default: 1 (each request waits for its reply)
+     <li>Overridden by: (none)
+     </ul>
+     **/
+    public static final String IFSFILE_PIPELINE_DEPTH = ACCESS_PREFIX + "IFSFile.pipelineDepth";
+
     /*public*/ static final String SECUREAS400_PROXY_ENCRYPTION_MODE = ACCESS_PREFIX + "SecureAS400.proxyEncryptionMode";
 
     /**
@@ -167,6 +200,28 @@ public class SystemProperties
      **/
     public static final String TRACE_FILE = ACCESS_PREFIX + "Trace.file";
 
+    /**
+     Specifies the size of the buffer that the {@link Trace Trace} class uses to write trace output asynchronously.
+     <ul>
+     <li>Property name: com.ibm.as400.access.Trace.asyncBufferSize
+     <li>Values/syntax: The buffer size in bytes, rounded up to a power of two of at least 65536; or <tt>0</tt> to write trace output synchronously.
+     <li>Default: 0
+     <li>Overridden by: {@link Trace#setAsyncBufferSize(int) Trace.setAsyncBufferSize()}
+     </ul>
+     **/
+    public static final String TRACE_ASYNC_BUFFER_SIZE = ACCESS_PREFIX + "Trace.asyncBufferSize";
+
+    /**
+     Specifies the object that receives measurements of host server traffic.
+     <ul>
+     <li>Property name: com.ibm.as400.access.HostServerMetrics
+     <li>Values/syntax: <tt>none</tt>; <tt>memory</tt> to keep the measurements in an {@link InMemoryHostServerMetrics InMemoryHostServerMetrics} object registered with the platform MBean server; or the name of a {@link HostServerMetrics HostServerMetrics} subclass with a public default constructor.
+     <li>Default: <tt>none</tt>
+     <li>Overridden by: {@link HostServerMetrics#setDefault HostServerMetrics.setDefault()}
+     </ul>
+     **/
+    public static final String HOST_SERVER_METRICS = ACCESS_PREFIX + "HostServerMetrics";
+
     /**
      Specifies which trace categories to start on the JDBC server job.
      <ul>
@@ -251,6 +306,39 @@ public class SystemProperties
      **/
     public static final String FTP_REUSE_SOCKET = ACCESS_PREFIX + "FTP.reuseSocket";
 
+    /**
+     Specifies whether double-byte conversion tables are loaded from their precompiled binary form.  The binary tables are written when the Toolbox is built, and are read a page at a time as characters are converted, so the first conversion for a double-byte CCSID is faster.  Setting this property to <tt>false</tt> directs the Toolbox to load the tables from their ConvTable classes.
+     <ul>
+     <li>Property name: com.ibm.as400.access.ConvTable.binaryTables
+     <li>Values/syntax: <tt>true</tt> or <tt>false</tt>
+     <li>Default: <tt>true</tt>
+     <li>Overridden by: (none)
+     </ul>
+     **/
+    public static final String CONVTABLE_BINARY_TABLES = ACCESS_PREFIX + "ConvTable.binaryTables";
+
+    /**
+     Specifies the number of parsed SQL statements that the JDBC driver keeps for all connections in the JVM.  A statement that is prepared or executed again with the same connection settings is not parsed again.  Setting this property to <tt>0</tt> directs the Toolbox to parse every statement.
+     <ul>
+     <li>Property name: com.ibm.as400.access.JDBC.sqlParseCacheSize
+     <li>Values/syntax: <i>numberOfStatements</i>
+     <li>Default: <tt>1024</tt>
+     <li>Overridden by: (none)
+     </ul>
+     **/
+    public static final String JDBC_SQL_PARSE_CACHE_SIZE = ACCESS_PREFIX + "JDBC.sqlParseCacheSize";
+
+    /**
+     Specifies whether the JDBC driver pools its request, reply, and storage objects using per-thread caches and a lock-free global stack, instead of synchronized arrays.  This can reduce contention when many threads use JDBC connections at once.  The concurrent pools are used when this property is set to any value.
+     <ul>
+     <li>Property name: com.ibm.as400.access.DBDSPool.concurrent
+     <li>Values/syntax: any value
+     <li>Default: (not set)
+     <li>Overridden by: (none)
+     </ul>
+     **/
+    public static final String DBDSPOOL_CONCURRENT = ACCESS_PREFIX + "DBDSPool.concurrent";
+
     /*public*/ static final String JDBC_STATEMENT_LISTENERS = ACCESS_PREFIX + "JDBC.statementListeners";
     /*public*/ static final String JDBC_SECURE_CURRENT_USER = ACCESS_PREFIX + "JDBC.secureCurrentUser"; //@pw3 not documented in html
     /*public*/ static final String JDBC_JVM16_SYNCHRONIZE = ACCESS_PREFIX + "JDBC.jvm16Synchronize"; //@dmy temp fix for jvm 1.6 memory stomping
@@ -0,0 +1,258 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: TimeoutScheduler.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs timeouts, such as query and program call timeouts, for the whole JVM.
+ * <p>
+ * Timeouts are kept in a hashed timer wheel that one daemon thread advances
+ * every TICK_MILLIS milliseconds.  The thread only sleeps while timeouts are
+ * scheduled.  Expired timeouts run on a small pool of daemon threads, since
+ * cancelling work on the system can block.
+ * <p>
+ * A Timeout object is reused by its owner.  Scheduling and cancelling it links
+ * or unlinks it from a slot of the wheel, which takes constant time and
+ * creates no objects.
+ **/
+final class TimeoutScheduler
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  // Timeouts are rounded up to a multiple of the tick.
+  private static final long TICK_MILLIS = 100;
+  private static final long TICK_NANOS = TICK_MILLIS * 1000000L;
+  // Number of slots in the wheel; a power of two.  Timeouts that are more
+  // than one turn of the wheel away stay in their slot for later turns.
+  private static final int WHEEL_SIZE = 512;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  // Number of threads that run expired timeouts.
+  private static final int MAX_TIMEOUT_THREADS = 4;
+
+  private static final TimeoutScheduler scheduler_ = new TimeoutScheduler();
+
+  private final Timeout[] wheel_ = new Timeout[WHEEL_SIZE];  // first Timeout of each slot
+  private final long startNanos_ = System.nanoTime();
+  private int count_;             // number of scheduled timeouts
+  private Thread ticker_;         // started when the first timeout is scheduled
+  private ThreadPoolExecutor executor_;
+
+
+  /**
+   * A timeout that can be scheduled over and over.  Subclasses implement
+   * timedOut(), which is called on a scheduler thread when the timeout expires.
+   **/
+  abstract static class Timeout implements Runnable
+  {
+    // Guarded by the scheduler.
+    private Timeout next_;
+    private Timeout previous_;
+    private long deadlineTick_;
+    private boolean scheduled_;
+    private int generation_;        // incremented each time the timeout is scheduled
+    private int expiredGeneration_ = -1;
+
+    /**
+     * Called when the timeout expires.  This runs on a scheduler thread.
+     **/
+    abstract void timedOut();
+
+    public final void run()
+    {
+      // Skip the call if the timeout was scheduled again after it expired.
+      synchronized (scheduler_)
+      {
+        if (expiredGeneration_ != generation_ || scheduled_) return;
+        expiredGeneration_ = -1;
+      }
+      try
+      {
+        timedOut();
+      }
+      catch (Throwable e)
+      {
+        if (Trace.traceOn_) Trace.log(Trace.ERROR, "Exception running timeout:", e);
+      }
+    }
+  }
+
+
+  private TimeoutScheduler()
+  {
+  }
+
+  /**
+   * Schedules a timeout.  If it is already scheduled, it is rescheduled.
+   *
+   * @param timeout The timeout.
+   * @param delayMillis The number of milliseconds until it expires.
+   **/
+  static void schedule(Timeout timeout, long delayMillis)
+  {
+    scheduler_.add(timeout, delayMillis);
+  }
+
+  /**
+   * Cancels a timeout.  Nothing happens if it is not scheduled.  A timeout that
+   * has expired, but whose timedOut() has not been called yet, is not called.
+   *
+   * @param timeout The timeout.
+   **/
+  static void cancel(Timeout timeout)
+  {
+    synchronized (scheduler_)
+    {
+      scheduler_.remove(timeout);
+      timeout.expiredGeneration_ = -1;
+    }
+  }
+
+  private synchronized void add(Timeout timeout, long delayMillis)
+  {
+    remove(timeout);
+    long ticks = (Math.max(delayMillis, 0) + TICK_MILLIS - 1) / TICK_MILLIS;
+    timeout.deadlineTick_ = currentTick() + Math.max(ticks, 1);
+    timeout.generation_ = (timeout.generation_ + 1) & Integer.MAX_VALUE;
+    timeout.expiredGeneration_ = -1;
+
+    int slot = (int)(timeout.deadlineTick_ & WHEEL_MASK);
+    Timeout first = wheel_[slot];
+    timeout.next_ = first;
+    timeout.previous_ = null;
+    if (first != null) first.previous_ = timeout;
+    wheel_[slot] = timeout;
+    timeout.scheduled_ = true;
+
+    if (count_++ == 0)
+    {
+      if (ticker_ == null) startThreads();
+      notifyAll();
+    }
+  }
+
+  // Must be called while synchronized.
+  private void remove(Timeout timeout)
+  {
+    if (!timeout.scheduled_) return;
+    if (timeout.previous_ != null)
+    {
+      timeout.previous_.next_ = timeout.next_;
+    }
+    else
+    {
+      wheel_[(int)(timeout.deadlineTick_ & WHEEL_MASK)] = timeout.next_;
+    }
+    if (timeout.next_ != null) timeout.next_.previous_ = timeout.previous_;
+    timeout.next_ = null;
+    timeout.previous_ = null;
+    timeout.scheduled_ = false;
+    --count_;
+  }
+
+  private long currentTick()
+  {
+    return (System.nanoTime() - startNanos_) / TICK_NANOS;
+  }
+
+  // Must be called while synchronized.
+  private void startThreads()
+  {
+    ThreadFactory factory = new ThreadFactory() {
+      public Thread newThread(Runnable r)
+      {
+        Thread thread = new Thread(r, "AS400 timeout");
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+    executor_ = new ThreadPoolExecutor(MAX_TIMEOUT_THREADS, MAX_TIMEOUT_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+    executor_.allowCoreThreadTimeOut(true);
+
+    ticker_ = new Thread("AS400 timeout scheduler") {
+      public void run()
+      {
+        runTicker();
+      }
+    };
+    ticker_.setDaemon(true);
+    ticker_.start();
+  }
+
+  private void runTicker()
+  {
+    long processedTick = currentTick();
+    while (true)
+    {
+      try
+      {
+        synchronized (this)
+        {
+          while (count_ == 0)
+          {
+            wait();
+            processedTick = currentTick();
+          }
+        }
+
+        long sleepNanos = startNanos_ + (processedTick + 1) * TICK_NANOS - System.nanoTime();
+        if (sleepNanos > 0)
+        {
+          Thread.sleep(sleepNanos / 1000000L, (int)(sleepNanos % 1000000L));
+        }
+
+        long now = currentTick();
+        synchronized (this)
+        {
+          // Visit the slots of the ticks since the last pass.  After a long
+          // pause, every slot is visited once.
+          long firstTick = Math.max(processedTick + 1, now - WHEEL_MASK);
+          for (long tick = firstTick; tick <= now; ++tick)
+          {
+            expire((int)(tick & WHEEL_MASK), now);
+          }
+          processedTick = now;
+        }
+      }
+      catch (InterruptedException e)
+      {
+        // Keep running; timeouts would be lost otherwise.
+      }
+      catch (Throwable e)
+      {
+        if (Trace.traceOn_) Trace.log(Trace.ERROR, "Exception in timeout scheduler:", e);
+      }
+    }
+  }
+
+  // Dispatches the timeouts of a slot that are due.  Must be called while synchronized.
+  private void expire(int slot, long now)
+  {
+    Timeout timeout = wheel_[slot];
+    while (timeout != null)
+    {
+      Timeout next = timeout.next_;
+      if (timeout.deadlineTick_ <= now)
+      {
+        remove(timeout);
+        timeout.expiredGeneration_ = timeout.generation_;
+        executor_.execute(timeout);
+      }
+      timeout = next;
+    }
+  }
+}
@@ -13,10 +13,12 @@
 
 package com.ibm.as400.access;
 
+import java.io.CharArrayWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.StringTokenizer;                                   // $D0A
@@ -329,6 +331,8 @@ public class Trace implements Runnable {
     private static boolean aTraceCategoryHasBeenActivated_ = false;  // goes to 'true' when any setTraceXxx() method has been called with argument 'true'
     private static String fileName_ = null;
     private static PrintWriter destination_ = new PrintWriter(System.out, true);  // never null
+    private static volatile TraceAsyncWriter asyncWriter_ = null;  // null if trace is written synchronously
+    private static final long ASYNC_FLUSH_MILLIS = 5000;  // longest wait for buffered records to be written
 
 
     // This is used so we don't have to change our bounds checking every time we add a new trace category.
@@ -398,7 +402,9 @@ public class Trace implements Runnable {
      * @see #setPrintWriter(PrintWriter)
      **/
     public static synchronized void setFileName(String fileName) throws IOException {
-        // Flush the current destination stream.
+        // Write the buffered records, and flush the current destination stream.
+        TraceAsyncWriter asyncWriter = asyncWriter_;
+        if (asyncWriter != null) asyncWriter.flush(ASYNC_FLUSH_MILLIS);
         destination_.flush();
 
         // If we created our PrintWriter internally (based on a file), close it.
@@ -454,7 +460,9 @@ public class Trace implements Runnable {
      * @see #setFileName(String)
      **/
     public static synchronized void setPrintWriter(PrintWriter obj) throws IOException {
-        // Flush the current destination stream.
+        // Write the buffered records, and flush the current destination stream.
+        TraceAsyncWriter asyncWriter = asyncWriter_;
+        if (asyncWriter != null) asyncWriter.flush(ASYNC_FLUSH_MILLIS);
         destination_.flush();
 
         if (fileName_ != null) {
@@ -472,6 +480,58 @@ public class Trace implements Runnable {
         }
     }
 
+    /**
+     * Returns the size of the buffer used for asynchronous trace.
+     *
+     * @return The buffer size in bytes, or 0 if trace is written synchronously.
+     * @see #setAsyncBufferSize(int)
+     **/
+    public static int getAsyncBufferSize() {
+        TraceAsyncWriter asyncWriter = asyncWriter_;
+        return (asyncWriter == null) ? 0 : asyncWriter.getBufferSize();
+    }
+
+    /**
+     * Returns the number of trace records that were dropped because the
+     * asynchronous trace buffer was full.  The count is kept from the time
+     * the buffer size was last set.
+     *
+     * @return The number of dropped records, or 0 if trace is written synchronously.
+     * @see #setAsyncBufferSize(int)
+     **/
+    public static long getAsyncDroppedCount() {
+        TraceAsyncWriter asyncWriter = asyncWriter_;
+        return (asyncWriter == null) ? 0 : asyncWriter.getDroppedCount();
+    }
+
+    /**
+     * Sets the size of the buffer used for asynchronous trace.
+     * When the size is greater than zero, trace records for the trace file
+     * or PrintWriter are copied into a buffer outside the Java heap, and a
+     * background thread formats and writes them.  The logging thread does
+     * not wait for the output.  If the buffer is full, records are dropped
+     * rather than making the logging thread wait, and the number dropped is
+     * written to the trace.
+     * <p>
+     * Records logged for a component, records sent to a Java Logger, and
+     * byte data logged in the ERROR category are always written synchronously.
+     *
+     * @param size The buffer size in bytes, or 0 to write trace synchronously.
+     *             The size is rounded up to a power of two, of at least 64 KB.
+     *             The default is 0.
+     * @see SystemProperties#TRACE_ASYNC_BUFFER_SIZE
+     **/
+    public static synchronized void setAsyncBufferSize(int size) {
+        if (size < 0)
+            throw new ExtendedIllegalArgumentException("size (" + size + ")", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+
+        // Write out the records of the current buffer before starting a new one.
+        TraceAsyncWriter asyncWriter = asyncWriter_;
+        asyncWriter_ = null;
+        if (asyncWriter != null) asyncWriter.close();
+        if (size > 0) asyncWriter_ = new TraceAsyncWriter(size);
+    }
+
     /**
      * Returns the print writer object for the specified component.  Null
      * is returned if no writer or file name has been set.  If a file
@@ -920,6 +980,17 @@ public class Trace implements Runnable {
             }
         }
 
+        // Load and apply the asynchronous trace buffer size system property.
+        String asyncBufferSize = SystemProperties.getProperty(SystemProperties.TRACE_ASYNC_BUFFER_SIZE);
+        if (asyncBufferSize != null) {
+            try {
+                setAsyncBufferSize(Integer.parseInt(asyncBufferSize.trim()));
+            } catch (RuntimeException e) {
+                if (isTraceOn())
+                    Trace.log(Trace.WARNING, "Trace asynchronous buffer size not valid: " + asyncBufferSize);
+            }
+        }
+
         // Load and apply the trace enabled system property.
         String enabled = SystemProperties.getProperty(SystemProperties.TRACE_ENABLED);
         if (enabled != null) {
@@ -1039,6 +1110,56 @@ public class Trace implements Runnable {
         writer.print("] ");
     }
 
+    // Returns the message followed by the stack trace, for asynchronous trace.
+    private static String appendStackTrace(String message, Throwable e) {
+        StringWriter buffer = new StringWriter();
+        PrintWriter writer = new PrintWriter(buffer);
+        writer.println(message);
+        e.printStackTrace(writer);
+        writer.flush();
+        String text = buffer.toString();
+        String lineSeparator = System.getProperty("line.separator");
+        if (text.endsWith(lineSeparator)) text = text.substring(0, text.length() - lineSeparator.length());
+        return text;
+    }
+
+    // Formats a record from the asynchronous trace buffer the same way the
+    // traditional trace writes it.  Called on the trace writer thread.
+    static void printAsyncRecord(PrintWriter pw, long time, String thread, String sourceClass, int sourceHash,
+                                 String message, byte[] data, int length) {
+        if (thread != null) {
+            pw.print(thread);
+            pw.print("  ");
+        }
+        synchronized (timeStampFormatter_) // date formats are not synchronized
+        {
+            pw.print(timeStampFormatter_.format(new Date(time)));
+        }
+        pw.print("  ");
+        if (sourceClass != null) {
+            pw.print('[');
+            pw.print(sourceClass.substring(sourceClass.lastIndexOf('.') + 1));
+            pw.print('@');
+            pw.print(sourceHash);
+            pw.print("] ");
+        }
+        if (message != null) pw.println(message);
+        if (length >= 0) printByteArray(pw, data, 0, length);
+    }
+
+    // Writes records formatted by the trace writer thread to the destination.
+    static void writeAsyncOutput(CharArrayWriter records) {
+        PrintWriter destination = destination_;
+        synchronized (destination) {
+            try {
+                records.writeTo(destination);
+            } catch (IOException e) {
+                // A PrintWriter does not throw IOException.
+            }
+            destination.flush();
+        }
+    }
+
     // This is the routine that actually writes to the log.
     private static final void logData(Object component,
                                       int category,
@@ -1061,6 +1182,16 @@ public class Trace implements Runnable {
 
             if (logger_ == null || userSpecifiedDestination_)  // traditional trace
             {
+                TraceAsyncWriter asyncWriter = asyncWriter_;
+                if (asyncWriter != null && component == null) {
+                    // The stack trace is that of the caller, so it is formatted now.
+                    if (e != null || category == ERROR) {
+                        message = appendStackTrace(message, e != null ? e : new Throwable());
+                    }
+                    asyncWriter.log(source, message, null, 0, -1);
+                    return;
+                }
+
                 // First, write to the default log
                 synchronized (destination_) {
                     // If component tracing is being used, log the component name to
@@ -1461,6 +1592,11 @@ public class Trace implements Runnable {
                 (findLogger() && logger_.isLoggable(category))) {
             if (logger_ == null || userSpecifiedDestination_)  // traditional trace
             {  // log to destination_
+                TraceAsyncWriter asyncWriter = asyncWriter_;
+                if (asyncWriter != null && category != ERROR) {
+                    asyncWriter.log(null, message, data, offset, length);
+                    return;
+                }
                 synchronized (destination_) {
                     logTimeStamp(null, destination_);
                     if (message != null) destination_.println(message);
@@ -1503,6 +1639,11 @@ public class Trace implements Runnable {
                 (findLogger() && logger_.isLoggable(category))) {
             if (logger_ == null || userSpecifiedDestination_)  // traditional trace
             {  // log to destination_
+                TraceAsyncWriter asyncWriter = asyncWriter_;
+                if (asyncWriter != null && category != ERROR) {
+                    asyncWriter.log(source, message, data, offset, length);
+                    return;
+                }
                 synchronized (destination_) {
                     logTimeStamp(null, destination_);
                     logSource(source, destination_);
@@ -0,0 +1,338 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: TraceAsyncWriter.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.CharArrayWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes trace records in the background for asynchronous tracing.
+ * <p>
+ * Logging threads copy the parts of a record (time, message, source, and
+ * data bytes) into a preallocated ring buffer outside the Java heap, and
+ * return.  A daemon thread formats the records and writes them to the trace
+ * destination.  When the buffer is full, records are dropped and counted,
+ * rather than making the logging thread wait; the count is written to the
+ * trace by the background thread.
+ * <p>
+ * Records start on GRANULE byte boundaries.  Space is reserved by advancing
+ * the tail with compare-and-set, so any number of threads can log at once.  A
+ * record is published by storing its length in the granule's entry of
+ * lengths_, after its bytes are written.  A record never wraps around the end
+ * of the buffer; the space it would wrap into is skipped as padding.
+ **/
+final class TraceAsyncWriter
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  // Records are aligned to this many bytes.
+  private static final int GRANULE = 64;
+  private static final int GRANULE_SHIFT = 6;
+  // Smallest buffer size.
+  static final int MIN_BUFFER_SIZE = 64 * 1024;
+  // How long the writer sleeps when there are no records.
+  private static final long IDLE_NANOS = 1000000L;
+  // Formatted output is written to the destination in chunks of about this many characters.
+  private static final int FLUSH_CHARS = 64 * 1024;
+  // Data length stored for records without data.
+  private static final int NO_DATA = -2;
+  // Data length stored for records whose data is null.
+  private static final int NULL_DATA = -1;
+
+  private final ByteBuffer buffer_;
+  private final int capacity_;
+  private final int mask_;
+  private final AtomicIntegerArray lengths_;   // per granule: record length, -padding, or 0
+  private final AtomicLong tail_ = new AtomicLong();
+  private volatile long head_;
+  private volatile long written_;   // records before this position are written to the destination
+  private final AtomicLong dropped_ = new AtomicLong();
+  private final ThreadLocal<ByteBuffer> views_ = new ThreadLocal<ByteBuffer>();  // each logging thread's view of buffer_
+  private final Thread thread_;
+  private Thread shutdownHook_;
+  private volatile boolean running_ = true;
+
+  /**
+   * Constructs a TraceAsyncWriter object, and starts its thread.
+   *
+   * @param size The buffer size in bytes.  It is rounded up to a power of two,
+   *             and to at least MIN_BUFFER_SIZE.
+   **/
+  TraceAsyncWriter(int size)
+  {
+    int capacity = MIN_BUFFER_SIZE;
+    while (capacity < size && capacity < (1 << 30)) capacity <<= 1;
+    capacity_ = capacity;
+    mask_ = capacity - 1;
+    buffer_ = ByteBuffer.allocateDirect(capacity);
+    lengths_ = new AtomicIntegerArray(capacity >>> GRANULE_SHIFT);
+
+    thread_ = new Thread("AS400 trace writer") {
+      public void run()
+      {
+        runWriter();
+      }
+    };
+    thread_.setDaemon(true);
+    thread_.start();
+
+    // Write out the buffered records when the JVM exits.
+    try
+    {
+      shutdownHook_ = new Thread("AS400 trace writer shutdown") {
+        public void run()
+        {
+          flush(2000);
+        }
+      };
+      Runtime.getRuntime().addShutdownHook(shutdownHook_);
+    }
+    catch (Exception e)  // SecurityException, or the JVM is exiting
+    {
+      shutdownHook_ = null;
+    }
+  }
+
+  int getBufferSize()
+  {
+    return capacity_;
+  }
+
+  long getDroppedCount()
+  {
+    return dropped_.get();
+  }
+
+  /**
+   * Adds a record to the buffer, or drops it if the buffer is full.
+   *
+   * @param source The object that logged the record, or null.
+   * @param message The message, or null.
+   * @param data The data bytes, or null.
+   * @param offset The offset of the data.
+   * @param length The length of the data, or -1 if the record has no data.
+   **/
+  void log(Object source, String message, byte[] data, int offset, int length)
+  {
+    String thread = Trace.traceThread_ ? Thread.currentThread().toString() : null;
+    String sourceClass = (source == null) ? null : source.getClass().getName();
+    int dataLength = (length < 0) ? NO_DATA : (data == null) ? NULL_DATA : length;
+
+    int recordSize = 8 + charsSize(thread) + charsSize(sourceClass) + 4 + charsSize(message) + 4 + Math.max(dataLength, 0);
+    int size = (recordSize + GRANULE - 1) & -GRANULE;
+    if (size > capacity_ / 2)
+    {
+      dropped_.incrementAndGet();
+      return;
+    }
+
+    // Reserve the space.
+    long start;
+    while (true)
+    {
+      long tail = tail_.get();
+      int position = (int)(tail & mask_);
+      int padding = (position + size > capacity_) ? capacity_ - position : 0;
+      if (tail + padding + size - head_ > capacity_)
+      {
+        dropped_.incrementAndGet();
+        return;
+      }
+      if (tail_.compareAndSet(tail, tail + padding + size))
+      {
+        if (padding > 0) lengths_.set(position >>> GRANULE_SHIFT, -padding);
+        start = tail + padding;
+        break;
+      }
+    }
+
+    int position = (int)(start & mask_);
+    boolean written = false;
+    try
+    {
+      ByteBuffer view = views_.get();
+      if (view == null)
+      {
+        view = buffer_.duplicate();
+        views_.set(view);
+      }
+      view.clear();
+      view.position(position);
+      view.putLong(System.currentTimeMillis());
+      putChars(view, thread);
+      putChars(view, sourceClass);
+      view.putInt(source == null ? 0 : source.hashCode());
+      putChars(view, message);
+      view.putInt(dataLength);
+      if (dataLength > 0) view.put(data, offset, dataLength);
+      written = true;
+    }
+    finally
+    {
+      // Publish the record.  If it could not be written, it is skipped as padding.
+      lengths_.set(position >>> GRANULE_SHIFT, written ? size : -size);
+    }
+  }
+
+  private static int charsSize(String s)
+  {
+    return (s == null) ? 4 : 4 + 2 * s.length();
+  }
+
+  private static void putChars(ByteBuffer view, String s)
+  {
+    if (s == null)
+    {
+      view.putInt(-1);
+      return;
+    }
+    int length = s.length();
+    view.putInt(length);
+    for (int i = 0; i < length; ++i)
+    {
+      view.putChar(s.charAt(i));
+    }
+  }
+
+  private static String getChars(ByteBuffer view, char[] scratch)
+  {
+    int length = view.getInt();
+    if (length < 0) return null;
+    if (length > scratch.length) scratch = new char[length];
+    for (int i = 0; i < length; ++i)
+    {
+      scratch[i] = view.getChar();
+    }
+    return new String(scratch, 0, length);
+  }
+
+  /**
+   * Waits until the records logged so far are written, or until the wait times out.
+   *
+   * @param timeoutMillis The maximum time to wait.
+   **/
+  void flush(long timeoutMillis)
+  {
+    long target = tail_.get();
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    while (written_ < target && thread_.isAlive() && System.currentTimeMillis() < deadline)
+    {
+      LockSupport.parkNanos(IDLE_NANOS);
+    }
+  }
+
+  /**
+   * Writes the remaining records, and stops the thread.
+   **/
+  void close()
+  {
+    running_ = false;
+    LockSupport.unpark(thread_);
+    if (shutdownHook_ != null)
+    {
+      try
+      {
+        Runtime.getRuntime().removeShutdownHook(shutdownHook_);
+      }
+      catch (IllegalStateException e)
+      {
+        // The JVM is exiting, and the hook is running.
+      }
+    }
+    try
+    {
+      thread_.join(5000);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void runWriter()
+  {
+    ByteBuffer view = buffer_.duplicate();
+    CharArrayWriter chars = new CharArrayWriter(FLUSH_CHARS);
+    PrintWriter batch = new PrintWriter(chars);
+    char[] scratch = new char[256];
+    byte[] data = new byte[256];
+    long reportedDrops = 0;
+
+    while (true)
+    {
+      long head = head_;
+      int granule = (int)(head & mask_) >>> GRANULE_SHIFT;
+      int length = lengths_.get(granule);
+      if (length == 0)
+      {
+        // Nothing to write.  Report drops and write out what was formatted.
+        long drops = dropped_.get();
+        if (drops != reportedDrops)
+        {
+          batch.println("Trace: " + (drops - reportedDrops) + " records dropped because the asynchronous trace buffer was full (" + drops + " in total).");
+          reportedDrops = drops;
+        }
+        writeOut(chars, batch, head);
+        if (!running_ && head == tail_.get()) break;
+        LockSupport.parkNanos(IDLE_NANOS);
+        continue;
+      }
+
+      if (length > 0)
+      {
+        view.clear();
+        view.position((int)(head & mask_));
+        long time = view.getLong();
+        String thread = getChars(view, scratch);
+        String sourceClass = getChars(view, scratch);
+        int sourceHash = view.getInt();
+        String message = getChars(view, scratch);
+        int dataLength = view.getInt();
+        if (dataLength > data.length) data = new byte[dataLength];
+        if (dataLength > 0) view.get(data, 0, dataLength);
+        try
+        {
+          Trace.printAsyncRecord(batch, time, thread, sourceClass, sourceHash, message,
+                                 dataLength == NULL_DATA ? null : data, dataLength == NO_DATA ? -1 : Math.max(dataLength, 0));
+        }
+        catch (Throwable e)
+        {
+          batch.println("Trace: record could not be formatted: " + e);
+        }
+      }
+
+      // Free the space.
+      lengths_.set(granule, 0);
+      head_ = head + Math.abs(length);
+
+      if (chars.size() >= FLUSH_CHARS) writeOut(chars, batch, head_);
+    }
+  }
+
+  // Writes the formatted records to the trace destination.
+  private void writeOut(CharArrayWriter chars, PrintWriter batch, long head)
+  {
+    batch.flush();
+    if (chars.size() > 0)
+    {
+      Trace.writeAsyncOutput(chars);
+      chars.reset();
+    }
+    written_ = head;
+  }
+}
@@ -0,0 +1,50 @@
+package com.ibm.as400.access;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+/**
+ * Tests the long fast paths of AS400PackedDecimal at the edges of the long range.
+ */
+public class TestAS400PackedDecimal {
+    @Test
+    public void testMinimumLongIsRejectedAtScale0() {
+        assertRejected(0);
+    }
+
+    @Test
+    public void testMinimumLongIsRejectedAtScale1() {
+        assertRejected(1);
+    }
+
+    @Test
+    public void testMinimumLongFitsInNineteenDigits() {
+        for (int scale = 0; scale <= 2; scale++) {
+            AS400PackedDecimal type = new AS400PackedDecimal(19, scale);
+            BigDecimal value = BigDecimal.valueOf(Long.MIN_VALUE, scale);
+            Assertions.assertEquals(value, type.toObject(type.toBytesUnscaled(Long.MIN_VALUE)), "scale " + scale);
+            Assertions.assertEquals(value, type.toObject(type.toBytes(value)), "scale " + scale);
+        }
+    }
+
+    @Test
+    public void testLargestValuesOfEighteenDigits() {
+        AS400PackedDecimal type = new AS400PackedDecimal(18, 1);
+        BigDecimal largest = new BigDecimal("99999999999999999.9");
+        Assertions.assertEquals(largest, type.toObject(type.toBytes(largest)));
+        Assertions.assertEquals(largest.negate(), type.toObject(type.toBytesUnscaled(-999999999999999999L)));
+        Assertions.assertThrows(ExtendedIllegalArgumentException.class, () -> type.toBytes(new BigDecimal("100000000000000000.0")));
+        Assertions.assertThrows(ExtendedIllegalArgumentException.class, () -> type.toBytes(BigDecimal.valueOf(Long.MAX_VALUE, 1)));
+        Assertions.assertThrows(ExtendedIllegalArgumentException.class, () -> type.toBytesUnscaled(Long.MAX_VALUE));
+    }
+
+    private static void assertRejected(int scale) {
+        AS400PackedDecimal type = new AS400PackedDecimal(18, scale);
+        Assertions.assertThrows(ExtendedIllegalArgumentException.class,
+                () -> type.toBytes(BigDecimal.valueOf(Long.MIN_VALUE, scale)));
+        Assertions.assertThrows(ExtendedIllegalArgumentException.class,
+                () -> type.toBytesUnscaled(Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,61 @@
+package com.ibm.as400.access;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the binary conversion tables that the generateConvTableBinaries task
+ * writes into the main output, against the ConvTable classes they replace.
+ */
+public class TestConvTableBinary {
+    @Test
+    public void testBinaryTablesMatchClasses() throws Exception {
+        List<String> ccsids = new ArrayList<String>(ConvTableBinary.getIndex().keySet());
+        Collections.sort(ccsids);
+        Assertions.assertFalse(ccsids.isEmpty(), "no " + ConvTableBinary.INDEX_NAME + " resource");
+
+        for (int i = 0; i < ccsids.size(); i++) {
+            String ccsid = ccsids.get(i);
+            ConvTableDoubleMap binary = ConvTableBinary.getTable(ccsid);
+            ConvTableDoubleMap loaded = (ConvTableDoubleMap) Class.forName("com.ibm.as400.access.ConvTable" + ccsid)
+                    .getDeclaredConstructor().newInstance();
+            Assertions.assertNotNull(binary, ccsid);
+            Assertions.assertEquals(loaded.getCcsid(), binary.getCcsid(), ccsid);
+
+            // Convert before the arrays are read, while pages are still loaded on demand.
+            byte[] codes = new byte[2 * ConvTableBinary.TABLE_LENGTH];
+            for (int code = 0; code < ConvTableBinary.TABLE_LENGTH; code++) {
+                codes[2 * code] = (byte) (code >>> 8);
+                codes[2 * code + 1] = (byte) code;
+            }
+            Assertions.assertEquals(loaded.byteArrayToString(codes, 0, codes.length),
+                    binary.byteArrayToString(codes, 0, codes.length), ccsid + " to Unicode");
+            StringBuilder chars = new StringBuilder();
+            for (int c = 0; c < ConvTableBinary.TABLE_LENGTH; c++) {
+                if (!Character.isSurrogate((char) c)) {
+                    chars.append((char) c);
+                }
+            }
+            Assertions.assertArrayEquals(loaded.stringToByteArray(chars.toString()),
+                    binary.stringToByteArray(chars.toString()), ccsid + " from Unicode");
+
+            Assertions.assertArrayEquals(loaded.getToUnicode(), binary.getToUnicode(), ccsid + " toUnicode");
+            Assertions.assertArrayEquals(loaded.getFromUnicode(), binary.getFromUnicode(), ccsid + " fromUnicode");
+            ConvTableMultiCharMap loadedMap = loaded.getMultiCharMap();
+            ConvTableMultiCharMap binaryMap = binary.getMultiCharMap();
+            Assertions.assertEquals(loadedMap == null, binaryMap == null, ccsid + " multi-character mappings");
+            if (loadedMap != null) {
+                int[] widths = {ConvTableMultiCharMap.PAIR, ConvTableMultiCharMap.TRIPLE, ConvTableMultiCharMap.QUAD};
+                for (int j = 0; j < widths.length; j++) {
+                    Assertions.assertTrue(Arrays.deepEquals(loadedMap.getMapping(widths[j]), binaryMap.getMapping(widths[j])),
+                            ccsid + " mappings of width " + widths[j]);
+                }
+            }
+        }
+    }
+}
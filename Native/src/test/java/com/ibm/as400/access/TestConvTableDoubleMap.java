@@ -0,0 +1,205 @@
+package com.ibm.as400.access;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Tests the double-byte tables whose codes map to surrogate pairs, combining
+ * sequences, triplets and quads.  The digests cover the conversion of every
+ * code and every code point, and were recorded with the tables that kept the
+ * multi-character mappings in full 65535-entry arrays.
+ */
+public class TestConvTableDoubleMap {
+    // CCSID, digest of every code to Unicode, of every BMP character other
+    // than a leading surrogate to the CCSID, and of every supplementary code point.
+    private static final String[][] DOUBLE_BYTE = {
+        {"16684",
+            "e6a795cd03b7218b5564c4e6ef5e06b26bf4fac178152469718b97890f3bcf67",
+            "ad1af9ef7ef49b92dae2d93c09060054b854fdc89d3a19695ab5a17e0afcb8fc",
+            "daca4d28a4d149faeea20feb75787c295a8db624157651a17c61bd8beae23dcf"},
+        {"2001371",
+            "218a0306f304d44c21fca0df626b01849ec8a2070417bc91eb5e9d9d0fcb184f",
+            "2badd2fe9130c5a1db78f9e97321c585dd14f71e4ab5481e315cf28dcdaa3a5e",
+            "009fd1b5d38bdaf440c1f6969eddb0e90a074688c8361a15c684f011674ee377"},
+        {"2001377",
+            "38c5c5a749407d94636c8fcf7a010a5683b298a4073a656d528589c605af6e1b",
+            "5713ffab98f9934ae794e10603dfb55745a3d4d5cfd597e9de1f5663c461710d",
+            "359b995d8ff8f591f844c18b058e96c406afe8e7ffcd8e8d3d597d4e68276d6f"},
+        {"2001379",
+            "9bb13346052ed4f7762f725c550de040b6744b1db80487054baa6ef01303be99",
+            "99a58d49750981d9bbf20e3b88a222b7a79077a8cdd10755231c03abe6cc5b22",
+            "a8828450d437ec4daf005dbd2f09290c43bfa2f7301152fcda57830a947a3407"},
+        {"2001388",
+            "3b95b6961379e4c79552908c807bc1ecd33a427b92f0475ad0708a6d6adbe0a1",
+            "eb550680405531451ce95be59d3b75c256793bbf1699199d84a8d264c9239534",
+            "efbfdb14dd604a302bfb46b936672c6b2d976a6bc8456098103be909c8f6c3b9"},
+        {"2001399",
+            "01aad218afa0838ad457af2ab33b1d50cfafd50924d35edfe7477dd31b9aea7d",
+            "ad1af9ef7ef49b92dae2d93c09060054b854fdc89d3a19695ab5a17e0afcb8fc",
+            "daca4d28a4d149faeea20feb75787c295a8db624157651a17c61bd8beae23dcf"},
+    };
+
+    // The mixed tables built on the double-byte tables above.
+    private static final String[][] MIXED = {
+        {"1371",
+            "862ebb93b0af18db0b198a10c9370d0d5fb6fdcc215ef541678b2dd815d6cd42",
+            "dd578e56c6681bd86a6a9c46d4048e17b866b642c52de5588186c0052eb1c70c"},
+        {"1377",
+            "06d97733ed2d9be387477be75ccf6df3bd57f3cb43bdc963d2d534c8812edb36",
+            "748023a5cd5ab86970164313c58de1f5cd390ec1e3b19465c900675ee5af412d"},
+        {"1379",
+            "a835c167b03f0bbedbd29eb744c7217d00b9c9801e9aa56294b0072462a3e12f",
+            "42049799e94209752ff2afbd49e2aa10333d3c7bff1d4f8b8abd3ab6bf730e78"},
+        {"1388",
+            "4eea167aa077614b86b5e873fdcf52c5f1a495d85ca3fc00a6ec380e9b4a73e7",
+            "c506db3bea4bfa566c2bf27da128a9af6cd53a66a76cabcbe9cc428e9bc06982"},
+        {"1399",
+            "09ee3e758dfefff7e49495529ca71e189582662fdfcc5b6cb523221c6a6c1e50",
+            "ea27fa7d9d536b0b99a1c21ce7d76a667a93523599801441697c6174bc07bd93"},
+    };
+
+    private static final char DBCS_SPACE = '\u3000';
+
+    @Test
+    public void testDoubleByteConversionsAreUnchanged() throws Exception {
+        for (int i = 0; i < DOUBLE_BYTE.length; i++) {
+            String ccsid = DOUBLE_BYTE[i][0];
+            ConvTable table = getTable(ccsid);
+            Assertions.assertEquals(DOUBLE_BYTE[i][1], toUnicodeDigest(table), ccsid + " to Unicode");
+            Assertions.assertEquals(DOUBLE_BYTE[i][2], fromUnicodeDigest(table), ccsid + " from Unicode");
+            Assertions.assertEquals(DOUBLE_BYTE[i][3], supplementaryDigest(table), ccsid + " supplementary");
+        }
+    }
+
+    @Test
+    public void testMixedConversionsAreUnchanged() throws Exception {
+        for (int i = 0; i < MIXED.length; i++) {
+            String ccsid = MIXED[i][0];
+            ConvTable table = getTable(ccsid);
+            Assertions.assertEquals(MIXED[i][1], fromUnicodeDigest(table), ccsid + " from Unicode");
+            Assertions.assertEquals(MIXED[i][2], supplementaryDigest(table), ccsid + " supplementary");
+        }
+    }
+
+    @Test
+    public void testMultiCharacterMappingsRoundTrip() throws Exception {
+        int[] increment = new int[1];
+        for (int i = 0; i < DOUBLE_BYTE.length; i++) {
+            String ccsid = DOUBLE_BYTE[i][0];
+            ConvTableDoubleMap table = (ConvTableDoubleMap) getTable(ccsid);
+            int mappings = 0;
+            for (int code = 0; code <= 0xFFFF; code++) {
+                char[] unicode = toUnicode(table, code).toCharArray();
+                if (unicode.length > 1) {
+                    // Codes that share their characters with another code convert back to that code.
+                    char back = table.fromUnicode(unicode, 0, increment);
+                    String message = ccsid + " code " + Integer.toHexString(code);
+                    Assertions.assertEquals(unicode.length, increment[0], message);
+                    Assertions.assertEquals(new String(unicode), toUnicode(table, back), message);
+                    mappings++;
+                }
+            }
+            Assertions.assertTrue(mappings > 0, ccsid);
+        }
+    }
+
+    @Test
+    public void testLoneLeadingSurrogateIsSubstituted() throws Exception {
+        byte[] substitution = {(byte) 0xFE, (byte) 0xFE};
+        for (int i = 0; i < DOUBLE_BYTE.length; i++) {
+            ConvTable table = getTable(DOUBLE_BYTE[i][0]);
+            Assertions.assertArrayEquals(substitution, table.stringToByteArray("\uD840"), DOUBLE_BYTE[i][0]);
+            Assertions.assertArrayEquals(new byte[] {0x40, 0x40, (byte) 0xFE, (byte) 0xFE},
+                    table.stringToByteArray(DBCS_SPACE + "\uD840"), DOUBLE_BYTE[i][0]);
+        }
+        Assertions.assertArrayEquals(new byte[] {0x3F}, getTable("1371").stringToByteArray("\uD840"));
+    }
+
+    @Test
+    public void testTripletWithoutMappedSecondCharacter() throws Exception {
+        // D842 DE2C FE00 is a triplet of 2001371, and D842 DC0A FE00 is not.
+        // The pair and the third character are converted on their own.
+        String[] ccsids = {"2001371", "1371"};
+        for (int i = 0; i < ccsids.length; i++) {
+            ConvTable table = getTable(ccsids[i]);
+            byte[] pair = table.stringToByteArray("\uD842\uDC0A");
+            Assertions.assertArrayEquals(pair,
+                    prefix(table.stringToByteArray("\uD842\uDC0A\uFE00"), pair.length), ccsids[i]);
+        }
+        ConvTable table = getTable("2001371");
+        Assertions.assertArrayEquals(new byte[] {(byte) 0xFE, (byte) 0xFE, (byte) 0xFE, 0x60},
+                table.stringToByteArray("\uD842\uDC0A\uFE00"));
+    }
+
+    private static ConvTable getTable(String ccsid) throws UnsupportedEncodingException {
+        return ConvTable.getTable(Integer.parseInt(ccsid), null);
+    }
+
+    // Pads the code with two DBCS spaces, which a quad needs to fit, and removes them again.
+    private static String toUnicode(ConvTable table, int code) {
+        byte[] buf = {(byte) (code >>> 8), (byte) code, 0x40, 0x40, 0x40, 0x40};
+        String unicode = table.byteArrayToString(buf, 0, buf.length);
+        Assertions.assertEquals("" + DBCS_SPACE + DBCS_SPACE, unicode.substring(unicode.length() - 2));
+        return unicode.substring(0, unicode.length() - 2);
+    }
+
+    private static String toUnicodeDigest(ConvTable table) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (int code = 0; code <= 0xFFFF; code++) {
+            update(digest, toUnicode(table, code));
+        }
+        return hex(digest.digest());
+    }
+
+    private static String fromUnicodeDigest(ConvTable table) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (int c = 0; c <= 0xFFFF; c++) {
+            if (!Character.isHighSurrogate((char) c)) {
+                update(digest, table.stringToByteArray(String.valueOf((char) c)));
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static String supplementaryDigest(ConvTable table) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (int codePoint = Character.MIN_SUPPLEMENTARY_CODE_POINT; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            update(digest, table.stringToByteArray(new String(Character.toChars(codePoint))));
+        }
+        return hex(digest.digest());
+    }
+
+    // Each result is preceded by its length, so that results cannot run together.
+    private static void update(MessageDigest digest, String unicode) {
+        digest.update((byte) unicode.length());
+        for (int i = 0; i < unicode.length(); i++) {
+            char c = unicode.charAt(i);
+            digest.update((byte) (c >>> 8));
+            digest.update((byte) c);
+        }
+    }
+
+    private static void update(MessageDigest digest, byte[] bytes) {
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static byte[] prefix(byte[] bytes, int length) {
+        byte[] prefix = new byte[length];
+        System.arraycopy(bytes, 0, prefix, 0, length);
+        return prefix;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < bytes.length; i++) {
+            hex.append(Character.forDigit((bytes[i] >>> 4) & 0xF, 16));
+            hex.append(Character.forDigit(bytes[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.ibm.as400.access;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests the thread caches and the global stack of DBConcurrentPool, and
+ * the soft references that DBDSPool and DBStoragePool use for the stack.
+ */
+public class TestDBConcurrentPool {
+    @Test
+    public void testThreadCacheIsUsedFirst() {
+        DBConcurrentPool pool = new DBConcurrentPool("test", 4, 2, false);
+        Object a = new Object();
+        Object b = new Object();
+        Object c = new Object();
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        Assertions.assertEquals(1, pool.getOverflows());
+
+        Assertions.assertSame(b, pool.get());
+        Assertions.assertSame(a, pool.get());
+        Assertions.assertSame(c, pool.get());
+        Assertions.assertNull(pool.get());
+        Assertions.assertEquals(2, pool.getLocalHits());
+        Assertions.assertEquals(1, pool.getGlobalHits());
+        Assertions.assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    public void testGlobalStackIsLimited() {
+        DBConcurrentPool pool = new DBConcurrentPool("test", 2, 0, true);
+        Object[] items = {new Object(), new Object(), new Object()};
+        for (int i = 0; i < items.length; i++) {
+            pool.release(items[i]);
+        }
+        Assertions.assertEquals(1, pool.getDiscards());
+        Assertions.assertSame(items[1], pool.get());
+        Assertions.assertSame(items[0], pool.get());
+        Assertions.assertNull(pool.get());
+    }
+
+    @Test
+    public void testReclaimedObjectsAreSkipped() throws Exception {
+        DBConcurrentPool pool = new DBConcurrentPool("test", 4, 0, true);
+        Object kept = new Object();
+        pool.release(kept);
+        pool.release(new Object());
+
+        // Clear the reference at the top of the stack, as the garbage collector would.
+        Field top = DBConcurrentPool.class.getDeclaredField("top_");
+        top.setAccessible(true);
+        Object node = ((AtomicReference<?>) top.get(pool)).get();
+        Field item = node.getClass().getDeclaredField("item_");
+        item.setAccessible(true);
+        ((SoftReference<?>) item.get(node)).clear();
+
+        Assertions.assertSame(kept, pool.get());
+        Assertions.assertEquals(1, pool.getReclaimed());
+        Assertions.assertEquals(1, pool.getGlobalHits());
+        Assertions.assertNull(pool.get());
+        Assertions.assertTrue(pool.toString().contains(" reclaimed=1 "), pool.toString());
+    }
+}
@@ -0,0 +1,157 @@
+package com.ibm.as400.access;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests the parsing and normalization of IFS paths, which follow the rules
+ * of the default file system on Unix.  None of these need a connection.
+ */
+public class TestIFSPath {
+    private final IFSFileSystem fileSystem = new IFSFileSystem(new IFSFileSystemProvider(), "myhost", null, false);
+
+    @Test
+    public void testSeparatorsAreNormalized() {
+        Assertions.assertEquals("/home/user", path("//home///user/").toString());
+        Assertions.assertEquals("a/b", path("a//b//").toString());
+        Assertions.assertEquals("/", path("///").toString());
+        Assertions.assertEquals("", path("").toString());
+        Assertions.assertEquals("/home/user/file.txt", fileSystem.getPath("/home", "user/", "", "file.txt").toString());
+        Assertions.assertEquals(path("/home/user"), path("/home//user/"));
+        Assertions.assertEquals(path("/home/user").hashCode(), path("/home//user/").hashCode());
+    }
+
+    @Test
+    public void testNullCharacterIsRejected() {
+        Assertions.assertThrows(ExtendedIllegalArgumentException.class, () -> path("/home/a\u0000b"));
+    }
+
+    @Test
+    public void testNames() {
+        Path path = path("/QSYS.LIB/MYLIB.LIB/MYFILE.FILE");
+        Assertions.assertTrue(path.isAbsolute());
+        Assertions.assertEquals(path("/"), path.getRoot());
+        Assertions.assertEquals(3, path.getNameCount());
+        Assertions.assertEquals(path("QSYS.LIB"), path.getName(0));
+        Assertions.assertEquals(path("MYFILE.FILE"), path.getName(2));
+        Assertions.assertEquals(path("MYFILE.FILE"), path.getFileName());
+        Assertions.assertEquals(path("/QSYS.LIB/MYLIB.LIB"), path.getParent());
+        Assertions.assertEquals(path("MYLIB.LIB/MYFILE.FILE"), path.subpath(1, 3));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> path.getName(3));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> path.subpath(2, 2));
+
+        List<String> names = new ArrayList<String>();
+        for (Iterator<Path> it = path.iterator(); it.hasNext(); ) {
+            names.add(it.next().toString());
+        }
+        Assertions.assertEquals("[QSYS.LIB, MYLIB.LIB, MYFILE.FILE]", names.toString());
+    }
+
+    @Test
+    public void testRootAndEmptyPath() {
+        Path root = path("/");
+        Assertions.assertEquals(0, root.getNameCount());
+        Assertions.assertNull(root.getFileName());
+        Assertions.assertNull(root.getParent());
+        Assertions.assertEquals(root, root.getRoot());
+        Assertions.assertEquals(root, path("/home").getParent());
+
+        Path empty = path("");
+        Assertions.assertFalse(empty.isAbsolute());
+        Assertions.assertEquals(1, empty.getNameCount());
+        Assertions.assertEquals(empty, empty.getFileName());
+        Assertions.assertNull(empty.getParent());
+        Assertions.assertNull(empty.getRoot());
+
+        Path relative = path("file.txt");
+        Assertions.assertSame(relative, relative.getFileName());
+        Assertions.assertNull(relative.getParent());
+        Assertions.assertNull(relative.getRoot());
+    }
+
+    @Test
+    public void testNormalize() {
+        assertNormalized("/a/c", "/a/./b/../c");
+        assertNormalized("/a/b", "/a/b");
+        assertNormalized("/", "/..");
+        assertNormalized("/b", "/../a/../../b");
+        assertNormalized("", "a/..");
+        assertNormalized("../..", "../..");
+        assertNormalized("../b", "a/../../b");
+        assertNormalized("a", "./a/.");
+        Path normal = path("/a/b");
+        Assertions.assertSame(normal, normal.normalize());
+    }
+
+    @Test
+    public void testResolve() {
+        Assertions.assertEquals(path("/home/user/file"), path("/home/user").resolve("file"));
+        Assertions.assertEquals(path("/etc"), path("/home/user").resolve("/etc"));
+        Assertions.assertEquals(path("/home/user"), path("/home/user").resolve(""));
+        Assertions.assertEquals(path("file"), path("").resolve("file"));
+        Assertions.assertEquals(path("/home/other"), path("/home/user").resolveSibling("other"));
+        Assertions.assertEquals(path("other"), path("user").resolveSibling("other"));
+    }
+
+    @Test
+    public void testRelativize() {
+        Assertions.assertEquals(path("../c/d"), path("/a/b").relativize(path("/a/c/d")));
+        Assertions.assertEquals(path("c"), path("/a/b").relativize(path("/a/b/c")));
+        Assertions.assertEquals(path("../.."), path("/a/b").relativize(path("/")));
+        Assertions.assertEquals(path(""), path("/a/b").relativize(path("/a//b/")));
+        Assertions.assertEquals(path("b"), path("").relativize(path("b")));
+        Assertions.assertEquals(path("/a/c/d"), path("/a/b").resolve(path("/a/b").relativize(path("/a/c/d"))).normalize());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> path("/a").relativize(path("a")));
+    }
+
+    @Test
+    public void testStartsWithAndEndsWith() {
+        Path path = path("/home/user/file.txt");
+        Assertions.assertTrue(path.startsWith("/"));
+        Assertions.assertTrue(path.startsWith("/home/user"));
+        Assertions.assertFalse(path.startsWith("/home/us"));
+        Assertions.assertFalse(path.startsWith("home"));
+        Assertions.assertTrue(path.endsWith("file.txt"));
+        Assertions.assertTrue(path.endsWith("user/file.txt"));
+        Assertions.assertTrue(path.endsWith("/home/user/file.txt"));
+        Assertions.assertFalse(path.endsWith("/user/file.txt"));
+        Assertions.assertFalse(path.endsWith("txt"));
+        Assertions.assertTrue(path("").startsWith(""));
+        Assertions.assertTrue(path("").endsWith(""));
+        Assertions.assertFalse(path.endsWith(""));
+    }
+
+    @Test
+    public void testAbsolutePathAndUri() {
+        Assertions.assertEquals(path("/dir/file"), path("dir/file").toAbsolutePath());
+        Assertions.assertEquals("/dir/file", ((IFSPath) path("dir/file")).getIFSPathName());
+        Assertions.assertEquals(URI.create("ifs://myhost/dir/a%20b"), path("dir/a b").toUri());
+    }
+
+    @Test
+    public void testPathsOfOtherFileSystems() {
+        IFSFileSystem other = new IFSFileSystem(new IFSFileSystemProvider(), "otherhost", null, false);
+        Path path = path("/home/user");
+        Path otherPath = other.getPath("/home/user");
+        Assertions.assertNotEquals(path, otherPath);
+        Assertions.assertFalse(path.startsWith(otherPath));
+        Assertions.assertFalse(path.endsWith(otherPath));
+        Assertions.assertThrows(ProviderMismatchException.class, () -> path.resolve(otherPath));
+        Assertions.assertThrows(ProviderMismatchException.class, () -> path.relativize(otherPath));
+    }
+
+    private Path path(String path) {
+        return fileSystem.getPath(path);
+    }
+
+    private void assertNormalized(String expected, String path) {
+        Assertions.assertEquals(path(expected), path(path).normalize(), path);
+    }
+}
@@ -0,0 +1,139 @@
+package com.ibm.as400.access;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+/**
+ * Tests the cache of parsed SQL statements that JDSQLStatement.getStatement()
+ * shares among all of the connections in the JVM.
+ */
+public class TestJDSQLStatementCache {
+    private static final String SQL = "SELECT NAME, {fn UCASE(CITY)} FROM MYLIB.CUSTOMERS C WHERE ID = ? AND RATE > 1.5";
+
+    @Test
+    public void testKeyEquality() {
+        JDSQLStatementCache.Key key = new JDSQLStatementCache.Key(SQL, "settings");
+        Assertions.assertEquals(key, new JDSQLStatementCache.Key(new String(SQL), new String("settings")));
+        Assertions.assertEquals(key.hashCode(), new JDSQLStatementCache.Key(SQL, "settings").hashCode());
+        Assertions.assertNotEquals(key, new JDSQLStatementCache.Key(SQL.toLowerCase(), "settings"));
+        Assertions.assertNotEquals(key, new JDSQLStatementCache.Key(SQL, "other settings"));
+    }
+
+    @Test
+    public void testGetStatementReturnsCopies() throws SQLException {
+        JDSQLStatementCache.clear();
+        TestConnection connection = new TestConnection(JDUtilities.vrm740);
+        long hits = JDSQLStatementCache.getHits();
+
+        JDSQLStatement first = getStatement(SQL, ".", connection);
+        JDSQLStatement second = getStatement(SQL, ".", connection);
+        Assertions.assertEquals(hits + 1, JDSQLStatementCache.getHits());
+        Assertions.assertNotSame(first, second);
+
+        JDSQLStatement parsed = new JDSQLStatement(SQL, ".", true, JDProperties.PACKAGE_CRITERIA_DEFAULT, connection);
+        assertParsedAlike(parsed, first);
+        assertParsedAlike(parsed, second);
+
+        // The setter of a copy does not change the cached statement.
+        first.setSelectFromInsert(true);
+        Assertions.assertFalse(getStatement(SQL, ".", connection).isSelectFromInsert());
+    }
+
+    @Test
+    public void testDifferentSettingsAreCachedSeparately() throws SQLException {
+        JDSQLStatementCache.clear();
+        TestConnection connection = new TestConnection(JDUtilities.vrm740);
+        getStatement(SQL, ".", connection);
+        long hits = JDSQLStatementCache.getHits();
+        long misses = JDSQLStatementCache.getMisses();
+
+        JDSQLStatement comma = getStatement(SQL, ",", connection);
+        JDSQLStatement olderSystem = getStatement(SQL, ".", new TestConnection(JDUtilities.vrm710));
+        JDSQLStatement notConverted = JDSQLStatement.getStatement(SQL, ".", false, JDProperties.PACKAGE_CRITERIA_DEFAULT, connection);
+        Assertions.assertEquals(hits, JDSQLStatementCache.getHits());
+        Assertions.assertEquals(misses + 3, JDSQLStatementCache.getMisses());
+
+        assertParsedAlike(new JDSQLStatement(SQL, ",", true, JDProperties.PACKAGE_CRITERIA_DEFAULT, connection), comma);
+        Assertions.assertEquals(SQL, notConverted.toString());
+        Assertions.assertNotNull(olderSystem);
+
+        getStatement(SQL, ",", connection);
+        Assertions.assertEquals(hits + 1, JDSQLStatementCache.getHits());
+    }
+
+    @Test
+    public void testLongStatementsAreNotCached() {
+        StringBuilder sql = new StringBuilder("SELECT * FROM T WHERE C IN (0");
+        while (sql.length() <= 32 * 1024) {
+            sql.append(", 0");
+        }
+        sql.append(')');
+        Assertions.assertTrue(JDSQLStatementCache.isCacheable(SQL));
+        Assertions.assertFalse(JDSQLStatementCache.isCacheable(sql.toString()));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        JDSQLStatementCache.clear();
+        JDSQLStatementCache.Key early = new JDSQLStatementCache.Key("early", "");
+        JDSQLStatementCache.Key used = new JDSQLStatementCache.Key("used", "");
+        JDSQLStatement statement = newStatement();
+        JDSQLStatementCache.put(early, statement);
+        JDSQLStatementCache.put(used, statement);
+        for (int i = 0; i < 5000; i++) {
+            JDSQLStatementCache.put(new JDSQLStatementCache.Key("SELECT " + i, ""), statement);
+            Assertions.assertSame(statement, JDSQLStatementCache.get(used), "after " + i + " statements");
+        }
+        Assertions.assertNull(JDSQLStatementCache.get(early));
+        Assertions.assertTrue(JDSQLStatementCache.getSize() <= JDSQLStatementCache.getCapacity(),
+                JDSQLStatementCache.getStatistics());
+        Assertions.assertTrue(JDSQLStatementCache.getSize() > JDSQLStatementCache.getCapacity() / 2,
+                JDSQLStatementCache.getStatistics());
+
+        JDSQLStatementCache.clear();
+        Assertions.assertEquals(0, JDSQLStatementCache.getSize());
+    }
+
+    private static JDSQLStatement getStatement(String sql, String decimalSeparator, AS400JDBCConnection connection)
+            throws SQLException {
+        return JDSQLStatement.getStatement(sql, decimalSeparator, true, JDProperties.PACKAGE_CRITERIA_DEFAULT, connection);
+    }
+
+    private static JDSQLStatement newStatement() {
+        try {
+            return new JDSQLStatement("VALUES 1");
+        } catch (SQLException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void assertParsedAlike(JDSQLStatement expected, JDSQLStatement actual) {
+        Assertions.assertEquals(expected.toString(), actual.toString());
+        Assertions.assertEquals(expected.getNativeType(), actual.getNativeType());
+        Assertions.assertEquals(expected.countParameters(), actual.countParameters());
+        Assertions.assertEquals(expected.getSelectTable(), actual.getSelectTable());
+        Assertions.assertEquals(expected.getCorrelationName(), actual.getCorrelationName());
+        Assertions.assertEquals(expected.isSelect(), actual.isSelect());
+        Assertions.assertEquals(expected.canBatch(), actual.canBatch());
+    }
+
+    // A connection that is not connected, with the default properties.
+    private static final class TestConnection extends AS400JDBCConnectionImpl {
+        private final JDProperties properties_ = new JDProperties(null, null);
+        private final int vrm_;
+
+        TestConnection(int vrm) {
+            vrm_ = vrm;
+        }
+
+        public JDProperties getProperties() {
+            return properties_;
+        }
+
+        public int getVRM() {
+            return vrm_;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.ibm.as400.access;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Tests the statement cache of a connection: the keys, the LRU order, and
+ * which statements and errors make the connection invalidate the cache.
+ */
+public class TestJDStatementCache {
+    private static final int HOLD = ResultSet.HOLD_CURSORS_OVER_COMMIT;
+    private static final int CLOSE = ResultSet.CLOSE_CURSORS_AT_COMMIT;
+
+    @Test
+    public void testKeyEquality() {
+        JDStatementCache.Key key = key("SELECT * FROM T");
+        JDStatementCache.Key same = new JDStatementCache.Key(new String("SELECT * FROM T"),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, HOLD);
+        Assertions.assertEquals(key, same);
+        Assertions.assertEquals(key.hashCode(), same.hashCode());
+
+        Assertions.assertNotEquals(key, key("select * from t"));
+        Assertions.assertNotEquals(key, new JDStatementCache.Key("SELECT * FROM T",
+                ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, HOLD));
+        Assertions.assertNotEquals(key, new JDStatementCache.Key("SELECT * FROM T",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_UPDATABLE, HOLD));
+        Assertions.assertNotEquals(key, new JDStatementCache.Key("SELECT * FROM T",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, CLOSE));
+        Assertions.assertNotEquals(key, "SELECT * FROM T");
+    }
+
+    @Test
+    public void testGetRemovesStatement() throws Exception {
+        JDStatementCache cache = new JDStatementCache(4);
+        AS400JDBCPreparedStatementImpl statement = newStatement();
+        Assertions.assertNull(cache.put(key("A"), statement));
+
+        Assertions.assertNull(cache.get(key("B")));
+        Assertions.assertSame(statement, cache.get(key("A")));
+        Assertions.assertNull(cache.get(key("A")), "a statement is only handed out once");
+        Assertions.assertEquals("Statement cache: size=0/4 hits=1 misses=2", cache.getStatistics());
+    }
+
+    @Test
+    public void testPutSameKeyReturnsReplacedStatement() throws Exception {
+        JDStatementCache cache = new JDStatementCache(2);
+        AS400JDBCPreparedStatementImpl first = newStatement();
+        AS400JDBCPreparedStatementImpl second = newStatement();
+        Assertions.assertNull(cache.put(key("A"), first));
+        Assertions.assertSame(first, cache.put(key("A"), second));
+        Assertions.assertSame(second, cache.get(key("A")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        JDStatementCache cache = new JDStatementCache(3);
+        AS400JDBCPreparedStatementImpl a = newStatement();
+        AS400JDBCPreparedStatementImpl b = newStatement();
+        AS400JDBCPreparedStatementImpl c = newStatement();
+        AS400JDBCPreparedStatementImpl d = newStatement();
+        AS400JDBCPreparedStatementImpl e = newStatement();
+        Assertions.assertNull(cache.put(key("A"), a));
+        Assertions.assertNull(cache.put(key("B"), b));
+        Assertions.assertNull(cache.put(key("C"), c));
+
+        // Using A and closing it again makes B the least recently used.
+        Assertions.assertSame(a, cache.get(key("A")));
+        Assertions.assertNull(cache.put(key("A"), a));
+        Assertions.assertSame(b, cache.put(key("D"), d));
+        Assertions.assertSame(c, cache.put(key("E"), e));
+
+        Assertions.assertNull(cache.get(key("B")));
+        Assertions.assertNull(cache.get(key("C")));
+        Assertions.assertSame(a, cache.get(key("A")));
+        Assertions.assertSame(d, cache.get(key("D")));
+        Assertions.assertSame(e, cache.get(key("E")));
+    }
+
+    @Test
+    public void testSizeIsLimited() throws Exception {
+        JDStatementCache cache = new JDStatementCache(JDStatementCache.MAXIMUM_SIZE + 100);
+        AS400JDBCPreparedStatementImpl first = newStatement();
+        Assertions.assertNull(cache.put(key("0"), first));
+        for (int i = 1; i < JDStatementCache.MAXIMUM_SIZE; i++) {
+            Assertions.assertNull(cache.put(key(String.valueOf(i)), newStatement()));
+        }
+        Assertions.assertSame(first, cache.put(key("full"), newStatement()));
+        Assertions.assertTrue(cache.getStatistics().startsWith("Statement cache: size="
+                + JDStatementCache.MAXIMUM_SIZE + "/" + JDStatementCache.MAXIMUM_SIZE + " "), cache.getStatistics());
+    }
+
+    @Test
+    public void testClearReturnsAllStatements() throws Exception {
+        JDStatementCache cache = new JDStatementCache(4);
+        AS400JDBCPreparedStatementImpl a = newStatement();
+        AS400JDBCPreparedStatementImpl b = newStatement();
+        cache.put(key("A"), a);
+        cache.put(key("B"), b);
+
+        AS400JDBCPreparedStatementImpl[] cleared = cache.clear();
+        Assertions.assertEquals(2, cleared.length);
+        Assertions.assertSame(a, cleared[0]);
+        Assertions.assertSame(b, cleared[1]);
+        Assertions.assertNull(cache.get(key("A")));
+        Assertions.assertEquals(0, cache.clear().length);
+    }
+
+    @Test
+    public void testInvalidatingErrors() {
+        Assertions.assertTrue(JDStatementCache.isInvalidatingError(new SQLException("not found", "42704", -204)));
+        Assertions.assertTrue(JDStatementCache.isInvalidatingError(new SQLException("not found", "26501", -514)));
+        Assertions.assertTrue(JDStatementCache.isInvalidatingError(new SQLException("not prepared", "07003", -518)));
+        Assertions.assertFalse(JDStatementCache.isInvalidatingError(new SQLException("syntax", "42601", -104)));
+        Assertions.assertFalse(JDStatementCache.isInvalidatingError(new SQLException("locked", "57033", -913)));
+        Assertions.assertFalse(JDStatementCache.isInvalidatingError(new SQLException("no code")));
+    }
+
+    @Test
+    public void testStatementsThatInvalidateTheCache() throws SQLException {
+        String[] invalidating = {
+                "CREATE TABLE T (C INT)",
+                "alter table t add column d int",
+                "DROP INDEX I",
+                "SET SCHEMA MYLIB",
+                "set path = MYLIB, QSYS",
+                "SET CURRENT SCHEMA = MYLIB",
+                "SET CURRENT_SCHEMA MYLIB",
+        };
+        for (int i = 0; i < invalidating.length; i++) {
+            Assertions.assertTrue(invalidatesCache(invalidating[i]), invalidating[i]);
+        }
+
+        String[] other = {
+                "SELECT * FROM T",
+                "INSERT INTO T VALUES(1)",
+                "SET CONNECTION DB2",
+                "SET TRANSACTION ISOLATION LEVEL SERIALIZABLE",
+                "CALL SYSPROC.WLM_SET_CLIENT_INFO('USER', NULL, NULL, NULL, NULL)",
+                "VALUES CURRENT SCHEMA",
+        };
+        for (int i = 0; i < other.length; i++) {
+            Assertions.assertFalse(invalidatesCache(other[i]), other[i]);
+        }
+    }
+
+    // The test that AS400JDBCStatement uses before it invalidates the cache.
+    private static boolean invalidatesCache(String sql) throws SQLException {
+        JDSQLStatement statement = new JDSQLStatement(sql, ".", true, JDProperties.PACKAGE_CRITERIA_DEFAULT,
+                new TestConnection());
+        return statement.isDDL() || statement.isSetStatementForSpecialRegister();
+    }
+
+    private static JDStatementCache.Key key(String sql) {
+        return new JDStatementCache.Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, HOLD);
+    }
+
+    // A connection that is not connected, with the default properties.
+    private static final class TestConnection extends AS400JDBCConnectionImpl {
+        private final JDProperties properties_ = new JDProperties(null, null);
+
+        public JDProperties getProperties() {
+            return properties_;
+        }
+
+        public int getVRM() {
+            return JDUtilities.vrm740;
+        }
+    }
+
+    // The constructor of a prepared statement prepares it on the system, so the
+    // cache is given instances that were never constructed.  The cache only
+    // compares them by identity.
+    private static AS400JDBCPreparedStatementImpl newStatement() throws Exception {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        Method allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+        return (AS400JDBCPreparedStatementImpl) allocateInstance.invoke(theUnsafe.get(null), AS400JDBCPreparedStatementImpl.class);
+    }
+}
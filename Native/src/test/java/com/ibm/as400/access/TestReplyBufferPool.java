@@ -0,0 +1,122 @@
+package com.ibm.as400.access;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Tests the size classes of ReplyBufferPool and which arrays it takes back.
+ * The pool is shared by the whole JVM, so each test uses size classes that
+ * the others do not, and runs in new threads, whose caches start out empty.
+ */
+public class TestReplyBufferPool {
+    private static final int MAXIMUM_POOLED = 2 * 1024 * 1024;
+
+    @Test
+    public void testArraysAreRoundedUpToSizeClass() {
+        Assertions.assertEquals(256, ReplyBufferPool.get(0).length);
+        Assertions.assertEquals(256, ReplyBufferPool.get(1).length);
+        Assertions.assertEquals(256, ReplyBufferPool.get(256).length);
+        Assertions.assertEquals(512, ReplyBufferPool.get(257).length);
+        Assertions.assertEquals(4096, ReplyBufferPool.get(4095).length);
+        Assertions.assertEquals(4096, ReplyBufferPool.get(4096).length);
+        Assertions.assertEquals(8192, ReplyBufferPool.get(4097).length);
+        Assertions.assertEquals(MAXIMUM_POOLED, ReplyBufferPool.get(MAXIMUM_POOLED / 2 + 1).length);
+        Assertions.assertEquals(MAXIMUM_POOLED, ReplyBufferPool.get(MAXIMUM_POOLED).length);
+    }
+
+    @Test
+    public void testOversizedArraysHaveExactLengthAndAreNotPooled() throws Exception {
+        final int length = MAXIMUM_POOLED + 1;
+        long misses = ReplyBufferPool.getMisses();
+        final byte[] buffer = ReplyBufferPool.get(length);
+        Assertions.assertEquals(length, buffer.length);
+        Assertions.assertEquals(misses + 1, ReplyBufferPool.getMisses());
+
+        byte[] next = inNewThread(() -> {
+            ReplyBufferPool.release(buffer);
+            return ReplyBufferPool.get(length);
+        });
+        Assertions.assertNotSame(buffer, next);
+        Assertions.assertEquals(misses + 2, ReplyBufferPool.getMisses());
+    }
+
+    @Test
+    public void testReleasedArrayIsReused() throws Exception {
+        long hits = ReplyBufferPool.getHits();
+        inNewThread(() -> {
+            byte[] buffer = ReplyBufferPool.get(2000);
+            Assertions.assertEquals(2048, buffer.length);
+            ReplyBufferPool.release(buffer);
+            Assertions.assertSame(buffer, ReplyBufferPool.get(1025), "same size class");
+            ReplyBufferPool.release(buffer);
+            Assertions.assertNotSame(buffer, ReplyBufferPool.get(1024), "smaller size class");
+            Assertions.assertNotSame(buffer, ReplyBufferPool.get(2049), "larger size class");
+            return null;
+        });
+        Assertions.assertTrue(ReplyBufferPool.getHits() >= hits + 1);
+    }
+
+    @Test
+    public void testArraysOfOtherLengthsAreNotPooled() throws Exception {
+        final byte[] buffer = new byte[3000];
+        inNewThread(() -> {
+            ReplyBufferPool.release(buffer);
+            Assertions.assertNotSame(buffer, ReplyBufferPool.get(3000));
+            Assertions.assertEquals(4096, ReplyBufferPool.get(3000).length);
+            return null;
+        });
+    }
+
+    @Test
+    public void testSmallArraysAreCachedByThread() throws Exception {
+        final byte[] buffer = ReplyBufferPool.get(16 * 1024);
+        inNewThread(() -> {
+            ReplyBufferPool.release(buffer);
+            return null;
+        });
+        byte[] other = inNewThread(() -> ReplyBufferPool.get(16 * 1024));
+        Assertions.assertNotSame(buffer, other);
+    }
+
+    @Test
+    public void testLargeArraysAreSharedUpToLimit() throws Exception {
+        // 1M arrays are not cached by thread, and at most 16 are kept.
+        final int length = 1024 * 1024;
+        final List<byte[]> released = new ArrayList<byte[]>();
+        for (int i = 0; i < 20; i++) {
+            released.add(new byte[length]);
+        }
+        inNewThread(() -> {
+            for (int i = 0; i < released.size(); i++) {
+                ReplyBufferPool.release(released.get(i));
+            }
+            return null;
+        });
+
+        List<byte[]> reused = inNewThread(() -> {
+            List<byte[]> buffers = new ArrayList<byte[]>();
+            for (int i = 0; i < released.size(); i++) {
+                buffers.add(ReplyBufferPool.get(length));
+            }
+            return buffers;
+        });
+        for (int i = 0; i < 16; i++) {
+            Assertions.assertSame(released.get(15 - i), reused.get(i), "array " + i);
+        }
+        for (int i = 16; i < reused.size(); i++) {
+            Assertions.assertFalse(released.contains(reused.get(i)), "array " + i + " was kept over the limit");
+        }
+    }
+
+    private static <T> T inNewThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<T>(task);
+        Thread thread = new Thread(future);
+        thread.start();
+        return future.get();
+    }
+}
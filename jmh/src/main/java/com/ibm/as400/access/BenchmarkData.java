@@ -0,0 +1,66 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: BenchmarkData.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.Random;
+
+/**
+ * Builds the input data for the benchmarks.  The data is the same on every
+ * run, so results can be compared with the baseline.
+ **/
+final class BenchmarkData
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  static final String SINGLE_BYTE = "The quick brown fox jumps over the lazy dog 0123456789. ";
+  static final String DOUBLE_BYTE = "\u65e5\u672c\u8a9e\u306e\u6587\u5b57\u5217\u3092\u5909\u63db\u3059\u308b\u901f\u3055\u3092\u6e2c\u5b9a\u3057\u307e\u3059\u3002";
+  static final String MIXED = "Order 1234: \u6771\u4eac\u652f\u5e97 qty 56, \u5927\u962a\u652f\u5e97 qty 7. ";
+
+  private BenchmarkData()
+  {
+  }
+
+  // Returns a string of the given length made by repeating a pattern.
+  static String text(String pattern, int length)
+  {
+    StringBuffer buffer = new StringBuffer(length + pattern.length());
+    while (buffer.length() < length)
+    {
+      buffer.append(pattern);
+    }
+    buffer.setLength(length);
+    return buffer.toString();
+  }
+
+  // Returns random bytes.
+  static byte[] randomBytes(int length, long seed)
+  {
+    byte[] bytes = new byte[length];
+    new Random(seed).nextBytes(bytes);
+    return bytes;
+  }
+
+  // Returns a decimal number with the given number of digits and scale.
+  static java.math.BigDecimal decimal(int digits, int scale, long seed)
+  {
+    Random random = new Random(seed);
+    StringBuffer buffer = new StringBuffer(digits + 1);
+    buffer.append((char)('1' + random.nextInt(9)));
+    for (int i = 1; i < digits; ++i)
+    {
+      buffer.append((char)('0' + random.nextInt(10)));
+    }
+    return new java.math.BigDecimal(new java.math.BigInteger(buffer.toString()), scale).negate();
+  }
+}
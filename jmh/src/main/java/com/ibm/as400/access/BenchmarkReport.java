@@ -0,0 +1,257 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: BenchmarkReport.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files in CSV format, and reports the benchmarks that
+ * became slower.
+ * <p>
+ * Usage: <code>BenchmarkReport <i>baseline.csv</i> <i>results.csv</i> <i>report.txt</i> [<i>threshold</i>] [fail|report]</code>
+ * <p>
+ * A benchmark is a regression when its score is worse than the baseline score
+ * by more than <i>threshold</i> percent (default 10), and the difference is
+ * larger than the two score errors together.  With <code>fail</code>, the
+ * program exits with status 1 when there is a regression.  A missing baseline
+ * file is reported, but is not an error.
+ **/
+public final class BenchmarkReport
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  // Removed from benchmark names in the report.
+  private static final String PACKAGE = "com.ibm.as400.access.";
+
+  // One row of a result file.
+  private static final class Result
+  {
+    String mode_;
+    double score_;
+    double error_;
+    String unit_;
+  }
+
+  private BenchmarkReport()
+  {
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 3)
+    {
+      System.err.println("Usage: BenchmarkReport baseline.csv results.csv report.txt [threshold] [fail|report]");
+      System.exit(2);
+    }
+    File baselineFile = new File(args[0]);
+    File resultsFile = new File(args[1]);
+    double threshold = (args.length > 3) ? Double.parseDouble(args[3]) : 10;
+    boolean fail = (args.length > 4) && args[4].equalsIgnoreCase("fail");
+
+    StringWriter text = new StringWriter();
+    PrintWriter out = new PrintWriter(text);
+    int regressions = 0;
+    if (!resultsFile.exists())
+    {
+      out.println("No benchmark results in " + resultsFile + "; run the jmh task first.");
+      regressions = fail ? 1 : 0;
+    }
+    else if (!baselineFile.exists())
+    {
+      out.println("No baseline in " + baselineFile + "; run the jmhBaseline task to make one.");
+    }
+    else
+    {
+      regressions = compare(read(baselineFile), read(resultsFile), threshold, out);
+    }
+    out.flush();
+
+    System.out.print(text);
+    File reportFile = new File(args[2]);
+    if (reportFile.getParentFile() != null) reportFile.getParentFile().mkdirs();
+    FileWriter writer = new FileWriter(reportFile);
+    try
+    {
+      writer.write(text.toString());
+    }
+    finally
+    {
+      writer.close();
+    }
+
+    if (fail && regressions > 0) System.exit(1);
+  }
+
+  // Writes the comparison table, and returns the number of regressions.
+  private static int compare(Map baseline, Map results, double threshold, PrintWriter out)
+  {
+    int regressions = 0;
+    out.println(pad("Benchmark", 60) + pad("Mode", 7) + pad("Baseline", 14) + pad("Current", 14) + pad("Change", 10) + "Unit");
+    for (java.util.Iterator i = results.entrySet().iterator(); i.hasNext(); )
+    {
+      Map.Entry entry = (Map.Entry)i.next();
+      String key = (String)entry.getKey();
+      Result current = (Result)entry.getValue();
+      Result base = (Result)baseline.get(key);
+      if (base == null || !base.mode_.equals(current.mode_) || !base.unit_.equals(current.unit_))
+      {
+        out.println(pad(key, 60) + pad(current.mode_, 7) + pad("-", 14) + pad(format(current.score_), 14) + pad("new", 10) + current.unit_);
+        continue;
+      }
+
+      // For throughput higher is better; for the time modes lower is better.
+      double change = (current.score_ - base.score_) / base.score_ * 100;
+      double worse = current.mode_.equals("thrpt") ? -change : change;
+      double noise = errorOf(base) + errorOf(current);
+      boolean regression = worse > threshold && Math.abs(current.score_ - base.score_) > noise;
+      if (regression) ++regressions;
+
+      out.println(pad(key, 60) + pad(current.mode_, 7) + pad(format(base.score_), 14) + pad(format(current.score_), 14)
+                  + pad((change >= 0 ? "+" : "") + format(change) + "%", 10) + current.unit_ + (regression ? "  REGRESSION" : ""));
+    }
+    for (java.util.Iterator i = baseline.keySet().iterator(); i.hasNext(); )
+    {
+      String key = (String)i.next();
+      if (!results.containsKey(key)) out.println(pad(key, 60) + "not run");
+    }
+    out.println();
+    out.println(regressions + " regression(s) worse than " + format(threshold) + "%.");
+    return regressions;
+  }
+
+  private static double errorOf(Result result)
+  {
+    return Double.isNaN(result.error_) ? 0 : result.error_;
+  }
+
+  // Reads a JMH CSV result file into a map from benchmark name and parameters to result.
+  private static Map read(File file) throws IOException
+  {
+    Map results = new LinkedHashMap();
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try
+    {
+      String line = reader.readLine();
+      if (line == null) return results;
+      List header = split(line);
+      int benchmark = header.indexOf("Benchmark");
+      int mode = header.indexOf("Mode");
+      int score = header.indexOf("Score");
+      int unit = header.indexOf("Unit");
+      int error = -1;
+      for (int i = 0; i < header.size(); ++i)
+      {
+        if (((String)header.get(i)).startsWith("Score Error")) error = i;
+      }
+      if (benchmark < 0 || mode < 0 || score < 0 || unit < 0)
+        throw new IOException(file + " is not a JMH CSV result file.");
+
+      while ((line = reader.readLine()) != null)
+      {
+        if (line.trim().length() == 0) continue;
+        List fields = split(line);
+        String name = (String)fields.get(benchmark);
+        if (name.startsWith(PACKAGE)) name = name.substring(PACKAGE.length());
+        StringBuffer key = new StringBuffer(name);
+        for (int i = 0; i < header.size() && i < fields.size(); ++i)
+        {
+          String column = (String)header.get(i);
+          if (column.startsWith("Param: ") && ((String)fields.get(i)).length() > 0)
+            key.append(' ').append(column.substring(7)).append('=').append(fields.get(i));
+        }
+        Result result = new Result();
+        result.mode_ = (String)fields.get(mode);
+        result.score_ = parse((String)fields.get(score));
+        result.error_ = (error < 0) ? Double.NaN : parse((String)fields.get(error));
+        result.unit_ = (String)fields.get(unit);
+        results.put(key.toString(), result);
+      }
+    }
+    finally
+    {
+      reader.close();
+    }
+    return results;
+  }
+
+  // Splits a CSV line, removing the quotes around fields.
+  private static List split(String line)
+  {
+    List fields = new ArrayList();
+    StringBuffer field = new StringBuffer();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); ++i)
+    {
+      char c = line.charAt(i);
+      if (c == '"')
+      {
+        if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"')
+        {
+          field.append('"');
+          ++i;
+        }
+        else
+        {
+          quoted = !quoted;
+        }
+      }
+      else if (c == ',' && !quoted)
+      {
+        fields.add(field.toString());
+        field.setLength(0);
+      }
+      else
+      {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  // Parses a score, which JMH writes with the default locale's decimal separator.
+  private static double parse(String value)
+  {
+    value = value.trim().replace(',', '.');
+    if (value.length() == 0 || value.equalsIgnoreCase("NaN")) return Double.NaN;
+    return Double.parseDouble(value);
+  }
+
+  private static String format(double value)
+  {
+    if (Double.isNaN(value)) return "NaN";
+    return (Math.abs(value) >= 100) ? String.valueOf(Math.round(value)) : String.valueOf(Math.round(value * 100) / 100.0);
+  }
+
+  private static String pad(String s, int width)
+  {
+    StringBuffer buffer = new StringBuffer(s);
+    do
+    {
+      buffer.append(' ');
+    }
+    while (buffer.length() < width);
+    return buffer.toString();
+  }
+}
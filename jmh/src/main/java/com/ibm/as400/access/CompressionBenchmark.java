@@ -0,0 +1,96 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: CompressionBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the run-length compression used for datastreams, on data with
+ * long runs of blanks, on random data, and on data like database rows.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressionBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private static final int LENGTH = 32 * 1024;
+
+  @Param({ "blanks", "random", "rows" })
+  public String data;
+
+  private byte[] source_;
+  private byte[] compressed_;
+  private int compressedLength_;
+  private byte[] destination_;
+
+  @Setup
+  public void setup()
+  {
+    if (data.equals("blanks"))
+    {
+      source_ = new byte[LENGTH];
+      java.util.Arrays.fill(source_, (byte)0x40);
+    }
+    else if (data.equals("random"))
+    {
+      source_ = BenchmarkData.randomBytes(LENGTH, 1);
+    }
+    else
+    {
+      // 100-byte rows: a 20-byte key followed by a mostly blank character field.
+      source_ = new byte[LENGTH];
+      java.util.Arrays.fill(source_, (byte)0x40);
+      byte[] keys = BenchmarkData.randomBytes(LENGTH, 2);
+      for (int i = 0; i + 20 <= LENGTH; i += 100)
+      {
+        System.arraycopy(keys, i, source_, i, 20);
+      }
+    }
+    destination_ = new byte[LENGTH];
+    compressed_ = new byte[LENGTH];
+    compressedLength_ = DataStreamCompression.compressRLE(source_, 0, LENGTH, compressed_, 0, DataStreamCompression.DEFAULT_ESCAPE);
+  }
+
+  @Benchmark
+  public int compress()
+  {
+    return DataStreamCompression.compressRLE(source_, 0, LENGTH, destination_, 0, DataStreamCompression.DEFAULT_ESCAPE);
+  }
+
+  @Benchmark
+  public byte[] decompress()
+  {
+    // Random data does not compress, so there is nothing to decompress.
+    if (compressedLength_ < 0) return destination_;
+    DataStreamCompression.decompressRLE(compressed_, 0, compressedLength_, destination_, 0, DataStreamCompression.DEFAULT_ESCAPE, false);
+    return destination_;
+  }
+}
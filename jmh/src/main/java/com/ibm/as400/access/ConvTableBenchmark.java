@@ -0,0 +1,74 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: ConvTableBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ConvTable conversions on a single-byte EBCDIC table (37), the
+ * Latin-1 table (819), a double-byte table (300), and a mixed table with
+ * shift-out and shift-in bytes (930).
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConvTableBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  @Param({ "37", "819", "300", "930" })
+  public int ccsid;
+
+  @Param({ "32", "1024" })
+  public int length;
+
+  private ConvTable table_;
+  private String string_;
+  private byte[] bytes_;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    table_ = ConvTable.getTable(ccsid, null);
+    string_ = BenchmarkData.text(ccsid == 300 ? BenchmarkData.DOUBLE_BYTE : ccsid == 930 ? BenchmarkData.MIXED : BenchmarkData.SINGLE_BYTE, length);
+    bytes_ = table_.stringToByteArray(string_);
+  }
+
+  @Benchmark
+  public String byteArrayToString()
+  {
+    return table_.byteArrayToString(bytes_, 0, bytes_.length);
+  }
+
+  @Benchmark
+  public byte[] stringToByteArray()
+  {
+    return table_.stringToByteArray(string_);
+  }
+}
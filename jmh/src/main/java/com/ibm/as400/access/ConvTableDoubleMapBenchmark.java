@@ -0,0 +1,87 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: ConvTableDoubleMapBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures conversions on double-byte tables whose codes can map to more
+ * than one Unicode character:  surrogate pairs (16684, 2001399), and also
+ * combining sequences and triplets (2001371, 2001379).  The text mixes
+ * ordinary double-byte characters with every multi-character mapping of
+ * the table.  See ConvTableFootprint for the memory that the tables use.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConvTableDoubleMapBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  @Param({ "16684", "2001371", "2001379", "2001399" })
+  public int ccsid;
+
+  private ConvTable table_;
+  private String string_;
+  private byte[] bytes_;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    ConvTableDoubleMap table = (ConvTableDoubleMap)ConvTable.getTable(ccsid, null);
+    table_ = table;
+    // Alternate the multi-character mappings with ordinary characters.
+    StringBuffer buffer = new StringBuffer();
+    String ordinary = BenchmarkData.DOUBLE_BYTE;
+    char[] chars = new char[4];
+    for (int code = 0; code < 0xFFFF; ++code)
+    {
+      int length = table.toUnicode(chars, 0, code);
+      if (length > 1)
+      {
+        buffer.append(chars, 0, length);
+        buffer.append(ordinary.charAt(code % ordinary.length()));
+      }
+    }
+    string_ = buffer.toString();
+    bytes_ = table_.stringToByteArray(string_);
+  }
+
+  @Benchmark
+  public String byteArrayToString()
+  {
+    return table_.byteArrayToString(bytes_, 0, bytes_.length);
+  }
+
+  @Benchmark
+  public byte[] stringToByteArray()
+  {
+    return table_.stringToByteArray(string_);
+  }
+}
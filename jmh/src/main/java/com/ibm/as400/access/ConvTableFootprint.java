@@ -0,0 +1,77 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: ConvTableFootprint.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+/**
+ * Reports the heap used by the conversion tables of double-byte and mixed
+ * CCSIDs.
+ * <p>
+ * Usage: <code>ConvTableFootprint [<i>ccsid</i> ...]</code>
+ * <p>
+ * The tables are loaded one at a time, in the order given, and the growth
+ * of the heap after a garbage collection is reported for each one, along
+ * with the total.  Tables that share data with a table loaded before them,
+ * such as aliases of a CCSID and mixed tables with the same double-byte
+ * table, only add what they do not share.  The numbers include the class
+ * data of each table, and are only approximate, so run with a serial
+ * collector and compare totals between runs in the same JVM version.
+ **/
+public final class ConvTableFootprint
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  // Japanese, Chinese, Korean, and Taiwanese CCSIDs, with some aliases.
+  private static final int[] DEFAULT_CCSIDS = { 930, 939, 5026, 5035, 1399, 300, 4396, 16684, 12588, 8492,
+                                                935, 1388, 937, 1371, 933, 1364, 13676, 1377, 1379 };
+
+  private ConvTableFootprint()
+  {
+  }
+
+  // Returns the used heap after garbage collection.
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 4; ++i)
+    {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) throws Exception
+  {
+    int[] ccsids = DEFAULT_CCSIDS;
+    if (args.length > 0)
+    {
+      ccsids = new int[args.length];
+      for (int i = 0; i < args.length; ++i)
+      {
+        ccsids[i] = Integer.parseInt(args[i]);
+      }
+    }
+
+    ConvTable[] tables = new ConvTable[ccsids.length];
+    long start = usedHeap();
+    long before = start;
+    for (int i = 0; i < ccsids.length; ++i)
+    {
+      tables[i] = ConvTable.getTable(ccsids[i], null);
+      long after = usedHeap();
+      System.out.println("CCSID " + ccsids[i] + ": " + ((after - before) / 1024) + " KB (" + tables[i].getClass().getName() + ")");
+      before = after;
+    }
+    System.out.println("Total: " + ((before - start) / 1024) + " KB for " + tables.length + " tables");
+  }
+}
@@ -0,0 +1,112 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: ConvTableSingleMapBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the bulk conversions of ConvTableSingleMap into caller-supplied
+ * buffers, on fields that are full of text and on fields that are mostly
+ * trailing blanks, as fixed-length character fields usually are.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConvTableSingleMapBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  @Param({ "32", "1024" })
+  public int length;
+
+  // The percentage of each field that is text; the rest is blanks.
+  @Param({ "100", "25" })
+  public int filled;
+
+  private ConvTableSingleMap table_;
+  private byte[] bytes_;
+  private char[] chars_;
+  private char[] charBuffer_;
+  private CharBuffer charBufferWrapper_;
+  private ByteBuffer byteBuffer_;
+  private String string_;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    table_ = (ConvTableSingleMap)ConvTable.getTable(37, null);
+    char[] text = BenchmarkData.text(BenchmarkData.SINGLE_BYTE, length).toCharArray();
+    Arrays.fill(text, length * filled / 100, length, ' ');
+    string_ = new String(text);
+    chars_ = text;
+    bytes_ = table_.stringToByteArray(string_);
+    charBuffer_ = new char[length];
+    charBufferWrapper_ = CharBuffer.allocate(length);
+    byteBuffer_ = ByteBuffer.allocate(length);
+  }
+
+  @Benchmark
+  public String byteArrayToString()
+  {
+    return table_.byteArrayToString(bytes_, 0, bytes_.length);
+  }
+
+  @Benchmark
+  public char[] byteArrayToCharArray()
+  {
+    table_.byteArrayToCharArray(bytes_, 0, bytes_.length, charBuffer_, 0);
+    return charBuffer_;
+  }
+
+  @Benchmark
+  public CharBuffer byteArrayToCharBuffer()
+  {
+    charBufferWrapper_.clear();
+    table_.byteArrayToCharBuffer(bytes_, 0, bytes_.length, charBufferWrapper_);
+    return charBufferWrapper_;
+  }
+
+  @Benchmark
+  public byte[] charArrayToByteArray()
+  {
+    table_.charArrayToByteArray(chars_, 0, chars_.length, bytes_, 0);
+    return bytes_;
+  }
+
+  @Benchmark
+  public ByteBuffer stringToByteBuffer()
+  {
+    byteBuffer_.clear();
+    table_.stringToByteBuffer(string_, byteBuffer_);
+    return byteBuffer_;
+  }
+}
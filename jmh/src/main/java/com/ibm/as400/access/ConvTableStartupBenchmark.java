@@ -0,0 +1,70 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: ConvTableStartupBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the first use of a double-byte or mixed CCSID in a new JVM:
+ * loading its table and converting a few characters.  Each measurement is
+ * a single shot in its own fork, with the table loaded from its binary
+ * resource or from its ConvTable class.  A single-byte table is loaded in
+ * the setup, so that the classes every conversion needs are not counted.
+ **/
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Thread)
+public class ConvTableStartupBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  @Param({ "16684", "2001371", "835", "1371" })
+  public int ccsid;
+
+  @Param({ "true", "false" })
+  public String binary;
+
+  // The double-byte characters 0x4481 and 0x4482, between shift-out and shift-in.
+  private static final byte[] BYTES = { 0x0E, 0x44, (byte)0x81, 0x44, (byte)0x82, 0x0F };
+
+  @Setup
+  public void setup() throws Exception
+  {
+    System.setProperty(SystemProperties.CONVTABLE_BINARY_TABLES, binary);
+    ConvTable.getTable(37, null);
+  }
+
+  @Benchmark
+  public String getTable() throws Exception
+  {
+    ConvTable table = ConvTable.getTable(ccsid, null);
+    int offset = (table instanceof ConvTableMixedMap) ? 0 : 1;
+    return table.byteArrayToString(BYTES, offset, 4);
+  }
+}
@@ -0,0 +1,137 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: HostServerScript.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Produces the replies of one host server for a {@link HostServerSimulator HostServerSimulator}.
+ * <p>
+ * A script receives each request after the connection is started, that is,
+ * after the exchange of random seeds and the start server request, which the
+ * simulator answers itself.  One script object serves all the connections to
+ * its service, so it must be thread safe; state that belongs to one
+ * connection is kept in the <i>session</i> map that is passed with each request.
+ * <p>
+ * Requests and replies are complete datastreams, starting with the 20-byte
+ * header.  The static methods help to build replies.
+ **/
+public abstract class HostServerScript
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  /**
+   * Constructs a HostServerScript object.
+   **/
+  protected HostServerScript()
+  {
+  }
+
+  /**
+   * Returns the replies to a request.
+   *
+   * @param request The request datastream.
+   * @param session The state of the connection the request arrived on.
+   * @return The reply datastreams, in the order they are sent, or null if the request has no reply.
+   * @exception IOException If the connection should be dropped.
+   **/
+  public abstract byte[][] reply(byte[] request, Map session) throws IOException;
+
+  /**
+   * Returns the request or reply ID of a datastream.
+   *
+   * @param datastream The datastream.
+   * @return The ID.
+   **/
+  public static int getRequestId(byte[] datastream)
+  {
+    return BinaryConverter.byteArrayToUnsignedShort(datastream, 18);
+  }
+
+  /**
+   * Creates a reply to a request.  The header is filled in from the request,
+   * with the given reply ID and template length; the rest is zeros.
+   *
+   * @param request The request datastream.
+   * @param replyId The reply ID.
+   * @param templateLength The length of the template that follows the header.
+   * @param length The total length of the reply.
+   * @return The reply datastream.
+   **/
+  public static byte[] newReply(byte[] request, int replyId, int templateLength, int length)
+  {
+    byte[] reply = new byte[length];
+    BinaryConverter.intToByteArray(length, reply, 0);
+    System.arraycopy(request, 6, reply, 6, 10);  // server ID, CS instance, and correlation ID
+    BinaryConverter.unsignedShortToByteArray(templateLength, reply, 16);
+    BinaryConverter.unsignedShortToByteArray(replyId, reply, 18);
+    return reply;
+  }
+
+  /**
+   * Returns a copy of a reply with its header fitted to a request: the
+   * server ID, CS instance, and correlation ID are copied from the request.
+   * This is how canned replies are replayed.
+   *
+   * @param request The request datastream.
+   * @param reply The reply datastream.
+   * @return The fitted copy.
+   **/
+  public static byte[] fitReply(byte[] request, byte[] reply)
+  {
+    byte[] copy = (byte[])reply.clone();
+    BinaryConverter.intToByteArray(copy.length, copy, 0);
+    System.arraycopy(request, 6, copy, 6, 10);
+    return copy;
+  }
+
+  /**
+   * Finds a parameter (LL, CP, data) in a datastream.
+   *
+   * @param datastream The datastream.
+   * @param offset The offset of the first parameter.
+   * @param codePoint The code point of the parameter.
+   * @return The offset of the parameter's LL, or -1 if it is not found.
+   **/
+  public static int findParameter(byte[] datastream, int offset, int codePoint)
+  {
+    int end = Math.min(datastream.length, BinaryConverter.byteArrayToInt(datastream, 0));
+    while (offset + 6 <= end)
+    {
+      int length = BinaryConverter.byteArrayToInt(datastream, offset);
+      if (BinaryConverter.byteArrayToUnsignedShort(datastream, offset + 4) == codePoint) return offset;
+      if (length < 6) break;
+      offset += length;
+    }
+    return -1;
+  }
+
+  /**
+   * Writes a parameter (LL, CP, data) into a reply.
+   *
+   * @param reply The reply datastream.
+   * @param offset The offset of the parameter.
+   * @param codePoint The code point.
+   * @param data The data.
+   * @return The offset that follows the parameter.
+   **/
+  public static int putParameter(byte[] reply, int offset, int codePoint, byte[] data)
+  {
+    BinaryConverter.intToByteArray(6 + data.length, reply, offset);
+    BinaryConverter.unsignedShortToByteArray(codePoint, reply, offset + 4);
+    System.arraycopy(data, 0, reply, offset + 6, data.length);
+    return offset + 6 + data.length;
+  }
+}
@@ -0,0 +1,477 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: HostServerSimulator.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates the sign-on, database, file, and data queue host servers in the
+ * same JVM, so the client stack can be measured without an IBM i system.
+ * <p>
+ * Each service listens on its own loopback port.  The simulator answers the
+ * exchange of random seeds and the start server request of every connection,
+ * and passes the other requests to the {@link HostServerScript HostServerScript}
+ * of the service.  Any user ID and password are accepted.  The built-in
+ * scripts keep data queues and stream files in memory, and answer every
+ * query with the same generated result set.  Replies recorded from a real
+ * system can be replayed with {@link #setCannedReply setCannedReply()}.
+ * <p>
+ * A latency is added before each reply is sent, and, when a bandwidth is
+ * set, each request and reply is delayed for the time its bytes take to
+ * cross a link of that speed.
+ * <pre>
+ * HostServerSimulator simulator = new HostServerSimulator();
+ * simulator.setLatency(500);  // microseconds
+ * simulator.start();
+ * AS400 system = new AS400("localhost", "USER", "PASSWORD");
+ * simulator.configure(system);
+ * </pre>
+ * Because the Toolbox keeps service ports per system name, other AS400
+ * objects for <code>localhost</code>, such as those a JDBC data source
+ * creates, use the simulator too.
+ **/
+public class HostServerSimulator
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  // The services that are simulated.
+  private static final int[] SERVICES = { AS400.SIGNON, AS400.DATABASE, AS400.FILE, AS400.DATAQUEUE };
+
+  // The system name that configure() sets ports for.
+  static final String SYSTEM_NAME = "localhost";
+
+  private final HostServerScript[] scripts_ = new HostServerScript[8];
+  private final Map[] cannedReplies_ = new Map[8];
+  private final ServerSocket[] serverSockets_ = new ServerSocket[8];
+  private final List sockets_ = new ArrayList();
+  private volatile long latencyNanos_;
+  private volatile long bandwidth_;
+  private final AtomicLong requests_ = new AtomicLong();
+  private final AtomicLong bytesReceived_ = new AtomicLong();
+  private final AtomicLong bytesSent_ = new AtomicLong();
+  private volatile boolean running_;
+
+  /**
+   * Constructs a HostServerSimulator object with the built-in scripts.
+   **/
+  public HostServerSimulator()
+  {
+    scripts_[AS400.SIGNON] = new SimulatedSignonServer();
+    scripts_[AS400.DATABASE] = new SimulatedDatabaseServer();
+    scripts_[AS400.FILE] = new SimulatedFileServer();
+    scripts_[AS400.DATAQUEUE] = new SimulatedDataQueueServer();
+    for (int i = 0; i < cannedReplies_.length; ++i)
+    {
+      cannedReplies_[i] = new HashMap();
+    }
+  }
+
+  /**
+   * Sets the script that answers the requests to a service.
+   *
+   * @param service The service, such as {@link AS400#DATABASE AS400.DATABASE}.
+   * @param script The script.
+   **/
+  public void setScript(int service, HostServerScript script)
+  {
+    checkService(service);
+    if (script == null) throw new NullPointerException("script");
+    scripts_[service] = script;
+  }
+
+  /**
+   * Returns the script that answers the requests to a service.
+   *
+   * @param service The service.
+   * @return The script.
+   **/
+  public HostServerScript getScript(int service)
+  {
+    checkService(service);
+    return scripts_[service];
+  }
+
+  /**
+   * Sets a reply that is sent, instead of asking the script, for every
+   * request with the given request ID.  The server ID, CS instance, and
+   * correlation ID of the reply are set from the request.
+   *
+   * @param service The service.
+   * @param requestId The request ID.
+   * @param reply The reply datastream, or null to ask the script again.
+   **/
+  public void setCannedReply(int service, int requestId, byte[] reply)
+  {
+    checkService(service);
+    synchronized (cannedReplies_[service])
+    {
+      if (reply == null)
+        cannedReplies_[service].remove(Integer.valueOf(requestId));
+      else
+        cannedReplies_[service].put(Integer.valueOf(requestId), (byte[])reply.clone());
+    }
+  }
+
+  /**
+   * Sets the time added before each reply is sent.
+   *
+   * @param microseconds The latency in microseconds.  The default is 0.
+   **/
+  public void setLatency(long microseconds)
+  {
+    if (microseconds < 0)
+      throw new ExtendedIllegalArgumentException("microseconds (" + microseconds + ")", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+    latencyNanos_ = microseconds * 1000;
+  }
+
+  /**
+   * Sets the speed of the simulated link, in each direction, for each connection.
+   *
+   * @param bytesPerSecond The bandwidth, or 0 for no limit.  The default is 0.
+   **/
+  public void setBandwidth(long bytesPerSecond)
+  {
+    if (bytesPerSecond < 0)
+      throw new ExtendedIllegalArgumentException("bytesPerSecond (" + bytesPerSecond + ")", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+    bandwidth_ = bytesPerSecond;
+  }
+
+  /**
+   * Starts listening on a free loopback port for each service.
+   *
+   * @exception IOException If a port cannot be opened.
+   **/
+  public synchronized void start() throws IOException
+  {
+    if (running_) return;
+    running_ = true;
+    try
+    {
+      for (int i = 0; i < SERVICES.length; ++i)
+      {
+        final int service = SERVICES[i];
+        final ServerSocket serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        serverSockets_[service] = serverSocket;
+        Thread thread = new Thread("Simulated " + AS400.getServerName(service) + " server") {
+          public void run()
+          {
+            accept(service, serverSocket);
+          }
+        };
+        thread.setDaemon(true);
+        thread.start();
+      }
+    }
+    catch (IOException e)
+    {
+      stop();
+      throw e;
+    }
+  }
+
+  /**
+   * Stops listening, and closes the open connections.
+   **/
+  public synchronized void stop()
+  {
+    running_ = false;
+    for (int i = 0; i < serverSockets_.length; ++i)
+    {
+      if (serverSockets_[i] != null)
+      {
+        try
+        {
+          serverSockets_[i].close();
+        }
+        catch (IOException e)
+        {
+          Trace.log(Trace.WARNING, "Error closing simulated server socket:", e);
+        }
+        serverSockets_[i] = null;
+      }
+    }
+    synchronized (sockets_)
+    {
+      for (int i = 0; i < sockets_.size(); ++i)
+      {
+        try
+        {
+          ((Socket)sockets_.get(i)).close();
+        }
+        catch (IOException e)
+        {
+          // The connection is going away anyway.
+        }
+      }
+      sockets_.clear();
+    }
+  }
+
+  /**
+   * Returns the port a service listens on.
+   *
+   * @param service The service.
+   * @return The port, or -1 if the simulator is not started.
+   **/
+  public synchronized int getPort(int service)
+  {
+    checkService(service);
+    return (serverSockets_[service] == null) ? -1 : serverSockets_[service].getLocalPort();
+  }
+
+  /**
+   * Points an AS400 object, and all others for the same system name, at the simulator.
+   *
+   * @param system The system.  Its system name must be <code>localhost</code>.
+   **/
+  public void configure(AS400 system)
+  {
+    if (!SYSTEM_NAME.equalsIgnoreCase(system.getSystemName()))
+      throw new ExtendedIllegalArgumentException("system (" + system.getSystemName() + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+    for (int i = 0; i < SERVICES.length; ++i)
+    {
+      int port = getPort(SERVICES[i]);
+      if (port < 0) throw new ExtendedIllegalStateException("running", ExtendedIllegalStateException.PROPERTY_NOT_SET);
+      system.setServicePort(SERVICES[i], port);
+    }
+  }
+
+  /**
+   * Returns the number of requests received.
+   *
+   * @return The number of requests.
+   **/
+  public long getRequestCount()
+  {
+    return requests_.get();
+  }
+
+  /**
+   * Returns the number of request bytes received.
+   *
+   * @return The number of bytes.
+   **/
+  public long getBytesReceived()
+  {
+    return bytesReceived_.get();
+  }
+
+  /**
+   * Returns the number of reply bytes sent.
+   *
+   * @return The number of bytes.
+   **/
+  public long getBytesSent()
+  {
+    return bytesSent_.get();
+  }
+
+  private static void checkService(int service)
+  {
+    for (int i = 0; i < SERVICES.length; ++i)
+    {
+      if (SERVICES[i] == service) return;
+    }
+    throw new ExtendedIllegalArgumentException("service (" + service + ")", ExtendedIllegalArgumentException.PARAMETER_VALUE_NOT_VALID);
+  }
+
+  private void accept(final int service, ServerSocket serverSocket)
+  {
+    while (running_)
+    {
+      final Socket socket;
+      try
+      {
+        socket = serverSocket.accept();
+        socket.setTcpNoDelay(true);
+      }
+      catch (IOException e)
+      {
+        if (running_) Trace.log(Trace.ERROR, "Simulated server stopped accepting connections:", e);
+        return;
+      }
+      synchronized (sockets_)
+      {
+        sockets_.add(socket);
+      }
+      Thread thread = new Thread("Simulated " + AS400.getServerName(service) + " connection") {
+        public void run()
+        {
+          serve(service, socket);
+        }
+      };
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  // Answers the requests on one connection until it is closed.
+  private void serve(int service, Socket socket)
+  {
+    Map session = new HashMap();
+    try
+    {
+      InputStream in = new BufferedInputStream(socket.getInputStream());
+      OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+      byte[] header = new byte[20];
+      while (running_)
+      {
+        if (!readFully(in, header, 0, 20, true)) break;
+        int length = BinaryConverter.byteArrayToInt(header, 0);
+        if (length < 20) throw new IOException("Request length not valid: " + length);
+        byte[] request = new byte[length];
+        System.arraycopy(header, 0, request, 0, 20);
+        readFully(in, request, 20, length - 20, false);
+        requests_.incrementAndGet();
+        bytesReceived_.addAndGet(length);
+        transmit(length);
+
+        byte[][] replies = reply(service, request, session);
+        if (replies == null || replies.length == 0) continue;
+
+        long latency = latencyNanos_;
+        if (latency > 0) pause(latency);
+        for (int i = 0; i < replies.length; ++i)
+        {
+          transmit(replies[i].length);
+          out.write(replies[i]);
+          bytesSent_.addAndGet(replies[i].length);
+        }
+        out.flush();
+      }
+    }
+    catch (IOException e)
+    {
+      if (running_ && Trace.traceOn_) Trace.log(Trace.DIAGNOSTIC, "Simulated " + AS400.getServerName(service) + " connection ended:", e);
+    }
+    finally
+    {
+      try
+      {
+        socket.close();
+      }
+      catch (IOException e)
+      {
+        // Already closed.
+      }
+      synchronized (sockets_)
+      {
+        sockets_.remove(socket);
+      }
+    }
+  }
+
+  private byte[][] reply(int service, byte[] request, Map session) throws IOException
+  {
+    int requestId = HostServerScript.getRequestId(request);
+    byte[] canned;
+    synchronized (cannedReplies_[service])
+    {
+      canned = (byte[])cannedReplies_[service].get(Integer.valueOf(requestId));
+    }
+    if (canned != null) return new byte[][] { HostServerScript.fitReply(request, canned) };
+
+    switch (requestId)
+    {
+      case 0x7001:  // Exchange random seeds.
+        byte[] seedReply = HostServerScript.newReply(request, 0xF001, 4, 32);
+        seedReply[5] = 2;  // Password level: SHA-1.
+        BinaryConverter.longToByteArray(System.nanoTime(), seedReply, 24);
+        return new byte[][] { seedReply };
+      case 0x7002:  // Start server.
+        byte[] job = jobName(service);
+        byte[] startReply = HostServerScript.newReply(request, 0xF002, 4, 24 + 10 + job.length);
+        BinaryConverter.intToByteArray(10 + job.length, startReply, 24);
+        BinaryConverter.unsignedShortToByteArray(0x111F, startReply, 28);
+        BinaryConverter.intToByteArray(37, startReply, 30);
+        System.arraycopy(job, 0, startReply, 34, job.length);
+        return new byte[][] { startReply };
+      default:
+        return scripts_[service].reply(request, session);
+    }
+  }
+
+  // The qualified job name of a simulated server job, in CCSID 37.
+  static byte[] jobName(int service)
+  {
+    String name = (service == AS400.DATABASE) ? "QZDASOINIT" : (service == AS400.SIGNON) ? "QZSOSIGN" : (service == AS400.FILE) ? "QPWFSERVSO" : "QZHQSSRV";
+    StringBuffer job = new StringBuffer(26);
+    job.append(name);
+    while (job.length() < 10) job.append(' ');
+    job.append("QUSER     ");
+    job.append(String.valueOf(100000 + (int)(Thread.currentThread().getId() % 900000)));
+    return toEbcdic(job.toString());
+  }
+
+  // Converts invariant text to CCSID 37.
+  static byte[] toEbcdic(String text)
+  {
+    try
+    {
+      return ConvTable.getTable(37, null).stringToByteArray(text);
+    }
+    catch (java.io.UnsupportedEncodingException e)
+    {
+      throw new InternalErrorException(InternalErrorException.UNEXPECTED_EXCEPTION, e);
+    }
+  }
+
+  // Waits for the time the bytes take to cross the simulated link.
+  private void transmit(int bytes)
+  {
+    long bandwidth = bandwidth_;
+    if (bandwidth > 0) pause(bytes * 1000000000L / bandwidth);
+  }
+
+  private static void pause(long nanos)
+  {
+    long deadline = System.nanoTime() + nanos;
+    long remaining = nanos;
+    while (remaining > 0)
+    {
+      LockSupport.parkNanos(remaining);
+      remaining = deadline - System.nanoTime();
+    }
+  }
+
+  private static boolean readFully(InputStream in, byte[] buffer, int offset, int length, boolean eofAllowed) throws IOException
+  {
+    int read = 0;
+    while (read < length)
+    {
+      int count = in.read(buffer, offset + read, length - read);
+      if (count < 0)
+      {
+        if (eofAllowed && read == 0) return false;
+        throw new EOFException();
+      }
+      read += count;
+    }
+    return true;
+  }
+}
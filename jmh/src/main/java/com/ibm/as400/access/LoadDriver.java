@@ -0,0 +1,337 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: LoadDriver.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures end-to-end throughput and latency against a {@link HostServerSimulator HostServerSimulator}.
+ * <p>
+ * Usage: <code>LoadDriver [-workload jdbc|ifs|dq|all] [-threads <i>n</i>] [-seconds <i>n</i>]
+ * [-latency <i>microseconds</i>] [-bandwidth <i>bytesPerSecond</i>] [-rows <i>n</i>] [-size <i>bytes</i>]
+ * [-tcpNoDelay true|false]</code>
+ * <p>
+ * The workloads are:
+ * <ul>
+ * <li>jdbc - a prepared query, run on a connection borrowed from an
+ *     {@link AS400JDBCConnectionPool AS400JDBCConnectionPool}, with all <i>rows</i> read.
+ * <li>ifs - a stream file of <i>size</i> bytes written with IFSFileOutputStream,
+ *     and read back with IFSFileInputStream.
+ * <li>dq - an entry of <i>size</i> bytes (at most 64512) written to a data queue, and read back.
+ * </ul>
+ * Each thread repeats one workload for the given time, after a warm-up of
+ * half that time.  For each workload, the operations per second and the
+ * 50th and 99th percentile operation times are reported.
+ * <p>
+ * Client sockets use TCP_NODELAY unless <code>-tcpNoDelay false</code> is
+ * given.  Without it, a request that has no reply holds back the next request
+ * until the simulator acknowledges it, which adds tens of milliseconds.
+ **/
+public final class LoadDriver
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private static final String USER = "LOADUSER";
+  private static final String PASSWORD = "LOADPWD";
+
+  private LoadDriver()
+  {
+  }
+
+  // One kind of operation.  Each thread has its own Workload object.
+  private static abstract class Workload
+  {
+    abstract void setUp(AS400 system, int thread) throws Exception;
+    abstract void run() throws Exception;
+    void tearDown() throws Exception
+    {
+    }
+  }
+
+  private static final class JdbcWorkload extends Workload
+  {
+    private final AS400JDBCConnectionPool pool_;
+
+    JdbcWorkload(AS400JDBCConnectionPool pool)
+    {
+      pool_ = pool;
+    }
+
+    void setUp(AS400 system, int thread)
+    {
+    }
+
+    void run() throws Exception
+    {
+      Connection connection = pool_.getConnection();
+      try
+      {
+        PreparedStatement statement = connection.prepareStatement("SELECT ID, AMOUNT, NAME, STAMP FROM LOADLIB.ORDERS WHERE ID > ?");
+        statement.setInt(1, 0);
+        ResultSet resultSet = statement.executeQuery();
+        while (resultSet.next())
+        {
+          resultSet.getInt(1);
+          resultSet.getBigDecimal(2);
+          resultSet.getString(3);
+          resultSet.getLong(4);
+        }
+        resultSet.close();
+        statement.close();
+      }
+      finally
+      {
+        connection.close();
+      }
+    }
+  }
+
+  private static final class IfsWorkload extends Workload
+  {
+    private final byte[] data_;
+    private final byte[] buffer_ = new byte[32 * 1024];
+    private AS400 system_;
+    private String path_;
+
+    IfsWorkload(int size)
+    {
+      data_ = new byte[size];
+      for (int i = 0; i < size; ++i) data_[i] = (byte)i;
+    }
+
+    void setUp(AS400 system, int thread)
+    {
+      system_ = system;
+      path_ = "/tmp/loaddriver" + thread + ".dat";
+    }
+
+    void run() throws Exception
+    {
+      IFSFileOutputStream out = new IFSFileOutputStream(system_, path_, IFSFileOutputStream.SHARE_ALL, false);
+      out.write(data_);
+      out.close();
+      IFSFileInputStream in = new IFSFileInputStream(system_, path_, IFSFileInputStream.SHARE_ALL);
+      int total = 0;
+      for (int count = in.read(buffer_); count > 0; count = in.read(buffer_)) total += count;
+      in.close();
+      if (total != data_.length) throw new IOException("Read " + total + " of " + data_.length + " bytes.");
+    }
+
+    void tearDown() throws Exception
+    {
+      new IFSFile(system_, path_).delete();
+    }
+  }
+
+  private static final class DataQueueWorkload extends Workload
+  {
+    private final byte[] entry_;
+    private DataQueue queue_;
+
+    DataQueueWorkload(int size)
+    {
+      entry_ = new byte[Math.min(size, 64512)];
+    }
+
+    void setUp(AS400 system, int thread) throws Exception
+    {
+      queue_ = new DataQueue(system, "/QSYS.LIB/LOADLIB.LIB/LOAD" + thread + ".DTAQ");
+      queue_.create(entry_.length);
+    }
+
+    void run() throws Exception
+    {
+      queue_.write(entry_);
+      if (queue_.read() == null) throw new IOException("Data queue is empty.");
+    }
+
+    void tearDown() throws Exception
+    {
+      queue_.delete();
+    }
+  }
+
+  public static void main(String[] args) throws Exception
+  {
+    String workload = "all";
+    int threads = 4;
+    int seconds = 10;
+    long latency = 0;
+    long bandwidth = 0;
+    int rows = 100;
+    int size = 64 * 1024;
+    boolean tcpNoDelay = true;
+    try
+    {
+      for (int i = 0; i < args.length; i += 2)
+      {
+        String option = args[i];
+        String value = args[i + 1];
+        if (option.equals("-workload"))
+        {
+          if (!value.equals("jdbc") && !value.equals("ifs") && !value.equals("dq") && !value.equals("all")) throw new IllegalArgumentException(value);
+          workload = value;
+        }
+        else if (option.equals("-threads")) threads = Integer.parseInt(value);
+        else if (option.equals("-seconds")) seconds = Integer.parseInt(value);
+        else if (option.equals("-latency")) latency = Long.parseLong(value);
+        else if (option.equals("-bandwidth")) bandwidth = Long.parseLong(value);
+        else if (option.equals("-rows")) rows = Integer.parseInt(value);
+        else if (option.equals("-size")) size = Integer.parseInt(value);
+        else if (option.equals("-tcpNoDelay")) tcpNoDelay = Boolean.valueOf(value).booleanValue();
+        else throw new IllegalArgumentException(option);
+      }
+    }
+    catch (RuntimeException e)
+    {
+      System.err.println("Usage: LoadDriver [-workload jdbc|ifs|dq|all] [-threads n] [-seconds n] [-latency microseconds] [-bandwidth bytesPerSecond] [-rows n] [-size bytes] [-tcpNoDelay true|false]");
+      System.exit(2);
+    }
+
+    HostServerSimulator simulator = new HostServerSimulator();
+    ((SimulatedDatabaseServer)simulator.getScript(AS400.DATABASE)).setRowCount(rows);
+    simulator.setLatency(latency);
+    simulator.setBandwidth(bandwidth);
+    simulator.start();
+    try
+    {
+      AS400 system = new AS400(HostServerSimulator.SYSTEM_NAME, USER, PASSWORD);
+      system.setGuiAvailable(false);
+      SocketProperties socketProperties = new SocketProperties();
+      socketProperties.setTcpNoDelay(tcpNoDelay);
+      system.setSocketProperties(socketProperties);
+      simulator.configure(system);
+
+      System.out.println("Threads " + threads + ", " + seconds + " s, latency " + latency + " us, "
+                         + (bandwidth > 0 ? "bandwidth " + bandwidth + " bytes/s" : "no bandwidth limit")
+                         + ", " + rows + " rows, " + size + " bytes");
+      System.out.println("workload        ops      ops/s    p50 ms    p99 ms   requests");
+      if (workload.equals("jdbc") || workload.equals("all"))
+      {
+        AS400JDBCConnectionPoolDataSource dataSource = new AS400JDBCConnectionPoolDataSource(HostServerSimulator.SYSTEM_NAME, USER, PASSWORD);
+        dataSource.setPrompt(false);
+        dataSource.setTcpNoDelay(tcpNoDelay);
+        AS400JDBCConnectionPool pool = new AS400JDBCConnectionPool(dataSource);
+        pool.setMaxConnections(threads);
+        pool.fill(threads);
+        Workload[] workloads = new Workload[threads];
+        for (int i = 0; i < threads; ++i) workloads[i] = new JdbcWorkload(pool);
+        measure("jdbc", workloads, system, seconds, simulator);
+        pool.close();
+      }
+      if (workload.equals("ifs") || workload.equals("all"))
+      {
+        Workload[] workloads = new Workload[threads];
+        for (int i = 0; i < threads; ++i) workloads[i] = new IfsWorkload(size);
+        measure("ifs", workloads, system, seconds, simulator);
+      }
+      if (workload.equals("dq") || workload.equals("all"))
+      {
+        Workload[] workloads = new Workload[threads];
+        for (int i = 0; i < threads; ++i) workloads[i] = new DataQueueWorkload(size);
+        measure("dq", workloads, system, seconds, simulator);
+      }
+      system.disconnectAllServices();
+    }
+    finally
+    {
+      simulator.stop();
+    }
+  }
+
+  // Runs the workloads, one on each thread, and prints a line of results.
+  private static void measure(String name, final Workload[] workloads, final AS400 system, int seconds, HostServerSimulator simulator) throws Exception
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final AtomicLong operations = new AtomicLong();
+    final long start = System.nanoTime();
+    final long measureStart = start + seconds * 500000000L;
+    final long end = measureStart + seconds * 1000000000L;
+    final Exception[] failure = new Exception[1];
+    long requests = 0;
+
+    Thread[] threads = new Thread[workloads.length];
+    for (int i = 0; i < workloads.length; ++i)
+    {
+      final int index = i;
+      threads[i] = new Thread("LoadDriver " + name + " " + i) {
+        public void run()
+        {
+          Workload workload = workloads[index];
+          try
+          {
+            workload.setUp(system, index);
+            try
+            {
+              while (true)
+              {
+                long before = System.nanoTime();
+                if (before >= end) break;
+                workload.run();
+                if (before >= measureStart)
+                {
+                  histogram.record(System.nanoTime() - before);
+                  operations.incrementAndGet();
+                }
+              }
+            }
+            finally
+            {
+              workload.tearDown();
+            }
+          }
+          catch (Exception e)
+          {
+            synchronized (failure)
+            {
+              if (failure[0] == null) failure[0] = e;
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    long sleep = (measureStart - System.nanoTime()) / 1000000L;
+    if (sleep > 0) Thread.sleep(sleep);
+    requests = simulator.getRequestCount();
+    for (int i = 0; i < threads.length; ++i)
+    {
+      threads[i].join();
+    }
+    requests = simulator.getRequestCount() - requests;
+    if (failure[0] != null) throw failure[0];
+
+    long count = operations.get();
+    System.out.println(name + pad(String.valueOf(count), 10 - name.length() + 9) + pad(format(count / (double)seconds), 11)
+                       + pad(format(histogram.getPercentile(50) / 1e6), 10) + pad(format(histogram.getPercentile(99) / 1e6), 10)
+                       + pad(String.valueOf(requests), 11));
+  }
+
+  private static String format(double value)
+  {
+    return String.valueOf(Math.round(value * 100) / 100.0);
+  }
+
+  // Right-aligns text in a column of the given width.
+  private static String pad(String text, int width)
+  {
+    StringBuffer buffer = new StringBuffer(width);
+    while (buffer.length() + text.length() < width) buffer.append(' ');
+    return buffer.append(text).toString();
+  }
+}
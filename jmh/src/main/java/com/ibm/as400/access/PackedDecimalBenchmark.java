@@ -0,0 +1,111 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: PackedDecimalBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures AS400PackedDecimal round trips through BigDecimal (toObject and
+ * toBytes) against the long codecs (toUnscaledLong and toBytesUnscaled).
+ * The wide benchmarks use a 31-digit field, which always goes through
+ * BigDecimal, as a reference.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PackedDecimalBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  @Param({ "9", "18" })
+  public int digits;
+
+  private AS400PackedDecimal converter_;
+  private BigDecimal value_;
+  private long unscaledValue_;
+  private byte[] bytes_;
+  private byte[] output_;
+
+  private AS400PackedDecimal wideConverter_;
+  private BigDecimal wideValue_;
+  private byte[] wideBytes_;
+
+  @Setup
+  public void setup()
+  {
+    converter_ = new AS400PackedDecimal(digits, 2);
+    value_ = BenchmarkData.decimal(digits, 2, digits);
+    unscaledValue_ = value_.unscaledValue().longValue();
+    bytes_ = converter_.toBytes(value_);
+    output_ = new byte[bytes_.length];
+
+    wideConverter_ = new AS400PackedDecimal(31, 2);
+    wideValue_ = BenchmarkData.decimal(31, 2, 31);
+    wideBytes_ = wideConverter_.toBytes(wideValue_);
+  }
+
+  @Benchmark
+  public Object toObject()
+  {
+    return converter_.toObject(bytes_, 0);
+  }
+
+  @Benchmark
+  public byte[] toBytes()
+  {
+    converter_.toBytes(value_, output_, 0);
+    return output_;
+  }
+
+  @Benchmark
+  public long toUnscaledLong()
+  {
+    return converter_.toUnscaledLong(bytes_, 0);
+  }
+
+  @Benchmark
+  public byte[] toBytesUnscaled()
+  {
+    converter_.toBytesUnscaled(unscaledValue_, output_, 0);
+    return output_;
+  }
+
+  @Benchmark
+  public Object toObjectWide()
+  {
+    return wideConverter_.toObject(wideBytes_, 0);
+  }
+
+  @Benchmark
+  public byte[] toBytesWide()
+  {
+    return wideConverter_.toBytes(wideValue_);
+  }
+}
@@ -0,0 +1,84 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: RecordBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Record construction from the bytes of a record, and reading its
+ * fields, for a format like a typical database file record.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private RecordFormat format_;
+  private byte[] contents_;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    format_ = new RecordFormat("CUSTREC");
+    format_.addFieldDescription(new BinaryFieldDescription(new AS400Bin4(), "CUSNUM"));
+    format_.addFieldDescription(new CharacterFieldDescription(new AS400Text(30, 37), "CUSNAM"));
+    format_.addFieldDescription(new CharacterFieldDescription(new AS400Text(40, 37), "ADDR"));
+    format_.addFieldDescription(new PackedDecimalFieldDescription(new AS400PackedDecimal(11, 2), "BALANCE"));
+    format_.addFieldDescription(new ZonedDecimalFieldDescription(new AS400ZonedDecimal(7, 0), "ORDERS"));
+    format_.addFieldDescription(new FloatFieldDescription(new AS400Float8(), "RATE"));
+
+    Record record = format_.getNewRecord();
+    record.setField(0, Integer.valueOf(123456));
+    record.setField(1, "Customer name");
+    record.setField(2, "100 Main Street, Rochester MN");
+    record.setField(3, BenchmarkData.decimal(11, 2, 11));
+    record.setField(4, BenchmarkData.decimal(7, 0, 7));
+    record.setField(5, Double.valueOf(3.25));
+    contents_ = record.getContents();
+  }
+
+  @Benchmark
+  public Record construct() throws Exception
+  {
+    return new Record(format_, contents_);
+  }
+
+  @Benchmark
+  public Object constructAndReadFields() throws Exception
+  {
+    Record record = new Record(format_, contents_);
+    Object last = null;
+    for (int i = 0; i < 6; ++i)
+    {
+      last = record.getField(i);
+    }
+    return last;
+  }
+}
@@ -0,0 +1,146 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: ServerRowBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding the columns of result set rows from reply data, through
+ * the SQLData objects of a JDServerRow, and directly for numeric columns.
+ * The rows have INTEGER, DECIMAL(11,2), VARCHAR(20) and BIGINT columns.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ServerRowBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private static final int ROWS = 64;
+  // SQL type, length, scale, precision, and CCSID of each column.
+  private static final int[][] COLUMNS = {
+    { 496, 4, 0, 0, 0 },
+    { 484, 6, 2, 11, 0 },
+    { 448, 22, 0, 0, 37 },
+    { 492, 8, 0, 0, 0 },
+  };
+
+  private JDServerRow row_;
+  private int rowIndex_;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    // A connection that is never opened; the row only needs its properties.
+    AS400JDBCConnectionImpl connection = new AS400JDBCConnectionImpl();
+    Field properties = AS400JDBCConnectionImpl.class.getDeclaredField("properties_");
+    properties.setAccessible(true);
+    properties.set(connection, new JDProperties());
+
+    // The data format, as the server describes it in a reply.
+    int count = COLUMNS.length;
+    byte[] format = new byte[16 + count * 48];
+    int rowSize = 0;
+    BinaryConverter.intToByteArray(count, format, 4);
+    for (int i = 0; i < count; ++i)
+    {
+      int offset = 16 + i * 48;
+      BinaryConverter.shortToByteArray((short)48, format, offset);
+      BinaryConverter.shortToByteArray((short)COLUMNS[i][0], format, offset + 2);
+      BinaryConverter.intToByteArray(COLUMNS[i][1], format, offset + 4);
+      BinaryConverter.shortToByteArray((short)COLUMNS[i][2], format, offset + 8);
+      BinaryConverter.shortToByteArray((short)COLUMNS[i][3], format, offset + 10);
+      BinaryConverter.shortToByteArray((short)COLUMNS[i][4], format, offset + 12);
+      rowSize += COLUMNS[i][1];
+    }
+    BinaryConverter.intToByteArray(rowSize, format, 12);
+    DBSuperExtendedDataFormat dataFormat = new DBSuperExtendedDataFormat();
+    dataFormat.overlay(format, 0);
+
+    // The row data.
+    byte[] bytes = new byte[20 + ROWS * (count * 2 + rowSize)];
+    DBExtendedData data = new DBExtendedData(ROWS, count, 2, rowSize);
+    data.overlay(bytes, 0);
+    AS400PackedDecimal decimal = new AS400PackedDecimal(11, 2);
+    ConvTable table = ConvTable.getTable(37, null);
+    for (int r = 0; r < ROWS; ++r)
+    {
+      int offset = data.getRowDataOffset(r);
+      BinaryConverter.intToByteArray(r * 1000, bytes, offset);
+      decimal.toBytes(BigDecimal.valueOf(1234567L * (r + 1), 2), bytes, offset + 4);
+      byte[] text = table.stringToByteArray("Row number " + r);
+      BinaryConverter.shortToByteArray((short)text.length, bytes, offset + 10);
+      System.arraycopy(text, 0, bytes, offset + 12, text.length);
+      BinaryConverter.longToByteArray(r * 1000000L, bytes, offset + 32);
+    }
+
+    row_ = new JDServerRow(connection, 1, dataFormat, SQLConversionSettings.getConversionSettings(connection));
+    row_.setServerData(data);
+  }
+
+  private void nextRow() throws Exception
+  {
+    rowIndex_ = (rowIndex_ + 1) % ROWS;
+    row_.setRowIndex(rowIndex_);
+  }
+
+  @Benchmark
+  public long getSQLData() throws Exception
+  {
+    nextRow();
+    long sum = row_.getSQLData(1).getInt();
+    sum += row_.getSQLData(2).getBigDecimal(-1).unscaledValue().longValue();
+    sum += row_.getSQLData(3).getString().length();
+    sum += row_.getSQLData(4).getLong();
+    return sum;
+  }
+
+  @Benchmark
+  public long getUnscaledLong() throws Exception
+  {
+    nextRow();
+    // As the result set getters do, check that each field can be decoded directly first.
+    long sum = 0;
+    for (int i = 1; i <= 4; ++i)
+    {
+      if (row_.getDirectScale(i) >= 0) sum += row_.getUnscaledLong(i);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long getSQLDataNumeric() throws Exception
+  {
+    nextRow();
+    return row_.getSQLData(1).getInt()
+         + row_.getSQLData(2).getBigDecimal(-1).unscaledValue().longValue()
+         + row_.getSQLData(4).getLong();
+  }
+}
@@ -0,0 +1,213 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: SimulatedDataQueueServer.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * The data queue server script of the {@link HostServerSimulator HostServerSimulator}.
+ * Queues are kept in memory.  A queue that was not created is created when it
+ * is first used, as a FIFO queue, or as a keyed queue if it is first written
+ * with a key.  Keyed reads match on an equal key; reads do not wait for entries.
+ **/
+final class SimulatedDataQueueServer extends HostServerScript
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private static final int MAX_ENTRY_LENGTH = 64512;
+
+  // Maps queue and library name bytes, as a String, to a Queue.
+  private final Map queues_ = new HashMap();
+
+  // A queue and its attributes.
+  private static final class Queue
+  {
+    final LinkedList entries_ = new LinkedList();
+    boolean typeKnown_;
+    int maxEntryLength_ = MAX_ENTRY_LENGTH;
+    byte type_ = (byte)0xF0;  // F0 FIFO, F1 LIFO, F2 keyed
+    int keyLength_;
+  }
+
+  // An entry on a queue.
+  private static final class Entry
+  {
+    final byte[] data_;
+    final byte[] key_;
+
+    Entry(byte[] data, byte[] key)
+    {
+      data_ = data;
+      key_ = key;
+    }
+  }
+
+  public byte[][] reply(byte[] request, Map session)
+  {
+    switch (getRequestId(request))
+    {
+      case 0x0000:  // Exchange attributes.
+        return new byte[][] { newReply(request, 0x8000, 2, 22) };
+      case 0x0001:  // Retrieve attributes.
+      {
+        Queue queue = queue(request);
+        byte[] reply = newReply(request, 0x8001, 61, 81);
+        synchronized (queue)
+        {
+          BinaryConverter.intToByteArray(queue.maxEntryLength_, reply, 22);
+          reply[27] = queue.type_;
+          BinaryConverter.unsignedShortToByteArray(queue.keyLength_, reply, 28);
+        }
+        reply[26] = (byte)0xF0;  // Do not save sender information.
+        reply[30] = (byte)0xF0;  // Do not force to auxiliary storage.
+        Arrays.fill(reply, 31, 81, (byte)0x40);
+        return new byte[][] { reply };
+      }
+      case 0x0002:  // Read.
+        return new byte[][] { read(request) };
+      case 0x0005:  // Write.
+      {
+        int dataOffset = findParameter(request, 42, 0x5001);
+        int keyOffset = findParameter(request, 42, 0x5002);
+        byte[] data = parameterData(request, dataOffset);
+        byte[] key = (keyOffset < 0) ? null : parameterData(request, keyOffset);
+        Queue queue = queue(request);
+        synchronized (queue)
+        {
+          if (!queue.typeKnown_)
+          {
+            queue.typeKnown_ = true;
+            if (key != null)
+            {
+              queue.type_ = (byte)0xF2;
+              queue.keyLength_ = key.length;
+            }
+          }
+          queue.entries_.addLast(new Entry(data, key));
+        }
+        return new byte[][] { commonReply(request, 0xF000) };
+      }
+      case 0x0006:  // Clear.
+      {
+        Queue queue = queue(request);
+        synchronized (queue)
+        {
+          queue.entries_.clear();
+        }
+        return new byte[][] { commonReply(request, 0xF000) };
+      }
+      case 0x0003:  // Create.
+      {
+        Queue queue = queue(request);
+        synchronized (queue)
+        {
+          queue.typeKnown_ = true;
+          queue.maxEntryLength_ = BinaryConverter.byteArrayToInt(request, 40);
+          queue.type_ = request[46];
+          queue.keyLength_ = BinaryConverter.byteArrayToUnsignedShort(request, 47);
+        }
+        return new byte[][] { commonReply(request, 0xF000) };
+      }
+      case 0x0004:  // Delete.
+        synchronized (queues_)
+        {
+          queues_.remove(queueName(request));
+        }
+        return new byte[][] { commonReply(request, 0xF000) };
+      default:
+        return new byte[][] { commonReply(request, 0xF00C) };  // Request not supported.
+    }
+  }
+
+  private byte[] read(byte[] request)
+  {
+    boolean keyed = request[40] == (byte)0xF1;
+    boolean peek = request[47] == (byte)0xF1;
+    byte[] key = keyed ? parameterData(request, findParameter(request, 48, 0x5002)) : null;
+    Queue queue = queue(request);
+    Entry entry = null;
+    synchronized (queue)
+    {
+      if (queue.type_ == (byte)0xF1 && key == null)
+      {
+        // LIFO.
+        if (!queue.entries_.isEmpty()) entry = (Entry)(peek ? queue.entries_.getLast() : queue.entries_.removeLast());
+      }
+      else
+      {
+        for (Iterator i = queue.entries_.iterator(); i.hasNext(); )
+        {
+          Entry candidate = (Entry)i.next();
+          if (key == null || Arrays.equals(key, candidate.key_))
+          {
+            entry = candidate;
+            if (!peek) i.remove();
+            break;
+          }
+        }
+      }
+    }
+    if (entry == null) return commonReply(request, 0xF006);  // No entry.
+
+    byte[] reply = newReply(request, 0x8003, 38, 58 + 6 + entry.data_.length + (entry.key_ == null ? 0 : 6 + entry.key_.length));
+    Arrays.fill(reply, 22, 58, (byte)0x40);  // No sender information.
+    int offset = putParameter(reply, 58, 0x5001, entry.data_);
+    if (entry.key_ != null) putParameter(reply, offset, 0x5002, entry.key_);
+    return reply;
+  }
+
+  private static String queueName(byte[] request)
+  {
+    char[] name = new char[20];
+    for (int i = 0; i < 20; ++i)
+    {
+      name[i] = (char)(request[20 + i] & 0xFF);
+    }
+    return new String(name);
+  }
+
+  private Queue queue(byte[] request)
+  {
+    String name = queueName(request);
+    synchronized (queues_)
+    {
+      Queue queue = (Queue)queues_.get(name);
+      if (queue == null)
+      {
+        queue = new Queue();
+        queues_.put(name, queue);
+      }
+      return queue;
+    }
+  }
+
+  private static byte[] parameterData(byte[] request, int offset)
+  {
+    if (offset < 0) return new byte[0];
+    byte[] data = new byte[BinaryConverter.byteArrayToInt(request, offset) - 6];
+    System.arraycopy(request, offset + 6, data, 0, data.length);
+    return data;
+  }
+
+  private static byte[] commonReply(byte[] request, int returnCode)
+  {
+    byte[] reply = newReply(request, 0x8002, 2, 22);
+    BinaryConverter.unsignedShortToByteArray(returnCode, reply, 20);
+    return reply;
+  }
+}
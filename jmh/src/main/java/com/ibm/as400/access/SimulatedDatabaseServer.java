@@ -0,0 +1,320 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: SimulatedDatabaseServer.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.CharConversionException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * The database server script of the {@link HostServerSimulator HostServerSimulator}.
+ * <p>
+ * Every query returns the rows of one generated table:
+ * <pre>
+ *   ID      INTEGER
+ *   AMOUNT  DECIMAL(11,2)
+ *   NAME    VARCHAR(20)
+ *   STAMP   BIGINT
+ * </pre>
+ * Statements that are not queries update one row.  Statement text is
+ * remembered for each request parameter block, so prepared statements can be
+ * executed repeatedly.  Parameter markers are described as INTEGER parameters,
+ * and their values are ignored.
+ **/
+final class SimulatedDatabaseServer extends HostServerScript
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private static final int SERVER_CCSID = 37;
+  private static final String FUNCTIONAL_LEVEL = "V7R5M00010";
+
+  // Operation result bitmap bits.
+  private static final int ORS_RETURN_DATA = DBBaseRequestDS.ORS_BITMAP_RETURN_DATA;
+  private static final int ORS_DATA_FORMAT = DBBaseRequestDS.ORS_BITMAP_DATA_FORMAT;
+  private static final int ORS_RESULT_DATA = DBBaseRequestDS.ORS_BITMAP_RESULT_DATA;
+  private static final int ORS_SQLCA = DBBaseRequestDS.ORS_BITMAP_SQLCA;
+  private static final int ORS_SERVER_ATTRIBUTES = DBBaseRequestDS.ORS_BITMAP_SERVER_ATTRIBUTES;
+  private static final int ORS_PARAMETER_MARKER_FORMAT = DBBaseRequestDS.ORS_BITMAP_PARAMETER_MARKER_FORMAT;
+
+  // Function IDs.
+  private static final int SET_ATTRIBUTES = 0x1F80;
+  private static final int OPEN_DESCRIBE = 0x1804;
+  private static final int FETCH = 0x180B;
+  private static final int OPEN_DESCRIBE_FETCH = 0x180E;
+  private static final int EXECUTE_OPEN_DESCRIBE = 0x1812;
+
+  // The generated table.
+  private static final String[] COLUMN_NAMES = { "ID", "AMOUNT", "NAME", "STAMP" };
+  private static final int[] COLUMN_TYPES = { 496, 484, 448, 492 };
+  private static final int[] COLUMN_LENGTHS = { 4, 6, 22, 8 };
+  private static final int[] COLUMN_PRECISIONS = { 10, 11, 20, 19 };
+  private static final int[] COLUMN_SCALES = { 0, 2, 0, 0 };
+  private static final int ROW_SIZE = 40;
+  private static final int BLOCK_SIZE = 32 * 1024;
+
+  private final ConvTable converter_;
+  private volatile byte[] rows_;
+  private volatile int rowCount_;
+
+  SimulatedDatabaseServer()
+  {
+    try
+    {
+      converter_ = ConvTable.getTable(SERVER_CCSID, null);
+    }
+    catch (java.io.UnsupportedEncodingException e)
+    {
+      throw new InternalErrorException(InternalErrorException.UNEXPECTED_EXCEPTION, e);
+    }
+    setRowCount(100);
+  }
+
+  /**
+   * Sets the number of rows that queries return.
+   *
+   * @param rowCount The number of rows.
+   **/
+  void setRowCount(int rowCount)
+  {
+    if (rowCount < 0) throw new ExtendedIllegalArgumentException("rowCount", ExtendedIllegalArgumentException.RANGE_NOT_VALID);
+    AS400PackedDecimal amount = new AS400PackedDecimal(11, 2);
+    byte[] rows = new byte[rowCount * ROW_SIZE];
+    for (int i = 0; i < rowCount; ++i)
+    {
+      int offset = i * ROW_SIZE;
+      BinaryConverter.intToByteArray(i + 1, rows, offset);
+      amount.toBytes(BigDecimal.valueOf((i + 1) * 125L, 2), rows, offset + 4);
+      byte[] name = converter_.stringToByteArray("ROW " + (i + 1));
+      BinaryConverter.unsignedShortToByteArray(name.length, rows, offset + 10);
+      System.arraycopy(name, 0, rows, offset + 12, name.length);
+      BinaryConverter.longToByteArray(1000000000000L + i, rows, offset + 32);
+    }
+    rows_ = rows;
+    rowCount_ = rowCount;
+  }
+
+  public byte[][] reply(byte[] request, Map session) throws IOException
+  {
+    int functionId = getRequestId(request);
+    int ors = BinaryConverter.byteArrayToInt(request, 20);
+    Integer rpb = Integer.valueOf(BinaryConverter.byteArrayToUnsignedShort(request, 34));
+
+    // Remember the statement text of SQL requests.
+    String text = null;
+    if ((functionId & 0xFF00) == 0x1800)
+    {
+      text = statementText(request);
+      if (text != null) session.put(rpb, text);
+      else text = (String)session.get(rpb);
+    }
+    if ((ors & ORS_RETURN_DATA) == 0) return null;
+
+    boolean query = text != null && isQuery(text);
+    boolean open = query && (functionId == OPEN_DESCRIBE || functionId == OPEN_DESCRIBE_FETCH || functionId == EXECUTE_OPEN_DESCRIBE);
+    if (open) session.put("cursor" + rpb, new int[1]);
+
+    // Fetch the rows for this reply.
+    int first = 0;
+    int count = 0;
+    boolean end = false;
+    if (query && (functionId == FETCH || functionId == OPEN_DESCRIBE_FETCH))
+    {
+      int[] cursor = (int[])session.get("cursor" + rpb);
+      if (cursor == null) cursor = new int[1];
+      first = cursor[0];
+      count = Math.max(0, Math.min(rowCount_ - first, BLOCK_SIZE / ROW_SIZE));
+      cursor[0] = first + count;
+      end = cursor[0] >= rowCount_;
+    }
+
+    byte[] serverAttributes = ((ors & ORS_SERVER_ATTRIBUTES) != 0 && functionId == SET_ATTRIBUTES) ? serverAttributes() : null;
+    byte[] dataFormat = ((ors & ORS_DATA_FORMAT) != 0 && query) ? dataFormat(COLUMN_NAMES.length, COLUMN_TYPES, COLUMN_LENGTHS) : null;
+    int markers = (text == null) ? 0 : countMarkers(text);
+    byte[] markerFormat = ((ors & ORS_PARAMETER_MARKER_FORMAT) != 0 && markers > 0) ? markerFormat(markers) : null;
+    byte[] resultData = ((ors & ORS_RESULT_DATA) != 0 && count > 0) ? resultData(first, count) : null;
+    byte[] sqlca = ((ors & ORS_SQLCA) != 0) ? sqlca(end ? 100 : 0, (text != null && !query) ? 1 : 0) : null;
+
+    int length = 40 + size(serverAttributes) + size(dataFormat) + size(markerFormat) + size(resultData) + size(sqlca);
+    byte[] reply = newReply(request, 0x2800, 20, length);
+    BinaryConverter.intToByteArray(ors, reply, 20);
+    BinaryConverter.unsignedShortToByteArray(functionId, reply, 30);
+    if (end)
+    {
+      BinaryConverter.unsignedShortToByteArray(2, reply, 34);
+      BinaryConverter.intToByteArray(700, reply, 36);
+      session.remove("cursor" + rpb);
+    }
+    int offset = 40;
+    if (serverAttributes != null) offset = putParameter(reply, offset, 0x3804, serverAttributes);
+    if (dataFormat != null) offset = putParameter(reply, offset, 0x3812, dataFormat);
+    if (markerFormat != null) offset = putParameter(reply, offset, 0x3813, markerFormat);
+    if (resultData != null) offset = putParameter(reply, offset, 0x380E, resultData);
+    if (sqlca != null) offset = putParameter(reply, offset, 0x3807, sqlca);
+    return new byte[][] { reply };
+  }
+
+  private static int size(byte[] parameter)
+  {
+    return (parameter == null) ? 0 : 6 + parameter.length;
+  }
+
+  // Returns the statement text of an SQL request, or null if it has none.
+  private static String statementText(byte[] request)
+  {
+    try
+    {
+      int offset = findParameter(request, 40, 0x3831);
+      if (offset >= 0)
+      {
+        return ConvTable.getTable(BinaryConverter.byteArrayToUnsignedShort(request, offset + 6), null)
+            .byteArrayToString(request, offset + 12, BinaryConverter.byteArrayToInt(request, offset + 8));
+      }
+      offset = findParameter(request, 40, 0x3807);
+      if (offset >= 0)
+      {
+        return ConvTable.getTable(BinaryConverter.byteArrayToUnsignedShort(request, offset + 6), null)
+            .byteArrayToString(request, offset + 10, BinaryConverter.byteArrayToUnsignedShort(request, offset + 8));
+      }
+    }
+    catch (java.io.UnsupportedEncodingException e)
+    {
+      if (Trace.traceOn_) Trace.log(Trace.ERROR, "Statement text could not be converted.", e);
+    }
+    return null;
+  }
+
+  private static boolean isQuery(String text)
+  {
+    String start = text.trim().toUpperCase();
+    return start.startsWith("SELECT") || start.startsWith("WITH") || start.startsWith("VALUES");
+  }
+
+  private static int countMarkers(String text)
+  {
+    int count = 0;
+    for (int i = text.indexOf('?'); i >= 0; i = text.indexOf('?', i + 1))
+    {
+      ++count;
+    }
+    return count;
+  }
+
+  private byte[] serverAttributes() throws CharConversionException
+  {
+    byte[] attributes = new byte[2 + 126];
+    BinaryConverter.unsignedShortToByteArray(SERVER_CCSID, attributes, 0);
+    int o = 2;
+    BinaryConverter.unsignedShortToByteArray(SERVER_CCSID, attributes, o + 19);
+    converter_.stringToByteArray("ENU", attributes, o + 23);
+    converter_.stringToByteArray("*HEX      ", attributes, o + 26);
+    converter_.stringToByteArray("          ", attributes, o + 36);
+    converter_.stringToByteArray("2924", attributes, o + 46);
+    converter_.stringToByteArray(FUNCTIONAL_LEVEL, attributes, o + 50);
+    converter_.stringToByteArray(pad(HostServerSimulator.SYSTEM_NAME.toUpperCase(), 18), attributes, o + 60);
+    converter_.stringToByteArray(pad("QGPL", 10), attributes, o + 78);
+    byte[] job = HostServerSimulator.jobName(AS400.DATABASE);
+    System.arraycopy(job, 0, attributes, o + 88, job.length);
+    BinaryConverter.unsignedShortToByteArray(4, attributes, o + 114);
+    converter_.stringToByteArray("QGPL", attributes, o + 116);
+    return attributes;
+  }
+
+  private static String pad(String s, int length)
+  {
+    StringBuffer buffer = new StringBuffer(s);
+    while (buffer.length() < length) buffer.append(' ');
+    return buffer.toString();
+  }
+
+  // Returns a super extended data format.
+  private byte[] dataFormat(int count, int[] types, int[] lengths)
+  {
+    byte[][] names = new byte[count][];
+    int size = 16 + count * 48;
+    int recordSize = 0;
+    for (int i = 0; i < count; ++i)
+    {
+      names[i] = converter_.stringToByteArray(types == COLUMN_TYPES ? COLUMN_NAMES[i] : "P" + (i + 1));
+      size += 8 + names[i].length;
+      recordSize += lengths[i];
+    }
+    byte[] format = new byte[size];
+    BinaryConverter.intToByteArray(1, format, 0);
+    BinaryConverter.intToByteArray(count, format, 4);
+    BinaryConverter.intToByteArray(recordSize, format, 12);
+    int variable = 16 + count * 48;
+    for (int i = 0; i < count; ++i)
+    {
+      int entry = 16 + i * 48;
+      BinaryConverter.unsignedShortToByteArray(48, format, entry);
+      BinaryConverter.unsignedShortToByteArray(types[i], format, entry + 2);
+      BinaryConverter.intToByteArray(lengths[i], format, entry + 4);
+      if (types == COLUMN_TYPES)
+      {
+        BinaryConverter.unsignedShortToByteArray(COLUMN_SCALES[i], format, entry + 8);
+        BinaryConverter.unsignedShortToByteArray(COLUMN_PRECISIONS[i], format, entry + 10);
+        BinaryConverter.unsignedShortToByteArray(types[i] == 448 ? SERVER_CCSID : 0, format, entry + 12);
+      }
+      else
+      {
+        BinaryConverter.unsignedShortToByteArray(10, format, entry + 10);
+        format[entry + 14] = (byte)0xF0;  // Input parameter.
+      }
+      BinaryConverter.intToByteArray(variable - entry, format, entry + 32);
+      BinaryConverter.intToByteArray(8 + names[i].length, format, entry + 36);
+      BinaryConverter.intToByteArray(8 + names[i].length, format, variable);
+      BinaryConverter.unsignedShortToByteArray(0x3840, format, variable + 4);
+      BinaryConverter.unsignedShortToByteArray(SERVER_CCSID, format, variable + 6);
+      System.arraycopy(names[i], 0, format, variable + 8, names[i].length);
+      variable += 8 + names[i].length;
+    }
+    return format;
+  }
+
+  private byte[] markerFormat(int count)
+  {
+    int[] types = new int[count];
+    int[] lengths = new int[count];
+    for (int i = 0; i < count; ++i)
+    {
+      types[i] = 496;
+      lengths[i] = 4;
+    }
+    return dataFormat(count, types, lengths);
+  }
+
+  // Returns extended result data for some rows.
+  private byte[] resultData(int first, int count)
+  {
+    int columns = COLUMN_NAMES.length;
+    byte[] data = new byte[20 + count * (columns * 2 + ROW_SIZE)];
+    BinaryConverter.intToByteArray(1, data, 0);
+    BinaryConverter.intToByteArray(count, data, 4);
+    BinaryConverter.unsignedShortToByteArray(columns, data, 8);
+    BinaryConverter.unsignedShortToByteArray(2, data, 10);
+    BinaryConverter.intToByteArray(ROW_SIZE, data, 16);
+    System.arraycopy(rows_, first * ROW_SIZE, data, 20 + count * columns * 2, count * ROW_SIZE);
+    return data;
+  }
+
+  private byte[] sqlca(int sqlCode, int rowsAffected) throws CharConversionException
+  {
+    byte[] sqlca = new byte[136];
+    BinaryConverter.intToByteArray(sqlCode, sqlca, 12);
+    BinaryConverter.intToByteArray(rowsAffected, sqlca, 104);
+    converter_.stringToByteArray(sqlCode == 100 ? "02000" : "00000", sqlca, 131);
+    return sqlca;
+  }
+}
@@ -0,0 +1,204 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: SimulatedFileServer.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The file server script of the {@link HostServerSimulator HostServerSimulator}.
+ * Stream files are kept in memory.  Opening, reading, writing, committing,
+ * closing, and deleting files are simulated; other requests are answered
+ * with a "request not supported" return code.
+ **/
+final class SimulatedFileServer extends HostServerScript
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private static final int DATASTREAM_LEVEL = 16;
+  private static final int MAX_DATA_BLOCK_SIZE = 1024 * 1024;
+
+  // Return codes.
+  private static final int FILE_NOT_FOUND = 2;
+  private static final int DUPLICATE_DIR_ENTRY_NAME = 4;
+  private static final int INVALID_HANDLE = 6;
+  private static final int NO_MORE_DATA = 22;
+  private static final int REQUEST_NOT_SUPPORTED = 23;
+
+  // Maps path names to files.
+  private final Map files_ = new HashMap();
+  private final AtomicInteger nextHandle_ = new AtomicInteger(1);
+
+  // A stream file.
+  private static final class StreamFile
+  {
+    byte[] data_ = new byte[0];
+    int length_;
+  }
+
+  public byte[][] reply(byte[] request, Map session) throws UnsupportedEncodingException
+  {
+    switch (getRequestId(request))
+    {
+      case 0x0016:  // Exchange attributes.
+      {
+        byte[] reply = newReply(request, 0x8009, 10, 38);
+        BinaryConverter.unsignedShortToByteArray(DATASTREAM_LEVEL, reply, 22);
+        BinaryConverter.intToByteArray(MAX_DATA_BLOCK_SIZE, reply, 26);
+        BinaryConverter.intToByteArray(8, reply, 30);
+        BinaryConverter.unsignedShortToByteArray(0x000A, reply, 34);
+        BinaryConverter.unsignedShortToByteArray(1200, reply, 36);
+        return new byte[][] { reply };
+      }
+      case 0x0002:  // Open.
+        return new byte[][] { open(request, session) };
+      case 0x0003:  // Read.
+        return new byte[][] { read(request, session) };
+      case 0x0004:  // Write.
+        return new byte[][] { write(request, session) };
+      case 0x0009:  // Close.
+      {
+        session.remove(Integer.valueOf(BinaryConverter.byteArrayToInt(request, 22)));
+        byte[] reply = newReply(request, 0x8004, 4, 24);
+        return new byte[][] { reply };
+      }
+      case 0x0006:  // Commit.
+        return new byte[][] { returnCode(request, 0) };
+      case 0x000C:  // Delete file.
+      {
+        String path = path(request);
+        Object file;
+        synchronized (files_)
+        {
+          file = files_.remove(path);
+        }
+        return new byte[][] { returnCode(request, file == null ? FILE_NOT_FOUND : 0) };
+      }
+      default:
+        return new byte[][] { returnCode(request, REQUEST_NOT_SUPPORTED) };
+    }
+  }
+
+  private byte[] open(byte[] request, Map session) throws UnsupportedEncodingException
+  {
+    String path = path(request);
+    int option = BinaryConverter.byteArrayToUnsignedShort(request, 36);
+    StreamFile file;
+    int action;
+    synchronized (files_)
+    {
+      file = (StreamFile)files_.get(path);
+      if (file == null)
+      {
+        if (option >= IFSOpenReq.OPEN_OPTION_FAIL_OPEN) return returnCode(request, FILE_NOT_FOUND);
+        file = new StreamFile();
+        files_.put(path, file);
+        action = 2;  // Created.
+      }
+      else
+      {
+        if (option == IFSOpenReq.OPEN_OPTION_CREATE_FAIL) return returnCode(request, DUPLICATE_DIR_ENTRY_NAME);
+        action = 1;  // Opened.
+        if (option == IFSOpenReq.OPEN_OPTION_CREATE_REPLACE || option == IFSOpenReq.OPEN_OPTION_FAIL_REPLACE)
+        {
+          synchronized (file)
+          {
+            file.length_ = 0;
+          }
+          action = 3;  // Replaced.
+        }
+      }
+    }
+    int handle = nextHandle_.getAndIncrement();
+    session.put(Integer.valueOf(handle), file);
+
+    byte[] reply = newReply(request, 0x8002, 77, 97);
+    BinaryConverter.intToByteArray(handle, reply, 22);
+    BinaryConverter.longToByteArray(System.identityHashCode(file), reply, 26);  // File ID.
+    BinaryConverter.unsignedShortToByteArray(0xFFFF, reply, 34);
+    BinaryConverter.unsignedShortToByteArray(action, reply, 36);
+    int seconds = (int)(System.currentTimeMillis() / 1000);
+    BinaryConverter.intToByteArray(seconds, reply, 38);
+    BinaryConverter.intToByteArray(seconds, reply, 46);
+    BinaryConverter.intToByteArray(seconds, reply, 54);
+    synchronized (file)
+    {
+      BinaryConverter.longToByteArray(file.length_, reply, 89);
+    }
+    return reply;
+  }
+
+  private static byte[] read(byte[] request, Map session)
+  {
+    StreamFile file = (StreamFile)session.get(Integer.valueOf(BinaryConverter.byteArrayToInt(request, 22)));
+    if (file == null) return returnCode(request, INVALID_HANDLE);
+    int templateLength = BinaryConverter.byteArrayToUnsignedShort(request, 16);
+    long offset = (templateLength >= 38) ? BinaryConverter.byteArrayToLong(request, 50) : BinaryConverter.byteArrayToInt(request, 30);
+    int length = BinaryConverter.byteArrayToInt(request, 34);
+    synchronized (file)
+    {
+      if (offset >= file.length_) return returnCode(request, NO_MORE_DATA);
+      int count = (int)Math.min(length, file.length_ - offset);
+      byte[] reply = newReply(request, 0x8003, 4, 30 + count);
+      BinaryConverter.unsignedShortToByteArray(0xFFFF, reply, 22);
+      BinaryConverter.intToByteArray(6 + count, reply, 24);
+      BinaryConverter.unsignedShortToByteArray(0x0020, reply, 28);
+      System.arraycopy(file.data_, (int)offset, reply, 30, count);
+      return reply;
+    }
+  }
+
+  private static byte[] write(byte[] request, Map session)
+  {
+    StreamFile file = (StreamFile)session.get(Integer.valueOf(BinaryConverter.byteArrayToInt(request, 22)));
+    if (file == null) return returnCode(request, INVALID_HANDLE);
+    int templateLength = BinaryConverter.byteArrayToUnsignedShort(request, 16);
+    long offset = (templateLength >= 34) ? BinaryConverter.byteArrayToLong(request, 46) : BinaryConverter.byteArrayToInt(request, 30);
+    int dataOffset = 20 + templateLength;
+    int count = BinaryConverter.byteArrayToInt(request, dataOffset) - 6;
+    byte[] reply = newReply(request, 0x800B, 12, 32);
+    synchronized (file)
+    {
+      BinaryConverter.intToByteArray(file.length_, reply, 24);
+      int end = (int)offset + count;
+      if (end > file.data_.length)
+      {
+        byte[] data = new byte[Math.max(end, file.data_.length * 2)];
+        System.arraycopy(file.data_, 0, data, 0, file.length_);
+        file.data_ = data;
+      }
+      System.arraycopy(request, dataOffset + 6, file.data_, (int)offset, count);
+      if (end > file.length_) file.length_ = end;
+    }
+    return reply;
+  }
+
+  // Returns the path name in a request.
+  private static String path(byte[] request) throws UnsupportedEncodingException
+  {
+    int ccsid = BinaryConverter.byteArrayToUnsignedShort(request, 22);
+    int offset = 20 + BinaryConverter.byteArrayToUnsignedShort(request, 16);
+    int length = BinaryConverter.byteArrayToInt(request, offset) - 6;
+    return ConvTable.getTable(ccsid, null).byteArrayToString(request, offset + 6, length);
+  }
+
+  private static byte[] returnCode(byte[] request, int returnCode)
+  {
+    byte[] reply = newReply(request, 0x8001, 4, 24);
+    BinaryConverter.unsignedShortToByteArray(returnCode, reply, 22);
+    return reply;
+  }
+}
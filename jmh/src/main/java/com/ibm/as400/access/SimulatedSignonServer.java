@@ -0,0 +1,86 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: SimulatedSignonServer.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Map;
+
+/**
+ * The sign-on server script of the {@link HostServerSimulator HostServerSimulator}.
+ * It reports a V7R5 system with CCSID 37 and password level 2, and accepts
+ * any user ID and password.
+ **/
+final class SimulatedSignonServer extends HostServerScript
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  static final int VRM = 0x00070500;
+  static final int CCSID = 37;
+
+  public byte[][] reply(byte[] request, Map session)
+  {
+    switch (getRequestId(request))
+    {
+      case 0x7003:  // Exchange attributes.
+      {
+        byte[] job = HostServerSimulator.jobName(AS400.SIGNON);
+        byte[] reply = newReply(request, 0xF003, 4, 63 + 10 + job.length);
+        BinaryConverter.intToByteArray(10, reply, 24);
+        BinaryConverter.unsignedShortToByteArray(0x1101, reply, 28);
+        BinaryConverter.intToByteArray(VRM, reply, 30);
+        BinaryConverter.intToByteArray(8, reply, 34);
+        BinaryConverter.unsignedShortToByteArray(0x1102, reply, 38);
+        BinaryConverter.unsignedShortToByteArray(10, reply, 40);  // Server level.
+        BinaryConverter.intToByteArray(14, reply, 42);
+        BinaryConverter.unsignedShortToByteArray(0x1103, reply, 46);
+        BinaryConverter.longToByteArray(System.nanoTime(), reply, 48);
+        BinaryConverter.intToByteArray(7, reply, 56);
+        BinaryConverter.unsignedShortToByteArray(0x1119, reply, 60);
+        reply[62] = 2;  // Password level.
+        BinaryConverter.intToByteArray(10 + job.length, reply, 63);
+        BinaryConverter.unsignedShortToByteArray(0x111F, reply, 67);
+        BinaryConverter.intToByteArray(CCSID, reply, 69);
+        System.arraycopy(job, 0, reply, 73, job.length);
+        return new byte[][] { reply };
+      }
+      case 0x7004:  // Retrieve sign-on information.
+      {
+        byte[] reply = newReply(request, 0xF004, 4, 24 + 14 + 14 + 10);
+        int offset = putDate(reply, 24, 0x1106);  // Current sign-on date.
+        offset = putDate(reply, offset, 0x1107);  // Last sign-on date.
+        BinaryConverter.intToByteArray(10, reply, offset);
+        BinaryConverter.unsignedShortToByteArray(0x1114, reply, offset + 4);
+        BinaryConverter.intToByteArray(CCSID, reply, offset + 6);
+        return new byte[][] { reply };
+      }
+      default:  // End server, and requests that are not simulated, have no reply.
+        return null;
+    }
+  }
+
+  private static int putDate(byte[] reply, int offset, int codePoint)
+  {
+    GregorianCalendar now = new GregorianCalendar();
+    BinaryConverter.intToByteArray(14, reply, offset);
+    BinaryConverter.unsignedShortToByteArray(codePoint, reply, offset + 4);
+    BinaryConverter.unsignedShortToByteArray(now.get(Calendar.YEAR), reply, offset + 6);
+    reply[offset + 8] = (byte)(now.get(Calendar.MONTH) + 1);
+    reply[offset + 9] = (byte)now.get(Calendar.DAY_OF_MONTH);
+    reply[offset + 10] = (byte)now.get(Calendar.HOUR_OF_DAY);
+    reply[offset + 11] = (byte)now.get(Calendar.MINUTE);
+    reply[offset + 12] = (byte)now.get(Calendar.SECOND);
+    return offset + 14;
+  }
+}
@@ -0,0 +1,83 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: StructureBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures AS400Structure round trips for a structure like a typical
+ * program parameter: binary, text, packed, zoned and floating point members.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StructureBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  private AS400Structure converter_;
+  private Object[] value_;
+  private byte[] bytes_;
+  private byte[] output_;
+
+  @Setup
+  public void setup()
+  {
+    converter_ = new AS400Structure(new AS400DataType[] {
+      new AS400Bin4(),
+      new AS400Text(30, 37),
+      new AS400PackedDecimal(11, 2),
+      new AS400ZonedDecimal(7, 0),
+      new AS400Float8(),
+      new AS400Text(10, 37),
+    });
+    value_ = new Object[] {
+      Integer.valueOf(123456),
+      "Customer name",
+      BenchmarkData.decimal(11, 2, 11),
+      BenchmarkData.decimal(7, 0, 7),
+      Double.valueOf(3.25),
+      "ACTIVE",
+    };
+    bytes_ = converter_.toBytes(value_);
+    output_ = new byte[bytes_.length];
+  }
+
+  @Benchmark
+  public Object toObject()
+  {
+    return converter_.toObject(bytes_, 0);
+  }
+
+  @Benchmark
+  public byte[] toBytes()
+  {
+    converter_.toBytes(value_, output_, 0);
+    return output_;
+  }
+}
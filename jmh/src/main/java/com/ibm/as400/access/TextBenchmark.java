@@ -0,0 +1,77 @@
+///////////////////////////////////////////////////////////////////////////////
+//
+// JTOpen (IBM Toolbox for Java - OSS version)
+//
+// Filename: TextBenchmark.java
+//
+// The source code contained herein is licensed under the IBM Public License
+// Version 1.0, which has been approved by the Open Source Initiative.
+// Copyright (C) 1997-2010 International Business Machines Corporation and
+// others. All rights reserved.
+//
+///////////////////////////////////////////////////////////////////////////////
+
+package com.ibm.as400.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures AS400Text round trips for a single-byte and a double-byte CCSID.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextBenchmark
+{
+  static final String copyright = "Copyright (C) 1997-2010 International Business Machines Corporation and others.";
+
+  @Param({ "37", "300" })
+  public int ccsid;
+
+  @Param({ "10", "256" })
+  public int length;
+
+  private AS400Text converter_;
+  private String value_;
+  private byte[] bytes_;
+  private byte[] output_;
+
+  @Setup
+  public void setup()
+  {
+    converter_ = new AS400Text(length, ccsid);
+    // A double-byte character takes two bytes, and the value fills most of the field.
+    value_ = (ccsid == 37) ? BenchmarkData.text(BenchmarkData.SINGLE_BYTE, length - 2)
+                           : BenchmarkData.text(BenchmarkData.DOUBLE_BYTE, length / 2 - 1);
+    bytes_ = converter_.toBytes(value_);
+    output_ = new byte[bytes_.length];
+  }
+
+  @Benchmark
+  public Object toObject()
+  {
+    return converter_.toObject(bytes_, 0);
+  }
+
+  @Benchmark
+  public byte[] toBytes()
+  {
+    converter_.toBytes(value_, output_, 0);
+    return output_;
+  }
+}